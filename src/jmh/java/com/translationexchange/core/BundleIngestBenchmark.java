@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core;
+
+import com.translationexchange.core.languages.Language;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares loading a translation bundle through {@link TranslationBundleReader} with parsing
+ * the whole bundle first. The bundle repeats the keys of the translation fixtures under new labels.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BundleIngestBenchmark {
+
+  @Param({"100", "1000"})
+  public int keys;
+
+  private Application application;
+
+  private Language language;
+
+  private String bundle;
+
+  /**
+   * <p>setup.</p>
+   */
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setup() {
+    application = Fixtures.loadApplication("ru");
+    language = application.getLanguage("ru");
+
+    Map<String, Object> fixtures = (Map<String, Object>) Fixtures.loadTranslationBundle("ru").get("results");
+    List<Object> translations = new ArrayList<Object>(fixtures.values());
+
+    Map<String, Object> results = new HashMap<String, Object>();
+    for (int i = 0; i < keys; i++)
+      results.put(TranslationKey.generateKey("Label " + i), translations.get(i % translations.size()));
+    bundle = Utils.buildJSON(Utils.map("results", results));
+  }
+
+  /**
+   * <p>streaming.</p>
+   *
+   * @return a int.
+   * @throws java.io.IOException if any.
+   */
+  @Benchmark
+  public int streaming() throws IOException {
+    return application.updateTranslationKeys(language, new StringReader(bundle));
+  }
+
+  /**
+   * <p>parsed.</p>
+   *
+   * @return a {@link com.translationexchange.core.Application} object.
+   */
+  @Benchmark
+  @SuppressWarnings("unchecked")
+  public Application parsed() {
+    application.updateTranslationKeys(language, (Map<String, Object>) Utils.parseJSON(bundle));
+    return application;
+  }
+}
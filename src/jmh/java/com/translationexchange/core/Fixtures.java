@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core;
+
+import com.translationexchange.core.languages.Language;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the benchmark state from the test fixtures in src/test/resources, so that
+ * the benchmarks never touch the network.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public final class Fixtures {
+
+  /**
+   * Translation fixtures that hold lists of keys with their translations; counters.json is left out,
+   * its translations use a context format the SDK no longer reads
+   */
+  public static final String[] TRANSLATIONS = {"basic", "genders"};
+
+  private Fixtures() {
+  }
+
+  /**
+   * Reads a UTF-8 encoded resource from the classpath
+   *
+   * @param resourceName a {@link java.lang.String} object.
+   * @return a {@link java.lang.String} object.
+   */
+  public static String loadResource(String resourceName) {
+    InputStream stream = Fixtures.class.getResourceAsStream(resourceName);
+    if (stream == null)
+      throw new IllegalArgumentException("Missing fixture: " + resourceName);
+
+    try {
+      Reader reader = new InputStreamReader(stream, Utils.UTF_8);
+      try {
+        return Utils.readFully(reader);
+      } finally {
+        reader.close();
+      }
+    } catch (IOException ex) {
+      throw new IllegalStateException("Failed to read fixture: " + resourceName, ex);
+    }
+  }
+
+  /**
+   * <p>loadJSON.</p>
+   *
+   * @param resourceName a {@link java.lang.String} object.
+   * @return a {@link java.lang.Object} object.
+   */
+  public static Object loadJSON(String resourceName) {
+    return Utils.parseJSON(loadResource(resourceName));
+  }
+
+  /**
+   * <p>loadJSONMap.</p>
+   *
+   * @param resourceName a {@link java.lang.String} object.
+   * @return a {@link java.util.Map} object.
+   */
+  @SuppressWarnings("unchecked")
+  public static Map<String, Object> loadJSONMap(String resourceName) {
+    return (Map<String, Object>) loadJSON(resourceName);
+  }
+
+  /**
+   * Converts the translation fixtures of a locale into a bundle, {"results": {"key": [{translation}, ...]}},
+   * the way the CDN serves them
+   *
+   * @param locale a {@link java.lang.String} object.
+   * @return a {@link java.util.Map} object.
+   */
+  @SuppressWarnings("unchecked")
+  public static Map<String, Object> loadTranslationBundle(String locale) {
+    Map<String, Object> results = new HashMap<String, Object>();
+    for (String name : TRANSLATIONS) {
+      for (Object item : (List<Object>) loadJSON("/translations/" + locale + "/" + name + ".json")) {
+        Map<String, Object> data = (Map<String, Object>) item;
+        Map<String, Object> translations = (Map<String, Object>) data.get("translations");
+        String key = TranslationKey.generateKey((String) data.get("label"), (String) data.get("description"));
+        results.put(key, new ArrayList<Object>((List<Object>) translations.get(locale)));
+      }
+    }
+    return Utils.map("results", results);
+  }
+
+  /**
+   * Returns an application defined by foody.json, with the language definition from languages/
+   * and the "index" source loaded from the translation fixtures of the locale
+   *
+   * @param locale a {@link java.lang.String} object.
+   * @return a {@link com.translationexchange.core.Application} object.
+   */
+  public static Application loadApplication(String locale) {
+    Application application = new Application(loadJSONMap("/foody.json"));
+    application.addLanguage(new Language(loadJSONMap("/languages/" + locale + ".json")));
+
+    Source source = new Source(Utils.map("application", application, "key", "index", "locale", locale));
+    source.updateTranslationKeys(loadTranslationBundle(locale));
+    source.setLoaded(true);
+    application.addSource(source);
+    return application;
+  }
+
+  /**
+   * Starts a session in the locale and makes it the current Tml session
+   *
+   * @param locale a {@link java.lang.String} object.
+   * @return a {@link com.translationexchange.core.Session} object.
+   */
+  public static Session startSession(String locale) {
+    Application application = loadApplication(locale);
+    Session session = new Session(application, Utils.map("locale", locale));
+    application.setSession(session);
+    Tml.setSession(session);
+    return session;
+  }
+}
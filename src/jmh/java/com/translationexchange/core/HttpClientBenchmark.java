@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Reader;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading a gzipped JSON response, foody.json served by a local MockWebServer, into text and into JSON.
+ * The server runs in the benchmark JVM, so its allocations are part of the reported bytes per operation.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpClientBenchmark {
+
+  private MockWebServer server;
+
+  private HttpClient httpClient;
+
+  private URL url;
+
+  private Map<String, Object> options;
+
+  /**
+   * <p>setup.</p>
+   *
+   * @throws java.lang.Exception if any.
+   */
+  @Setup
+  public void setup() throws Exception {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    GZIPOutputStream gzip = new GZIPOutputStream(buffer);
+    gzip.write(Fixtures.loadResource("/foody.json").getBytes(Utils.UTF_8));
+    gzip.close();
+    final byte[] body = buffer.toByteArray();
+
+    server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      public MockResponse dispatch(RecordedRequest request) {
+        return new MockResponse()
+            .addHeader("Content-Type", "application/json; charset=utf-8")
+            .addHeader("Content-Encoding", "gzip")
+            .setBody(new Buffer().write(body));
+      }
+    });
+    server.start();
+
+    httpClient = new HttpClient(new Application());
+    url = server.url("/application.json").url();
+    options = Utils.map();
+  }
+
+  /**
+   * <p>tearDown.</p>
+   *
+   * @throws java.lang.Exception if any.
+   */
+  @TearDown
+  public void tearDown() throws Exception {
+    server.shutdown();
+  }
+
+  /**
+   * <p>text.</p>
+   *
+   * @return a {@link java.lang.String} object.
+   * @throws java.lang.Exception if any.
+   */
+  @Benchmark
+  public String text() throws Exception {
+    return httpClient.get(url, options);
+  }
+
+  /**
+   * <p>bufferedJSON.</p>
+   *
+   * @return a {@link java.lang.Object} object.
+   * @throws java.lang.Exception if any.
+   */
+  @Benchmark
+  public Object bufferedJSON() throws Exception {
+    return Utils.parseJSON(httpClient.get(url, options));
+  }
+
+  /**
+   * <p>streamedJSON.</p>
+   *
+   * @return a {@link java.lang.Object} object.
+   * @throws java.lang.Exception if any.
+   */
+  @Benchmark
+  public Object streamedJSON() throws Exception {
+    Reader reader = httpClient.openReader(url, options);
+    try {
+      return Utils.readJSON(reader);
+    } finally {
+      reader.close();
+    }
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Tml#translate} for every kind of label, translated into Russian by the fixtures.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TranslateBenchmark {
+
+  private static final String CASE_LABEL = "Message from {user}";
+
+  private static final String PIPED_LABEL = "You have {count||message}";
+
+  private Map<String, Object> userTokens;
+
+  private Map<String, Object> countTokens;
+
+  private Map<String, Object> actorTokens;
+
+  /**
+   * <p>setup.</p>
+   */
+  @Setup
+  public void setup() {
+    Session session = Fixtures.startSession("ru");
+
+    Source source = session.getApplication().getSource("index", "ru", null);
+    source.updateTranslationKey(TranslationKey.generateKey(CASE_LABEL),
+        Collections.singletonList(Utils.map("label", "Сообщение от {user::gen}")));
+    source.updateTranslationKey(TranslationKey.generateKey(PIPED_LABEL),
+        Collections.singletonList(Utils.map("label", "У вас {count||сообщение, сообщения, сообщений}")));
+
+    userTokens = Utils.map("user", "Анна");
+    countTokens = Utils.map("count", 5);
+    actorTokens = Utils.map(
+        "actor", Utils.map("object", Utils.map("gender", "female", "name", "Анна"), "attribute", "name"),
+        "count", 3
+    );
+  }
+
+  /**
+   * <p>plainLabel.</p>
+   *
+   * @return a {@link java.lang.String} object.
+   */
+  @Benchmark
+  public String plainLabel() {
+    return Tml.translate("Hello World");
+  }
+
+  /**
+   * <p>missingLabel.</p>
+   *
+   * @return a {@link java.lang.String} object.
+   */
+  @Benchmark
+  public String missingLabel() {
+    return Tml.translate("Welcome back");
+  }
+
+  /**
+   * <p>dataToken.</p>
+   *
+   * @return a {@link java.lang.String} object.
+   */
+  @Benchmark
+  public String dataToken() {
+    return Tml.translate("Hello {user}", userTokens);
+  }
+
+  /**
+   * <p>contextToken.</p>
+   *
+   * @return a {@link java.lang.String} object.
+   */
+  @Benchmark
+  public String contextToken() {
+    return Tml.translate("{actor} gives you {count||apple}.", actorTokens);
+  }
+
+  /**
+   * <p>caseToken.</p>
+   *
+   * @return a {@link java.lang.String} object.
+   */
+  @Benchmark
+  public String caseToken() {
+    return Tml.translate(CASE_LABEL, userTokens);
+  }
+
+  /**
+   * <p>pipedToken.</p>
+   *
+   * @return a {@link java.lang.String} object.
+   */
+  @Benchmark
+  public String pipedToken() {
+    return Tml.translate(PIPED_LABEL, countTokens);
+  }
+
+  /**
+   * <p>decorationToken.</p>
+   *
+   * @return a {@link java.lang.String} object.
+   */
+  @Benchmark
+  public String decorationToken() {
+    return Tml.translate("Hello [i: {user}]", userTokens);
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.cache;
+
+import com.translationexchange.core.Fixtures;
+import com.translationexchange.core.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long a new cache takes to fetch every source of a release, as on application start:
+ * one file per key with {@link FileCache} against a single pack with {@link PackedFileCache}.
+ * The files stay in the page cache of the OS, so only the work of the JVM is measured.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheColdStartBenchmark {
+
+  @Param({"200"})
+  public int keys;
+
+  private File directory;
+
+  private Map<String, Object> options;
+
+  /**
+   * <p>setup.</p>
+   *
+   * @throws java.io.IOException if any.
+   */
+  @Setup
+  public void setup() throws IOException {
+    directory = File.createTempFile("tml-cache", "");
+    directory.delete();
+
+    options = Utils.map(CacheVersion.VERSION_KEY, "1");
+    String bundle = Utils.buildJSON(Fixtures.loadTranslationBundle("ru"));
+
+    FileCache fileCache = newFileCache();
+    PackedFileCache packedFileCache = newPackedFileCache();
+    for (int i = 0; i < keys; i++) {
+      fileCache.store(key(i), bundle, options);
+      packedFileCache.store(key(i), bundle, options);
+    }
+    packedFileCache.reset();
+  }
+
+  /**
+   * <p>tearDown.</p>
+   */
+  @TearDown
+  public void tearDown() {
+    delete(directory);
+  }
+
+  /**
+   * <p>fileCache.</p>
+   *
+   * @return a int.
+   */
+  @Benchmark
+  public int fileCache() {
+    return fetchAll(newFileCache());
+  }
+
+  /**
+   * <p>packedFileCache.</p>
+   *
+   * @return a int.
+   */
+  @Benchmark
+  public int packedFileCache() {
+    PackedFileCache cache = newPackedFileCache();
+    try {
+      return fetchAll(cache);
+    } finally {
+      cache.reset();
+    }
+  }
+
+  private FileCache newFileCache() {
+    return new FileCache(Utils.map("path", new File(directory, "files").getAbsolutePath()));
+  }
+
+  private PackedFileCache newPackedFileCache() {
+    return new PackedFileCache(Utils.map("path", new File(directory, "packs").getAbsolutePath()));
+  }
+
+  private int fetchAll(Cache cache) {
+    int length = 0;
+    for (int i = 0; i < keys; i++)
+      length += ((String) cache.fetch(key(i), options)).length();
+    return length;
+  }
+
+  private static String key(int index) {
+    return "sources/views/" + index;
+  }
+
+  private static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children)
+        delete(child);
+    }
+    file.delete();
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.tokenizers;
+
+import com.translationexchange.core.Tml;
+import com.translationexchange.core.tokens.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the single pass {@link DataTokenScanner} with the original extraction of data tokens,
+ * one regular expression pass per token class.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataTokenScanBenchmark {
+
+  private static final String LABEL = "{actor} gives {target::dat} {count||apple, apples} and {user.name} sent {gift:gift}";
+
+  private DataTokenScanner scanner;
+
+  /**
+   * <p>setup.</p>
+   *
+   * @throws java.lang.Exception if any.
+   */
+  @Setup
+  public void setup() throws Exception {
+    scanner = DataTokenScanner.forTokenClasses(Tml.getConfig().getTokenClasses());
+  }
+
+  /**
+   * <p>scanner.</p>
+   *
+   * @return a {@link java.util.List} object.
+   * @throws java.lang.Exception if any.
+   */
+  @Benchmark
+  public List<Token> scanner() throws Exception {
+    return scanner.scan(LABEL);
+  }
+
+  /**
+   * <p>sequential.</p>
+   *
+   * @return a {@link java.util.List} object.
+   * @throws java.lang.Exception if any.
+   */
+  @Benchmark
+  public List<Token> sequential() throws Exception {
+    List<Token> tokens = new ArrayList<Token>();
+    List<String> tokenMatches = new ArrayList<String>();
+    String matchingLabel = LABEL;
+    for (String className : Tml.getConfig().getTokenClasses()) {
+      Class<?> tokenClass = Class.forName(className);
+      Pattern pattern = Pattern.compile((String) tokenClass.getMethod("getExpression").invoke(null));
+      Matcher matcher = pattern.matcher(matchingLabel);
+      while (matcher.find()) {
+        String match = matcher.group();
+        if (tokenMatches.contains(match))
+          continue;
+        tokenMatches.add(match);
+        tokens.add((Token) tokenClass.getConstructor(String.class, String.class).newInstance(match, LABEL));
+        matchingLabel = matchingLabel.replaceAll(Pattern.quote(match), "");
+      }
+    }
+    return tokens;
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.tokenizers;
+
+import com.translationexchange.core.Fixtures;
+import com.translationexchange.core.Session;
+import com.translationexchange.core.Tml;
+import com.translationexchange.core.TranslationKey;
+import com.translationexchange.core.Utils;
+
+import java.text.AttributedCharacterIterator;
+import java.text.AttributedString;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link StyledTokenizer} on its own and through {@link Session#translateStyledString},
+ * using an {@link java.text.AttributedString} tokenizer like the one of the Swing SDK.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StyledTokenizerBenchmark {
+
+  private static final String LABEL = "Hello [i: {user}], you have [bold: new messages]";
+
+  private Session session;
+
+  private StyledTokenizer tokenizer;
+
+  private Map<String, Object> tokens;
+
+  /**
+   * <p>setup.</p>
+   */
+  @Setup
+  public void setup() {
+    session = Fixtures.startSession("ru");
+    Tml.getConfig().addTokenizerClass(TranslationKey.DEFAULT_TOKENIZERS_STYLED, AttributedStringTokenizer.FACTORY);
+
+    tokenizer = new AttributedStringTokenizer(LABEL, null);
+    tokens = Utils.map(
+        "user", "Анна",
+        "i", Utils.map("posture", "oblique"),
+        "bold", Utils.map("weight", "bold", "color", "red")
+    );
+  }
+
+  /**
+   * <p>substitute.</p>
+   *
+   * @return a {@link java.lang.Object} object.
+   */
+  @Benchmark
+  public Object substitute() {
+    return tokenizer.substitute(tokens, session.getCurrentLanguage(), Utils.map());
+  }
+
+  /**
+   * <p>translateStyledString.</p>
+   *
+   * @return a {@link java.lang.Object} object.
+   */
+  @Benchmark
+  public Object translateStyledString() {
+    return session.translateStyledString("Hello [i: {user}]", tokens);
+  }
+
+  /**
+   * Styled tokenizer that builds an {@link java.text.AttributedString}, with a text attribute per style name
+   */
+  static class AttributedStringTokenizer extends StyledTokenizer {
+
+    static final TokenizerFactory FACTORY = new TokenizerFactory() {
+      public boolean isApplicable(String label) {
+        return DecorationTokenizer.isApplicable(label);
+      }
+
+      public Tokenizer createTokenizer(String label, List<String> allowedTokenNames) {
+        return new AttributedStringTokenizer(label, allowedTokenNames);
+      }
+    };
+
+    AttributedStringTokenizer(String label, List<String> allowedTokenNames) {
+      super(label, allowedTokenNames);
+    }
+
+    protected Object createStyledString(String label) {
+      return new AttributedString(label);
+    }
+
+    protected void applyStyles(Object styledString, Map<String, Object> styles, List<Map<String, Object>> ranges) {
+      AttributedString string = (AttributedString) styledString;
+      for (Map<String, Object> range : ranges) {
+        int origin = (Integer) range.get(ATTRIBUTE_RANGE_ORIGIN);
+        int length = (Integer) range.get(ATTRIBUTE_RANGE_LENGTH);
+        if (length == 0)
+          continue;
+
+        for (Map.Entry<String, Object> style : styles.entrySet()) {
+          string.addAttribute(new Style(style.getKey()), style.getValue(), origin, origin + length);
+        }
+      }
+    }
+  }
+
+  /**
+   * Text attribute named after a style
+   */
+  static class Style extends AttributedCharacterIterator.Attribute {
+    Style(String name) {
+      super(name);
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.tokenizers;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the ways a tokenizer can be created for a label: the factory of the tokenizer,
+ * the reflective factory used for configured class names and a class lookup on every call.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenizerFactoryBenchmark {
+
+  private static final String LABEL = "Hello {user}, you have {count||message}";
+
+  private TokenizerFactory reflectiveFactory;
+
+  /**
+   * <p>setup.</p>
+   *
+   * @throws java.lang.Exception if any.
+   */
+  @Setup
+  public void setup() throws Exception {
+    reflectiveFactory = ReflectiveTokenizerFactory.forClassName(DataTokenizer.class.getName());
+  }
+
+  /**
+   * <p>factory.</p>
+   *
+   * @return a {@link com.translationexchange.core.tokenizers.Tokenizer} object.
+   */
+  @Benchmark
+  public Tokenizer factory() {
+    if (!DataTokenizer.FACTORY.isApplicable(LABEL))
+      return null;
+    return DataTokenizer.FACTORY.createTokenizer(LABEL, null);
+  }
+
+  /**
+   * <p>reflectiveFactory.</p>
+   *
+   * @return a {@link com.translationexchange.core.tokenizers.Tokenizer} object.
+   */
+  @Benchmark
+  public Tokenizer reflectiveFactory() {
+    if (!reflectiveFactory.isApplicable(LABEL))
+      return null;
+    return reflectiveFactory.createTokenizer(LABEL, null);
+  }
+
+  /**
+   * Looks the tokenizer class up by name on every call, the way tokenizers were created before factories
+   *
+   * @return a {@link com.translationexchange.core.tokenizers.Tokenizer} object.
+   * @throws java.lang.Exception if any.
+   */
+  @Benchmark
+  public Tokenizer classForName() throws Exception {
+    Class<?> tokenizerClass = Class.forName(DataTokenizer.class.getName());
+    Method isApplicable = tokenizerClass.getMethod("isApplicable", String.class);
+    if (!((Boolean) isApplicable.invoke(null, LABEL)))
+      return null;
+    return (Tokenizer) tokenizerClass.getConstructor(String.class, List.class).newInstance(LABEL, null);
+  }
+}
@@ -38,11 +38,23 @@ import com.translationexchange.core.cache.CacheVersion;
 import com.translationexchange.core.languages.Language;
 import com.translationexchange.core.tools.Tools;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class Application extends Base {
   /**
@@ -147,22 +159,31 @@ public class Application extends Base {
   /**
    * Languages by locale
    */
-  private Map<String, Language> languagesByLocales;
+  private volatile ConcurrentMap<String, Language> languagesByLocales;
 
   /**
-   * Sources by keys
+   * Sources and translation keys, replaced as a whole when translations are reset or reloaded
    */
-  private Map<String, Source> sourcesByKeys;
+  private volatile TranslationStore translationStore;
 
   /**
-   * Application Translation keys
+   * Missing translation keys
    */
-  private Map<String, TranslationKey> translationKeys;
+  private volatile MissingKeyCollector missingKeyCollector;
 
   /**
-   * Missing translation keys
+   * Missing translation keys by sources
+   *
+   * @deprecated use {@link #getMissingKeyCollector()}. This is a view of the collector: keys put into it
+   * are collected, and the maps read from it are copies.
    */
-  protected Map<String, Map<String, TranslationKey>> missingTranslationKeysBySources;
+  @Deprecated
+  protected Map<String, Map<String, TranslationKey>> missingTranslationKeysBySources = new MissingKeysView();
+
+  /**
+   * Cache version the application is pinned to, by default the version of the cache is used
+   */
+  private volatile CacheVersion cacheVersion;
 
   /**
    * API Client
@@ -493,22 +514,57 @@ public class Application extends Base {
           params,
           Utils.map("cache_key", "application")
       );
-      if (data == null || data.isEmpty()) {
-        setDefaultLocale(Tml.getConfig().getDefaultLocale());
-        addLanguage(Tml.getConfig().getDefaultLanguage());
-        Tml.getLogger().debug("No release has been published or no cache has been provided");
-        setLoaded(false);
-      } else {
-        updateAttributes(data);
-        setLoaded(true);
-      }
+      updateDefinition(data);
     } catch (Exception ex) {
-      setLoaded(false);
+      loadFailed(ex);
+    }
+  }
+
+  /**
+   * Loads application in the background, the returned future completes once the definition has been applied
+   *
+   * @param params Options for loading application
+   * @return a {@link java.util.concurrent.Future} object.
+   */
+  public Future<Map<String, Object>> loadAsync(Map<String, Object> params) {
+    Tml.getLogger().debug("Loading application in the background...");
+    return getHttpClient().getJSONAsync("projects/" + getKey() + "/definition",
+        params,
+        Utils.map("cache_key", "application"),
+        new HttpCallback<Map<String, Object>>() {
+          public void onSuccess(Map<String, Object> data) {
+            try {
+              updateDefinition(data);
+            } catch (Exception ex) {
+              loadFailed(ex);
+            }
+          }
+
+          public void onFailure(Exception ex) {
+            loadFailed(ex);
+          }
+        }
+    );
+  }
+
+  private void updateDefinition(Map<String, Object> data) {
+    if (data == null || data.isEmpty()) {
+      setDefaultLocale(Tml.getConfig().getDefaultLocale());
       addLanguage(Tml.getConfig().getDefaultLanguage());
-      Tml.getLogger().logException("Failed to load application", ex);
+      Tml.getLogger().debug("No release has been published or no cache has been provided");
+      setLoaded(false);
+    } else {
+      updateAttributes(data);
+      setLoaded(true);
     }
   }
 
+  private void loadFailed(Exception ex) {
+    setLoaded(false);
+    addLanguage(Tml.getConfig().getDefaultLanguage());
+    Tml.getLogger().logException("Failed to load application", ex);
+  }
+
   /**
    * Loads application from the service
    */
@@ -538,8 +594,10 @@ public class Application extends Base {
 
         Language language = getLanguagesByLocale().get(locale);
         if (language == null) {
-          language = new Language(Utils.map("application", this));
-          getLanguagesByLocale().put(locale, language);
+          Language created = new Language(Utils.map("application", this));
+          language = getConcurrentLanguagesByLocale().putIfAbsent(locale, created);
+          if (language == null)
+            language = created;
         }
         language.updateAttributes(data);
         language.setLoaded(true);
@@ -555,8 +613,10 @@ public class Application extends Base {
         Map<String, Object> data = (Map<String, Object>) entry.getValue();
         Source source = getSourcesByKeys().get(key);
         if (source == null) {
-          source = new Source(Utils.map("application", this, "key", key, "locale", sourceLocale));
-          getSourcesByKeys().put(key, source);
+          Source created = new Source(Utils.map("application", this, "key", key, "locale", sourceLocale));
+          source = getTranslationStore().sourcesByKeys.putIfAbsent(key, created);
+          if (source == null)
+            source = created;
         }
         source.updateTranslationKeys(data);
         source.setLoaded(true);
@@ -602,9 +662,28 @@ public class Application extends Base {
   /**
    * Resets cached translation keys for the application scope
    */
-  public void resetTranslations() {
-    this.translationKeys = null;
-    this.sourcesByKeys = null;
+  public synchronized void resetTranslations() {
+    this.translationStore = new TranslationStore(
+        new ConcurrentHashMap<String, TranslationKey>(),
+        new ConcurrentHashMap<String, Source>()
+    );
+  }
+
+  /**
+   * Returns the current snapshot of sources and translation keys
+   *
+   * @return a {@link com.translationexchange.core.Application.TranslationStore} object.
+   */
+  private TranslationStore getTranslationStore() {
+    TranslationStore store = this.translationStore;
+    if (store == null) {
+      synchronized (this) {
+        if (this.translationStore == null)
+          resetTranslations();
+        store = this.translationStore;
+      }
+    }
+    return store;
   }
 
   /**
@@ -628,42 +707,55 @@ public class Application extends Base {
     if (data == null || data.isEmpty()) {
       return;
     }
+
+    TranslationKeysHandler handler = new TranslationKeysHandler(language);
     Iterator entries = ((Map) data.get("results")).entrySet().iterator();
     while (entries.hasNext()) {
       Map.Entry entry = (Map.Entry) entries.next();
-      String key = (String) entry.getKey();
-      List<Map<String, Object>> keyTranslations = (List<Map<String, Object>>) entry.getValue();
-
-      TranslationKey tkey = getTranslationKey(key);
-
-      if (tkey == null) {
-        tkey = new TranslationKey(key);
-        tkey.setLocale(getDefaultLocale());
-        addTranslationKey(tkey);
-      }
-
-      List<Translation> translations = new ArrayList<Translation>();
-      for (Map<String, Object> translationData : (List<Map<String, Object>>) keyTranslations) {
-        Translation translation = new Translation(translationData);
-        String locale = (String) translationData.get("locale");
-
-        if (locale == null)
-          locale = language.getLocale();
+      handler.onTranslationKey((String) entry.getKey(), (List<Map<String, Object>>) entry.getValue());
+    }
+    publishTranslationKeys(handler);
+  }
 
-        translation.setLanguage(getLanguage(locale));
+  /**
+   * Reads a translation bundle and builds its keys while it is being parsed
+   *
+   * @param language a {@link com.translationexchange.core.languages.Language} object.
+   * @param reader   a {@link java.io.Reader} object.
+   * @return number of keys read
+   * @throws java.io.IOException if the bundle can not be read.
+   */
+  public int updateTranslationKeys(Language language, Reader reader) throws IOException {
+    TranslationKeysHandler handler = new TranslationKeysHandler(language);
+    int count = new TranslationBundleReader(handler).read(reader);
+    publishTranslationKeys(handler);
+    return count;
+  }
 
-        if (tkey.getLabel() == null || tkey.getLabel().equals("")) {
-          tkey.setLabel(translation.getLabel());
-        }
+  /**
+   * Publishes the keys built by a handler into the translation keys of the application. Keys the
+   * application already has receive the translations of the bundle's locale, the others are added.
+   *
+   * @param handler
+   */
+  private void publishTranslationKeys(TranslationKeysHandler handler) {
+    Map<String, TranslationKey> loadedKeys = handler.translationKeys;
+    if (loadedKeys.isEmpty())
+      return;
 
-        translations.add(translation);
-      }
-      tkey.setTranslations(language.getLocale(), translations);
-      addTranslationKey(tkey);
+    ConcurrentMap<String, TranslationKey> translationKeys = getTranslationKeys();
+    String locale = handler.language.getLocale();
+    for (TranslationKey loadedKey : loadedKeys.values()) {
+      loadedKey.setApplication(this);
+      TranslationKey publishedKey = translationKeys.putIfAbsent(loadedKey.getKey(), loadedKey);
+      if (publishedKey == null)
+        continue;
+      if (publishedKey.getLabel() == null || publishedKey.getLabel().equals(""))
+        publishedKey.setLabel(loadedKey.getLabel());
+      publishedKey.setTranslations(locale, loadedKey.getTranslations(locale));
     }
   }
 
-
   /**
    * Loads translations from the service for a given language and caches them in the application
    *
@@ -671,30 +763,86 @@ public class Application extends Base {
    */
   public void loadTranslations(Language language) {
     try {
-      this.updateTranslationKeys(language, getHttpClient().getJSONMap("projects/" + getKey() + "/translations",
+      TranslationKeysHandler handler = new TranslationKeysHandler(language);
+      boolean loaded = getHttpClient().readTranslationBundle("projects/" + getKey() + "/translations",
           Utils.map("all", "true", "locale", language.getLocale()),
-          Utils.map("cache_key", getTranslationsCacheKey(language.getLocale()))
-      ));
+          Utils.map("cache_key", getTranslationsCacheKey(language.getLocale())),
+          handler
+      );
+      if (loaded)
+        publishTranslationKeys(handler);
     } catch (Exception ex) {
       Tml.getLogger().logException(ex);
     }
   }
 
+  /**
+   * Loads all languages of the application with their translations and the published sources
+   * in parallel, and waits for them
+   *
+   * @return a {@link com.translationexchange.core.Preloader.Report} object.
+   * @throws java.lang.InterruptedException if the calling thread is interrupted.
+   */
+  public Preloader.Report preload() throws InterruptedException {
+    return preload(null, null, null);
+  }
+
+  /**
+   * Loads languages with their translations and sources in parallel, and waits for them
+   *
+   * @param locales    locales to load, null for all languages of the application
+   * @param sourceKeys sources to load, null for the sources published with the application
+   * @param listener   optional {@link com.translationexchange.core.Preloader.Listener} notified after each load
+   * @return a {@link com.translationexchange.core.Preloader.Report} object.
+   * @throws java.lang.InterruptedException if the calling thread is interrupted.
+   */
+  public Preloader.Report preload(List<String> locales, List<String> sourceKeys, Preloader.Listener listener) throws InterruptedException {
+    return new Preloader(this).setListener(listener).preload(locales, sourceKeys);
+  }
+
   public void loadTranslationsLocal(Language language, String cacheVersion) {
     try {
-      updateTranslationKeys(language, getHttpClient().getJSONMap(Utils.map("cache_key", getTranslationsCacheKey(language.getLocale()), CacheVersion.VERSION_KEY, cacheVersion)));
+      TranslationKeysHandler handler = new TranslationKeysHandler(language);
+      if (getHttpClient().readTranslationBundle(Utils.map("cache_key", getTranslationsCacheKey(language.getLocale()), CacheVersion.VERSION_KEY, cacheVersion), handler))
+        publishTranslationKeys(handler);
     } catch (Exception ex) {
       Tml.getLogger().logException(ex);
     }
   }
 
   /**
+   * Returns a copy of the missing translation keys by sources
+   *
    * @return
    */
   public Map<String, Map<String, TranslationKey>> getMissingTranslationKeysBySources() {
-    if (missingTranslationKeysBySources == null)
-      missingTranslationKeysBySources = new HashMap<String, Map<String, TranslationKey>>();
-    return missingTranslationKeysBySources;
+    return getMissingKeyCollector().snapshot();
+  }
+
+  /**
+   * Returns the collector of missing translation keys
+   *
+   * @return a {@link com.translationexchange.core.MissingKeyCollector} object.
+   */
+  public MissingKeyCollector getMissingKeyCollector() {
+    MissingKeyCollector collector = this.missingKeyCollector;
+    if (collector == null) {
+      synchronized (this) {
+        if (this.missingKeyCollector == null)
+          this.missingKeyCollector = new MissingKeyCollector();
+        collector = this.missingKeyCollector;
+      }
+    }
+    return collector;
+  }
+
+  /**
+   * Replaces the collector of missing translation keys, for example to change its capacity or overflow policy
+   *
+   * @param missingKeyCollector a {@link com.translationexchange.core.MissingKeyCollector} object.
+   */
+  public void setMissingKeyCollector(MissingKeyCollector missingKeyCollector) {
+    this.missingKeyCollector = missingKeyCollector;
   }
 
   /**
@@ -702,8 +850,8 @@ public class Application extends Base {
    *
    * @param translationKey a {@link com.translationexchange.core.TranslationKey} object.
    */
-  public synchronized void registerMissingTranslationKey(TranslationKey translationKey) {
-    registerMissingTranslationKey(translationKey, "undefined");
+  public void registerMissingTranslationKey(TranslationKey translationKey) {
+    registerMissingTranslationKey(translationKey, UNDEFINED_SOURCE);
   }
 
   /**
@@ -712,59 +860,36 @@ public class Application extends Base {
    * @param translationKey a {@link com.translationexchange.core.TranslationKey} object.
    * @param sourceKey      a {@link java.lang.String} object.
    */
-  public synchronized void registerMissingTranslationKey(TranslationKey translationKey, String sourceKey) {
+  public void registerMissingTranslationKey(TranslationKey translationKey, String sourceKey) {
     if (!isKeyRegistrationEnabled())
       return;
 
-    Map<String, TranslationKey> translationKeys = getMissingTranslationKeysBySources().get(sourceKey);
-    if (translationKeys == null) {
-      translationKeys = new HashMap<String, TranslationKey>();
-      getMissingTranslationKeysBySources().put(sourceKey, translationKeys);
-    }
-
-    if (translationKeys.get(translationKey.getKey()) == null) {
-      translationKeys.put(translationKey.getKey(), translationKey);
-    }
+    getMissingKeyCollector().add(sourceKey, translationKey);
   }
 
   /**
-   * Submits missing translations keys to the server
+   * Submits missing translations keys to the server.
+   * The keys are drained from the collector first, so no lock is held while they are being sent.
    */
-  public synchronized void submitMissingTranslationKeys() {
-    if (getMissingTranslationKeysBySources().size() == 0) {
+  public void submitMissingTranslationKeys() {
+    Map<String, List<TranslationKey>> keysBySources = getMissingKeyCollector().drain();
+    if (keysBySources.isEmpty()) {
       return;
     }
-//        if (!isKeyRegistrationEnabled() || getMissingTranslationKeysBySources().size() == 0)
-//            return;
 
     Tml.getLogger().debug("Submitting missing translation keys...");
 
     List<Map<String, Object>> params = new ArrayList<Map<String, Object>>();
-
-    List<String> sourceKeys = new ArrayList<String>();
-
-    Iterator<Map.Entry<String, Map<String, TranslationKey>>> entries = missingTranslationKeysBySources.entrySet().iterator();
-    while (entries.hasNext()) {
-      Map.Entry<String, Map<String, TranslationKey>> entry = entries.next();
-      String source = entry.getKey();
-
-      if (!sourceKeys.contains(source))
-        sourceKeys.add(source);
-
-      Map<String, TranslationKey> translationKeys = entry.getValue();
+    for (Map.Entry<String, List<TranslationKey>> entry : keysBySources.entrySet()) {
       List<Object> keys = new ArrayList<Object>();
-
-      for (Object object : translationKeys.values()) {
-        TranslationKey translationKey = (TranslationKey) object;
+      for (TranslationKey translationKey : entry.getValue()) {
         keys.add(translationKey.toMap());
       }
 
-      params.add(Utils.map("source", source, "keys", keys));
+      params.add(Utils.map("source", entry.getKey(), "keys", keys));
     }
 
     registerKeys(Utils.map("source_keys", Utils.buildJSON(params), "app_id", getKey()));
-
-    this.missingTranslationKeysBySources.clear();
   }
 
   /**
@@ -812,9 +937,19 @@ public class Application extends Base {
    * @return a {@link java.util.Map} object.
    */
   protected Map<String, Language> getLanguagesByLocale() {
-    if (languagesByLocales == null)
-      languagesByLocales = new HashMap<String, Language>();
-    return languagesByLocales;
+    return getConcurrentLanguagesByLocale();
+  }
+
+  private ConcurrentMap<String, Language> getConcurrentLanguagesByLocale() {
+    ConcurrentMap<String, Language> languages = this.languagesByLocales;
+    if (languages == null) {
+      synchronized (this) {
+        if (this.languagesByLocales == null)
+          this.languagesByLocales = new ConcurrentHashMap<String, Language>();
+        languages = this.languagesByLocales;
+      }
+    }
+    return languages;
   }
 
   /**
@@ -824,28 +959,77 @@ public class Application extends Base {
    * @return a {@link com.translationexchange.core.languages.Language} object.
    */
   public Language getLanguage(String locale) {
-    if (getLanguagesByLocale().get(locale) == null) {
-      getLanguagesByLocale().put(locale, new Language(Utils.map("application", this, "locale", locale)));
+    return getLanguage(locale, false);
+  }
+
+  /**
+   * Returns a language with its definition, waiting for a background load to finish
+   * regardless of the loading deadline
+   *
+   * @param locale a {@link java.lang.String} object.
+   * @return a {@link com.translationexchange.core.languages.Language} object.
+   */
+  Language loadLanguage(String locale) {
+    return getLanguage(locale, true);
+  }
+
+  private Language getLanguage(String locale, boolean blocking) {
+    Language language = getConcurrentLanguagesByLocale().get(locale);
+    if (language == null) {
+      Language created = new Language(Utils.map("application", this, "locale", locale));
+      language = getConcurrentLanguagesByLocale().putIfAbsent(locale, created);
+      if (language == null)
+        language = created;
     }
 
-    Language language = getLanguagesByLocale().get(locale);
     if (!language.hasDefinition()) {
-      language.load();
+      if (Tml.getConfig().isBackgroundLoadingEnabled()) {
+        awaitBackgroundLoad(language.loadInBackground(), blocking);
+      } else {
+        // only one thread loads the definition, the others wait for it
+        synchronized (language) {
+          if (!language.hasDefinition())
+            language.load();
+        }
+      }
     }
     return language;
   }
 
+  /**
+   * Waits for a background load up to the configured loading deadline, or until it is done when blocking
+   *
+   * @param load     a {@link java.util.concurrent.Future} object.
+   * @param blocking a boolean.
+   */
+  private void awaitBackgroundLoad(Future<?> load, boolean blocking) {
+    long deadline = Tml.getConfig().getLoadingDeadline();
+    if (load == null || load.isDone() || (!blocking && deadline <= 0))
+      return;
+
+    try {
+      if (blocking)
+        load.get();
+      else
+        load.get(deadline, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException ex) {
+      Tml.getLogger().debug("Background load did not finish within " + deadline + " ms");
+    } catch (ExecutionException ex) {
+      // reported by the load itself
+    } catch (CancellationException ex) {
+      // nothing to wait for
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   /**
    * Returns a map of sources by keys
    *
    * @return a {@link java.util.Map} object.
    */
   public Map<String, Source> getSourcesByKeys() {
-    if (sourcesByKeys == null) {
-      sourcesByKeys = new HashMap<String, Source>();
-    }
-
-    return sourcesByKeys;
+    return getTranslationStore().sourcesByKeys;
   }
 
   /**
@@ -857,13 +1041,57 @@ public class Application extends Base {
    * @return a {@link com.translationexchange.core.Source} object.
    */
   public Source getSource(String key, String locale, Map<String, Object> options) {
-    if (getSourcesByKeys().get(key) == null) {
-      Source source = new Source(Utils.map("application", this, "key", key, "locale", locale));
-      source.load(options);
-      getSourcesByKeys().put(key, source);
+    return getSource(key, locale, options, false);
+  }
+
+  /**
+   * Returns a source with its translations, waiting for a background load to finish
+   * regardless of the loading deadline
+   *
+   * @param key     a {@link java.lang.String} object.
+   * @param locale  a {@link java.lang.String} object.
+   * @param options a {@link java.util.Map} object.
+   * @return a {@link com.translationexchange.core.Source} object.
+   */
+  Source loadSource(String key, String locale, Map<String, Object> options) {
+    return getSource(key, locale, options, true);
+  }
+
+  private Source getSource(String key, String locale, Map<String, Object> options, boolean blocking) {
+    ConcurrentMap<String, Source> sources = getTranslationStore().sourcesByKeys;
+    Source source = sources.get(key);
+    if (source == null) {
+      Source created = new Source(Utils.map("application", this, "key", key, "locale", locale));
+      if (Tml.getConfig().isBackgroundLoadingEnabled()) {
+        source = sources.putIfAbsent(key, created);
+        if (source == null) {
+          // translations fall back to the labels until the source is loaded
+          awaitBackgroundLoad(created.loadInBackground(options == null ? null : new HashMap<String, Object>(options)), blocking);
+          return created;
+        }
+      } else {
+        synchronized (created) {
+          source = sources.putIfAbsent(key, created);
+          if (source == null) {
+            created.load(options);
+            return created;
+          }
+        }
+      }
     }
 
-    return getSourcesByKeys().get(key);
+    if (source.isLoading()) {
+      awaitBackgroundLoad(source.getPendingLoad(), blocking);
+    } else if (source.getPendingLoad() != null && !Boolean.TRUE.equals(source.isLoaded())) {
+      // the background load failed, try again
+      awaitBackgroundLoad(source.loadInBackground(options == null ? null : new HashMap<String, Object>(options)), blocking);
+    } else if (!Boolean.TRUE.equals(source.isLoaded())) {
+      // the thread that registered the source may still be loading it
+      synchronized (source) {
+        return source;
+      }
+    }
+    return source;
   }
 
   /**
@@ -872,16 +1100,13 @@ public class Application extends Base {
    *
    * @param language a {@link com.translationexchange.core.languages.Language} object.
    */
-  public void addLanguage(Language language) {
+  public synchronized void addLanguage(Language language) {
     if (languages == null)
-      languages = new ArrayList<Language>();
-
-    if (languagesByLocales == null)
-      languagesByLocales = new HashMap<String, Language>();
+      languages = new CopyOnWriteArrayList<Language>();
 
     language.setApplication(this);
     languages.add(language);
-    languagesByLocales.put(language.getLocale(), language);
+    getLanguagesByLocale().put(language.getLocale(), language);
   }
 
   /**
@@ -889,14 +1114,11 @@ public class Application extends Base {
    *
    * @param locale a {@link java.lang.String} object.
    */
-  public void addFeaturedLanguage(String locale) {
+  public synchronized void addFeaturedLanguage(String locale) {
     if (featuredLanguages == null)
-      featuredLanguages = new ArrayList<Language>();
+      featuredLanguages = new CopyOnWriteArrayList<Language>();
 
-    if (languagesByLocales == null)
-      languagesByLocales = new HashMap<String, Language>();
-
-    Language language = languagesByLocales.get(locale);
+    Language language = getLanguagesByLocale().get(locale);
     if (language != null)
       featuredLanguages.add(language);
   }
@@ -931,15 +1153,40 @@ public class Application extends Base {
     return translationKey;
   }
 
+  /**
+   * Returns the cache version the application is pinned to, or null if it follows the cache version
+   *
+   * @return a {@link com.translationexchange.core.cache.CacheVersion} object.
+   */
+  public CacheVersion getCacheVersion() {
+    return cacheVersion;
+  }
+
+  /**
+   * Pins the application to a cache version, so that everything it loads comes from the same release
+   *
+   * @param cacheVersion a {@link com.translationexchange.core.cache.CacheVersion} object.
+   */
+  public void setCacheVersion(CacheVersion cacheVersion) {
+    this.cacheVersion = cacheVersion;
+  }
+
+  /**
+   * Returns true if translations of the whole application have been loaded
+   *
+   * @return a boolean.
+   */
+  public boolean hasTranslationKeys() {
+    return !getTranslationKeys().isEmpty();
+  }
+
   /**
    * Returns translation key map
    *
    * @return
    */
-  private Map<String, TranslationKey> getTranslationKeys() {
-    if (translationKeys == null)
-      translationKeys = new HashMap<String, TranslationKey>();
-    return translationKeys;
+  private ConcurrentMap<String, TranslationKey> getTranslationKeys() {
+    return getTranslationStore().translationKeys;
   }
 
   /**
@@ -957,7 +1204,7 @@ public class Application extends Base {
    *
    * @param translationKey a {@link com.translationexchange.core.TranslationKey} object.
    */
-  public synchronized void addTranslationKey(TranslationKey translationKey) {
+  public void addTranslationKey(TranslationKey translationKey) {
     translationKey.setApplication(this);
     getTranslationKeys().put(translationKey.getKey(), translationKey);
   }
@@ -1046,4 +1293,80 @@ public class Application extends Base {
     return this.name + " (" + this.key + ")";
   }
 
+  /**
+   * Builds translation keys of a bundle, private to the handler until they are published
+   */
+  private class TranslationKeysHandler implements TranslationBundleHandler {
+    private final Language language;
+    private final Map<String, TranslationKey> translationKeys = new HashMap<String, TranslationKey>();
+
+    private TranslationKeysHandler(Language language) {
+      this.language = language;
+    }
+
+    public void onTranslationKey(String key, List<Map<String, Object>> keyTranslations) {
+      TranslationKey tkey = translationKeys.get(key);
+      if (tkey == null) {
+        tkey = new TranslationKey(key);
+        tkey.setLocale(getDefaultLocale());
+      }
+
+      List<Translation> translations = new ArrayList<Translation>();
+      for (Map<String, Object> translationData : keyTranslations) {
+        Translation translation = new Translation(translationData);
+        String locale = (String) translationData.get("locale");
+
+        if (locale == null)
+          locale = language.getLocale();
+
+        translation.setLanguage(getLanguage(locale));
+
+        if (tkey.getLabel() == null || tkey.getLabel().equals("")) {
+          tkey.setLabel(translation.getLabel());
+        }
+
+        translations.add(translation);
+      }
+      tkey.setTranslations(language.getLocale(), translations);
+      translationKeys.put(tkey.getKey(), tkey);
+    }
+  }
+
+  /**
+   * View of the missing key collector with the map interface missing keys used to be kept in
+   */
+  private class MissingKeysView extends AbstractMap<String, Map<String, TranslationKey>> {
+    public Set<Map.Entry<String, Map<String, TranslationKey>>> entrySet() {
+      return getMissingKeyCollector().snapshot().entrySet();
+    }
+
+    public Map<String, TranslationKey> get(Object sourceKey) {
+      return getMissingKeyCollector().snapshot().get(sourceKey);
+    }
+
+    public Map<String, TranslationKey> put(String sourceKey, Map<String, TranslationKey> translationKeys) {
+      for (TranslationKey translationKey : translationKeys.values())
+        getMissingKeyCollector().add(sourceKey, translationKey);
+      return null;
+    }
+
+    public void clear() {
+      getMissingKeyCollector().clear();
+    }
+  }
+
+  /**
+   * Snapshot of the translation keys and sources of the application.
+   * The maps are concurrent so that keys can be cached and published without locking; a reset
+   * of translations builds a new snapshot and publishes it with a single volatile write.
+   */
+  private static final class TranslationStore {
+    private final ConcurrentMap<String, TranslationKey> translationKeys;
+    private final ConcurrentMap<String, Source> sourcesByKeys;
+
+    private TranslationStore(ConcurrentMap<String, TranslationKey> translationKeys, ConcurrentMap<String, Source> sourcesByKeys) {
+      this.translationKeys = translationKeys;
+      this.sourcesByKeys = sourcesByKeys;
+    }
+  }
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Small concurrent memoization cache with a fixed capacity.
+ *
+ * Entries are kept in two generations. When the current generation is full it
+ * becomes the old one and the previous old generation is dropped; entries read
+ * from the old generation are promoted back into the current one. Frequently
+ * used entries therefore survive, while the cache never holds more than twice
+ * its capacity. Reads never block; writes only synchronize to rotate generations.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public class BoundedCache<K, V> {
+
+  /**
+   * Maximum number of entries per generation
+   */
+  private final int capacity;
+
+  /**
+   * Entries added or used since the last rotation
+   */
+  private volatile ConcurrentHashMap<K, V> current;
+
+  /**
+   * Entries from the previous generation
+   */
+  private volatile ConcurrentHashMap<K, V> previous;
+
+  /**
+   * <p>Constructor for BoundedCache.</p>
+   *
+   * @param capacity maximum number of entries per generation
+   */
+  public BoundedCache(int capacity) {
+    if (capacity <= 0)
+      throw new IllegalArgumentException("Capacity must be positive");
+    this.capacity = capacity;
+    this.current = new ConcurrentHashMap<K, V>();
+    this.previous = new ConcurrentHashMap<K, V>();
+  }
+
+  /**
+   * <p>Getter for the field <code>capacity</code>.</p>
+   *
+   * @return a int.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns cached value or null
+   *
+   * @param key a K object.
+   * @return a V object.
+   */
+  public V get(K key) {
+    V value = current.get(key);
+    if (value != null)
+      return value;
+
+    value = previous.get(key);
+    if (value != null)
+      put(key, value);
+    return value;
+  }
+
+  /**
+   * Stores value in the cache
+   *
+   * @param key   a K object.
+   * @param value a V object.
+   */
+  public void put(K key, V value) {
+    ConcurrentHashMap<K, V> entries = current;
+    if (entries.size() >= capacity) {
+      synchronized (this) {
+        if (current == entries) {
+          previous = entries;
+          current = new ConcurrentHashMap<K, V>();
+        }
+        entries = current;
+      }
+    }
+    entries.put(key, value);
+  }
+
+  /**
+   * Removes value from the cache
+   *
+   * @param key a K object.
+   */
+  public void remove(K key) {
+    current.remove(key);
+    previous.remove(key);
+  }
+
+  /**
+   * Removes all entries
+   */
+  public synchronized void clear() {
+    current = new ConcurrentHashMap<K, V>();
+    previous = new ConcurrentHashMap<K, V>();
+  }
+
+  /**
+   * Returns the number of entries in the current generation
+   *
+   * @return a int.
+   */
+  public int size() {
+    return current.size();
+  }
+
+}
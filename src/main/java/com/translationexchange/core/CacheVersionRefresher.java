@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core;
+
+import com.translationexchange.core.cache.Cache;
+import com.translationexchange.core.cache.CacheAdapter;
+import com.translationexchange.core.cache.CacheVersion;
+import com.translationexchange.core.languages.Language;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Checks the published cache version in the background and switches the session to a new release.
+ *
+ * <p>When the cache version has expired, the version is fetched from the CDN. If a new release has been
+ * published, a new application is loaded for it next to the current one: its definition, the languages
+ * and sources the current application has loaded and, if the application translations were loaded, the
+ * translations of the current language. Only then the cache version and the session application are
+ * replaced. Translate calls keep using the current application and never wait for the refresh.</p>
+ *
+ * <p>Only one refresh runs at a time; a refresh that is requested while another one runs is skipped.</p>
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public class CacheVersionRefresher implements Runnable {
+
+  private final Session session;
+
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  /**
+   * Creates a refresher for the global session
+   */
+  public CacheVersionRefresher() {
+    this(null);
+  }
+
+  /**
+   * Creates a refresher for a session
+   *
+   * @param session a {@link com.translationexchange.core.Session} object.
+   */
+  public CacheVersionRefresher(Session session) {
+    this.session = session;
+  }
+
+  /**
+   * Returns the session whose application is refreshed
+   *
+   * @return a {@link com.translationexchange.core.Session} object.
+   */
+  public Session getSession() {
+    return session == null ? Tml.getSession() : session;
+  }
+
+  /**
+   * Returns true while a refresh is running
+   *
+   * @return a boolean.
+   */
+  public boolean isRunning() {
+    return running.get();
+  }
+
+  /**
+   * Runs the refresh from a scheduler
+   */
+  public void run() {
+    try {
+      refresh();
+    } catch (Exception ex) {
+      Tml.getLogger().logException("Failed to refresh cache version", ex);
+    }
+  }
+
+  /**
+   * Checks the cache version and switches to a new release if one has been published
+   *
+   * @return true if the session was switched to a new release
+   * @throws java.lang.Exception if any.
+   */
+  public boolean refresh() throws Exception {
+    if (!running.compareAndSet(false, true))
+      return false;
+
+    try {
+      return refreshVersion();
+    } finally {
+      running.set(false);
+    }
+  }
+
+  private boolean refreshVersion() throws Exception {
+    Session session = getSession();
+    Cache cache = Tml.getCache();
+    if (session == null || session.getApplication() == null || !(cache instanceof CacheAdapter))
+      return false;
+
+    Application application = session.getApplication();
+    if (application.getHttpClient().isLiveApi())
+      return false;
+
+    CacheAdapter adapter = (CacheAdapter) cache;
+    CacheVersion current = adapter.verifyCacheVersion(application);
+    if (!current.isExpired())
+      return false;
+
+    CacheVersion latest = adapter.fetchCacheVersion(application);
+
+    // the CDN did not return a version, try again on the next run
+    if (latest.getTimestamp() == null)
+      return false;
+
+    if (latest.getVersion().equals(current.getVersion())) {
+      adapter.setCacheVersion(latest);
+      return false;
+    }
+
+    Tml.getLogger().debug("Preparing cache version " + latest.getVersion() + ", current version is " + current.getVersion());
+
+    // requests that still use the current application keep loading from the current release
+    if (application.getCacheVersion() == null)
+      application.setCacheVersion(current);
+
+    Application next = prefetch(application, session, latest);
+    adapter.setCacheVersion(latest);
+    session.switchApplication(next);
+
+    Tml.getLogger().debug("Switched to cache version " + latest.getVersion());
+    return true;
+  }
+
+  /**
+   * Loads a new application for the version, with the languages and sources the current application uses
+   *
+   * @param current a {@link com.translationexchange.core.Application} object.
+   * @param session a {@link com.translationexchange.core.Session} object.
+   * @param version a {@link com.translationexchange.core.cache.CacheVersion} object.
+   * @return a {@link com.translationexchange.core.Application} object.
+   * @throws java.lang.Exception if any.
+   */
+  protected Application prefetch(Application current, Session session, CacheVersion version) throws Exception {
+    Application next = createApplication(current);
+    next.setCacheVersion(version);
+    next.load();
+
+    for (Language language : new ArrayList<Language>(current.getLanguagesByLocale().values())) {
+      if (language.hasDefinition())
+        next.loadLanguage(language.getLocale());
+    }
+
+    List<Source> sources = new ArrayList<Source>(current.getSourcesByKeys().values());
+    for (Source source : sources) {
+      if (Boolean.TRUE.equals(source.isLoaded()))
+        next.loadSource(source.getKey(), source.getLocale(), null);
+    }
+
+    Language language = session.getCurrentLanguage();
+    if (language != null && current.hasTranslationKeys())
+      next.loadTranslations(next.loadLanguage(language.getLocale()));
+
+    return next;
+  }
+
+  /**
+   * Creates an empty application with the same settings as the current one
+   *
+   * @param current a {@link com.translationexchange.core.Application} object.
+   * @return a {@link com.translationexchange.core.Application} object.
+   * @throws java.lang.Exception if any.
+   */
+  protected Application createApplication(Application current) throws Exception {
+    Constructor<? extends Application> constructor = current.getClass().getConstructor(Map.class);
+    return constructor.newInstance(Utils.map(
+        "key", current.getKey(),
+        "access_token", current.getAccessToken(),
+        "host", current.getHost(),
+        "cdn_host", current.getCdnHost(),
+        "auth_url", current.getAuthUrl()
+    ));
+  }
+}
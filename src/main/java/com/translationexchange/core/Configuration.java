@@ -37,15 +37,24 @@ package com.translationexchange.core;
 import com.translationexchange.core.decorators.Decorator;
 import com.translationexchange.core.decorators.HtmlDecorator;
 import com.translationexchange.core.decorators.PlainDecorator;
+import com.translationexchange.core.metrics.MemoryMetrics;
+import com.translationexchange.core.metrics.Metrics;
+import com.translationexchange.core.metrics.NoopMetrics;
 import com.translationexchange.core.languages.Language;
 import com.translationexchange.core.languages.LanguageContext;
 import com.translationexchange.core.rulesengine.Variable;
+import com.translationexchange.core.tokenizers.DataTokenizer;
+import com.translationexchange.core.tokenizers.DomTokenizerProfile;
+import com.translationexchange.core.tokenizers.HtmlTokenizer;
+import com.translationexchange.core.tokenizers.ReflectiveTokenizerFactory;
+import com.translationexchange.core.tokenizers.TokenizerFactory;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Configuration {
 
@@ -109,6 +118,11 @@ public class Configuration {
    */
   private Map<String, Object> translatorOptions;
 
+  /**
+   * Translator options compiled for the DomTokenizer, built on first use
+   */
+  private volatile DomTokenizerProfile domTokenizerProfile;
+
   /**
    * Cache configuration
    */
@@ -135,15 +149,36 @@ public class Configuration {
   private Decorator decorator;
 
   /**
-   * Decorator class
+   * Receives translation, cache, HTTP and load measurements
+   */
+  private volatile Metrics metrics;
+
+  /**
+   * Tokenizer class names by tokenizer key
    */
   private Map<String, String> tokenizerClasses;
 
+  /**
+   * Resolved tokenizer factories by tokenizer key
+   */
+  private Map<String, TokenizerFactory> tokenizerFactories;
+
   /**
    * Stores agent related configuration
    */
   private Map<String, Object> agent;
 
+  /**
+   * Stores HTTP client configuration, limits of concurrent asynchronous requests
+   */
+  private Map<String, Object> http;
+
+  /**
+   * Stores lazy loading configuration: whether languages and sources missing on the translate path
+   * are loaded in the background, and how long callers wait for them
+   */
+  private Map<String, Object> loading;
+
   /**
    * Default system language
    */
@@ -161,12 +196,17 @@ public class Configuration {
    */
   public Configuration() {
     this.decorator = new PlainDecorator();
+    this.metrics = new NoopMetrics();
 
     this.tokenizerClasses = Utils.buildStringMap(
         "data", "com.translationexchange.core.tokenizers.DataTokenizer",
         "html", "com.translationexchange.core.tokenizers.HtmlTokenizer"
     );
 
+    this.tokenizerFactories = new ConcurrentHashMap<String, TokenizerFactory>();
+    this.tokenizerFactories.put("data", DataTokenizer.FACTORY);
+    this.tokenizerFactories.put("html", HtmlTokenizer.FACTORY);
+
     this.tokenClasses = Utils.buildStringList(
         "com.translationexchange.core.tokens.DataToken",
         "com.translationexchange.core.tokens.MethodToken",
@@ -187,6 +227,16 @@ public class Configuration {
         "cache", 3600
     );
 
+    this.http = Utils.map(
+        "max_requests", 64,
+        "max_requests_per_host", 5
+    );
+
+    this.loading = Utils.map(
+        "background", false,
+        "deadline", 0
+    );
+
     buildDefaultContextRulesConfiguration();
     buildDefaultTranslatorOptionsConfiguration();
     buildDefaultLocalizationConfiguration();
@@ -728,6 +778,22 @@ public class Configuration {
    */
   public void setTranslatorOptions(Map<String, Object> translatorOptions) {
     this.translatorOptions = translatorOptions;
+    this.domTokenizerProfile = null;
+  }
+
+  /**
+   * Returns the translator options compiled for the DomTokenizer. The profile is built once and
+   * shared; it is rebuilt when new translator options are set.
+   *
+   * @return a {@link com.translationexchange.core.tokenizers.DomTokenizerProfile} object.
+   */
+  public DomTokenizerProfile getDomTokenizerProfile() {
+    DomTokenizerProfile profile = domTokenizerProfile;
+    if (profile == null) {
+      profile = new DomTokenizerProfile(getTranslatorOptions());
+      domTokenizerProfile = profile;
+    }
+    return profile;
   }
 
   /**
@@ -850,6 +916,36 @@ public class Configuration {
     return decorator;
   }
 
+  /**
+   * <p>Setter for the field <code>metrics</code>.</p>
+   *
+   * @param type "memory" to keep measurements in memory, anything else to drop them
+   */
+  public void setMetrics(String type) {
+    if ("memory".equals(type))
+      metrics = new MemoryMetrics();
+    else
+      metrics = new NoopMetrics();
+  }
+
+  /**
+   * <p>Setter for the field <code>metrics</code>.</p>
+   *
+   * @param metrics a {@link com.translationexchange.core.metrics.Metrics} object.
+   */
+  public void setMetrics(Metrics metrics) {
+    this.metrics = metrics == null ? new NoopMetrics() : metrics;
+  }
+
+  /**
+   * <p>Getter for the field <code>metrics</code>.</p>
+   *
+   * @return a {@link com.translationexchange.core.metrics.Metrics} object.
+   */
+  public Metrics getMetrics() {
+    return metrics;
+  }
+
   /**
    * <p>isCacheEnabled.</p>
    *
@@ -884,6 +980,20 @@ public class Configuration {
       this.tokenizerClasses = new HashMap<String, String>();
 
     this.tokenizerClasses.put(key, tokenizerClass);
+    getTokenizerFactories().remove(key);
+  }
+
+  /**
+   * <p>addTokenizerClass.</p>
+   *
+   * @param key     a {@link String} object.
+   * @param factory a {@link com.translationexchange.core.tokenizers.TokenizerFactory} object.
+   */
+  public void addTokenizerClass(String key, TokenizerFactory factory) {
+    if (this.tokenizerClasses != null)
+      this.tokenizerClasses.remove(key);
+
+    getTokenizerFactories().put(key, factory);
   }
 
   /**
@@ -899,6 +1009,39 @@ public class Configuration {
     return this.tokenizerClasses.get(key);
   }
 
+  /**
+   * <p>Getter for the field <code>tokenizerFactories</code>.</p>
+   *
+   * @return a {@link java.util.Map} object.
+   */
+  private Map<String, TokenizerFactory> getTokenizerFactories() {
+    if (this.tokenizerFactories == null)
+      this.tokenizerFactories = new ConcurrentHashMap<String, TokenizerFactory>();
+    return this.tokenizerFactories;
+  }
+
+  /**
+   * Returns the tokenizer factory registered for the key. Tokenizers configured
+   * by class name are resolved on first use and cached.
+   *
+   * @param key a {@link String} object.
+   * @return a {@link com.translationexchange.core.tokenizers.TokenizerFactory} object, or null if no tokenizer is registered under the key
+   * @throws java.lang.Exception if the configured tokenizer class can not be loaded
+   */
+  public TokenizerFactory getTokenizerFactory(String key) throws Exception {
+    TokenizerFactory factory = getTokenizerFactories().get(key);
+    if (factory != null)
+      return factory;
+
+    String tokenizerClass = getTokenizerClass(key);
+    if (tokenizerClass == null)
+      return null;
+
+    factory = ReflectiveTokenizerFactory.forClassName(tokenizerClass);
+    getTokenizerFactories().put(key, factory);
+    return factory;
+  }
+
 
   /**
    * <p>Getter for the field <code>agent</code>.</p>
@@ -918,6 +1061,63 @@ public class Configuration {
     this.agent = agent;
   }
 
+  /**
+   * <p>Getter for the field <code>http</code>.</p>
+   *
+   * @return a {@link Map} object.
+   */
+  public Map<String, Object> getHttp() {
+    return http;
+  }
+
+  /**
+   * <p>Setter for the field <code>http</code>.</p>
+   *
+   * @param http a {@link Map} object.
+   */
+  public void setHttp(Map<String, Object> http) {
+    this.http = http;
+  }
+
+  /**
+   * <p>Getter for the field <code>loading</code>.</p>
+   *
+   * @return a {@link Map} object.
+   */
+  public Map<String, Object> getLoading() {
+    return loading;
+  }
+
+  /**
+   * <p>Setter for the field <code>loading</code>.</p>
+   *
+   * @param loading a {@link Map} object.
+   */
+  public void setLoading(Map<String, Object> loading) {
+    this.loading = loading;
+  }
+
+  /**
+   * Returns true if languages and sources missing on the translate path are loaded in the background,
+   * instead of blocking the translation until they are loaded
+   *
+   * @return a boolean.
+   */
+  public boolean isBackgroundLoadingEnabled() {
+    return loading != null && Boolean.TRUE.equals(loading.get("background"));
+  }
+
+  /**
+   * Returns how long, in milliseconds, a translation waits for a background load before it falls back
+   * to the original label
+   *
+   * @return a long.
+   */
+  public long getLoadingDeadline() {
+    Object deadline = loading == null ? null : loading.get("deadline");
+    return deadline instanceof Number ? ((Number) deadline).longValue() : 0;
+  }
+
   public boolean isKeyRegistrationModeEnabled() {
     return keyRegistrationMode;
   }
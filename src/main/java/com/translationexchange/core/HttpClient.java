@@ -34,24 +34,45 @@
 
 package com.translationexchange.core;
 
+import com.squareup.okhttp.Call;
+import com.squareup.okhttp.Callback;
+import com.squareup.okhttp.Dispatcher;
 import com.squareup.okhttp.FormEncodingBuilder;
 import com.squareup.okhttp.OkHttpClient;
 import com.squareup.okhttp.Request;
 import com.squareup.okhttp.Request.Builder;
 import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.MediaType;
 import com.squareup.okhttp.Response;
+import com.squareup.okhttp.ResponseBody;
+import com.translationexchange.core.cache.Cache;
+import com.translationexchange.core.cache.CacheEntry;
 import com.translationexchange.core.cache.CacheVersion;
+import com.translationexchange.core.cache.CacheAdapter;
+import com.translationexchange.core.metrics.Metrics;
 
-import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.net.URL;
-import java.util.Date;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
@@ -63,6 +84,16 @@ public class HttpClient {
   public static final String API_PATH = "v1/";
   public static final String EXTENSIONS_KEY = "extensions";
 
+  /**
+   * Buffer size used to inflate compressed responses
+   */
+  private static final int BUFFER_SIZE = 8192;
+
+  /**
+   * Header OkHttp adds to responses with the time their request was sent
+   */
+  private static final String SENT_MILLIS_HEADER = "OkHttp-Sent-Millis";
+
   /**
    * Application that uses the HttpClient
    */
@@ -73,6 +104,16 @@ public class HttpClient {
    */
   protected OkHttpClient client;
 
+  /**
+   * Requests that are being loaded, by cache version and key
+   */
+  private final ConcurrentMap<String, FutureTask<?>> inFlight = new ConcurrentHashMap<String, FutureTask<?>>();
+
+  /**
+   * Stale negative entries being revalidated in the background
+   */
+  private final Set<String> revalidating = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
   /**
    * Default constructor
    *
@@ -87,16 +128,35 @@ public class HttpClient {
    *
    * @return
    */
-  protected OkHttpClient getOkHttpClient() {
+  protected synchronized OkHttpClient getOkHttpClient() {
     if (client == null) {
       client = new OkHttpClient();
       client.setConnectTimeout(10, TimeUnit.SECONDS);
       client.setWriteTimeout(10, TimeUnit.SECONDS);
       client.setReadTimeout(30, TimeUnit.SECONDS);
+      client.setDispatcher(createDispatcher());
     }
     return client;
   }
 
+  /**
+   * Creates the dispatcher of asynchronous requests, limited by the "max_requests" and
+   * "max_requests_per_host" settings of the http configuration
+   *
+   * @return a {@link com.squareup.okhttp.Dispatcher} object.
+   */
+  protected Dispatcher createDispatcher() {
+    Dispatcher dispatcher = new Dispatcher();
+    Map<String, Object> config = Tml.getConfig().getHttp();
+    if (config != null) {
+      if (config.get("max_requests") instanceof Number)
+        dispatcher.setMaxRequests(((Number) config.get("max_requests")).intValue());
+      if (config.get("max_requests_per_host") instanceof Number)
+        dispatcher.setMaxRequestsPerHost(((Number) config.get("max_requests_per_host")).intValue());
+    }
+    return dispatcher;
+  }
+
   /**
    * @return Access Token
    * @throws Exception
@@ -220,55 +280,166 @@ public class HttpClient {
    * @return
    */
   public String getFromCDN(String cacheKey, Map<String, Object> options) throws Exception {
-    CacheVersion cacheVersion = Tml.getCache().verifyCacheVersion(getApplication());
-    if (cacheVersion.isUnreleased() && !cacheKey.equals("version"))
+    CDNResponse response = requestFromCDN(cacheKey, options);
+    return response == null ? null : response.text;
+  }
+
+  /**
+   * Requests data from the CDN and tells found data from missing files and failures
+   */
+  private CDNResponse requestFromCDN(String cacheKey, Map<String, Object> options) throws Exception {
+    // the version itself is requested while the cache version is being verified
+    CacheVersion cacheVersion = cacheKey.equals("version") ? null : getCacheVersion();
+    if (cacheVersion != null && cacheVersion.isUnreleased())
       return null;
 
     try {
-      String cachePath = cacheKey;
+      URL url = getCdnURL(cacheKey, cacheVersion);
+      Tml.getGuardedLogger().debugf("HTTP Get: {}", url);
+      Response response = getOkHttpClient().newCall(buildGetRequest(url)).execute();
+      Reader reader = openReader(response);
+      try {
+        return readCDNResponse(cacheKey, response.code(), reader);
+      } finally {
+        reader.close();
+      }
+    } catch (Exception ex) {
+      return getCDNFallback(cacheKey, ex);
+    }
+  }
 
-      if (!cacheKey.startsWith(File.separator))
-        cachePath = File.separator + cachePath;
+  private URL getCdnURL(String cacheKey, CacheVersion cacheVersion) throws Exception {
+    String cachePath = cacheKey;
 
-      if (cacheKey.equals("version")) {
-        cachePath = getCdnPath(cachePath) + ".json";
-      } else
-        cachePath = getCdnPath(cacheVersion.getVersion() + cachePath) + ".json.gz";
+    if (!cacheKey.startsWith(File.separator))
+      cachePath = File.separator + cachePath;
 
-      String response = get(Utils.buildURL(getApplication().getCdnHost(), cachePath), options);
+    if (cacheKey.equals("version")) {
+      cachePath = getCdnPath(cachePath) + ".json";
+    } else
+      cachePath = getCdnPath(cacheVersion.getVersion() + cachePath) + ".json.gz";
 
-      // check if CDN responded with an error, and return an empty JSON result
-      if (response.indexOf("<?xml") != -1) {
-        response = cacheKey.equals("version") ? null : "{}";
-      }
+    return Utils.buildURL(getApplication().getCdnHost(), cachePath);
+  }
 
-      return response;
-    } catch (Exception ex) {
-      Tml.getLogger().error("Failed to get from CDN " + cacheKey + " with error: " + ex.getMessage());
-      return cacheKey.equals("version") ? (String) Tml.getCache().fetch(cacheVersion.getVersionKey(), Utils.map("cache_key", CacheVersion.VERSION_KEY)) : "{}";
+  /**
+   * Reads a CDN response; server errors and responses that break off are handled as failed requests
+   */
+  private CDNResponse readCDNResponse(String cacheKey, int code, Reader reader) {
+    if (code >= 500)
+      return getCDNFallback(cacheKey, new IOException("CDN responded with status " + code));
+
+    String responseText;
+    try {
+      responseText = code >= 400 ? null : Utils.readFully(reader);
+    } catch (IOException ex) {
+      return getCDNFallback(cacheKey, ex);
+    }
+
+    // the CDN responds to a missing file with an XML error document, an empty result is not worth more requests either
+    if (responseText == null || responseText.indexOf("<?xml") != -1 || responseText.trim().length() == 0 || responseText.trim().equals("{}"))
+      return new CDNResponse(cacheKey.equals("version") ? null : "{}", CacheEntry.NOT_FOUND);
+
+    return new CDNResponse(responseText, null);
+  }
+
+  private CDNResponse getCDNFallback(String cacheKey, Exception ex) {
+    Tml.getLogger().error("Failed to get from CDN " + cacheKey + " with error: " + ex.getMessage());
+    String responseText = cacheKey.equals("version") ? (String) Tml.getCache().fetch(new CacheVersion().getVersionKey(), Utils.map("cache_key", CacheVersion.VERSION_KEY)) : "{}";
+    return new CDNResponse(responseText, CacheEntry.UNAVAILABLE);
+  }
+
+  /**
+   * Stores a CDN response: found data as it is, a missing file or a failed request as a negative entry
+   * that expires after its own time to live
+   */
+  private void storeCDNResponse(String cacheKey, CDNResponse response, String data, Map<String, Object> options) {
+    if (response.isFound()) {
+      Tml.getCache().store(cacheKey, data, options);
+      return;
     }
+
+    CacheEntry entry = CacheEntry.negative(response.status);
+    if (Tml.getGuardedLogger().isDebugEnabled())
+      Tml.getGuardedLogger().debugf("Caching {} for {} for {} seconds", response.status, cacheKey, CacheEntry.getTTL(response.status));
+    Tml.getCache().store(cacheKey, entry.toCache(), options);
+  }
+
+  /**
+   * Serves a stale negative entry as it is and refreshes it with a single background request
+   */
+  private void revalidate(final String cacheKey, CacheEntry entry, Map<String, Object> options, final boolean json) {
+    if (!entry.isStale())
+      return;
+
+    final Map<String, Object> cacheOptions = new HashMap<String, Object>(options);
+    final String key = cacheOptions.get(CacheVersion.VERSION_KEY) + "/" + cacheKey;
+    if (!revalidating.add(key))
+      return;
+
+    Tml.getGuardedLogger().debugf("Revalidating {} entry of {} in the background", entry, cacheKey);
+    getFromCDNAsync(cacheKey, new HttpFuture<Boolean>(new HttpCallback<Boolean>() {
+      public void onSuccess(Boolean found) {
+        revalidating.remove(key);
+      }
+
+      public void onFailure(Exception ex) {
+        revalidating.remove(key);
+        Tml.getLogger().logException("Failed to revalidate " + cacheKey, ex);
+      }
+    }), new CDNResponseHandler<Boolean>(cacheKey) {
+      Boolean handleCDN(CDNResponse response) throws Exception {
+        if (json)
+          storeJSON(cacheKey, response, cacheOptions);
+        else
+          storeCDNResponse(cacheKey, response, response.text, cacheOptions);
+        return response.isFound();
+      }
+    });
+  }
+
+  /**
+   * Returns the cache version of the application. An application that is prepared for a new release
+   * keeps using the version it was loaded with.
+   *
+   * @return a {@link com.translationexchange.core.cache.CacheVersion} object.
+   * @throws java.lang.Exception if any.
+   */
+  protected CacheVersion getCacheVersion() throws Exception {
+    CacheVersion cacheVersion = getApplication().getCacheVersion();
+    if (cacheVersion != null)
+      return cacheVersion;
+    return Tml.getCache().verifyCacheVersion(getApplication());
   }
 
   /**
    * <p>getJSON.</p>
    *
+   * Responses served from a cache that keeps parsed data are shared with other callers and must
+   * not be modified; copy them first.
+   *
    * @param path    a {@link java.lang.String} object.
    * @param params  a {@link java.util.Map} object.
    * @param options a {@link java.util.Map} object.
    * @return a {@link java.util.Map} object.
    * @throws java.lang.Exception if any.
    */
-  @SuppressWarnings("unchecked")
-  public Map<String, Object> getJSON(String path, Map<String, Object> params, Map<String, Object> options) throws Exception {
-    String responseText = null;
-    String cacheKey = (String) options.get("cache_key");
+  public Map<String, Object> getJSON(String path, Map<String, Object> params, final Map<String, Object> options) throws Exception {
+    final String cacheKey = (String) options.get("cache_key");
     Map<String, Object> result = null;
 
-    CacheVersion cacheVersion = Tml.getCache().verifyCacheVersion(getApplication());
+    CacheVersion cacheVersion = getCacheVersion();
 
-    // for live requests, process them immediately
-    if (isLiveApi())
-      return processJSONResponse(get(path, params, options), options);
+    // for live requests, parse the response as it streams in
+    if (isLiveApi()) {
+      prepareParams(params, options);
+      Reader reader = openReader(Utils.buildURL(getApplication().getHost(), API_PATH + path, params), options);
+      try {
+        return processJSONResponse(reader, options);
+      } finally {
+        reader.close();
+      }
+    }
 
     // if cache is not enabled, return null
     if (!isCacheEnabled(options))
@@ -283,18 +454,43 @@ public class HttpClient {
     // put the current version into options
     options.put(CacheVersion.VERSION_KEY, cacheVersion.getVersion());
 
-    responseText = (String) Tml.getCache().fetch(cacheKey, options);
+    result = fetchCachedJSON(cacheKey, options);
 
-    if (responseText != null)
-      return processJSONResponse(responseText, options);
+    if (result != null)
+      return result;
 
-    // if no data in the local cache
-    responseText = getFromCDN(cacheKey, options);
+    // if no data in the local cache, only one caller requests it from the CDN
+    return singleFlight(cacheVersion.getVersion() + "/" + cacheKey, new Callable<Map<String, Object>>() {
+      public Map<String, Object> call() throws Exception {
+        // the data may have been stored by a request that has just finished
+        Map<String, Object> cached = fetchCachedJSON(cacheKey, options);
+        return cached != null ? cached : getJSONFromCDN(cacheKey, options);
+      }
+    });
+  }
 
-    if (responseText == null)
+  /**
+   * Requests JSON from the CDN and stores it in the cache
+   */
+  private Map<String, Object> getJSONFromCDN(String cacheKey, Map<String, Object> options) throws Exception {
+    return storeJSON(cacheKey, requestFromCDN(cacheKey, options), options);
+  }
+
+  /**
+   * Parses a CDN response and stores it in the cache
+   */
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> storeJSON(String cacheKey, CDNResponse response, Map<String, Object> options) throws Exception {
+    if (response == null)
       return null;
 
-    result = processJSONResponse(responseText, options);
+    if (!response.isFound()) {
+      storeCDNResponse(cacheKey, response, null, options);
+      return new HashMap<String, Object>();
+    }
+
+    String responseText = response.text;
+    Map<String, Object> result = processJSONResponse(responseText, options);
 
     Map<String, Object> extensions = (Map<String, Object>) result.get(EXTENSIONS_KEY);
 
@@ -305,19 +501,191 @@ public class HttpClient {
       result.put(EXTENSIONS_KEY, extensions);
     }
 
-    Tml.getCache().store(cacheKey, responseText, options);
+    storeCDNResponse(cacheKey, response, responseText, options);
 
     return result;
   }
 
-  public Map<String, Object> getJSONMap(Map<String, Object> options) throws Exception {
+  /**
+   * Requests a translation bundle and streams its keys into the handler, without building the JSON map
+   * of the bundle. Follows the same live API, cache and CDN rules as {@link #getJSON(String, Map, Map)}.
+   *
+   * @param path    a {@link java.lang.String} object.
+   * @param params  a {@link java.util.Map} object.
+   * @param options a {@link java.util.Map} object.
+   * @param handler a {@link com.translationexchange.core.TranslationBundleHandler} object.
+   * @return true if a bundle was read
+   * @throws java.lang.Exception if any.
+   */
+  public boolean readTranslationBundle(String path, Map<String, Object> params, Map<String, Object> options, TranslationBundleHandler handler) throws Exception {
+    String cacheKey = (String) options.get("cache_key");
+
+    CacheVersion cacheVersion = getCacheVersion();
+
+    if (isLiveApi()) {
+      prepareParams(params, options);
+      Reader reader = openReader(Utils.buildURL(getApplication().getHost(), API_PATH + path, params), options);
+      try {
+        readTranslationBundle(reader, options, handler);
+      } finally {
+        reader.close();
+      }
+      return true;
+    }
+
+    if (!isCacheEnabled(options) || cacheVersion.isUnreleased())
+      return false;
+
+    options.put(CacheVersion.VERSION_KEY, cacheVersion.getVersion());
+
+    if (readTranslationBundle(options, handler))
+      return true;
+
+    // only one caller requests the bundle from the CDN, the others read the same response
+    final String key = cacheKey;
+    final Map<String, Object> cacheOptions = options;
+    String responseText = singleFlight(cacheVersion.getVersion() + "/" + cacheKey, new Callable<String>() {
+      public String call() throws Exception {
+        CDNResponse response = requestFromCDN(key, cacheOptions);
+        if (response == null)
+          return null;
+        storeCDNResponse(key, response, response.text, cacheOptions);
+        return response.text;
+      }
+    });
+    if (responseText == null)
+      return false;
+
+    // a bundle with an error is removed from the cache again
+    readTranslationBundle(new StringReader(responseText), options, handler);
+    return true;
+  }
+
+  /**
+   * Runs the loader once for all callers that request the same key at the same time. The first caller
+   * runs it, the others wait for and share its result.
+   *
+   * @param key    a {@link java.lang.String} object.
+   * @param loader a {@link java.util.concurrent.Callable} object.
+   * @param <T>    result type
+   * @return result of the loader
+   * @throws java.lang.Exception if the loader fails.
+   */
+  @SuppressWarnings("unchecked")
+  protected <T> T singleFlight(String key, Callable<T> loader) throws Exception {
+    FutureTask<T> task = new FutureTask<T>(loader);
+    FutureTask<T> running = (FutureTask<T>) inFlight.putIfAbsent(key, task);
+    if (running == null) {
+      try {
+        task.run();
+      } finally {
+        inFlight.remove(key, task);
+      }
+      running = task;
+    }
+
+    try {
+      return running.get();
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof Exception)
+        throw (Exception) ex.getCause();
+      throw ex;
+    }
+  }
+
+  /**
+   * Streams a cached translation bundle into the handler
+   *
+   * @param options a {@link java.util.Map} object.
+   * @param handler a {@link com.translationexchange.core.TranslationBundleHandler} object.
+   * @return true if the bundle was cached
+   * @throws java.lang.Exception if any.
+   */
+  @SuppressWarnings("unchecked")
+  public boolean readTranslationBundle(Map<String, Object> options, TranslationBundleHandler handler) throws Exception {
     String cacheKey = (String) options.get("cache_key");
-    String responseText = (String) Tml.getCache().fetch(cacheKey, options);
-    if (responseText != null) {
-      Tml.getLogger().debug("");
-      return processJSONResponse(responseText, options);
+    Object cached = fetchCached(cacheKey, options);
+
+    // a bundle that is known to be missing has no keys
+    CacheEntry entry = CacheEntry.fromCache(cached);
+    if (entry != null) {
+      revalidate(cacheKey, entry, options, false);
+      return true;
+    }
+
+    // an in-memory cache keeps the parsed bundle, so it is walked instead of parsed again
+    if (cached instanceof Map) {
+      TranslationBundleReader bundleReader = new TranslationBundleReader(handler);
+      bundleReader.read((Map<String, Object>) cached);
+      verifyTranslationBundle(bundleReader, options);
+      return true;
     }
-    return null;
+
+    if (!(cached instanceof String))
+      return false;
+
+    readTranslationBundle(new StringReader((String) cached), options, handler);
+    return true;
+  }
+
+  /**
+   * Returns cached data, parsed when the cache keeps parsed responses
+   */
+  private Object fetchCached(String cacheKey, Map<String, Object> options) {
+    Cache cache = Tml.getCache();
+    if (cache instanceof CacheAdapter)
+      return ((CacheAdapter) cache).fetchParsed(cacheKey, options);
+    return cache.fetch(cacheKey, options);
+  }
+
+  private void readTranslationBundle(Reader reader, Map<String, Object> options, TranslationBundleHandler handler) throws Exception {
+    TranslationBundleReader bundleReader = new TranslationBundleReader(handler);
+    bundleReader.read(reader);
+    verifyTranslationBundle(bundleReader, options);
+  }
+
+  private void verifyTranslationBundle(TranslationBundleReader bundleReader, Map<String, Object> options) throws Exception {
+    if (bundleReader.getError() != null) {
+      if (isCacheEnabled(options))
+        Tml.getCache().delete((String) options.get("cache_key"), options);
+      throw new Exception(bundleReader.getError());
+    }
+  }
+
+  /**
+   * Returns the cached JSON for the "cache_key" option. Like {@link #getJSON(String, Map, Map)},
+   * the result may be shared with other callers and must not be modified.
+   *
+   * @param options a {@link java.util.Map} object.
+   * @return a {@link java.util.Map} object.
+   * @throws java.lang.Exception if any.
+   */
+  public Map<String, Object> getJSONMap(Map<String, Object> options) throws Exception {
+    return fetchCachedJSON((String) options.get("cache_key"), options);
+  }
+
+  /**
+   * Returns the cached response as JSON. When the cache keeps parsed responses, warm hits are
+   * returned without parsing; such results are shared and must not be modified.
+   *
+   * @param cacheKey
+   * @param options
+   * @return
+   * @throws Exception
+   */
+  protected Map<String, Object> fetchCachedJSON(String cacheKey, Map<String, Object> options) throws Exception {
+    Object cached = fetchCached(cacheKey, options);
+    if (cached == null)
+      return null;
+
+    // data that is known to be missing is served as an empty result
+    CacheEntry entry = CacheEntry.fromCache(cached);
+    if (entry != null) {
+      revalidate(cacheKey, entry, options, true);
+      return new HashMap<String, Object>();
+    }
+
+    return cached instanceof String ? processJSONResponse((String) cached, options) : processJSONObject(cached, options);
   }
 
   /**
@@ -328,22 +696,36 @@ public class HttpClient {
    * @return
    * @throws Exception
    */
-  @SuppressWarnings("unchecked")
   protected Map<String, Object> processJSONResponse(String responseText, Map<String, Object> options) throws Exception {
-    String cacheKey = (String) options.get("cache_key");
+    return processJSONObject(Utils.parseJSON(responseText), options);
+  }
+
+  /**
+   * Converts a response stream to JSON
+   *
+   * @param reader
+   * @param options
+   * @return
+   * @throws Exception
+   */
+  protected Map<String, Object> processJSONResponse(Reader reader, Map<String, Object> options) throws Exception {
+    return processJSONObject(Utils.readJSON(reader), options);
+  }
 
-    Map<String, Object> result = (Map<String, Object>) Utils.parseJSON(responseText);
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> processJSONObject(Object json, Map<String, Object> options) throws Exception {
+    String cacheKey = (String) options.get("cache_key");
 
-    if (!(result instanceof Map)) {
+    if (!(json instanceof Map)) {
       throw new Exception("Invalid response type: response must always be a map.");
     }
 
-    Map<String, Object> data = (Map<String, Object>) Utils.parseJSON(responseText);
+    Map<String, Object> result = (Map<String, Object>) json;
 
-    if (data != null && data.get("error") != null) {
+    if (result.get("error") != null) {
       if (isCacheEnabled(options))
         Tml.getCache().delete(cacheKey, options);
-      throw new Exception((String) data.get("error"));
+      throw new Exception((String) result.get("error"));
     }
 
     return result;
@@ -372,33 +754,113 @@ public class HttpClient {
    * @throws java.lang.Exception if any.
    */
   public String get(URL url, Map<String, Object> options) throws Exception {
-    Tml.getLogger().debug("HTTP Get: " + url.toString());
+    Reader reader = openReader(url, options);
+    try {
+      String responseText = Utils.readFully(reader);
+      if (Tml.getGuardedLogger().isDebugEnabled())
+        Tml.getGuardedLogger().debugf("HTTP response: {} characters", responseText.length());
+      return responseText;
+    } finally {
+      reader.close();
+    }
+  }
 
-    long t0 = new Date().getTime();
+  /**
+   * Requests a URL and returns a reader over the decoded response body.
+   * Compressed bodies are inflated while they are being read; the caller must close the reader.
+   *
+   * @param url     Where to load data from
+   * @param options Request options
+   * @return a {@link java.io.Reader} object.
+   * @throws java.lang.Exception if any.
+   */
+  protected Reader openReader(URL url, Map<String, Object> options) throws Exception {
+    Tml.getGuardedLogger().debugf("HTTP Get: {}", url);
+
+    long t0 = System.currentTimeMillis();
 
+    Response response = getOkHttpClient().newCall(buildGetRequest(url)).execute();
+
+    long t1 = System.currentTimeMillis();
+
+    if (Tml.getGuardedLogger().isDebugEnabled())
+      Tml.getGuardedLogger().debugf("HTTP Get took: {} mls", t1 - t0);
+
+    return openReader(response);
+  }
+
+  /**
+   * Builds a GET request for a URL
+   *
+   * @param url a {@link java.net.URL} object.
+   * @return a {@link com.squareup.okhttp.Request} object.
+   */
+  protected Request buildGetRequest(URL url) {
     Builder builder = new Request.Builder().url(url.toString()).header("User-Agent", Tml.getFullVersion());
 
     builder = builder.addHeader("Accept", "application/json");
     builder = builder.addHeader("Accept-Encoding", "gzip, deflate");
 
-    Request request = builder.build();
-    Response response = getOkHttpClient().newCall(request).execute();
-
-    long t1 = new Date().getTime();
-
-    Tml.getLogger().debug("HTTP Get took: " + (t1 - t0) + " mls");
+    return builder.build();
+  }
 
+  /**
+   * Returns a reader over the decoded body of a response; the caller must close the reader.
+   *
+   * @param response a {@link com.squareup.okhttp.Response} object.
+   * @return a {@link java.io.Reader} object.
+   * @throws java.io.IOException if any.
+   */
+  protected Reader openReader(Response response) throws IOException {
     String contentEncoding = response.headers().get("Content-Encoding");
     String contentType = response.headers().get("Content-Type");
 
-    if ((contentEncoding != null && contentEncoding.equals("gzip")) || (contentType != null && contentType.contains("zip"))) {
-      String responseText = decompress(response.body().bytes());
-      Tml.getLogger().debug("HTTP response: " + responseText);
-      return responseText;
-    } else {
-      String responseText = new String(response.body().bytes());
-      Tml.getLogger().debug("HTTP response: " + responseText);
-      return responseText;
+    ResponseBody body = response.body();
+    InputStream stream = body.byteStream();
+
+    Metrics metrics = Tml.getConfig().getMetrics();
+    if (metrics.isEnabled())
+      stream = new MeteredInputStream(stream, metrics, getRequestType(response.request()), getSentAt(response));
+
+    try {
+      if ((contentEncoding != null && contentEncoding.equals("gzip")) || (contentType != null && contentType.contains("zip")))
+        stream = new GZIPInputStream(stream, BUFFER_SIZE);
+
+      MediaType mediaType = body.contentType();
+      Charset charset = mediaType == null ? Utils.UTF_8 : mediaType.charset(Utils.UTF_8);
+      return new InputStreamReader(stream, charset);
+    } catch (IOException ex) {
+      stream.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Returns whether a request goes to the CDN or to the API, as reported to the metrics
+   *
+   * @param request a {@link com.squareup.okhttp.Request} object.
+   * @return a {@link java.lang.String} object.
+   */
+  protected String getRequestType(Request request) {
+    if (getApplication() != null && request.urlString().startsWith(getApplication().getCdnHost()))
+      return Metrics.REQUEST_CDN;
+    return Metrics.REQUEST_API;
+  }
+
+  /**
+   * Returns the {@link System#nanoTime()} at which the request of a response was sent
+   */
+  private static long getSentAt(Response response) {
+    long now = System.nanoTime();
+    String sentMillis = response.header(SENT_MILLIS_HEADER);
+    if (sentMillis == null)
+      return now;
+
+    try {
+      long elapsed = System.currentTimeMillis() - Long.parseLong(sentMillis);
+      return elapsed > 0 ? now - TimeUnit.MILLISECONDS.toNanos(elapsed) : now;
+    } catch (NumberFormatException ex) {
+      return now;
     }
   }
 
@@ -423,14 +885,43 @@ public class HttpClient {
    * @return a {@link java.lang.Object} object.
    * @throws java.lang.Exception if any.
    */
-  @SuppressWarnings("rawtypes")
   public Object post(String path, Map<String, Object> params, Map<String, Object> options) throws Exception {
-    URL url = Utils.buildURL(getApplication().getHost(), API_PATH + path, Utils.map("access_token", this.getAccessToken()));
+    long t0 = System.currentTimeMillis();
 
-    Tml.getLogger().debug("HTTP Post: " + url.toString());
-    Tml.getLogger().debug("HTTP Params: " + params.toString());
+    Response response = getOkHttpClient().newCall(buildPostRequest(path, params)).execute();
+    if (!response.isSuccessful()) {
+      response.body().close();
+      throw new IOException("Unexpected code " + response);
+    }
 
-    long t0 = new Date().getTime();
+    long t1 = System.currentTimeMillis();
+
+    if (Tml.getGuardedLogger().isDebugEnabled())
+      Tml.getGuardedLogger().debugf("HTTP Post took: {} mls", t1 - t0);
+    Reader reader = openReader(response);
+    try {
+      String responseText = Utils.readFully(reader);
+      Tml.getGuardedLogger().debugf("HTTP Post response: {}", responseText);
+      return responseText;
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Builds a POST request to an API path
+   *
+   * @param path   a {@link java.lang.String} object.
+   * @param params a {@link java.util.Map} object.
+   * @return a {@link com.squareup.okhttp.Request} object.
+   * @throws java.lang.Exception if any.
+   */
+  @SuppressWarnings("rawtypes")
+  protected Request buildPostRequest(String path, Map<String, Object> params) throws Exception {
+    URL url = Utils.buildURL(getApplication().getHost(), API_PATH + path, Utils.map("access_token", this.getAccessToken()));
+
+    Tml.getGuardedLogger().debugf("HTTP Post: {}", url);
+    Tml.getGuardedLogger().debugf("HTTP Params: {}", params);
 
     FormEncodingBuilder formBuilder = new FormEncodingBuilder();
 
@@ -445,17 +936,360 @@ public class HttpClient {
         .url(url.toString())
         .addHeader("User-Agent", Tml.getFullVersion());
     builder = builder.post(formBody);
-    Request request = builder.build();
+    return builder.build();
+  }
+
+  /**
+   * Converts a response body to a result of an asynchronous request
+   *
+   * @param <T> result type
+   */
+  private abstract static class ResponseHandler<T> {
+    abstract T handle(Reader reader) throws Exception;
+
+    /**
+     * Handles the body of a response with its status, the status is ignored by default
+     */
+    T handle(int code, Reader reader) throws Exception {
+      return handle(reader);
+    }
+
+    /**
+     * Returns the result to use when the response could not be received, rethrows the error by default
+     */
+    T recover(Exception ex) throws Exception {
+      throw ex;
+    }
+  }
+
+  /**
+   * Converts a CDN response to a result; missing files and failed requests are passed on as responses too
+   *
+   * @param <T> result type
+   */
+  private abstract class CDNResponseHandler<T> extends ResponseHandler<T> {
+    private final String cacheKey;
 
-    Response response = getOkHttpClient().newCall(request).execute();
-    if (!response.isSuccessful()) throw new IOException("Unexpected code " + response);
+    CDNResponseHandler(String cacheKey) {
+      this.cacheKey = cacheKey;
+    }
+
+    abstract T handleCDN(CDNResponse response) throws Exception;
 
-    long t1 = new Date().getTime();
+    T handle(Reader reader) throws Exception {
+      return handle(200, reader);
+    }
 
-    Tml.getLogger().debug("HTTP Post took: " + (t1 - t0) + " mls");
-    String responseText = response.body().string();
-    Tml.getLogger().debug("HTTP Post response: " + responseText);
-    return responseText;
+    T handle(int code, Reader reader) throws Exception {
+      return handleCDN(readCDNResponse(cacheKey, code, reader));
+    }
+
+    T recover(Exception ex) throws Exception {
+      return handleCDN(getCDNFallback(cacheKey, ex));
+    }
+  }
+
+  /**
+   * Counts the bytes of a response body and reports the request to the metrics once the body is closed
+   */
+  private static final class MeteredInputStream extends FilterInputStream {
+    private final Metrics metrics;
+    private final String type;
+    private final long sentAt;
+    private long bytes;
+    private boolean closed;
+
+    private MeteredInputStream(InputStream stream, Metrics metrics, String type, long sentAt) {
+      super(stream);
+      this.metrics = metrics;
+      this.type = type;
+      this.sentAt = sentAt;
+    }
+
+    public int read() throws IOException {
+      int value = super.read();
+      if (value >= 0)
+        bytes++;
+      return value;
+    }
+
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int count = super.read(buffer, offset, length);
+      if (count > 0)
+        bytes += count;
+      return count;
+    }
+
+    public long skip(long count) throws IOException {
+      long skipped = super.skip(count);
+      bytes += skipped;
+      return skipped;
+    }
+
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        if (!closed) {
+          closed = true;
+          metrics.recordRequest(type, System.nanoTime() - sentAt, bytes);
+        }
+      }
+    }
+  }
+
+  /**
+   * Text of a CDN response, with the status of the negative entry it is cached as, or no status for found data
+   */
+  private static final class CDNResponse {
+    private final String text;
+    private final String status;
+
+    private CDNResponse(String text, String status) {
+      this.text = text;
+      this.status = status;
+    }
+
+    private boolean isFound() {
+      return status == null;
+    }
+  }
+
+  private static final ResponseHandler<String> TEXT_RESPONSE = new ResponseHandler<String>() {
+    String handle(Reader reader) throws Exception {
+      return Utils.readFully(reader);
+    }
+  };
+
+  /**
+   * Sends the request on the dispatcher and completes the future with the handled response
+   */
+  private <T> HttpFuture<T> enqueue(Request request, final HttpFuture<T> future, final ResponseHandler<T> handler) {
+    Call call = getOkHttpClient().newCall(request);
+    if (!future.setCall(call))
+      return future;
+
+    call.enqueue(new Callback() {
+      public void onFailure(Request request, IOException ex) {
+        recover(ex);
+      }
+
+      public void onResponse(Response response) throws IOException {
+        Reader reader;
+        try {
+          reader = openReader(response);
+        } catch (IOException ex) {
+          recover(ex);
+          return;
+        }
+
+        T result;
+        try {
+          result = handler.handle(response.code(), reader);
+        } catch (Exception ex) {
+          future.fail(ex);
+          return;
+        } finally {
+          reader.close();
+        }
+        future.complete(result);
+      }
+
+      private void recover(Exception ex) {
+        if (future.isCancelled())
+          return;
+        try {
+          future.complete(handler.recover(ex));
+        } catch (Exception error) {
+          future.fail(error);
+        }
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Gets data from a URL without blocking
+   *
+   * @param url      Where to load data from
+   * @param options  Request options
+   * @param callback a {@link com.translationexchange.core.HttpCallback} object, may be null.
+   * @return a {@link java.util.concurrent.Future} object.
+   */
+  public Future<String> getAsync(URL url, Map<String, Object> options, HttpCallback<String> callback) {
+    Tml.getGuardedLogger().debugf("HTTP Get: {}", url);
+    return enqueue(buildGetRequest(url), new HttpFuture<String>(callback), TEXT_RESPONSE);
+  }
+
+  /**
+   * Gets data from an API path without blocking
+   *
+   * @param path     a {@link java.lang.String} object.
+   * @param params   a {@link java.util.Map} object.
+   * @param options  a {@link java.util.Map} object.
+   * @param callback a {@link com.translationexchange.core.HttpCallback} object, may be null.
+   * @return a {@link java.util.concurrent.Future} object.
+   */
+  public Future<String> getAsync(String path, Map<String, Object> params, Map<String, Object> options, HttpCallback<String> callback) {
+    try {
+      prepareParams(params, options);
+      return getAsync(Utils.buildURL(getApplication().getHost(), API_PATH + path, params), options, callback);
+    } catch (Exception ex) {
+      return HttpFuture.failed(ex, callback);
+    }
+  }
+
+  /**
+   * Posts data to an API path without blocking. Posts are never cached.
+   *
+   * @param path     a {@link java.lang.String} object.
+   * @param params   a {@link java.util.Map} object.
+   * @param options  a {@link java.util.Map} object.
+   * @param callback a {@link com.translationexchange.core.HttpCallback} object, may be null.
+   * @return a {@link java.util.concurrent.Future} object.
+   */
+  public Future<String> postAsync(String path, Map<String, Object> params, Map<String, Object> options, HttpCallback<String> callback) {
+    try {
+      return enqueue(buildPostRequest(path, params), new HttpFuture<String>(callback), TEXT_RESPONSE);
+    } catch (Exception ex) {
+      return HttpFuture.failed(ex, callback);
+    }
+  }
+
+  /**
+   * Fetches data from the CDN without blocking, see {@link #getFromCDN(String, Map)}
+   *
+   * @param cacheKey a {@link java.lang.String} object.
+   * @param options  a {@link java.util.Map} object.
+   * @param callback a {@link com.translationexchange.core.HttpCallback} object, may be null.
+   * @return a {@link java.util.concurrent.Future} object.
+   */
+  public Future<String> getFromCDNAsync(final String cacheKey, Map<String, Object> options, HttpCallback<String> callback) {
+    return getFromCDNAsync(cacheKey, new HttpFuture<String>(callback), new CDNResponseHandler<String>(cacheKey) {
+      String handleCDN(CDNResponse response) {
+        return response.text;
+      }
+    });
+  }
+
+  private <T> HttpFuture<T> getFromCDNAsync(String cacheKey, HttpFuture<T> future, ResponseHandler<T> handler) {
+    try {
+      CacheVersion cacheVersion = cacheKey.equals("version") ? null : getCacheVersion();
+      if (cacheVersion != null && cacheVersion.isUnreleased()) {
+        future.complete(null);
+        return future;
+      }
+      return enqueue(buildGetRequest(getCdnURL(cacheKey, cacheVersion)), future, handler);
+    } catch (Exception ex) {
+      future.fail(ex);
+      return future;
+    }
+  }
+
+  /**
+   * Requests JSON without blocking. Follows the same live API, cache and CDN rules as
+   * {@link #getJSON(String, Map, Map)}; cached data is returned right away and, as there, must not
+   * be modified.
+   *
+   * @param path     a {@link java.lang.String} object.
+   * @param params   a {@link java.util.Map} object.
+   * @param options  a {@link java.util.Map} object.
+   * @param callback a {@link com.translationexchange.core.HttpCallback} object, may be null.
+   * @return a {@link java.util.concurrent.Future} object.
+   */
+  public Future<Map<String, Object>> getJSONAsync(String path, Map<String, Object> params, final Map<String, Object> options, HttpCallback<Map<String, Object>> callback) {
+    final String cacheKey = (String) options.get("cache_key");
+    HttpFuture<Map<String, Object>> future = new HttpFuture<Map<String, Object>>(callback);
+
+    try {
+      if (isLiveApi()) {
+        prepareParams(params, options);
+        return enqueue(buildGetRequest(Utils.buildURL(getApplication().getHost(), API_PATH + path, params)), future, new ResponseHandler<Map<String, Object>>() {
+          Map<String, Object> handle(Reader reader) throws Exception {
+            return processJSONResponse(reader, options);
+          }
+        });
+      }
+
+      CacheVersion cacheVersion = getCacheVersion();
+      if (!isCacheEnabled(options) || cacheVersion.isUnreleased()) {
+        future.complete(null);
+        return future;
+      }
+
+      options.put(CacheVersion.VERSION_KEY, cacheVersion.getVersion());
+
+      Map<String, Object> result = fetchCachedJSON(cacheKey, options);
+      if (result != null) {
+        future.complete(result);
+        return future;
+      }
+
+      return getFromCDNAsync(cacheKey, future, new CDNResponseHandler<Map<String, Object>>(cacheKey) {
+        Map<String, Object> handleCDN(CDNResponse response) throws Exception {
+          return storeJSON(cacheKey, response, options);
+        }
+      });
+    } catch (Exception ex) {
+      future.fail(ex);
+      return future;
+    }
+  }
+
+  /**
+   * Streams a translation bundle into the handler without blocking. Follows the same rules as
+   * {@link #readTranslationBundle(String, Map, Map, TranslationBundleHandler)}; the handler is called
+   * on the dispatcher thread, or right away when the bundle is cached.
+   *
+   * @param path     a {@link java.lang.String} object.
+   * @param params   a {@link java.util.Map} object.
+   * @param options  a {@link java.util.Map} object.
+   * @param handler  a {@link com.translationexchange.core.TranslationBundleHandler} object.
+   * @param callback a {@link com.translationexchange.core.HttpCallback} object, may be null.
+   * @return future with true if a bundle was read
+   */
+  public Future<Boolean> readTranslationBundleAsync(String path, Map<String, Object> params, final Map<String, Object> options,
+                                                    final TranslationBundleHandler handler, HttpCallback<Boolean> callback) {
+    final String cacheKey = (String) options.get("cache_key");
+    HttpFuture<Boolean> future = new HttpFuture<Boolean>(callback);
+
+    try {
+      if (isLiveApi()) {
+        prepareParams(params, options);
+        return enqueue(buildGetRequest(Utils.buildURL(getApplication().getHost(), API_PATH + path, params)), future, new ResponseHandler<Boolean>() {
+          Boolean handle(Reader reader) throws Exception {
+            readTranslationBundle(reader, options, handler);
+            return Boolean.TRUE;
+          }
+        });
+      }
+
+      CacheVersion cacheVersion = getCacheVersion();
+      if (!isCacheEnabled(options) || cacheVersion.isUnreleased()) {
+        future.complete(Boolean.FALSE);
+        return future;
+      }
+
+      options.put(CacheVersion.VERSION_KEY, cacheVersion.getVersion());
+
+      if (readTranslationBundle(options, handler)) {
+        future.complete(Boolean.TRUE);
+        return future;
+      }
+
+      return getFromCDNAsync(cacheKey, future, new CDNResponseHandler<Boolean>(cacheKey) {
+        Boolean handleCDN(CDNResponse response) throws Exception {
+          if (response.text == null)
+            return Boolean.FALSE;
+          storeCDNResponse(cacheKey, response, response.text, options);
+          readTranslationBundle(new StringReader(response.text), options, handler);
+          return Boolean.TRUE;
+        }
+      });
+    } catch (Exception ex) {
+      future.fail(ex);
+      return future;
+    }
   }
 
   /**
@@ -490,7 +1324,7 @@ public class HttpClient {
 //        System.out.println("String length : " + str.length());
     ByteArrayOutputStream out = new ByteArrayOutputStream();
     GZIPOutputStream gzip = new GZIPOutputStream(out);
-    gzip.write(str.getBytes());
+    gzip.write(str.getBytes(Utils.UTF_8));
     gzip.close();
     String outStr = out.toString("ISO-8859-1");
 //        System.out.println("Output String length : " + outStr.length());
@@ -505,15 +1339,15 @@ public class HttpClient {
    * @throws java.io.IOException if any.
    */
   public static String decompress(byte[] bytes) throws IOException {
-    GZIPInputStream gis = new GZIPInputStream(new ByteArrayInputStream(bytes));
-    BufferedReader bf = new BufferedReader(new InputStreamReader(gis, "UTF-8"));
-    String outStr = "";
-    String line;
-    while ((line = bf.readLine()) != null) {
-      outStr += line;
-    }
-    Tml.getLogger().debug("Compressed: " + bytes.length + " Uncompressed: " + outStr.length());
-    return outStr;
+    Reader reader = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(bytes), BUFFER_SIZE), Utils.UTF_8);
+    try {
+      String outStr = Utils.readFully(reader);
+      if (Tml.getGuardedLogger().isDebugEnabled())
+        Tml.getGuardedLogger().debugf("Compressed: {} Uncompressed: {}", bytes.length, outStr.length());
+      return outStr;
+    } finally {
+      reader.close();
+    }
   }
 
 }
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core;
+
+import com.squareup.okhttp.Call;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Result of an asynchronous {@link HttpClient} request.
+ *
+ * Cancelling the future cancels the HTTP call that is in progress. A request that needs several
+ * calls, such as a CDN request after a cache miss, replaces the call as it goes.
+ *
+ * @param <T> result type
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public class HttpFuture<T> implements Future<T> {
+
+  private final HttpCallback<T> callback;
+
+  private final CountDownLatch done = new CountDownLatch(1);
+
+  private Call call;
+
+  private boolean completed;
+
+  private boolean cancelled;
+
+  private T result;
+
+  private Exception error;
+
+  /**
+   * <p>Constructor for HttpFuture.</p>
+   *
+   * @param callback a {@link com.translationexchange.core.HttpCallback} object, may be null.
+   */
+  public HttpFuture(HttpCallback<T> callback) {
+    this.callback = callback;
+  }
+
+  /**
+   * Returns a future that has already completed
+   *
+   * @param result   a T object.
+   * @param callback a {@link com.translationexchange.core.HttpCallback} object, may be null.
+   * @param <T>      result type
+   * @return a {@link com.translationexchange.core.HttpFuture} object.
+   */
+  public static <T> HttpFuture<T> completed(T result, HttpCallback<T> callback) {
+    HttpFuture<T> future = new HttpFuture<T>(callback);
+    future.complete(result);
+    return future;
+  }
+
+  /**
+   * Returns a future that has already failed
+   *
+   * @param error    a {@link java.lang.Exception} object.
+   * @param callback a {@link com.translationexchange.core.HttpCallback} object, may be null.
+   * @param <T>      result type
+   * @return a {@link com.translationexchange.core.HttpFuture} object.
+   */
+  public static <T> HttpFuture<T> failed(Exception error, HttpCallback<T> callback) {
+    HttpFuture<T> future = new HttpFuture<T>(callback);
+    future.fail(error);
+    return future;
+  }
+
+  /**
+   * Sets the HTTP call that is in progress
+   *
+   * @param call a {@link com.squareup.okhttp.Call} object.
+   * @return false if the future has already been cancelled, in which case the call is cancelled too
+   */
+  protected boolean setCall(Call call) {
+    synchronized (this) {
+      if (!cancelled) {
+        this.call = call;
+        return true;
+      }
+    }
+    call.cancel();
+    return false;
+  }
+
+  /**
+   * Completes the future with a result
+   *
+   * @param result a T object.
+   */
+  protected void complete(T result) {
+    synchronized (this) {
+      if (completed || cancelled)
+        return;
+      this.result = result;
+      this.completed = true;
+    }
+
+    // the callback runs first, so that get() returns once the result has been applied
+    try {
+      if (callback != null)
+        callback.onSuccess(result);
+    } catch (RuntimeException ex) {
+      Tml.getLogger().logException("HTTP callback failed", ex);
+    } finally {
+      done.countDown();
+    }
+  }
+
+  /**
+   * Completes the future with an error
+   *
+   * @param error a {@link java.lang.Exception} object.
+   */
+  protected void fail(Exception error) {
+    synchronized (this) {
+      if (completed || cancelled)
+        return;
+      this.error = error;
+      this.completed = true;
+    }
+
+    try {
+      if (callback != null)
+        callback.onFailure(error);
+    } catch (RuntimeException ex) {
+      Tml.getLogger().logException("HTTP callback failed", ex);
+    } finally {
+      done.countDown();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    Call running;
+    synchronized (this) {
+      if (completed || cancelled)
+        return false;
+      cancelled = true;
+      running = call;
+    }
+    done.countDown();
+
+    if (running != null)
+      running.cancel();
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public synchronized boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean isDone() {
+    return done.getCount() == 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public T get() throws InterruptedException, ExecutionException {
+    done.await();
+    return getResult();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+    if (!done.await(timeout, unit))
+      throw new TimeoutException();
+    return getResult();
+  }
+
+  private synchronized T getResult() throws ExecutionException {
+    if (cancelled)
+      throw new CancellationException();
+    if (error != null)
+      throw new ExecutionException(error);
+    return result;
+  }
+}
@@ -34,11 +34,12 @@
 
 package com.translationexchange.core;
 
-import com.translationexchange.core.logger.LoggerInterface;
+import com.translationexchange.core.logger.AbstractLogger;
+import com.translationexchange.core.logger.MessageSupplier;
 
 import org.slf4j.LoggerFactory;
 
-public class Logger implements LoggerInterface {
+public class Logger extends AbstractLogger {
   private org.slf4j.Logger theLogger;
 
   /**
@@ -70,13 +71,71 @@ public class Logger implements LoggerInterface {
     this.logException(null, ex);
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  public boolean isDebugEnabled() {
+    return theLogger.isDebugEnabled();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean isInfoEnabled() {
+    return theLogger.isInfoEnabled();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean isWarnEnabled() {
+    return theLogger.isWarnEnabled();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean isErrorEnabled() {
+    return theLogger.isErrorEnabled();
+  }
+
   /**
    * <p>debug.</p>
    *
    * @param message a {@link java.lang.Object} object.
    */
   public void debug(Object message) {
-    theLogger.debug(message.toString());
+    if (theLogger.isDebugEnabled())
+      theLogger.debug(String.valueOf(message));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void debug(MessageSupplier message) {
+    if (theLogger.isDebugEnabled())
+      theLogger.debug(String.valueOf(message.get()));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void debugf(String format, Object arg) {
+    theLogger.debug(format, arg);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void debugf(String format, Object arg1, Object arg2) {
+    theLogger.debug(format, arg1, arg2);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void debugf(String format, Object... args) {
+    theLogger.debug(format, args);
   }
 
   /**
@@ -85,7 +144,15 @@ public class Logger implements LoggerInterface {
    * @param message a {@link java.lang.Object} object.
    */
   public void info(Object message) {
-    theLogger.info(message.toString());
+    if (theLogger.isInfoEnabled())
+      theLogger.info(String.valueOf(message));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void infof(String format, Object... args) {
+    theLogger.info(format, args);
   }
 
   /**
@@ -94,7 +161,15 @@ public class Logger implements LoggerInterface {
    * @param message a {@link java.lang.Object} object.
    */
   public void warn(Object message) {
-    theLogger.warn(message.toString());
+    if (theLogger.isWarnEnabled())
+      theLogger.warn(String.valueOf(message));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void warnf(String format, Object... args) {
+    theLogger.warn(format, args);
   }
 
   /**
@@ -103,26 +178,48 @@ public class Logger implements LoggerInterface {
    * @param message a {@link java.lang.Object} object.
    */
   public void error(Object message) {
-    theLogger.error(message.toString());
+    theLogger.error(String.valueOf(message));
   }
 
-  public void error(String tag, String message) {
+  /**
+   * {@inheritDoc}
+   */
+  public void errorf(String format, Object... args) {
+    theLogger.error(format, args);
+  }
 
+  /**
+   * {@inheritDoc}
+   */
+  public void error(String tag, String message) {
+    theLogger.error("{}: {}", tag, message);
   }
 
+  /**
+   * {@inheritDoc}
+   */
   public void error(String tag, String message, Throwable e) {
-
+    theLogger.error(tag + ": " + message, e);
   }
 
+  /**
+   * {@inheritDoc}
+   */
   public void debug(String tag, String message) {
-
+    theLogger.debug("{}: {}", tag, message);
   }
 
+  /**
+   * {@inheritDoc}
+   */
   public void info(String tag, String message) {
-
+    theLogger.info("{}: {}", tag, message);
   }
 
+  /**
+   * {@inheritDoc}
+   */
   public void warn(String tag, String message) {
-
+    theLogger.warn("{}: {}", tag, message);
   }
 }
@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects translation keys that were missing during translation, grouped by source,
+ * until they are submitted to the service.
+ *
+ * Registering a key never blocks: keys are kept in a single concurrent map and the
+ * number of keys is bounded. Once the collector is full, the overflow policy decides
+ * whether new keys are dropped or the collected keys are discarded. Draining removes
+ * the keys it returns one by one, so keys registered while a drain is running are
+ * either part of it or kept for the next one.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public class MissingKeyCollector {
+
+  /**
+   * What to do with a new key when the collector is full
+   */
+  public enum OverflowPolicy {
+    /**
+     * Keep the collected keys and drop the new one
+     */
+    DROP_NEW,
+
+    /**
+     * Discard the collected keys and keep the new one
+     */
+    DROP_COLLECTED
+  }
+
+  /**
+   * Constant <code>DEFAULT_CAPACITY=10000</code>
+   */
+  public static final int DEFAULT_CAPACITY = 10000;
+
+  private static final String SEPARATOR = "\u0000";
+
+  /**
+   * Maximum number of collected keys
+   */
+  private final int capacity;
+
+  /**
+   * Policy applied when the collector is full
+   */
+  private final OverflowPolicy overflowPolicy;
+
+  /**
+   * Collected keys by source and key
+   */
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+  /**
+   * Number of collected keys, maintained separately since counting a concurrent map is not constant time
+   */
+  private final AtomicInteger size = new AtomicInteger();
+
+  private final AtomicLong registeredCount = new AtomicLong();
+  private final AtomicLong duplicateCount = new AtomicLong();
+  private final AtomicLong droppedCount = new AtomicLong();
+  private final AtomicLong drainedCount = new AtomicLong();
+
+  /**
+   * Default constructor
+   */
+  public MissingKeyCollector() {
+    this(DEFAULT_CAPACITY, OverflowPolicy.DROP_NEW);
+  }
+
+  /**
+   * <p>Constructor for MissingKeyCollector.</p>
+   *
+   * @param capacity       maximum number of collected keys
+   * @param overflowPolicy a {@link com.translationexchange.core.MissingKeyCollector.OverflowPolicy} object.
+   */
+  public MissingKeyCollector(int capacity, OverflowPolicy overflowPolicy) {
+    if (capacity <= 0)
+      throw new IllegalArgumentException("Capacity must be positive");
+    if (overflowPolicy == null)
+      throw new IllegalArgumentException("Overflow policy must be provided");
+    this.capacity = capacity;
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  /**
+   * Registers a missing key for a source
+   *
+   * @param sourceKey      a {@link java.lang.String} object.
+   * @param translationKey a {@link com.translationexchange.core.TranslationKey} object.
+   * @return true if the key was collected, false if it was already collected or got dropped
+   */
+  public boolean add(String sourceKey, TranslationKey translationKey) {
+    String id = sourceKey + SEPARATOR + translationKey.getKey();
+    if (entries.containsKey(id)) {
+      duplicateCount.incrementAndGet();
+      return false;
+    }
+
+    if (size.incrementAndGet() > capacity) {
+      size.decrementAndGet();
+      if (overflowPolicy == OverflowPolicy.DROP_NEW) {
+        droppedCount.incrementAndGet();
+        return false;
+      }
+      droppedCount.addAndGet(removeAll(null));
+      size.incrementAndGet();
+    }
+
+    if (entries.putIfAbsent(id, new Entry(sourceKey, translationKey)) != null) {
+      size.decrementAndGet();
+      duplicateCount.incrementAndGet();
+      return false;
+    }
+
+    registeredCount.incrementAndGet();
+    Tml.getConfig().getMetrics().recordMissingKeyQueueDepth(size.get());
+    return true;
+  }
+
+  /**
+   * Removes the collected keys and returns them grouped by source
+   *
+   * @return a {@link java.util.Map} object.
+   */
+  public Map<String, List<TranslationKey>> drain() {
+    Map<String, List<TranslationKey>> keysBySources = new LinkedHashMap<String, List<TranslationKey>>();
+    drainedCount.addAndGet(removeAll(keysBySources));
+    return keysBySources;
+  }
+
+  /**
+   * Returns a copy of the collected keys grouped by source, without removing them
+   *
+   * @return a {@link java.util.Map} object.
+   */
+  public Map<String, Map<String, TranslationKey>> snapshot() {
+    Map<String, Map<String, TranslationKey>> keysBySources = new HashMap<String, Map<String, TranslationKey>>();
+    for (Entry entry : entries.values()) {
+      Map<String, TranslationKey> keys = keysBySources.get(entry.sourceKey);
+      if (keys == null) {
+        keys = new HashMap<String, TranslationKey>();
+        keysBySources.put(entry.sourceKey, keys);
+      }
+      keys.put(entry.translationKey.getKey(), entry.translationKey);
+    }
+    return keysBySources;
+  }
+
+  /**
+   * Removes all collected keys, adding them to the target when one is given
+   *
+   * @return number of removed keys
+   */
+  private int removeAll(Map<String, List<TranslationKey>> target) {
+    int removed = 0;
+    for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+      if (!entries.remove(entry.getKey(), entry.getValue()))
+        continue;
+
+      size.decrementAndGet();
+      removed++;
+
+      if (target != null) {
+        List<TranslationKey> keys = target.get(entry.getValue().sourceKey);
+        if (keys == null) {
+          keys = new ArrayList<TranslationKey>();
+          target.put(entry.getValue().sourceKey, keys);
+        }
+        keys.add(entry.getValue().translationKey);
+      }
+    }
+    Tml.getConfig().getMetrics().recordMissingKeyQueueDepth(size.get());
+    return removed;
+  }
+
+  /**
+   * Removes all collected keys
+   */
+  public void clear() {
+    removeAll(null);
+  }
+
+  /**
+   * Returns the number of collected keys
+   *
+   * @return a int.
+   */
+  public int size() {
+    return size.get();
+  }
+
+  /**
+   * <p>isEmpty.</p>
+   *
+   * @return a boolean.
+   */
+  public boolean isEmpty() {
+    return size.get() == 0;
+  }
+
+  /**
+   * <p>Getter for the field <code>capacity</code>.</p>
+   *
+   * @return a int.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * <p>Getter for the field <code>overflowPolicy</code>.</p>
+   *
+   * @return a {@link com.translationexchange.core.MissingKeyCollector.OverflowPolicy} object.
+   */
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  /**
+   * Returns the number of keys collected since creation
+   *
+   * @return a long.
+   */
+  public long getRegisteredCount() {
+    return registeredCount.get();
+  }
+
+  /**
+   * Returns the number of keys that had already been collected
+   *
+   * @return a long.
+   */
+  public long getDuplicateCount() {
+    return duplicateCount.get();
+  }
+
+  /**
+   * Returns the number of keys lost to the overflow policy
+   *
+   * @return a long.
+   */
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  /**
+   * Returns the number of keys handed out by drains
+   *
+   * @return a long.
+   */
+  public long getDrainedCount() {
+    return drainedCount.get();
+  }
+
+  private static final class Entry {
+    private final String sourceKey;
+    private final TranslationKey translationKey;
+
+    private Entry(String sourceKey, TranslationKey translationKey) {
+      this.sourceKey = sourceKey;
+      this.translationKey = translationKey;
+    }
+  }
+}
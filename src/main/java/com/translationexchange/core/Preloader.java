@@ -0,0 +1,496 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.translationexchange.core.languages.Language;
+
+/**
+ * Warms up an application before it serves requests: loads the language definitions, the
+ * application translations of every locale and the sources, in parallel on a bounded pool.
+ *
+ * Loads go through the same application methods the lazy path uses, so a translate call that
+ * runs after the preload finds everything resident, and one that runs during the preload waits
+ * for the load in progress instead of starting another one.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public class Preloader {
+
+  /**
+   * Default number of parallel loads, used when the http config has no max_requests_per_host
+   */
+  public static final int DEFAULT_CONCURRENCY = 5;
+
+  private final Application application;
+
+  private int concurrency;
+
+  private Listener listener;
+
+  /**
+   * <p>Constructor for Preloader.</p>
+   *
+   * @param application a {@link com.translationexchange.core.Application} object.
+   */
+  public Preloader(Application application) {
+    this.application = application;
+
+    // all loads go to the same host, so there is no point in running more than the dispatcher allows
+    Object limit = Tml.getConfig().getHttp() == null ? null : Tml.getConfig().getHttp().get("max_requests_per_host");
+    this.concurrency = limit instanceof Number ? ((Number) limit).intValue() : DEFAULT_CONCURRENCY;
+  }
+
+  /**
+   * <p>Getter for the field <code>concurrency</code>.</p>
+   *
+   * @return a int.
+   */
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  /**
+   * <p>Setter for the field <code>concurrency</code>.</p>
+   *
+   * @param concurrency a int.
+   * @return a {@link com.translationexchange.core.Preloader} object.
+   */
+  public Preloader setConcurrency(int concurrency) {
+    this.concurrency = Math.max(concurrency, 1);
+    return this;
+  }
+
+  /**
+   * <p>Setter for the field <code>listener</code>.</p>
+   *
+   * @param listener a {@link com.translationexchange.core.Preloader.Listener} object.
+   * @return a {@link com.translationexchange.core.Preloader} object.
+   */
+  public Preloader setListener(Listener listener) {
+    this.listener = listener;
+    return this;
+  }
+
+  /**
+   * Loads the locales and sources and waits for all of them.
+   * A null list of locales stands for all languages of the application; a null list of sources
+   * stands for the sources published with the application definition.
+   *
+   * The application keeps one source per key, so sources are loaded in the default locale when it
+   * is preloaded, or in the first locale otherwise.
+   *
+   * @param locales    a {@link java.util.List} object.
+   * @param sourceKeys a {@link java.util.List} object.
+   * @return a {@link com.translationexchange.core.Preloader.Report} object.
+   * @throws java.lang.InterruptedException if the calling thread is interrupted.
+   */
+  public Report preload(List<String> locales, List<String> sourceKeys) throws InterruptedException {
+    List<Task> tasks = plan(locales, sourceKeys);
+    Report report = new Report(tasks.size());
+    if (tasks.isEmpty())
+      return report.finish();
+
+    Tml.getLogger().debug("Preloading " + tasks.size() + " resources with " + concurrency + " parallel loads...");
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, tasks.size()), new PreloadThreadFactory());
+    try {
+      CompletionService<Task> completion = new ExecutorCompletionService<Task>(executor);
+      for (Task task : tasks)
+        completion.submit(task);
+
+      for (int i = 0; i < tasks.size(); i++) {
+        Task task;
+        try {
+          task = completion.take().get();
+        } catch (ExecutionException ex) {
+          // tasks catch their own failures
+          throw new IllegalStateException(ex.getCause());
+        }
+        report.add(task);
+        if (listener != null)
+          listener.onProgress(task, report.getCompletedCount(), report.getTaskCount());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    report.finish();
+    Tml.getLogger().debug("Preloaded " + report.getCompletedCount() + " resources in " + report.getElapsedTime() + " ms, " + report.getFailureCount() + " failed");
+    return report;
+  }
+
+  /**
+   * Builds the list of loads: language definitions first, so that they are not waited for by the translations
+   *
+   * @param locales    a {@link java.util.List} object.
+   * @param sourceKeys a {@link java.util.List} object.
+   * @return a {@link java.util.List} object.
+   */
+  protected List<Task> plan(List<String> locales, List<String> sourceKeys) {
+    LinkedHashSet<String> localeSet = new LinkedHashSet<String>();
+    if (locales != null) {
+      localeSet.addAll(locales);
+    } else if (application.getLanguages() != null) {
+      for (Language language : application.getLanguages())
+        localeSet.add(language.getLocale());
+    }
+    localeSet.remove(null);
+
+    LinkedHashSet<String> sourceSet = new LinkedHashSet<String>();
+    if (sourceKeys != null)
+      sourceSet.addAll(sourceKeys);
+    else
+      sourceSet.addAll(application.getSourcesByKeys().keySet());
+    sourceSet.remove(null);
+
+    List<Task> tasks = new ArrayList<Task>();
+    for (String locale : localeSet)
+      tasks.add(new LanguageTask(locale));
+    for (String locale : localeSet)
+      tasks.add(new TranslationsTask(locale));
+
+    String sourceLocale = localeSet.contains(application.getDefaultLocale()) || localeSet.isEmpty() ? application.getDefaultLocale() : localeSet.iterator().next();
+    for (String key : sourceSet)
+      tasks.add(new SourceTask(key, sourceLocale));
+    return tasks;
+  }
+
+  /**
+   * Receives progress of a preload on the thread that called {@link Preloader#preload(List, List)}
+   */
+  public interface Listener {
+
+    /**
+     * Called after each load
+     *
+     * @param task      the finished load
+     * @param completed number of finished loads
+     * @param total     number of loads
+     */
+    void onProgress(Task task, int completed, int total);
+  }
+
+  /**
+   * A single load with its timing
+   */
+  public abstract static class Task implements Callable<Task> {
+
+    /**
+     * Loads language definitions
+     */
+    public static final String LANGUAGE = "language";
+
+    /**
+     * Loads application translations of a locale
+     */
+    public static final String TRANSLATIONS = "translations";
+
+    /**
+     * Loads a source
+     */
+    public static final String SOURCE = "source";
+
+    private final String type;
+
+    private final String name;
+
+    private final String locale;
+
+    private long duration;
+
+    private Exception error;
+
+    Task(String type, String name, String locale) {
+      this.type = type;
+      this.name = name;
+      this.locale = locale;
+    }
+
+    /**
+     * Runs the load
+     *
+     * @throws java.lang.Exception if any.
+     */
+    protected abstract void load() throws Exception;
+
+    public Task call() {
+      long start = System.currentTimeMillis();
+      try {
+        load();
+      } catch (Exception ex) {
+        error = ex;
+        Tml.getLogger().logException("Failed to preload " + this, ex);
+      }
+      duration = System.currentTimeMillis() - start;
+      return this;
+    }
+
+    /**
+     * <p>Getter for the field <code>type</code>.</p>
+     *
+     * @return a {@link java.lang.String} object.
+     */
+    public String getType() {
+      return type;
+    }
+
+    /**
+     * Returns the locale or the source key
+     *
+     * @return a {@link java.lang.String} object.
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * <p>Getter for the field <code>locale</code>.</p>
+     *
+     * @return a {@link java.lang.String} object.
+     */
+    public String getLocale() {
+      return locale;
+    }
+
+    /**
+     * Returns the time the load took, in milliseconds
+     *
+     * @return a long.
+     */
+    public long getDuration() {
+      return duration;
+    }
+
+    /**
+     * <p>Getter for the field <code>error</code>.</p>
+     *
+     * @return a {@link java.lang.Exception} object.
+     */
+    public Exception getError() {
+      return error;
+    }
+
+    /**
+     * <p>isSuccessful.</p>
+     *
+     * @return a boolean.
+     */
+    public boolean isSuccessful() {
+      return error == null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String toString() {
+      return type + " " + name;
+    }
+  }
+
+  private class LanguageTask extends Task {
+    LanguageTask(String locale) {
+      super(LANGUAGE, locale, locale);
+    }
+
+    protected void load() throws Exception {
+      Language language = application.loadLanguage(getLocale());
+      if (!language.hasDefinition())
+        throw new IllegalStateException("Language " + getLocale() + " has no definition");
+    }
+  }
+
+  private class TranslationsTask extends Task {
+    TranslationsTask(String locale) {
+      super(TRANSLATIONS, locale, locale);
+    }
+
+    protected void load() throws Exception {
+      application.loadTranslations(application.loadLanguage(getLocale()));
+    }
+  }
+
+  private class SourceTask extends Task {
+    SourceTask(String key, String locale) {
+      super(SOURCE, key, locale);
+    }
+
+    protected void load() throws Exception {
+      Source source = application.getSourcesByKeys().get(getName());
+      if (source == null) {
+        source = application.loadSource(getName(), getLocale(), null);
+      } else {
+        // sources listed in the application definition are registered without being loaded
+        synchronized (source) {
+          if (!Boolean.TRUE.equals(source.isLoaded())) {
+            if (source.getApplication() == null)
+              source.setApplication(application);
+            if (source.getLocale() == null)
+              source.setLocale(getLocale());
+            source.load(null);
+          }
+        }
+      }
+
+      if (!Boolean.TRUE.equals(source.isLoaded()))
+        throw new IllegalStateException("Source " + getName() + " could not be loaded");
+    }
+  }
+
+  /**
+   * Outcome of a preload
+   */
+  public static class Report {
+    private final int taskCount;
+
+    private final long startTime = System.currentTimeMillis();
+
+    private final List<Task> tasks = new ArrayList<Task>();
+
+    private long elapsedTime;
+
+    Report(int taskCount) {
+      this.taskCount = taskCount;
+    }
+
+    void add(Task task) {
+      tasks.add(task);
+    }
+
+    Report finish() {
+      elapsedTime = System.currentTimeMillis() - startTime;
+      return this;
+    }
+
+    /**
+     * Returns the finished loads, in the order they finished
+     *
+     * @return a {@link java.util.List} object.
+     */
+    public List<Task> getTasks() {
+      return Collections.unmodifiableList(tasks);
+    }
+
+    /**
+     * <p>Getter for the field <code>taskCount</code>.</p>
+     *
+     * @return a int.
+     */
+    public int getTaskCount() {
+      return taskCount;
+    }
+
+    /**
+     * <p>getCompletedCount.</p>
+     *
+     * @return a int.
+     */
+    public int getCompletedCount() {
+      return tasks.size();
+    }
+
+    /**
+     * <p>getFailureCount.</p>
+     *
+     * @return a int.
+     */
+    public int getFailureCount() {
+      int count = 0;
+      for (Task task : tasks) {
+        if (!task.isSuccessful())
+          count++;
+      }
+      return count;
+    }
+
+    /**
+     * Returns the wall clock time of the preload, in milliseconds
+     *
+     * @return a long.
+     */
+    public long getElapsedTime() {
+      return elapsedTime;
+    }
+
+    /**
+     * Returns the sum of the load times, in milliseconds
+     *
+     * @return a long.
+     */
+    public long getTotalLoadTime() {
+      long total = 0;
+      for (Task task : tasks)
+        total += task.getDuration();
+      return total;
+    }
+
+    /**
+     * Returns the summed load time of every type of load, in milliseconds
+     *
+     * @return a {@link java.util.Map} object.
+     */
+    public Map<String, Object> getTimings() {
+      Map<String, Object> timings = Utils.map(Task.LANGUAGE, 0L, Task.TRANSLATIONS, 0L, Task.SOURCE, 0L);
+      for (Task task : tasks)
+        timings.put(task.getType(), (Long) timings.get(task.getType()) + task.getDuration());
+      timings.put("elapsed", elapsedTime);
+      return timings;
+    }
+  }
+
+  private static class PreloadThreadFactory implements ThreadFactory {
+    private static final AtomicInteger count = new AtomicInteger();
+
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "tml-preload-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -36,6 +36,7 @@ package com.translationexchange.core;
 
 import com.translationexchange.core.languages.Language;
 import com.translationexchange.core.tokenizers.DomTokenizer;
+import com.translationexchange.core.tokenizers.DomTokenizerProfile;
 
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
@@ -59,12 +60,12 @@ public class Session extends Observable {
   /**
    * Current application
    */
-  private Application application;
+  private volatile Application application;
 
   /**
    * Stores the current language selected by the user
    */
-  private Language currentLanguage;
+  private volatile Language currentLanguage;
 
   /**
    * Stores the current translator info
@@ -129,6 +130,33 @@ public class Session extends Observable {
     init(options, applicationParams);
   }
 
+  /**
+   * Creates a lightweight session for a single request that shares an already loaded application.
+   * The application is neither created nor loaded again, and it does not point back to the session;
+   * only the current language, source, translator and block options belong to the session.
+   *
+   * @param application a loaded {@link com.translationexchange.core.Application} object.
+   * @param options     a {@link java.util.Map} object with the optional "locale", "source" and "translator".
+   */
+  @SuppressWarnings("unchecked")
+  public Session(Application application, Map<String, Object> options) {
+    setApplication(application);
+
+    if (options == null)
+      options = Utils.map();
+
+    if (options.get("translator") instanceof Translator) {
+      setCurrentTranslator((Translator) options.get("translator"));
+    } else if (options.get("translator") != null) {
+      setCurrentTranslator(new Translator((Map<String, Object>) options.get("translator")));
+    }
+
+    if (options.get("source") != null)
+      setCurrentSource((String) options.get("source"));
+
+    setCurrentLocale(application.getFirstAcceptedLocale((String) options.get("locale")));
+  }
+
   public void init(Map<String, Object> options, Map<String, Object> applicationParams) {
     try {
       setApplication(initializeApplication(options));
@@ -312,6 +340,20 @@ public class Session extends Observable {
     this.application = application;
   }
 
+  /**
+   * Replaces the application with one loaded for a newer release. The current language is taken
+   * from the new application, translate calls that are in progress finish with the previous one.
+   *
+   * @param application a {@link com.translationexchange.core.Application} object.
+   */
+  public void switchApplication(Application application) {
+    Language language = getCurrentLanguage();
+    application.setSession(this);
+    setApplication(application);
+    if (language != null)
+      setCurrentLanguage(application.getLanguage(language.getLocale()));
+  }
+
   /**
    * <p>Getter for the field <code>currentTranslator</code>.</p>
    *
@@ -415,17 +457,32 @@ public class Session extends Observable {
   /**
    * <p>trh.</p>
    *
+   * Translates HTML with the translator options of the configuration, compiled once and shared.
+   * Translator options given for the call are merged over the ones of the configuration and
+   * compiled for the call only.
+   *
    * @param html    a {@link java.lang.String} object.
    * @param tokens  a {@link java.util.Map} object.
-   * @param options a {@link java.util.Map} object.
+   * @param options a {@link java.util.Map} object with translator options and an optional session.
    * @return a {@link java.lang.String} object.
    */
   public String trh(String html, Map<String, Object> tokens, Map<String, Object> options) {
-    if (options == null) {
-      options = new HashMap<String, Object>();
+    Session session = this;
+    DomTokenizerProfile profile = Tml.getConfig().getDomTokenizerProfile();
+
+    if (options != null && !options.isEmpty()) {
+      Map<String, Object> translatorOptions = new HashMap<String, Object>(options);
+      if (translatorOptions.get(SESSION_KEY) instanceof Session)
+        session = (Session) translatorOptions.get(SESSION_KEY);
+      translatorOptions.remove(SESSION_KEY);
+
+      if (!translatorOptions.isEmpty()) {
+        Map<String, Object> merged = new HashMap<String, Object>(Tml.getConfig().getTranslatorOptions());
+        merged.putAll(translatorOptions);
+        profile = new DomTokenizerProfile(merged);
+      }
     }
-    options.put(Session.SESSION_KEY, this);
-    return new DomTokenizer(tokens, options).translate(html);
+    return new DomTokenizer(tokens, profile, session).translate(html);
   }
 
   /**
@@ -34,14 +34,18 @@
 
 package com.translationexchange.core;
 
+import com.translationexchange.core.metrics.Metrics;
+
 import java.io.File;
-import java.math.BigInteger;
-import java.security.MessageDigest;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
 
 public class Source extends Base {
 
@@ -73,7 +77,17 @@ public class Source extends Base {
   /**
    * Translation keys registered with the source
    */
-  private Map<String, TranslationKey> translationKeys;
+  private volatile Map<String, TranslationKey> translationKeys;
+
+  /**
+   * Load started by {@link #loadInBackground(Map)}
+   */
+  private volatile Future<Boolean> pendingLoad;
+
+  /**
+   * MD5 hash of the source key, used by the API
+   */
+  private String md5Key;
 
   /**
    * Default constructor
@@ -179,6 +193,7 @@ public class Source extends Base {
    */
   public void setKey(String key) {
     this.key = key;
+    this.md5Key = null;
   }
 
   /**
@@ -239,42 +254,73 @@ public class Source extends Base {
     Iterator entries = ((Map) data.get("results")).entrySet().iterator();
     while (entries.hasNext()) {
       Map.Entry entry = (Map.Entry) entries.next();
-      String key = (String) entry.getKey();
-      List<Map<String, Object>> translationsData = (List<Map<String, Object>>) entry.getValue();
+      updateTranslationKey((String) entry.getKey(), (List<Map<String, Object>>) entry.getValue());
+    }
+  }
 
-      TranslationKey tkey = null;
-      if (getApplication() != null)
-        tkey = getApplication().getTranslationKey(key);
+  /**
+   * Reads a translation bundle and builds its keys while it is being parsed
+   *
+   * @param reader a {@link java.io.Reader} object.
+   * @return number of keys read
+   * @throws java.io.IOException if the bundle can not be read.
+   */
+  public int updateTranslationKeys(Reader reader) throws IOException {
+    return new TranslationBundleReader(getTranslationKeysHandler()).read(reader);
+  }
 
-      if (tkey == null) {
-        tkey = new TranslationKey(key);
-        if (getApplication() != null) {
-          getApplication().addTranslationKey(tkey);
-          tkey.setLocale(getApplication().getDefaultLocale());
-        }
+  /**
+   * Returns a handler that adds the keys of a translation bundle to the source
+   *
+   * @return a {@link com.translationexchange.core.TranslationBundleHandler} object.
+   */
+  protected TranslationBundleHandler getTranslationKeysHandler() {
+    return new TranslationBundleHandler() {
+      public void onTranslationKey(String key, List<Map<String, Object>> translations) {
+        updateTranslationKey(key, translations);
       }
+    };
+  }
 
-      List<Translation> translations = new ArrayList<Translation>();
-      for (Map<String, Object> translationData : translationsData) {
-        Translation translation = new Translation(translationData);
-        String locale = (String) translationData.get("locale");
+  /**
+   * Updates the translations of a single key of the source
+   *
+   * @param key              a {@link java.lang.String} object.
+   * @param translationsData a {@link java.util.List} object.
+   */
+  protected void updateTranslationKey(String key, List<Map<String, Object>> translationsData) {
+    TranslationKey tkey = null;
+    if (getApplication() != null)
+      tkey = getApplication().getTranslationKey(key);
+
+    if (tkey == null) {
+      tkey = new TranslationKey(key);
+      if (getApplication() != null) {
+        getApplication().addTranslationKey(tkey);
+        tkey.setLocale(getApplication().getDefaultLocale());
+      }
+    }
 
-        if (locale == null)
-          locale = getLocale();
+    List<Translation> translations = new ArrayList<Translation>();
+    for (Map<String, Object> translationData : translationsData) {
+      Translation translation = new Translation(translationData);
+      String locale = (String) translationData.get("locale");
 
-        if (getApplication() != null)
-          translation.setLanguage(getApplication().getLanguage(locale));
+      if (locale == null)
+        locale = getLocale();
 
-//                if (tkey.getLabel() == null || tkey.getLabel().equals("")) {
-//                    tkey.setLabel(translation.getLabel());
-//                }
+      if (getApplication() != null)
+        translation.setLanguage(getApplication().getLanguage(locale));
 
-        translations.add(translation);
-      }
+//            if (tkey.getLabel() == null || tkey.getLabel().equals("")) {
+//                tkey.setLabel(translation.getLabel());
+//            }
 
-      tkey.setTranslations(getLocale(), translations);
-      addTranslationKey(tkey);
+      translations.add(translation);
     }
+
+    tkey.setTranslations(getLocale(), translations);
+    addTranslationKey(tkey);
   }
 
   /**
@@ -303,12 +349,12 @@ public class Source extends Base {
    * @return a {@link java.lang.String} object.
    */
   public String generateMD5Key() {
+    if (this.md5Key != null)
+      return this.md5Key;
+
     try {
-      MessageDigest m = MessageDigest.getInstance("MD5");
-      String hashText = new BigInteger(1, m.digest(this.getKey().getBytes("UTF-8"))).toString(16);
-      while (hashText.length() < 32)
-        hashText = "0" + hashText;
-      return hashText;
+      this.md5Key = Utils.md5Hex(this.getKey());
+      return this.md5Key;
     } catch (Exception ex) {
       Tml.getLogger().logException("Failed to generate md5 key for source: " + this.getKey(), ex);
       return null;
@@ -321,31 +367,106 @@ public class Source extends Base {
    * @param options a {@link java.util.Map} object.
    */
   public void load(Map<String, Object> options) {
+    long start = System.nanoTime();
     try {
       if (options == null)
         options = new HashMap<String, Object>();
       if (!options.containsKey("dry") || !Boolean.valueOf((String) options.get("dry"))) {
         options.put("cache_key", getCacheKey());
-        updateTranslationKeys(getApplication().getHttpClient().getJSONMap("sources/" + this.generateMD5Key() + "/translations", Utils.map("app_id", getApplication().getKey(), "all", "true", "locale", getLocale()), options));
+        getApplication().getHttpClient().readTranslationBundle("sources/" + this.generateMD5Key() + "/translations", Utils.map("app_id", getApplication().getKey(), "all", "true", "locale", getLocale()), options, getTranslationKeysHandler());
       }
       setLoaded(true);
+      Tml.getConfig().getMetrics().recordLoad(Metrics.LOAD_SOURCE, System.nanoTime() - start, true);
     } catch (Exception ex) {
       setLoaded(false);
+      Tml.getConfig().getMetrics().recordLoad(Metrics.LOAD_SOURCE, System.nanoTime() - start, false);
       Tml.getLogger().logException("Failed to load source", ex);
     }
   }
 
+  /**
+   * Loads source from service in the background, the returned future completes once the translation
+   * keys have been added to the source
+   *
+   * @param options a {@link java.util.Map} object.
+   * @return a {@link java.util.concurrent.Future} object.
+   */
+  public Future<Boolean> loadAsync(Map<String, Object> options) {
+    if (options == null)
+      options = new HashMap<String, Object>();
+    if (options.containsKey("dry") && Boolean.valueOf((String) options.get("dry"))) {
+      setLoaded(true);
+      return HttpFuture.completed(true, null);
+    }
+    options.put("cache_key", getCacheKey());
+    final long start = System.nanoTime();
+
+    return getApplication().getHttpClient().readTranslationBundleAsync("sources/" + this.generateMD5Key() + "/translations",
+        Utils.map("app_id", getApplication().getKey(), "all", "true", "locale", getLocale()),
+        options,
+        getTranslationKeysHandler(),
+        new HttpCallback<Boolean>() {
+          public void onSuccess(Boolean loaded) {
+            setLoaded(true);
+            Tml.getConfig().getMetrics().recordLoad(Metrics.LOAD_SOURCE, System.nanoTime() - start, true);
+          }
+
+          public void onFailure(Exception ex) {
+            setLoaded(false);
+            Tml.getConfig().getMetrics().recordLoad(Metrics.LOAD_SOURCE, System.nanoTime() - start, false);
+            Tml.getLogger().logException("Failed to load source", ex);
+          }
+        }
+    );
+  }
+
+  /**
+   * Starts loading the source in the background, unless it is already loading or loaded
+   *
+   * @param options a {@link java.util.Map} object.
+   * @return a {@link java.util.concurrent.Future} object.
+   */
+  public synchronized Future<Boolean> loadInBackground(Map<String, Object> options) {
+    if (pendingLoad == null || (pendingLoad.isDone() && !Boolean.TRUE.equals(isLoaded())))
+      pendingLoad = loadAsync(options);
+    return pendingLoad;
+  }
+
+  /**
+   * Returns the load started by {@link #loadInBackground(Map)}, or null
+   *
+   * @return a {@link java.util.concurrent.Future} object.
+   */
+  public Future<Boolean> getPendingLoad() {
+    return pendingLoad;
+  }
+
+  /**
+   * Returns true while a background load of the source is running
+   *
+   * @return a boolean.
+   */
+  public boolean isLoading() {
+    Future<Boolean> load = pendingLoad;
+    return load != null && !load.isDone();
+  }
+
   /**
    * Returns a map of translation keys
    *
    * @return a {@link java.util.Map} object.
    */
   public Map<String, TranslationKey> getTranslationKeys() {
-    if (translationKeys == null) {
-      translationKeys = new HashMap<String, TranslationKey>();
+    Map<String, TranslationKey> keys = translationKeys;
+    if (keys == null) {
+      synchronized (this) {
+        // keys may be added by a background load while the source is being read
+        if (translationKeys == null)
+          translationKeys = new ConcurrentHashMap<String, TranslationKey>();
+        keys = translationKeys;
+      }
     }
-
-    return translationKeys;
+    return keys;
   }
 
   /**
@@ -36,7 +36,10 @@ package com.translationexchange.core;
 
 import com.translationexchange.core.cache.Cache;
 import com.translationexchange.core.cache.CacheAdapter;
+import com.translationexchange.core.cache.CacheVersion;
 import com.translationexchange.core.languages.Language;
+import com.translationexchange.core.logger.AbstractLogger;
+import com.translationexchange.core.logger.LoggerAdapter;
 import com.translationexchange.core.logger.LoggerInterface;
 
 import java.lang.reflect.Constructor;
@@ -62,7 +65,8 @@ public class Tml {
 
   /**
    * Static instance of Tml session. For mobile and desktop applications, only a singleton session is needed.
-   * For web applications, the session must be created for every request. Session contains dynamic information per user/language.
+   * For web applications, create a lightweight session for every request with {@link Session#Session(Application, Map)},
+   * sharing the application of this session. Session contains dynamic information per user/language.
    */
   private static Session session = null;
 
@@ -81,16 +85,31 @@ public class Tml {
    */
   private static LoggerInterface logger;
 
+  /**
+   * Tml logger with level checks and parameterized messages
+   */
+  private static AbstractLogger guardedLogger;
+
   /**
    * Periodically send missing keys to the server, should only be used in a single user mode (desktop, mobile)
    */
-  protected static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+  protected static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
 
   /**
    * Schedule handler
    */
   private static ScheduledFuture<?> applicationScheduleHandler;
 
+  /**
+   * Checks the cache version in the background
+   */
+  private static CacheVersionRefresher versionRefresher;
+
+  /**
+   * Version refresh schedule handler
+   */
+  private static ScheduledFuture<?> versionScheduleHandler;
+
   /**
    * Get the current session
    *
@@ -184,6 +203,22 @@ public class Tml {
         getSession().getApplication().submitMissingTranslationKeys();
       }
     }, 10, 5, TimeUnit.SECONDS);
+
+    if (getConfig().isCacheEnabled()) {
+      long interval = Math.max(CacheVersion.getVerificationInterval(), 1000);
+      versionScheduleHandler = scheduler.scheduleWithFixedDelay(getVersionRefresher(), interval, interval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Returns the refresher that switches the session to newly published releases
+   *
+   * @return a {@link com.translationexchange.core.CacheVersionRefresher} object.
+   */
+  public static synchronized CacheVersionRefresher getVersionRefresher() {
+    if (versionRefresher == null)
+      versionRefresher = new CacheVersionRefresher();
+    return versionRefresher;
   }
 
   /**
@@ -195,6 +230,11 @@ public class Tml {
 
     applicationScheduleHandler.cancel(true);
     applicationScheduleHandler = null;
+
+    if (versionScheduleHandler != null) {
+      versionScheduleHandler.cancel(false);
+      versionScheduleHandler = null;
+    }
   }
 
   /**
@@ -267,6 +307,26 @@ public class Tml {
     return logger;
   }
 
+  /**
+   * Get the logger with level checks and parameterized messages. A custom logger that does not
+   * extend {@link AbstractLogger} is wrapped in a {@link LoggerAdapter} with the "level" of the
+   * logger configuration.
+   *
+   * @return a {@link com.translationexchange.core.logger.AbstractLogger} object.
+   */
+  public static AbstractLogger getGuardedLogger() {
+    if (guardedLogger == null) {
+      LoggerInterface base = getLogger();
+      if (base instanceof AbstractLogger) {
+        guardedLogger = (AbstractLogger) base;
+      } else {
+        Map<String, Object> loggerData = getConfig().getLogger();
+        guardedLogger = new LoggerAdapter(base, loggerData == null ? null : (String) loggerData.get("level"));
+      }
+    }
+    return guardedLogger;
+  }
+
 
   /**
    * *************************************************************************************************
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.json.simple.parser.ContentHandler;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Reads a translation bundle, {"results": {"key": [{translation}, ...], ...}}, and hands every key
+ * to a {@link TranslationBundleHandler} as soon as its translations have been read.
+ *
+ * Only the translations of the current key are held in memory, so a bundle can be loaded into
+ * the model without first building the JSON map of the whole bundle. Top level attributes other
+ * than "results" are skipped, except for "error", which is kept for the caller.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public class TranslationBundleReader {
+
+  private final TranslationBundleHandler handler;
+
+  private String error;
+
+  private int keyCount;
+
+  /**
+   * <p>Constructor for TranslationBundleReader.</p>
+   *
+   * @param handler a {@link com.translationexchange.core.TranslationBundleHandler} object.
+   */
+  public TranslationBundleReader(TranslationBundleHandler handler) {
+    this.handler = handler;
+  }
+
+  /**
+   * Reads a UTF-8 encoded bundle
+   *
+   * @param stream a {@link java.io.InputStream} object.
+   * @return number of keys read
+   * @throws java.io.IOException if the stream fails or does not contain a JSON bundle.
+   */
+  public int read(InputStream stream) throws IOException {
+    return read(new InputStreamReader(stream, Utils.UTF_8));
+  }
+
+  /**
+   * Reads a bundle
+   *
+   * @param reader a {@link java.io.Reader} object.
+   * @return number of keys read
+   * @throws java.io.IOException if the reader fails or does not contain a JSON bundle.
+   */
+  public int read(Reader reader) throws IOException {
+    this.error = null;
+    this.keyCount = 0;
+
+    try {
+      new JSONParser().parse(reader, new BundleContentHandler());
+    } catch (ParseException ex) {
+      throw new IOException("Invalid translation bundle: " + ex, ex);
+    }
+    return keyCount;
+  }
+
+  /**
+   * Reads a bundle that has already been parsed, for example one kept by an in-memory cache
+   *
+   * @param bundle a {@link java.util.Map} object.
+   * @return number of keys read
+   */
+  @SuppressWarnings("unchecked")
+  public int read(Map<String, Object> bundle) {
+    this.error = null;
+    this.keyCount = 0;
+
+    Object value = bundle.get("error");
+    error = value == null ? null : value.toString();
+
+    Object results = bundle.get("results");
+    if (!(results instanceof Map))
+      return keyCount;
+
+    for (Map.Entry<String, Object> entry : ((Map<String, Object>) results).entrySet()) {
+      if (!(entry.getValue() instanceof List))
+        continue;
+      keyCount++;
+      handler.onTranslationKey(entry.getKey(), (List<Map<String, Object>>) entry.getValue());
+    }
+    return keyCount;
+  }
+
+  /**
+   * Returns the top level "error" of the last bundle, if there was one
+   *
+   * @return a {@link java.lang.String} object.
+   */
+  public String getError() {
+    return error;
+  }
+
+  /**
+   * Returns the number of keys of the last bundle
+   *
+   * @return a int.
+   */
+  public int getKeyCount() {
+    return keyCount;
+  }
+
+  /**
+   * Builds values below the key lists and skips everything outside of "results"
+   */
+  private class BundleContentHandler implements ContentHandler {
+
+    /**
+     * Number of open objects and arrays
+     */
+    private int depth;
+
+    /**
+     * Top level attribute being read
+     */
+    private String attribute;
+
+    /**
+     * Translation key being read
+     */
+    private String translationKey;
+
+    /**
+     * Open containers of the key being read, the list of translations at the bottom
+     */
+    private final LinkedList<Object> containers = new LinkedList<Object>();
+
+    /**
+     * Attribute names of the open objects
+     */
+    private final LinkedList<String> names = new LinkedList<String>();
+
+    private boolean isInResults() {
+      return "results".equals(attribute);
+    }
+
+    public void startJSON() {
+      depth = 0;
+    }
+
+    public void endJSON() {
+    }
+
+    public boolean startObject() {
+      depth++;
+      if (!containers.isEmpty())
+        containers.push(new HashMap<String, Object>());
+      return true;
+    }
+
+    public boolean endObject() {
+      depth--;
+      if (!containers.isEmpty())
+        addValue(containers.pop());
+      return true;
+    }
+
+    public boolean startObjectEntry(String key) {
+      if (depth == 1) {
+        attribute = key;
+      } else if (depth == 2 && isInResults()) {
+        translationKey = key;
+      } else if (!containers.isEmpty()) {
+        names.push(key);
+      }
+      return true;
+    }
+
+    public boolean endObjectEntry() {
+      if (!containers.isEmpty() && depth > 3 && containers.peek() instanceof Map)
+        names.pop();
+      return true;
+    }
+
+    public boolean startArray() {
+      depth++;
+      if (depth == 3 && isInResults() && translationKey != null) {
+        containers.push(new ArrayList<Object>());
+      } else if (!containers.isEmpty()) {
+        containers.push(new ArrayList<Object>());
+      }
+      return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public boolean endArray() {
+      depth--;
+      if (containers.isEmpty())
+        return true;
+
+      Object container = containers.pop();
+      if (containers.isEmpty()) {
+        keyCount++;
+        handler.onTranslationKey(translationKey, (List<Map<String, Object>>) container);
+        translationKey = null;
+      } else {
+        addValue(container);
+      }
+      return true;
+    }
+
+    public boolean primitive(Object value) {
+      if (depth == 1 && "error".equals(attribute)) {
+        error = value == null ? null : value.toString();
+      } else if (!containers.isEmpty()) {
+        addValue(value);
+      }
+      return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addValue(Object value) {
+      if (containers.isEmpty())
+        return;
+
+      Object parent = containers.peek();
+      if (parent instanceof List) {
+        ((List<Object>) parent).add(value);
+      } else {
+        ((Map<String, Object>) parent).put(names.peek(), value);
+      }
+    }
+  }
+}
@@ -38,17 +38,15 @@ import com.translationexchange.core.decorators.Decorator;
 import com.translationexchange.core.languages.Language;
 import com.translationexchange.core.tokenizers.DataTokenizer;
 import com.translationexchange.core.tokenizers.DecorationTokenizer;
-import com.translationexchange.core.tokenizers.Tokenizer;
+import com.translationexchange.core.tokenizers.TokenizerTemplate;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Method;
-import java.math.BigInteger;
-import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class TranslationKey extends Base {
 
@@ -68,6 +66,18 @@ public class TranslationKey extends Base {
    * Constant <code>DEFAULT_TOKENIZERS_STYLED="styled"</code>
    */
   public static final String DEFAULT_TOKENIZERS_STYLED = "styled";
+  /**
+   * Number of compiled tokenizer templates kept per key and generation, see {@link BoundedCache}
+   */
+  public static final int MAX_TOKENIZER_TEMPLATES = 32;
+  /**
+   * Separates label and description when generating a key
+   */
+  private static final String KEY_SEPARATOR = ";;;";
+  /**
+   * Generated keys by label and description
+   */
+  private static final BoundedCache<String, String> GENERATED_KEYS = new BoundedCache<String, String>(10000);
 
   /**
    * Reference to the application where the key came from
@@ -100,9 +110,11 @@ public class TranslationKey extends Base {
   private Long level;
 
   /**
-   * Hash of translations for each locale needed by the application
+   * Hash of translations for each locale needed by the application. Languages and sources loaded
+   * in parallel set the translations of their locales on the same key. Created on first use, as the
+   * attributes are set by the Base constructor before field initializers run.
    */
-  private Map<String, List<Translation>> translationsByLocale;
+  private volatile ConcurrentMap<String, List<Translation>> translationsByLocale;
 
   /**
    * Indicates whether the key is locked
@@ -124,6 +136,11 @@ public class TranslationKey extends Base {
    */
   private List<String> allowedDecorationTokenNames;
 
+  /**
+   * Compiled tokenizer templates, keyed by tokenizer key and label
+   */
+  private volatile BoundedCache<String, TokenizerTemplate> tokenizerTemplates;
+
   /**
    * Default constructor
    */
@@ -242,10 +259,19 @@ public class TranslationKey extends Base {
    * @return a {@link java.util.Map} object.
    */
   public Map<String, List<Translation>> getTranslationsByLocale() {
-    if (translationsByLocale == null)
-      translationsByLocale = new HashMap<String, List<Translation>>();
+    return getConcurrentTranslationsByLocale();
+  }
 
-    return translationsByLocale;
+  private ConcurrentMap<String, List<Translation>> getConcurrentTranslationsByLocale() {
+    ConcurrentMap<String, List<Translation>> translations = this.translationsByLocale;
+    if (translations == null) {
+      synchronized (this) {
+        if (this.translationsByLocale == null)
+          this.translationsByLocale = new ConcurrentHashMap<String, List<Translation>>();
+        translations = this.translationsByLocale;
+      }
+    }
+    return translations;
   }
 
   /**
@@ -278,6 +304,7 @@ public class TranslationKey extends Base {
    */
   public void setLabel(String label) {
     this.label = label;
+    this.tokenizerTemplates = null;
   }
 
   /**
@@ -314,6 +341,7 @@ public class TranslationKey extends Base {
    */
   public void setAllowedDataTokenNames(List<String> allowedDataTokenNames) {
     this.allowedDataTokenNames = allowedDataTokenNames;
+    this.tokenizerTemplates = null;
   }
 
   /**
@@ -323,6 +351,7 @@ public class TranslationKey extends Base {
    */
   public void setAllowedDecorationTokenNames(List<String> allowedDecorationTokenNames) {
     this.allowedDecorationTokenNames = allowedDecorationTokenNames;
+    this.tokenizerTemplates = null;
   }
 
   /**
@@ -418,11 +447,15 @@ public class TranslationKey extends Base {
    * @return a {@link java.util.List} object.
    */
   public List<Translation> getTranslations(String locale) {
-    if (getTranslationsByLocale().get(locale) == null) {
-      getTranslationsByLocale().put(locale, new ArrayList<Translation>());
+    ConcurrentMap<String, List<Translation>> byLocale = getConcurrentTranslationsByLocale();
+    List<Translation> translations = byLocale.get(locale);
+    if (translations == null) {
+      List<Translation> created = new ArrayList<Translation>();
+      translations = byLocale.putIfAbsent(locale, created);
+      if (translations == null)
+        translations = created;
     }
-
-    return getTranslationsByLocale().get(locale);
+    return translations;
   }
 
   /**
@@ -465,17 +498,15 @@ public class TranslationKey extends Base {
    * @return a {@link java.lang.String} object.
    */
   public static String generateKey(String label, String description) {
-    StringBuilder sb = new StringBuilder();
-    sb.append(label);
-    sb.append(";;;");
-    if (description != null) sb.append(description);
-    String s = sb.toString();
+    String cacheKey = String.valueOf(label) + KEY_SEPARATOR + (description == null ? "" : description);
+    String key = GENERATED_KEYS.get(cacheKey);
+    if (key != null)
+      return key;
 
     try {
-      MessageDigest m = MessageDigest.getInstance("MD5");
-      String hashText = new BigInteger(1, m.digest(s.getBytes("UTF-8"))).toString(16);
-      while (hashText.length() < 32) hashText = "0" + hashText;
-      return hashText;
+      key = Utils.md5Hex(cacheKey);
+      GENERATED_KEYS.put(cacheKey, key);
+      return key;
     } catch (Exception ex) {
       Tml.getLogger().logException("Failed to generate md5 key for " + label + " " + description, ex);
       return null;
@@ -491,6 +522,17 @@ public class TranslationKey extends Base {
     return getTranslationLocales().size() > 0;
   }
 
+  /**
+   * Returns true if there are translations for the locale
+   *
+   * @param locale a {@link java.lang.String} object.
+   * @return a boolean.
+   */
+  public boolean hasTranslations(String locale) {
+    List<Translation> translations = getTranslationsByLocale().get(locale);
+    return translations != null && !translations.isEmpty();
+  }
+
   /**
    * Returns frist acceptable translation based on the token values and language rules
    *
@@ -587,24 +629,56 @@ public class TranslationKey extends Base {
    * @param allowedTokenNames   a {@link java.util.List} object.
    * @return a {@link java.lang.Object} object.
    */
-  @SuppressWarnings({"unchecked", "rawtypes"})
   protected Object applyTokenizer(String key, String translatedLabel, Language translationLanguage,
                                   List<String> allowedTokenNames, Map<String, Object> tokens, Map<String, Object> options) {
     try {
-      Class tokenizerClass = getTokenizerByKey(key);
-      if (tokenizerClass == null) return translatedLabel;
-      Method method = tokenizerClass.getMethod("isApplicable", String.class);
-      if ((Boolean) method.invoke(null, translatedLabel)) {
-        Constructor<Tokenizer> constructor = tokenizerClass.getConstructor(String.class, List.class);
-        Tokenizer tokenizer = (Tokenizer) constructor.newInstance(translatedLabel, allowedTokenNames);
-        return tokenizer.substitute(tokens, translationLanguage, options);
-      }
+      return getTokenizerTemplate(key, translatedLabel, allowedTokenNames).substitute(tokens, translationLanguage, options);
     } catch (Exception ex) {
       Tml.getLogger().logException("Failed to tokenize \"" + translatedLabel + "\" using " + key, ex);
     }
     return translatedLabel;
   }
 
+  /**
+   * <p>Getter for the field <code>tokenizerTemplates</code>.</p>
+   *
+   * @return a {@link com.translationexchange.core.BoundedCache} object.
+   */
+  protected BoundedCache<String, TokenizerTemplate> getTokenizerTemplates() {
+    BoundedCache<String, TokenizerTemplate> templates = tokenizerTemplates;
+    if (templates == null) {
+      synchronized (this) {
+        if (tokenizerTemplates == null)
+          tokenizerTemplates = new BoundedCache<String, TokenizerTemplate>(MAX_TOKENIZER_TEMPLATES);
+        templates = tokenizerTemplates;
+      }
+    }
+    return templates;
+  }
+
+  /**
+   * Returns a compiled tokenizer template for the label, compiling it on first use.
+   * Templates are cached per key and label, the ones that are not used are dropped once more than
+   * {@link #MAX_TOKENIZER_TEMPLATES} labels have been compiled since.
+   *
+   * @param key               a {@link java.lang.String} object. It defines tokenizer class by key e.g. `data`, `html`
+   * @param translatedLabel   a {@link java.lang.String} object.
+   * @param allowedTokenNames a {@link java.util.List} object.
+   * @return a {@link com.translationexchange.core.tokenizers.TokenizerTemplate} object.
+   * @throws java.lang.Exception if the tokenizer can not be instantiated
+   */
+  protected TokenizerTemplate getTokenizerTemplate(String key, String translatedLabel, List<String> allowedTokenNames) throws Exception {
+    BoundedCache<String, TokenizerTemplate> templates = getTokenizerTemplates();
+    String templateKey = key + ":" + translatedLabel;
+    TokenizerTemplate template = templates.get(templateKey);
+    if (template != null && template.isCompiledWith(allowedTokenNames))
+      return template;
+
+    template = TokenizerTemplate.compile(Tml.getConfig().getTokenizerFactory(key), translatedLabel, allowedTokenNames);
+    templates.put(templateKey, template);
+    return template;
+  }
+
   /**
    * <p>substitute.</p>
    *
@@ -665,10 +739,5 @@ public class TranslationKey extends Base {
   public String toString() {
     return label + " (" + locale + ")";
   }
-
-  @SuppressWarnings("rawtypes")
-  private Class getTokenizerByKey(String key) throws ClassNotFoundException {
-    return Class.forName(Tml.getConfig().getTokenizerClass(key));
-  }
 }
 
@@ -37,11 +37,15 @@ package com.translationexchange.core;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.io.StringWriter;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -57,6 +61,39 @@ import org.json.simple.parser.ParseException;
 
 public class Utils {
 
+  /**
+   * UTF-8 charset
+   */
+  public static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  /**
+   * Matches integers and real numbers
+   */
+  private static final Pattern NUMERIC_PATTERN = Pattern.compile("[+-]?\\d*(\\.\\d+)?");
+
+  /**
+   * Matches integers
+   */
+  private static final Pattern INTEGER_PATTERN = Pattern.compile("[+-]?\\d*?");
+
+  /**
+   * Hexadecimal digits used by {@link #toHex(byte[])}
+   */
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  /**
+   * MD5 digest reused by each thread
+   */
+  private static final ThreadLocal<MessageDigest> MD5_DIGEST = new ThreadLocal<MessageDigest>() {
+    protected MessageDigest initialValue() {
+      try {
+        return MessageDigest.getInstance("MD5");
+      } catch (NoSuchAlgorithmException ex) {
+        throw new IllegalStateException(ex);
+      }
+    }
+  };
+
   /**
    * Checks if the object is an integer or a real number
    *
@@ -64,7 +101,7 @@ public class Utils {
    * @return a boolean.
    */
   public static boolean isNumeric(Object obj) {
-    return obj.toString().matches("[+-]?\\d*(\\.\\d+)?");
+    return NUMERIC_PATTERN.matcher(obj.toString()).matches();
   }
 
   /**
@@ -74,7 +111,7 @@ public class Utils {
    * @return a boolean.
    */
   public static boolean isInteger(Object obj) {
-    return obj.toString().matches("[+-]?\\d*?");
+    return INTEGER_PATTERN.matcher(obj.toString()).matches();
   }
 
   /**
@@ -318,6 +355,42 @@ public class Utils {
     return obj;
   }
 
+  /**
+   * Parsing JSON from a reader, without reading the whole text into memory first
+   *
+   * @param reader a {@link java.io.Reader} object.
+   * @return a {@link java.lang.Object} object.
+   * @throws java.io.IOException if the reader fails.
+   */
+  public static Object readJSON(Reader reader) throws IOException {
+    if (reader == null) return null;
+
+    JSONParser p = new JSONParser();
+    try {
+      return p.parse(reader);
+    } catch (ParseException pe) {
+      Tml.getLogger().logException(pe);
+      return null;
+    }
+  }
+
+  /**
+   * Reads all characters from a reader
+   *
+   * @param reader a {@link java.io.Reader} object.
+   * @return a {@link java.lang.String} object.
+   * @throws java.io.IOException if the reader fails.
+   */
+  public static String readFully(Reader reader) throws IOException {
+    StringBuilder text = new StringBuilder();
+    char[] buffer = new char[8192];
+    int count;
+    while ((count = reader.read(buffer)) != -1) {
+      text.append(buffer, 0, count);
+    }
+    return text.toString();
+  }
+
   /**
    * Builds json from an object
    *
@@ -493,4 +566,31 @@ public class Utils {
     return m;
   }
 
+  /**
+   * Converts bytes to a lowercase hexadecimal string
+   *
+   * @param bytes an array of byte.
+   * @return a {@link java.lang.String} object.
+   */
+  public static String toHex(byte[] bytes) {
+    char[] chars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0f];
+      chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0f];
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Returns the MD5 hash of the UTF-8 encoded value as a 32 character hexadecimal string
+   *
+   * @param value a {@link java.lang.String} object.
+   * @return a {@link java.lang.String} object.
+   */
+  public static String md5Hex(String value) {
+    MessageDigest digest = MD5_DIGEST.get();
+    digest.reset();
+    return toHex(digest.digest(value.getBytes(UTF_8)));
+  }
+
 }
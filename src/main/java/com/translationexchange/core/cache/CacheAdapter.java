@@ -37,17 +37,29 @@ package com.translationexchange.core.cache;
 import com.translationexchange.core.Application;
 import com.translationexchange.core.Tml;
 import com.translationexchange.core.Utils;
+import com.translationexchange.core.logger.AbstractLogger;
+import com.translationexchange.core.logger.LogSampler;
+import com.translationexchange.core.metrics.Metrics;
 
+import java.io.File;
 import java.util.Map;
 
 public abstract class CacheAdapter implements Cache {
 
+  private static final String SOURCES_PATH = File.separator + "sources" + File.separator;
+
+  private static final String LANGUAGE_PATH = File.separator + "language";
+
+  private static final String TRANSLATIONS_PATH = "/translations";
+
   private Map<String, Object> config;
 
+  private volatile LogSampler lookupLogSampler;
+
   /**
    * Current cache version
    */
-  public CacheVersion cacheVersion = null;
+  public volatile CacheVersion cacheVersion = null;
 
   /**
    * Initialized Cache Adapter
@@ -82,7 +94,85 @@ public abstract class CacheAdapter implements Cache {
    * @param msg a {@link java.lang.String} object.
    */
   protected void debug(String msg) {
-    Tml.getLogger().debug(this.getClass().getName() + " - " + msg);
+    AbstractLogger logger = Tml.getGuardedLogger();
+    if (logger.isDebugEnabled())
+      logger.debug(this.getClass().getName() + " - " + msg);
+  }
+
+  /**
+   * Writes debug info of a cache lookup. With "log_sample_rate" in the cache configuration
+   * only one of every so many lookups is written.
+   *
+   * @param format a {@link java.lang.String} object with a {} placeholder for the key.
+   * @param key    a {@link java.lang.Object} object.
+   */
+  protected void debugLookup(String format, Object key) {
+    AbstractLogger logger = Tml.getGuardedLogger();
+    if (logger.isDebugEnabled() && getLookupLogSampler().sample())
+      logger.debugf(format, key);
+  }
+
+  private LogSampler getLookupLogSampler() {
+    if (lookupLogSampler == null)
+      lookupLogSampler = new LogSampler((int) getConfigNumber("log_sample_rate", 1));
+    return lookupLogSampler;
+  }
+
+  /**
+   * Returns the tier of the cache reported to the metrics, one of the Metrics.CACHE_TIER constants
+   *
+   * @return a {@link java.lang.String} object.
+   */
+  protected String getTier() {
+    return Metrics.CACHE_TIER_REMOTE;
+  }
+
+  /**
+   * Reports a lookup of a key to the metrics
+   *
+   * @param key a {@link java.lang.String} object.
+   * @param hit true if the cache had the data
+   */
+  protected void recordLookup(String key, boolean hit) {
+    Metrics metrics = Tml.getConfig().getMetrics();
+    if (metrics.isEnabled())
+      metrics.recordCacheLookup(getTier(), getKeyType(key), hit);
+  }
+
+  /**
+   * Returns the type of a cache key reported to the metrics, one of the Metrics.KEY_TYPE constants
+   *
+   * @param key a {@link java.lang.String} object.
+   * @return a {@link java.lang.String} object.
+   */
+  protected static String getKeyType(String key) {
+    if (key == null)
+      return Metrics.KEY_TYPE_OTHER;
+    if (key.equals("version") || key.endsWith(CacheVersion.VERSION_KEY))
+      return Metrics.KEY_TYPE_VERSION;
+    if (key.equals("application"))
+      return Metrics.KEY_TYPE_APPLICATION;
+    if (key.contains(SOURCES_PATH))
+      return Metrics.KEY_TYPE_SOURCE;
+    if (key.endsWith(LANGUAGE_PATH))
+      return Metrics.KEY_TYPE_LANGUAGE;
+    if (key.endsWith(TRANSLATIONS_PATH))
+      return Metrics.KEY_TYPE_TRANSLATIONS;
+    return Metrics.KEY_TYPE_OTHER;
+  }
+
+  /**
+   * Returns the cached data parsed from JSON when the cache keeps parsed data, otherwise the same
+   * as {@link #fetch(String, Map)}. Parsed data may be shared between callers and must not be
+   * modified. A cache that wraps another cache should delegate to it, so that the parsed data
+   * is not lost.
+   *
+   * @param key     a {@link java.lang.String} object.
+   * @param options a {@link java.util.Map} object.
+   * @return a {@link java.lang.Object} object.
+   */
+  public Object fetchParsed(String key, Map<String, Object> options) {
+    return fetch(key, options);
   }
 
   /**
@@ -116,6 +206,22 @@ public abstract class CacheAdapter implements Cache {
     return (String) getConfig().get(key);
   }
 
+  /**
+   * Returns numeric configuration property, which can be configured as a number or a string
+   *
+   * @param key
+   * @param defaultValue
+   * @return
+   */
+  protected long getConfigNumber(String key, long defaultValue) {
+    Object value = getConfig() == null ? null : getConfig().get(key);
+    if (value instanceof Number)
+      return ((Number) value).longValue();
+    if (value instanceof String)
+      return Long.parseLong((String) value);
+    return defaultValue;
+  }
+
   /**
    * @param key
    * @param options
@@ -140,22 +246,45 @@ public abstract class CacheAdapter implements Cache {
    * Check it against the API
    */
   public CacheVersion verifyCacheVersion(Application application) throws Exception {
-    if (cacheVersion != null)
-      return cacheVersion;
+    CacheVersion current = cacheVersion;
+    if (current != null)
+      return current;
+
+    // only the first caller loads the version, the others wait for it
+    synchronized (this) {
+      if (cacheVersion != null)
+        return cacheVersion;
 
-    cacheVersion = new CacheVersion();
+      current = new CacheVersion();
 
-    // Fetch from local cache
-    cacheVersion.fetchFromCache();
+      // Fetch from local cache
+      current.fetchFromCache();
 
-    // If no version in cache or it is expired, fetch it from the CDN
-    if (cacheVersion.isExpired()) {
-      Tml.getLogger().debug("Fetching version from CDN...");
-      cacheVersion.updateFromCDN(application.getHttpClient().getFromCDN("version", Utils.map("uncompressed", true)));
+      // If no version in cache or it is expired, fetch it from the CDN
+      if (current.isExpired())
+        current = fetchCacheVersion(application);
+
+      if (Tml.getGuardedLogger().isDebugEnabled())
+        Tml.getGuardedLogger().debug("Cache version: " + current.getVersion() + " " + current.getExpirationMessage());
+      cacheVersion = current;
+      return current;
     }
+  }
 
-    Tml.getLogger().debug("Cache version: " + cacheVersion.getVersion() + " " + cacheVersion.getExpirationMessage());
-    return cacheVersion;
+  /**
+   * Fetches the published version from the CDN and stores it in the cache. The returned version is not
+   * used until it is passed to {@link #setCacheVersion(CacheVersion)}, so readers keep the current one
+   * while the new release is prepared.
+   *
+   * @param application a {@link com.translationexchange.core.Application} object.
+   * @return a {@link com.translationexchange.core.cache.CacheVersion} object.
+   * @throws java.lang.Exception if any.
+   */
+  public CacheVersion fetchCacheVersion(Application application) throws Exception {
+    Tml.getLogger().debug("Fetching version from CDN...");
+    CacheVersion latest = new CacheVersion();
+    latest.updateFromCDN(application.getHttpClient().getFromCDN("version", Utils.map("uncompressed", true)));
+    return latest;
   }
 
   public void setCacheVersion(CacheVersion cacheVersion) {
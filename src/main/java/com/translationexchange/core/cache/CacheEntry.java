@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.cache;
+
+import com.translationexchange.core.Tml;
+import com.translationexchange.core.Utils;
+
+import java.util.Map;
+
+/**
+ * Freshness metadata of a negative cache entry, an entry that records that the CDN had no data for a key.
+ *
+ * <p>Negative entries are stored through the regular {@link Cache#store(String, Object, Map)} as a small
+ * JSON document, {"tml_cache_entry": {"status": ..., "stored_at": ..., "expires_at": ...}}, so every cache
+ * adapter can keep them. A reader that does not know about them sees an empty response.</p>
+ *
+ * <p>Once an entry expires it is stale: it is still served, while a single background request revalidates it.
+ * The time to live depends on the status and is configured in the cache configuration:</p>
+ * <ul>
+ * <li><code>not_found_ttl</code> - seconds a missing or empty resource is remembered, 3600 by default</li>
+ * <li><code>unavailable_ttl</code> - seconds a failed request is remembered, 30 by default</li>
+ * </ul>
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public class CacheEntry {
+
+  /**
+   * Attribute that marks a cached document as a negative entry
+   */
+  public static final String KEY = "tml_cache_entry";
+
+  /**
+   * The CDN has no data for the key
+   */
+  public static final String NOT_FOUND = "not_found";
+
+  /**
+   * The CDN could not be reached or failed
+   */
+  public static final String UNAVAILABLE = "unavailable";
+
+  private static final String PREFIX = "{\"" + KEY + "\"";
+
+  private final String status;
+
+  private final long storedAt;
+
+  private final long expiresAt;
+
+  /**
+   * <p>Constructor for CacheEntry.</p>
+   *
+   * @param status    a {@link java.lang.String} object.
+   * @param storedAt  time the entry was stored, in milliseconds
+   * @param expiresAt time the entry becomes stale, in milliseconds
+   */
+  public CacheEntry(String status, long storedAt, long expiresAt) {
+    this.status = status;
+    this.storedAt = storedAt;
+    this.expiresAt = expiresAt;
+  }
+
+  /**
+   * Creates an entry that expires after the configured time to live of the status
+   *
+   * @param status a {@link java.lang.String} object.
+   * @return a {@link com.translationexchange.core.cache.CacheEntry} object.
+   */
+  public static CacheEntry negative(String status) {
+    long now = System.currentTimeMillis();
+    return new CacheEntry(status, now, now + getTTL(status) * 1000);
+  }
+
+  /**
+   * Returns the time to live of a status, in seconds
+   *
+   * @param status a {@link java.lang.String} object.
+   * @return a long.
+   */
+  public static long getTTL(String status) {
+    boolean notFound = NOT_FOUND.equals(status);
+    Object ttl = Tml.getConfig().getCache() == null ? null : Tml.getConfig().getCache().get(notFound ? "not_found_ttl" : "unavailable_ttl");
+    if (ttl instanceof Number)
+      return ((Number) ttl).longValue();
+    if (ttl instanceof String)
+      return Long.parseLong((String) ttl);
+    return notFound ? 3600 : 30;
+  }
+
+  /**
+   * Returns the entry of a cached document, or null if the document is regular data
+   *
+   * @param data cached text or parsed JSON
+   * @return a {@link com.translationexchange.core.cache.CacheEntry} object.
+   */
+  @SuppressWarnings("unchecked")
+  public static CacheEntry fromCache(Object data) {
+    if (data instanceof String) {
+      // regular documents are not parsed here
+      if (!((String) data).startsWith(PREFIX))
+        return null;
+      data = Utils.parseJSON((String) data);
+    }
+
+    if (!(data instanceof Map) || !(((Map<String, Object>) data).get(KEY) instanceof Map))
+      return null;
+
+    Map<String, Object> attributes = (Map<String, Object>) ((Map<String, Object>) data).get(KEY);
+    return new CacheEntry((String) attributes.get("status"), toLong(attributes.get("stored_at")), toLong(attributes.get("expires_at")));
+  }
+
+  private static long toLong(Object value) {
+    return value instanceof Number ? ((Number) value).longValue() : 0;
+  }
+
+  /**
+   * Returns the document to store in the cache
+   *
+   * @return a {@link java.lang.String} object.
+   */
+  public String toCache() {
+    return Utils.buildJSON(Utils.map(KEY, Utils.map("status", status, "stored_at", storedAt, "expires_at", expiresAt)));
+  }
+
+  /**
+   * <p>Getter for the field <code>status</code>.</p>
+   *
+   * @return a {@link java.lang.String} object.
+   */
+  public String getStatus() {
+    return status;
+  }
+
+  /**
+   * <p>Getter for the field <code>storedAt</code>.</p>
+   *
+   * @return a long.
+   */
+  public long getStoredAt() {
+    return storedAt;
+  }
+
+  /**
+   * <p>Getter for the field <code>expiresAt</code>.</p>
+   *
+   * @return a long.
+   */
+  public long getExpiresAt() {
+    return expiresAt;
+  }
+
+  /**
+   * Returns true once the entry has outlived its time to live and should be revalidated
+   *
+   * @return a boolean.
+   */
+  public boolean isStale() {
+    return System.currentTimeMillis() >= expiresAt;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public String toString() {
+    return status + (isStale() ? " (stale)" : "");
+  }
+}
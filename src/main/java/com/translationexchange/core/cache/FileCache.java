@@ -36,13 +36,13 @@ package com.translationexchange.core.cache;
 
 import com.translationexchange.core.Tml;
 import com.translationexchange.core.Utils;
+import com.translationexchange.core.metrics.Metrics;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileReader;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
@@ -63,6 +63,13 @@ public class FileCache extends CacheAdapter implements Cache {
     super(config);
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  protected String getTier() {
+    return Metrics.CACHE_TIER_FILE;
+  }
+
   /**
    * Returns system path to the home folder based on OS
    *
@@ -109,7 +116,7 @@ public class FileCache extends CacheAdapter implements Cache {
       } else {
         cachePath = new File(getConfigProperty("path"));
       }
-      Tml.getLogger().debug("Cache path: " + cachePath.toString());
+      Tml.getGuardedLogger().debugf("Cache path: {}", cachePath);
     }
     return cachePath;
   }
@@ -142,7 +149,7 @@ public class FileCache extends CacheAdapter implements Cache {
     if (parts.size() > 0)
       fileCachePath = new File(getCachePath(), Utils.join(parts.toArray(), File.separator));
 
-    fileCachePath.mkdirs();
+    // directories are only created when a file is written
     return new File(fileCachePath, fileName + ".json");
   }
 
@@ -156,21 +163,13 @@ public class FileCache extends CacheAdapter implements Cache {
    * @throws java.lang.Exception if any.
    */
   protected String readFile(File file) throws Exception {
-    BufferedReader br = new BufferedReader(new FileReader(file));
+    Reader in = new InputStreamReader(new FileInputStream(file), Utils.UTF_8);
     try {
-      BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
-      StringBuilder sb = new StringBuilder();
-      String str;
-      while ((str = in.readLine()) != null) {
-        sb.append(str);
-        // sb.append(System.getProperty("line.separator"));
-      }
-      in.close();
-      return sb.toString();
+      return Utils.readFully(in);
     } catch (Exception ex) {
       return null;
     } finally {
-      br.close();
+      in.close();
     }
   }
 
@@ -180,14 +179,18 @@ public class FileCache extends CacheAdapter implements Cache {
   public Object fetch(String key, Map<String, Object> options) {
     File cacheFile = getCachePath(key, options);
     if (!cacheFile.exists()) {
-      Tml.getLogger().debug("File cache miss: " + key);
+      debugLookup("File cache miss: {}", key);
+      recordLookup(key, false);
       return null;
     }
 
     try {
-      Tml.getLogger().debug("File cache hit: " + key);
-      return readFile(cacheFile);
+      debugLookup("File cache hit: {}", key);
+      Object data = readFile(cacheFile);
+      recordLookup(key, true);
+      return data;
     } catch (Exception ex) {
+      recordLookup(key, false);
       Tml.getLogger().logException(ex);
       return null;
     }
@@ -203,6 +206,7 @@ public class FileCache extends CacheAdapter implements Cache {
    * @throws java.lang.Exception if any.
    */
   protected void writeFile(File file, Object data) throws Exception {
+    file.getParentFile().mkdirs();
     PrintWriter writer = new PrintWriter(file, "UTF-8");
     writer.print(data.toString());
     writer.close();
@@ -214,7 +218,7 @@ public class FileCache extends CacheAdapter implements Cache {
   public void store(String key, Object data, Map<String, Object> options) {
     File cacheFile = getCachePath(key, options);
     try {
-      Tml.getLogger().debug("Writing cache to :" + cacheFile);
+      Tml.getGuardedLogger().debugf("Writing cache to: {}", cacheFile);
       writeFile(cacheFile, data);
     } catch (Exception ex) {
       Tml.getLogger().logException("Failed to write cache to file", ex);
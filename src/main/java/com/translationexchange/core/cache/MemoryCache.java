@@ -0,0 +1,425 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.cache;
+
+import com.translationexchange.core.Tml;
+import com.translationexchange.core.Utils;
+import com.translationexchange.core.metrics.Metrics;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-process cache with least recently used eviction.
+ *
+ * <p>Entries keep the cached text and, once it has been requested through {@link #fetchParsed(String, Map)},
+ * the parsed JSON structure, so warm hits from the {@link com.translationexchange.core.HttpClient}
+ * do not parse the same response again. Parsed structures are shared between callers and must be
+ * treated as read-only.</p>
+ *
+ * <p>Supported configuration:</p>
+ * <ul>
+ * <li><code>max_entries</code> - maximum number of entries, 1000 by default</li>
+ * <li><code>max_weight</code> - maximum number of cached characters, unbounded by default</li>
+ * <li><code>ttl</code> - seconds an entry stays valid, entries do not expire by default</li>
+ * <li><code>backend</code> - configuration of a second level cache, for example a {@link FileCache},
+ * that is consulted on misses and receives all writes</li>
+ * </ul>
+ */
+public class MemoryCache extends CacheAdapter implements Cache {
+  public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+  private final Object lock = new Object();
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+  private long weight;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+  private final AtomicLong expirationCount = new AtomicLong();
+
+  private volatile Cache backend;
+  private volatile boolean backendCreated;
+
+  /**
+   * <p>
+   * Constructor for MemoryCache.
+   * </p>
+   *
+   * @param config a {@link java.util.Map} object.
+   */
+  public MemoryCache(Map<String, Object> config) {
+    this(config, null);
+  }
+
+  /**
+   * Creates a memory cache in front of another cache
+   *
+   * @param config  a {@link java.util.Map} object.
+   * @param backend a {@link com.translationexchange.core.cache.Cache} object.
+   */
+  public MemoryCache(Map<String, Object> config, Cache backend) {
+    super(config);
+    this.backend = backend;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  protected String getTier() {
+    return Metrics.CACHE_TIER_MEMORY;
+  }
+
+  /**
+   * Returns the second level cache, created from the <code>backend</code> configuration if needed
+   *
+   * @return a {@link com.translationexchange.core.cache.Cache} object.
+   */
+  public Cache getBackend() {
+    if (backend != null || backendCreated)
+      return backend;
+
+    synchronized (this) {
+      return createBackend();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Cache createBackend() {
+    if (backendCreated)
+      return backend;
+    backendCreated = true;
+
+    if (backend == null && getConfig() != null && getConfig().get("backend") instanceof Map) {
+      Map<String, Object> backendConfig = (Map<String, Object>) getConfig().get("backend");
+      try {
+        Class<?> backendClass = Class.forName((String) backendConfig.get("class"));
+        Constructor<?> constructor = backendClass.getConstructor(Map.class);
+        backend = (Cache) constructor.newInstance(backendConfig);
+      } catch (Exception ex) {
+        Tml.getLogger().logException("Failed to create backend cache", ex);
+      }
+    }
+    return backend;
+  }
+
+  /**
+   * <p>Getter for the maximum number of entries.</p>
+   *
+   * @return a long.
+   */
+  public long getMaxEntries() {
+    return getConfigNumber("max_entries", DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * <p>Getter for the maximum number of cached characters, 0 if unbounded.</p>
+   *
+   * @return a long.
+   */
+  public long getMaxWeight() {
+    return getConfigNumber("max_weight", 0);
+  }
+
+  /**
+   * <p>Getter for the time to live in milliseconds, 0 if entries do not expire.</p>
+   *
+   * @return a long.
+   */
+  public long getTimeToLive() {
+    return getConfigNumber("ttl", 0) * 1000;
+  }
+
+  /**
+   * Returns the time in milliseconds against which entries expire
+   *
+   * @return a long.
+   */
+  protected long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+
+  /**
+   * Returns the time at which a new entry expires, 0 if entries do not expire
+   */
+  private long getExpiresAt() {
+    long timeToLive = getTimeToLive();
+    return timeToLive > 0 ? currentTimeMillis() + timeToLive : 0;
+  }
+
+  /**
+   * Returns the key under which the entry is kept, entries of different cache versions are kept apart
+   *
+   * @param key     a {@link java.lang.String} object.
+   * @param options a {@link java.util.Map} object.
+   * @return a {@link java.lang.String} object.
+   */
+  protected String getEntryKey(String key, Map<String, Object> options) {
+    String version = getConfigProperty("version", options == null ? null : (String) options.get(CacheVersion.VERSION_KEY));
+    return version == null ? key : version + "/" + key;
+  }
+
+  /**
+   * Returns the live entry, loading it from the backend on a miss
+   */
+  private Entry getEntry(String key, Map<String, Object> options) {
+    String entryKey = getEntryKey(key, options);
+    Entry entry;
+    synchronized (lock) {
+      entry = entries.get(entryKey);
+      if (entry != null && entry.isExpired(currentTimeMillis())) {
+        remove(entryKey);
+        expirationCount.incrementAndGet();
+        entry = null;
+      }
+    }
+
+    if (entry != null) {
+      hitCount.incrementAndGet();
+      recordLookup(key, true);
+      return entry;
+    }
+
+    missCount.incrementAndGet();
+    recordLookup(key, false);
+    Cache cache = getBackend();
+    if (cache == null)
+      return null;
+
+    Object data = cache.fetch(key, options);
+    if (data == null)
+      return null;
+
+    entry = new Entry(data.toString(), getExpiresAt());
+    put(entryKey, entry);
+    return entry;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public Object fetch(String key, Map<String, Object> options) {
+    Entry entry = getEntry(key, options);
+    return entry == null ? null : entry.text;
+  }
+
+  /**
+   * Returns the parsed JSON of the cached entry. The entry is parsed at most once, later hits return
+   * the same structure, which must not be modified.
+   *
+   * @param key     a {@link java.lang.String} object.
+   * @param options a {@link java.util.Map} object.
+   * @return a {@link java.lang.Object} object.
+   */
+  public Object fetchParsed(String key, Map<String, Object> options) {
+    Entry entry = getEntry(key, options);
+    return entry == null ? null : entry.getJSON();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void store(String key, Object data, Map<String, Object> options) {
+    put(getEntryKey(key, options), new Entry(data.toString(), getExpiresAt()));
+
+    Cache cache = getBackend();
+    if (cache != null)
+      cache.store(key, data, options);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void delete(String key, Map<String, Object> options) {
+    String entryKey = getEntryKey(key, options);
+    synchronized (lock) {
+      remove(entryKey);
+      if (options != null && Boolean.TRUE.equals(options.get("directory"))) {
+        String prefix = entryKey + "/";
+        for (String cachedKey : new ArrayList<String>(entries.keySet())) {
+          if (cachedKey.startsWith(prefix))
+            remove(cachedKey);
+        }
+      }
+    }
+
+    Cache cache = getBackend();
+    if (cache != null)
+      cache.delete(key, options);
+  }
+
+  private void put(String entryKey, Entry entry) {
+    long maxEntries = getMaxEntries();
+    long maxWeight = getMaxWeight();
+
+    synchronized (lock) {
+      remove(entryKey);
+      entries.put(entryKey, entry);
+      weight += entry.text.length();
+
+      Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+      while (iterator.hasNext() && (entries.size() > maxEntries || (maxWeight > 0 && weight > maxWeight))) {
+        Map.Entry<String, Entry> eldest = iterator.next();
+        // a single entry over the weight limit is still kept, so that it can be used once
+        if (eldest.getValue() == entry)
+          break;
+        iterator.remove();
+        weight -= eldest.getValue().text.length();
+        evictionCount.incrementAndGet();
+      }
+    }
+  }
+
+  private void remove(String entryKey) {
+    Entry removed = entries.remove(entryKey);
+    if (removed != null)
+      weight -= removed.text.length();
+  }
+
+  /**
+   * Removes all entries from the memory cache, the backend is left untouched
+   */
+  public void reset() {
+    synchronized (lock) {
+      entries.clear();
+      weight = 0;
+    }
+  }
+
+  /**
+   * Returns the number of entries in the memory cache
+   *
+   * @return a int.
+   */
+  public int size() {
+    synchronized (lock) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Returns the number of cached characters
+   *
+   * @return a long.
+   */
+  public long getWeight() {
+    synchronized (lock) {
+      return weight;
+    }
+  }
+
+  /**
+   * <p>Getter for the number of hits.</p>
+   *
+   * @return a long.
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * <p>Getter for the number of misses, including expired entries.</p>
+   *
+   * @return a long.
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * <p>Getter for the number of entries evicted to stay within bounds.</p>
+   *
+   * @return a long.
+   */
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  /**
+   * <p>Getter for the number of expired entries.</p>
+   *
+   * @return a long.
+   */
+  public long getExpirationCount() {
+    return expirationCount.get();
+  }
+
+  /**
+   * Returns all counters
+   *
+   * @return a {@link java.util.Map} object.
+   */
+  public Map<String, Object> getStats() {
+    return Utils.map(
+        "hits", getHitCount(),
+        "misses", getMissCount(),
+        "evictions", getEvictionCount(),
+        "expirations", getExpirationCount(),
+        "size", size(),
+        "weight", getWeight()
+    );
+  }
+
+  /**
+   * Cached text with its lazily parsed JSON
+   */
+  private static final class Entry {
+    final String text;
+    final long expiresAt;
+    private volatile Object json;
+
+    Entry(String text, long expiresAt) {
+      this.text = text;
+      this.expiresAt = expiresAt;
+    }
+
+    boolean isExpired(long now) {
+      return expiresAt > 0 && expiresAt <= now;
+    }
+
+    Object getJSON() {
+      Object result = json;
+      if (result == null) {
+        result = Utils.parseJSON(text);
+        json = result;
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,665 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.cache;
+
+import com.translationexchange.core.Application;
+import com.translationexchange.core.Tml;
+import com.translationexchange.core.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * File cache that keeps all entries of a cache version in a single packed file.
+ *
+ * <p>Each version is stored in <code>&lt;path&gt;/&lt;version&gt;.pack</code>. The file starts with a magic
+ * header followed by append-only records of the form
+ * <code>[int keyLength][key][int dataLength][data]</code>, where a data length of -1 marks a deleted key.
+ * When a pack is opened, the record headers are scanned once into an in-memory offset index, and
+ * fetches decode the data straight from a memory mapped view of the file.</p>
+ *
+ * <p>Several processes may share a cache path. Records are appended under an exclusive lock of the
+ * pack file, after indexing the records other processes have appended since the last scan; a miss
+ * also picks up those records before it is reported.</p>
+ *
+ * <p>When a pack is opened with at least <code>compact_threshold</code> bytes of overwritten and deleted
+ * records (1 MB by default, a negative value disables compaction), its live records are written to a new
+ * file that replaces it. Processes that have the old file open switch to the new one the next time they
+ * lock it. Packs of other versions are deleted once a new cache version is in use.</p>
+ *
+ * <p>The cache version file itself is still kept as a separate file, same as in {@link FileCache}.</p>
+ *
+ * <p>To use it, set the cache class to <code>com.translationexchange.core.cache.PackedFileCache</code>.</p>
+ */
+public class PackedFileCache extends FileCache {
+  private static final byte[] MAGIC = "TMLPACK1".getBytes(Utils.UTF_8);
+  private static final int TOMBSTONE = -1;
+  private static final String UNVERSIONED = "unversioned";
+  private static final String EXTENSION = ".pack";
+
+  public static final long DEFAULT_COMPACT_THRESHOLD = 1024 * 1024;
+
+  /**
+   * Monitors of the pack files, shared by all caches of the JVM, as a file lock is held per JVM
+   */
+  private static final ConcurrentMap<String, Object> FILE_MONITORS = new ConcurrentHashMap<String, Object>();
+
+  private final ConcurrentMap<String, Pack> packs = new ConcurrentHashMap<String, Pack>();
+
+  /**
+   * Version whose stale packs have been deleted
+   */
+  private volatile String currentVersion;
+
+  /**
+   * <p>
+   * Constructor for PackedFileCache.
+   * </p>
+   *
+   * @param config a {@link java.util.Map} object.
+   */
+  public PackedFileCache(Map<String, Object> config) {
+    super(config);
+  }
+
+  /**
+   * Returns true if the key is the cache version key, which is kept outside of the packs
+   *
+   * @param key a {@link java.lang.String} object.
+   * @return a boolean.
+   */
+  protected boolean isVersionKey(String key) {
+    return key.equals("version") || key.equals("tml_current_version");
+  }
+
+  /**
+   * Returns the name of the pack for the current cache version
+   *
+   * @param options a {@link java.util.Map} object.
+   * @return a {@link java.lang.String} object.
+   */
+  protected String getPackName(Map<String, Object> options) {
+    String version = getConfigProperty("version", options == null ? null : (String) options.get(CacheVersion.VERSION_KEY));
+    return version == null ? UNVERSIONED : version;
+  }
+
+  /**
+   * Returns the pack file for the provided name
+   *
+   * @param name a {@link java.lang.String} object.
+   * @return a {@link java.io.File} object.
+   */
+  protected File getPackFile(String name) {
+    return new File(getCachePath(), name + EXTENSION);
+  }
+
+  /**
+   * Returns the opened pack for the current cache version
+   */
+  private Pack getPack(Map<String, Object> options) throws IOException {
+    String name = getPackName(options);
+    Pack pack = packs.get(name);
+    if (pack == null) {
+      Pack created = new Pack(getPackFile(name), getConfigNumber("compact_threshold", DEFAULT_COMPACT_THRESHOLD));
+      pack = packs.putIfAbsent(name, created);
+      if (pack == null)
+        pack = created;
+    }
+    pack.open();
+    return pack;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public Object fetch(String key, Map<String, Object> options) {
+    if (isVersionKey(key))
+      return super.fetch(key, options);
+
+    try {
+      String data = getPack(options).read(key);
+      recordLookup(key, data != null);
+      if (data == null) {
+        debugLookup("Packed cache miss: {}", key);
+        return null;
+      }
+      debugLookup("Packed cache hit: {}", key);
+      return data;
+    } catch (Exception ex) {
+      recordLookup(key, false);
+      Tml.getLogger().logException(ex);
+      return null;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void store(String key, Object data, Map<String, Object> options) {
+    if (isVersionKey(key)) {
+      super.store(key, data, options);
+      return;
+    }
+
+    try {
+      Tml.getGuardedLogger().debugf("Writing packed cache for: {}", key);
+      getPack(options).write(key, data.toString().getBytes(Utils.UTF_8));
+    } catch (Exception ex) {
+      Tml.getLogger().logException("Failed to write cache to pack", ex);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void delete(String key, Map<String, Object> options) {
+    if (isVersionKey(key)) {
+      super.delete(key, options);
+      return;
+    }
+
+    try {
+      Pack pack = getPack(options);
+      if (options != null && Boolean.TRUE.equals(options.get("directory"))) {
+        String prefix = key + "/";
+        for (String packedKey : pack.getKeys()) {
+          if (packedKey.startsWith(prefix))
+            pack.delete(packedKey);
+        }
+      } else {
+        pack.delete(key);
+      }
+    } catch (Exception ex) {
+      Tml.getLogger().logException("Failed to delete cache from pack", ex);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public CacheVersion verifyCacheVersion(Application application) throws Exception {
+    CacheVersion version = super.verifyCacheVersion(application);
+    deleteStalePacks(version);
+    return version;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void setCacheVersion(CacheVersion cacheVersion) {
+    super.setCacheVersion(cacheVersion);
+    deleteStalePacks(cacheVersion);
+  }
+
+  /**
+   * Deletes the packs of the versions other than the current one, once per version. Nothing is
+   * deleted when the version is set in the cache configuration.
+   *
+   * @param cacheVersion a {@link com.translationexchange.core.cache.CacheVersion} object.
+   */
+  protected void deleteStalePacks(CacheVersion cacheVersion) {
+    if (cacheVersion == null || cacheVersion.getVersion() == null || getConfigProperty("version") != null)
+      return;
+
+    String version = cacheVersion.getVersion();
+    synchronized (this) {
+      if (version.equals(currentVersion))
+        return;
+      currentVersion = version;
+    }
+
+    File[] files = getCachePath().listFiles();
+    if (files == null)
+      return;
+
+    for (File file : files) {
+      String name = file.getName();
+      if (!name.endsWith(EXTENSION))
+        continue;
+      name = name.substring(0, name.length() - EXTENSION.length());
+      if (name.equals(version) || name.equals(UNVERSIONED))
+        continue;
+
+      Pack pack = packs.remove(name);
+      if (pack != null)
+        pack.close();
+      if (file.delete())
+        Tml.getGuardedLogger().debugf("Deleted cache pack of version {}", name);
+      else
+        Tml.getLogger().warn("Failed to delete cache pack: " + file);
+    }
+  }
+
+  /**
+   * Closes all opened packs. They will be reopened on the next access.
+   */
+  public void reset() {
+    for (String name : new ArrayList<String>(packs.keySet())) {
+      Pack pack = packs.remove(name);
+      if (pack != null)
+        pack.close();
+    }
+  }
+
+  /**
+   * Location of a record's data in the pack
+   */
+  private static final class Entry {
+    final int offset;
+    final int length;
+    final int generation;
+
+    Entry(int offset, int length, int generation) {
+      this.offset = offset;
+      this.length = length;
+      this.generation = generation;
+    }
+  }
+
+  /**
+   * Memory mapped view of a pack file, valid for the entries of the same generation
+   */
+  private static final class Mapping {
+    final ByteBuffer buffer;
+    final int generation;
+
+    Mapping(ByteBuffer buffer, int generation) {
+      this.buffer = buffer;
+      this.generation = generation;
+    }
+  }
+
+  /**
+   * Single packed file with its offset index
+   */
+  private static final class Pack {
+    private final File file;
+    private final Object monitor;
+    private final long compactThreshold;
+    private final ConcurrentMap<String, Entry> index = new ConcurrentHashMap<String, Entry>();
+    private FileChannel channel;
+    private Object fileKey;
+    private volatile Mapping mapping;
+    private volatile int generation;
+    private volatile boolean opened;
+    private volatile long end;
+
+    Pack(File file, long compactThreshold) {
+      this.file = file;
+      this.compactThreshold = compactThreshold;
+      Object created = new Object();
+      Object monitor = FILE_MONITORS.putIfAbsent(file.getAbsolutePath(), created);
+      this.monitor = monitor == null ? created : monitor;
+    }
+
+    void open() throws IOException {
+      if (opened)
+        return;
+
+      synchronized (this) {
+        if (opened)
+          return;
+
+        file.getParentFile().mkdirs();
+        openChannel();
+        synchronized (monitor) {
+          boolean compacted = false;
+          FileLock lock = lock();
+          try {
+            refresh();
+            if (compactThreshold >= 0 && getDeadBytes() >= compactThreshold)
+              compacted = compact();
+          } finally {
+            lock.release();
+          }
+
+          if (compacted) {
+            channel.close();
+            openChannel();
+            lockAndRefresh();
+          }
+        }
+
+        if (Tml.getGuardedLogger().isDebugEnabled())
+          Tml.getGuardedLogger().debugf("Opened cache pack {} with {} entries", file, index.size());
+        opened = true;
+      }
+    }
+
+    private void openChannel() throws IOException {
+      channel = new RandomAccessFile(file, "rw").getChannel();
+      fileKey = getFileKey();
+      end = 0;
+    }
+
+    private Object getFileKey() throws IOException {
+      return Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+    }
+
+    /**
+     * Returns true if another process has compacted or deleted the pack file that is open
+     */
+    private boolean isReplaced() throws IOException {
+      if (!file.exists())
+        return true;
+      return fileKey != null && !fileKey.equals(getFileKey());
+    }
+
+    /**
+     * Locks the pack file, switching to the file at the pack path first if the open one has been
+     * replaced
+     */
+    private FileLock lock() throws IOException {
+      FileLock lock = channel.lock();
+      while (isReplaced()) {
+        lock.release();
+        channel.close();
+        openChannel();
+        lock = channel.lock();
+      }
+      return lock;
+    }
+
+    private void lockAndRefresh() throws IOException {
+      FileLock lock = lock();
+      try {
+        refresh();
+      } finally {
+        lock.release();
+      }
+    }
+
+    /**
+     * Forgets the indexed records, entries of earlier generations are no longer read
+     */
+    private void clearIndex() {
+      index.clear();
+      mapping = null;
+      generation++;
+    }
+
+    /**
+     * Indexes the records appended to the file since the last scan, by this or another process.
+     * Must be called with the pack file locked.
+     */
+    private void refresh() throws IOException {
+      long size = channel.size();
+      if (end == 0 || size < end) {
+        clearIndex();
+        if (size < MAGIC.length || !hasMagic(channel.map(FileChannel.MapMode.READ_ONLY, 0, MAGIC.length))) {
+          if (size > 0)
+            Tml.getLogger().warn("Unrecognized cache pack, starting a new one: " + file);
+          channel.truncate(0);
+          writeFully(channel, ByteBuffer.wrap(MAGIC), 0);
+          end = MAGIC.length;
+          return;
+        }
+        end = MAGIC.length;
+      }
+
+      if (size > end) {
+        long scanned = scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), (int) end);
+        if (scanned < size) {
+          Tml.getLogger().warn("Truncating incomplete cache pack record: " + file);
+          channel.truncate(scanned);
+        }
+        end = scanned;
+      }
+    }
+
+    /**
+     * Picks up records appended by other processes, if the file has grown or has been replaced
+     */
+    private synchronized boolean refreshIfGrown() throws IOException {
+      if (channel == null || (channel.size() <= end && !isReplaced()))
+        return false;
+
+      synchronized (monitor) {
+        lockAndRefresh();
+      }
+      return true;
+    }
+
+    /**
+     * Returns the number of bytes taken by overwritten and deleted records
+     */
+    private long getDeadBytes() {
+      long live = MAGIC.length;
+      for (Map.Entry<String, Entry> entry : index.entrySet())
+        live += 4 + entry.getKey().getBytes(Utils.UTF_8).length + 4 + entry.getValue().length;
+      return end - live;
+    }
+
+    /**
+     * Writes the live records to a new file and moves it over the pack, other processes switch to
+     * it the next time they lock the pack. Must be called with the pack file locked.
+     *
+     * @return false if the pack could not be replaced
+     */
+    private boolean compact() throws IOException {
+      File compacted = new File(file.getPath() + ".tmp");
+      FileChannel target = new RandomAccessFile(compacted, "rw").getChannel();
+      boolean replaced = false;
+      try {
+        target.truncate(0);
+        ByteBuffer source = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+        long position = writeFully(target, ByteBuffer.wrap(MAGIC), 0);
+        for (Map.Entry<String, Entry> entry : index.entrySet()) {
+          byte[] name = entry.getKey().getBytes(Utils.UTF_8);
+          ByteBuffer header = ByteBuffer.allocate(4 + name.length + 4);
+          header.putInt(name.length);
+          header.put(name);
+          header.putInt(entry.getValue().length);
+          header.flip();
+          position = writeFully(target, header, position);
+
+          ByteBuffer data = source.duplicate();
+          data.limit(entry.getValue().offset + entry.getValue().length);
+          data.position(entry.getValue().offset);
+          position = writeFully(target, data, position);
+        }
+        target.force(false);
+
+        Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        replaced = true;
+        Tml.getGuardedLogger().debugf("Compacted cache pack {} from {} to {} bytes", file, end, position);
+      } catch (IOException ex) {
+        Tml.getLogger().logException("Failed to compact cache pack " + file, ex);
+      } finally {
+        target.close();
+        if (!replaced)
+          compacted.delete();
+      }
+      return replaced;
+    }
+
+    private static boolean hasMagic(ByteBuffer header) {
+      byte[] magic = new byte[MAGIC.length];
+      header.get(magic);
+      return Arrays.equals(magic, MAGIC);
+    }
+
+    /**
+     * Adds the record headers from the start position to the index and returns the end of the last
+     * complete record
+     */
+    private long scan(ByteBuffer data, int start) {
+      int position = start;
+      int limit = data.limit();
+
+      while (limit - position >= 4) {
+        int keyLength = data.getInt(position);
+        if (keyLength < 0 || limit - position - 4 < keyLength + 4)
+          break;
+
+        byte[] key = new byte[keyLength];
+        data.position(position + 4);
+        data.get(key);
+
+        int dataLength = data.getInt(position + 4 + keyLength);
+        int dataOffset = position + 4 + keyLength + 4;
+        if (dataLength < TOMBSTONE || (dataLength > 0 && limit - dataOffset < dataLength))
+          break;
+
+        String name = new String(key, Utils.UTF_8);
+        if (dataLength == TOMBSTONE) {
+          index.remove(name);
+          position = dataOffset;
+        } else {
+          index.put(name, new Entry(dataOffset, dataLength, generation));
+          position = dataOffset + dataLength;
+        }
+      }
+
+      return position;
+    }
+
+    List<String> getKeys() {
+      return new ArrayList<String>(index.keySet());
+    }
+
+    String read(String key) throws IOException {
+      Entry entry = index.get(key);
+      if (entry == null && refreshIfGrown())
+        entry = index.get(key);
+      if (entry == null)
+        return null;
+
+      Mapping view = mapping;
+      if (view == null || view.generation != entry.generation || view.buffer.capacity() < entry.offset + entry.length)
+        view = remap(entry.generation);
+      if (view == null)
+        return null;
+
+      ByteBuffer slice = view.buffer.duplicate();
+      slice.limit(entry.offset + entry.length);
+      slice.position(entry.offset);
+      return Utils.UTF_8.decode(slice).toString();
+    }
+
+    /**
+     * Maps the file again, returns null if the entries of the generation are no longer valid
+     */
+    private synchronized Mapping remap(int generation) throws IOException {
+      if (channel == null || generation != this.generation)
+        return null;
+      mapping = new Mapping(channel.map(FileChannel.MapMode.READ_ONLY, 0, end), generation);
+      return mapping;
+    }
+
+    synchronized void write(String key, byte[] data) throws IOException {
+      append(key, data);
+    }
+
+    synchronized void delete(String key) throws IOException {
+      refreshIfGrown();
+      if (index.containsKey(key))
+        append(key, null);
+    }
+
+    private void append(String key, byte[] data) throws IOException {
+      if (channel == null)
+        throw new IOException("Cache pack is closed: " + file);
+
+      byte[] name = key.getBytes(Utils.UTF_8);
+      int dataLength = data == null ? 0 : data.length;
+      int recordLength = 4 + name.length + 4 + dataLength;
+
+      ByteBuffer record = ByteBuffer.allocate(recordLength);
+      record.putInt(name.length);
+      record.put(name);
+      record.putInt(data == null ? TOMBSTONE : data.length);
+      if (data != null)
+        record.put(data);
+      record.flip();
+
+      synchronized (monitor) {
+        FileLock lock = lock();
+        try {
+          // other processes may have appended since the last scan
+          refresh();
+          if (end + recordLength > Integer.MAX_VALUE)
+            throw new IOException("Cache pack is full: " + file);
+
+          writeFully(channel, record, end);
+          int dataOffset = (int) end + 4 + name.length + 4;
+          end += recordLength;
+
+          if (data == null)
+            index.remove(key);
+          else
+            index.put(key, new Entry(dataOffset, dataLength, generation));
+        } finally {
+          lock.release();
+        }
+      }
+    }
+
+    /**
+     * Writes the data at the position and returns the position after it
+     */
+    private static long writeFully(FileChannel target, ByteBuffer data, long position) throws IOException {
+      while (data.hasRemaining())
+        position += target.write(data, position);
+      return position;
+    }
+
+    synchronized void close() {
+      clearIndex();
+      opened = false;
+      if (channel == null)
+        return;
+      try {
+        channel.close();
+      } catch (IOException ex) {
+        Tml.getLogger().logException(ex);
+      }
+      channel = null;
+    }
+  }
+}
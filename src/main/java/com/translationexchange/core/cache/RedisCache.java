@@ -0,0 +1,414 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.cache;
+
+import com.translationexchange.core.Tml;
+import com.translationexchange.core.Utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache stored in a Redis server, so that several processes can share the downloaded data.
+ *
+ * <p>Keys are built with {@link #getVersionedKey(String, Map)}, so they include the cache namespace and
+ * version. Values larger than <code>compress_threshold</code> bytes are stored gzip compressed.
+ * Directories are deleted with a single DEL per SCAN batch.</p>
+ *
+ * <p>Supported configuration:</p>
+ * <ul>
+ * <li><code>host</code> and <code>port</code> - server address, localhost:6379 by default</li>
+ * <li><code>password</code> and <code>database</code> - optional AUTH and SELECT arguments</li>
+ * <li><code>timeout</code> - connect and read timeout in milliseconds, 2000 by default</li>
+ * <li><code>ttl</code> - seconds the entries are kept, entries do not expire by default</li>
+ * <li><code>compress_threshold</code> - minimal value size in bytes that is compressed, 1024 by default,
+ * a negative value disables compression</li>
+ * <li><code>pool_size</code> - number of idle connections that are kept open, 8 by default</li>
+ * </ul>
+ */
+public class RedisCache extends CacheAdapter implements Cache {
+  public static final int DEFAULT_PORT = 6379;
+  public static final int DEFAULT_TIMEOUT = 2000;
+  public static final int DEFAULT_COMPRESS_THRESHOLD = 1024;
+  public static final int DEFAULT_POOL_SIZE = 8;
+
+  private static final int SCAN_COUNT = 1000;
+
+  private final Queue<Connection> connections = new ConcurrentLinkedQueue<Connection>();
+
+  /**
+   * <p>
+   * Constructor for RedisCache.
+   * </p>
+   *
+   * @param config a {@link java.util.Map} object.
+   */
+  public RedisCache(Map<String, Object> config) {
+    super(config);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public Object fetch(String key, Map<String, Object> options) {
+    String versionedKey = getVersionedKey(key, options);
+    try {
+      List<Object> replies = execute(command("GET", versionedKey));
+      String data = decode((byte[]) replies.get(0));
+      debugLookup(data == null ? "Cache miss: {}" : "Cache hit: {}", versionedKey);
+      recordLookup(key, data != null);
+      return data;
+    } catch (Exception ex) {
+      recordLookup(key, false);
+      Tml.getLogger().logException("Failed to fetch " + versionedKey + " from cache", ex);
+      return null;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void store(String key, Object data, Map<String, Object> options) {
+    String versionedKey = getVersionedKey(key, options);
+    long ttl = getConfigNumber("ttl", 0);
+    try {
+      byte[] value = encode(data.toString());
+      if (ttl > 0)
+        execute(new byte[][]{bytes("SET"), bytes(versionedKey), value, bytes("EX"), bytes(String.valueOf(ttl))});
+      else
+        execute(new byte[][]{bytes("SET"), bytes(versionedKey), value});
+    } catch (Exception ex) {
+      Tml.getLogger().logException("Failed to write " + versionedKey + " to cache", ex);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @SuppressWarnings("unchecked")
+  public void delete(String key, Map<String, Object> options) {
+    String versionedKey = getVersionedKey(key, options);
+    try {
+      if (options != null && Boolean.TRUE.equals(options.get("directory"))) {
+        String pattern = escapePattern(versionedKey + "/") + "*";
+        String cursor = "0";
+        do {
+          List<Object> reply = (List<Object>) execute(command("SCAN", cursor, "MATCH", pattern, "COUNT", String.valueOf(SCAN_COUNT))).get(0);
+          cursor = new String((byte[]) reply.get(0), Utils.UTF_8);
+
+          List<Object> keys = (List<Object>) reply.get(1);
+          if (!keys.isEmpty()) {
+            byte[][] arguments = new byte[keys.size() + 1][];
+            arguments[0] = bytes("DEL");
+            for (int i = 0; i < keys.size(); i++)
+              arguments[i + 1] = (byte[]) keys.get(i);
+            execute(arguments);
+          }
+        } while (!cursor.equals("0"));
+      } else {
+        execute(command("DEL", versionedKey));
+      }
+    } catch (Exception ex) {
+      Tml.getLogger().logException("Failed to delete " + versionedKey + " from cache", ex);
+    }
+  }
+
+  /**
+   * Closes all idle connections
+   */
+  public void reset() {
+    Connection connection;
+    while ((connection = connections.poll()) != null)
+      connection.close();
+  }
+
+  /**
+   * Escapes glob characters of a SCAN pattern
+   */
+  private static String escapePattern(String value) {
+    StringBuilder pattern = new StringBuilder();
+    for (char c : value.toCharArray()) {
+      if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\')
+        pattern.append('\\');
+      pattern.append(c);
+    }
+    return pattern.toString();
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(Utils.UTF_8);
+  }
+
+  private static byte[][] command(String... arguments) {
+    byte[][] command = new byte[arguments.length][];
+    for (int i = 0; i < arguments.length; i++)
+      command[i] = bytes(arguments[i]);
+    return command;
+  }
+
+  /**
+   * Converts a value to the stored bytes, compressing large values
+   *
+   * @param data a {@link java.lang.String} object.
+   * @return an array of byte.
+   * @throws java.io.IOException if any.
+   */
+  protected byte[] encode(String data) throws IOException {
+    byte[] value = data.getBytes(Utils.UTF_8);
+    long threshold = getConfigNumber("compress_threshold", DEFAULT_COMPRESS_THRESHOLD);
+    if (threshold < 0 || value.length < threshold)
+      return value;
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream(value.length / 4 + 64);
+    GZIPOutputStream gzip = new GZIPOutputStream(output);
+    gzip.write(value);
+    gzip.close();
+    return output.toByteArray();
+  }
+
+  /**
+   * Converts stored bytes back to the value, JSON values never start with the gzip magic number
+   *
+   * @param value an array of byte.
+   * @return a {@link java.lang.String} object.
+   * @throws java.io.IOException if any.
+   */
+  protected String decode(byte[] value) throws IOException {
+    if (value == null)
+      return null;
+
+    if (value.length < 2 || value[0] != (byte) 0x1f || value[1] != (byte) 0x8b)
+      return new String(value, Utils.UTF_8);
+
+    InputStream input = new GZIPInputStream(new ByteArrayInputStream(value));
+    ByteArrayOutputStream output = new ByteArrayOutputStream(value.length * 4);
+    byte[] buffer = new byte[8192];
+    int count;
+    while ((count = input.read(buffer)) != -1)
+      output.write(buffer, 0, count);
+    input.close();
+    return new String(output.toByteArray(), Utils.UTF_8);
+  }
+
+  /**
+   * Sends the commands in a single pipeline and returns their replies
+   *
+   * @param commands commands with their arguments
+   * @return a {@link java.util.List} object.
+   * @throws java.io.IOException if the server can not be reached or replies with an error.
+   */
+  protected List<Object> execute(byte[][]... commands) throws IOException {
+    Connection connection = connections.poll();
+    if (connection == null)
+      connection = openConnection();
+
+    List<Object> replies = new ArrayList<Object>(commands.length);
+    String error = null;
+    boolean completed = false;
+    try {
+      for (byte[][] command : commands)
+        connection.write(command);
+      connection.flush();
+
+      for (int i = 0; i < commands.length; i++) {
+        Object reply = connection.read();
+        if (reply instanceof ServerError && error == null)
+          error = ((ServerError) reply).message;
+        replies.add(reply);
+      }
+      completed = true;
+    } finally {
+      // a connection that failed part way may have replies left to read
+      if (completed && connections.size() < getConfigNumber("pool_size", DEFAULT_POOL_SIZE))
+        connections.offer(connection);
+      else
+        connection.close();
+    }
+
+    if (error != null)
+      throw new IOException("Redis error: " + error);
+    return replies;
+  }
+
+  private Connection openConnection() throws IOException {
+    int timeout = (int) getConfigNumber("timeout", DEFAULT_TIMEOUT);
+    Socket socket = new Socket();
+    socket.setTcpNoDelay(true);
+    socket.setSoTimeout(timeout);
+    socket.connect(new InetSocketAddress(getConfigProperty("host", "localhost"), (int) getConfigNumber("port", DEFAULT_PORT)), timeout);
+
+    Connection connection = new Connection(socket);
+    try {
+      if (getConfigProperty("password") != null)
+        connection.call(command("AUTH", getConfigProperty("password")));
+      if (getConfig() != null && getConfig().get("database") != null)
+        connection.call(command("SELECT", String.valueOf(getConfigNumber("database", 0))));
+    } catch (IOException ex) {
+      connection.close();
+      throw ex;
+    }
+    return connection;
+  }
+
+  /**
+   * Error reply of the server
+   */
+  private static final class ServerError {
+    final String message;
+
+    ServerError(String message) {
+      this.message = message;
+    }
+  }
+
+  /**
+   * Connection speaking the Redis serialization protocol
+   */
+  private static final class Connection {
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+
+    Connection(Socket socket) throws IOException {
+      this.socket = socket;
+      this.in = new BufferedInputStream(socket.getInputStream());
+      this.out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    void call(byte[][] command) throws IOException {
+      write(command);
+      flush();
+      Object reply = read();
+      if (reply instanceof ServerError)
+        throw new IOException("Redis error: " + ((ServerError) reply).message);
+    }
+
+    void write(byte[][] command) throws IOException {
+      writeHeader('*', command.length);
+      for (byte[] argument : command) {
+        writeHeader('$', argument.length);
+        out.write(argument);
+        out.write('\r');
+        out.write('\n');
+      }
+    }
+
+    private void writeHeader(char type, int length) throws IOException {
+      out.write(type);
+      out.write(bytes(String.valueOf(length)));
+      out.write('\r');
+      out.write('\n');
+    }
+
+    void flush() throws IOException {
+      out.flush();
+    }
+
+    Object read() throws IOException {
+      int type = in.read();
+      String line = readLine();
+      switch (type) {
+        case '+':
+          return line;
+        case '-':
+          return new ServerError(line);
+        case ':':
+          return Long.valueOf(line);
+        case '$': {
+          int length = Integer.parseInt(line);
+          if (length < 0)
+            return null;
+          byte[] value = new byte[length];
+          int offset = 0;
+          while (offset < length) {
+            int count = in.read(value, offset, length - offset);
+            if (count < 0)
+              throw new IOException("Connection closed");
+            offset += count;
+          }
+          readLine();
+          return value;
+        }
+        case '*': {
+          int length = Integer.parseInt(line);
+          if (length < 0)
+            return null;
+          List<Object> values = new ArrayList<Object>(length);
+          for (int i = 0; i < length; i++)
+            values.add(read());
+          return values;
+        }
+        case -1:
+          throw new IOException("Connection closed");
+        default:
+          throw new IOException("Unexpected reply type: " + (char) type);
+      }
+    }
+
+    private String readLine() throws IOException {
+      ByteArrayOutputStream line = new ByteArrayOutputStream(16);
+      int c;
+      while ((c = in.read()) != '\r') {
+        if (c == -1)
+          throw new IOException("Connection closed");
+        line.write(c);
+      }
+      in.read();
+      return new String(line.toByteArray(), Utils.UTF_8);
+    }
+
+    void close() {
+      try {
+        socket.close();
+      } catch (IOException ex) {
+        // ignore
+      }
+    }
+  }
+}
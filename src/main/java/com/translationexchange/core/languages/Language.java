@@ -37,16 +37,21 @@ package com.translationexchange.core.languages;
 import com.translationexchange.core.Application;
 import com.translationexchange.core.Base;
 import com.translationexchange.core.Configuration;
+import com.translationexchange.core.HttpCallback;
+import com.translationexchange.core.Session;
 import com.translationexchange.core.Source;
 import com.translationexchange.core.Tml;
 import com.translationexchange.core.TranslationKey;
 import com.translationexchange.core.Utils;
 import com.translationexchange.core.cache.CacheVersion;
+import com.translationexchange.core.metrics.Metrics;
 
 import java.io.File;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
 
 public class Language extends Base {
 
@@ -81,14 +86,19 @@ public class Language extends Base {
   private String flagUrl;
 
   /**
-   * Hash of all language contexts
+   * Hash of all language contexts, concurrent since a background load may add them while the language is in use
    */
-  private Map<String, LanguageContext> contexts;
+  private volatile Map<String, LanguageContext> contexts;
 
   /**
    * Hash of all language cases
    */
-  private Map<String, LanguageCase> cases;
+  private volatile Map<String, LanguageCase> cases;
+
+  /**
+   * Load started by {@link #loadInBackground()}
+   */
+  private volatile Future<Map<String, Object>> pendingLoad;
 
   /**
    * Default constructor
@@ -222,10 +232,15 @@ public class Language extends Base {
    * @return a {@link java.util.Map} object.
    */
   public Map<String, LanguageContext> getContexts() {
-    if (contexts == null)
-      contexts = new HashMap<String, LanguageContext>();
-
-    return contexts;
+    Map<String, LanguageContext> map = contexts;
+    if (map == null) {
+      synchronized (this) {
+        if (contexts == null)
+          contexts = new ConcurrentHashMap<String, LanguageContext>();
+        map = contexts;
+      }
+    }
+    return map;
   }
 
   /**
@@ -234,10 +249,15 @@ public class Language extends Base {
    * @return a {@link java.util.Map} object.
    */
   public Map<String, LanguageCase> getCases() {
-    if (cases == null)
-      cases = new HashMap<String, LanguageCase>();
-
-    return cases;
+    Map<String, LanguageCase> map = cases;
+    if (map == null) {
+      synchronized (this) {
+        if (cases == null)
+          cases = new ConcurrentHashMap<String, LanguageCase>();
+        map = cases;
+      }
+    }
+    return map;
   }
 
   /**
@@ -290,6 +310,7 @@ public class Language extends Base {
    * Loads language from the server
    */
   public void load() {
+    long start = System.nanoTime();
     try {
       if (getLocale() == null || getLocale().length() == 0) {
         setLoaded(false);
@@ -300,12 +321,67 @@ public class Language extends Base {
       );
       updateAttributes(attributes);
       setLoaded(true);
+      Tml.getConfig().getMetrics().recordLoad(Metrics.LOAD_LANGUAGE, System.nanoTime() - start, true);
     } catch (Exception ex) {
       setLoaded(false);
+      Tml.getConfig().getMetrics().recordLoad(Metrics.LOAD_LANGUAGE, System.nanoTime() - start, false);
       Tml.getLogger().logException(ex);
     }
   }
 
+  /**
+   * Loads language from the server in the background, the returned future completes once the
+   * definition has been applied
+   *
+   * @return a {@link java.util.concurrent.Future} object.
+   */
+  public Future<Map<String, Object>> loadAsync() {
+    final long start = System.nanoTime();
+    return getApplication().getHttpClient().getJSONAsync("languages/" + getLocale() + "/definition",
+        Utils.map(),
+        Utils.map("cache_key", getCacheKey()),
+        new HttpCallback<Map<String, Object>>() {
+          public void onSuccess(Map<String, Object> attributes) {
+            try {
+              updateAttributes(attributes);
+              setLoaded(true);
+            } catch (Exception ex) {
+              onFailure(ex);
+              return;
+            }
+            Tml.getConfig().getMetrics().recordLoad(Metrics.LOAD_LANGUAGE, System.nanoTime() - start, true);
+          }
+
+          public void onFailure(Exception ex) {
+            setLoaded(false);
+            Tml.getConfig().getMetrics().recordLoad(Metrics.LOAD_LANGUAGE, System.nanoTime() - start, false);
+            Tml.getLogger().logException(ex);
+          }
+        }
+    );
+  }
+
+  /**
+   * Starts loading the language in the background, unless a load is already running
+   *
+   * @return a {@link java.util.concurrent.Future} object.
+   */
+  public synchronized Future<Map<String, Object>> loadInBackground() {
+    if (pendingLoad == null || pendingLoad.isDone())
+      pendingLoad = loadAsync();
+    return pendingLoad;
+  }
+
+  /**
+   * Returns true while a background load of the language is running
+   *
+   * @return a boolean.
+   */
+  public boolean isLoading() {
+    Future<Map<String, Object>> load = pendingLoad;
+    return load != null && !load.isDone();
+  }
+
   public void loadLocal(String cacheVersion) {
     try {
       Map<String, Object> attributes = getApplication().getHttpClient().getJSONMap(Utils.map("cache_key", getCacheKey(), CacheVersion.VERSION_KEY, cacheVersion));
@@ -324,12 +400,9 @@ public class Language extends Base {
    * @param languageContext a {@link com.translationexchange.core.languages.LanguageContext} object.
    */
   public void addContext(LanguageContext languageContext) {
-    if (contexts == null)
-      contexts = new HashMap<String, LanguageContext>();
-
     languageContext.setLanguage(this);
 
-    contexts.put(languageContext.getKeyword(), languageContext);
+    getContexts().put(languageContext.getKeyword(), languageContext);
   }
 
 
@@ -340,9 +413,10 @@ public class Language extends Base {
    * @return a {@link com.translationexchange.core.languages.LanguageContext} object.
    */
   public LanguageContext getContextByKeyword(String keyword) {
-    if (contexts == null)
+    Map<String, LanguageContext> map = contexts;
+    if (map == null || keyword == null)
       return null;
-    return this.contexts.get(keyword);
+    return map.get(keyword);
   }
 
   /**
@@ -366,9 +440,10 @@ public class Language extends Base {
    * @return a {@link com.translationexchange.core.languages.LanguageCase} object.
    */
   public LanguageCase getLanguageCaseByKeyword(String keyword) {
-    if (cases == null)
+    Map<String, LanguageCase> map = cases;
+    if (map == null || keyword == null)
       return null;
-    return cases.get(keyword);
+    return map.get(keyword);
   }
 
   /**
@@ -377,12 +452,9 @@ public class Language extends Base {
    * @param languageCase a {@link com.translationexchange.core.languages.LanguageCase} object.
    */
   public void addLanguageCase(LanguageCase languageCase) {
-    if (cases == null)
-      cases = new HashMap<String, LanguageCase>();
-
     languageCase.setLanguage(this);
 
-    cases.put(languageCase.getKeyword(), languageCase);
+    getCases().put(languageCase.getKeyword(), languageCase);
   }
 
   /**
@@ -409,12 +481,40 @@ public class Language extends Base {
       if (value != null) return value;
     }
 
-    value = getApplication().getSession().getBlockOption(key);
-    if (value != null) return value;
+    Session session = getSession(options);
+    if (session != null) {
+      value = session.getBlockOption(key);
+      if (value != null) return value;
+    }
 
     return defaultValue;
   }
 
+  /**
+   * Returns the session of the translation call, or the application session if the call has none
+   *
+   * @param options
+   * @return
+   */
+  protected Session getSession(Map<String, Object> options) {
+    if (options != null && options.get(Session.SESSION_KEY) instanceof Session)
+      return (Session) options.get(Session.SESSION_KEY);
+    return getApplication().getSession();
+  }
+
+  /**
+   * Returns the source path of the translation call
+   *
+   * @param options
+   * @return
+   */
+  protected String getSourcePath(Map<String, Object> options) {
+    Session session = getSession(options);
+    if (session == null)
+      return "";
+    return Utils.join(session.getSourcePath(), Configuration.SOURCE_SEPARATOR);
+  }
+
 
   /**
    * Creates a new translation key
@@ -479,13 +579,16 @@ public class Language extends Base {
    * @return a {@link java.lang.Object} object.
    */
   public Object translate(String label, String description, Map<String, Object> tokens, Map<String, Object> options) {
+    Metrics metrics = Tml.getConfig().getMetrics();
+    long start = metrics.isEnabled() ? System.nanoTime() : 0;
     String keyHash = TranslationKey.generateKey(label, description);
 
     if (options == null) {
       options = new HashMap<String, Object>();
     }
 
-    String sourceKey = (String) getOptionsValue("source", options, getApplication().getSession().getCurrentSource());
+    Session session = getSession(options);
+    String sourceKey = (String) getOptionsValue("source", options, session == null ? null : session.getCurrentSource());
 
     // source key can never be empty
     if (sourceKey == null || sourceKey.equals("") || sourceKey.equals("/"))
@@ -500,14 +603,24 @@ public class Language extends Base {
         matchedKey.setLabel(label);
         matchedKey.setDescription(description);
       }
-      return matchedKey.translate(this, tokens, options);
+      Object translation = matchedKey.translate(this, tokens, options);
+      if (metrics.isEnabled()) {
+        boolean translated = getLocale().equals(matchedKey.getLocale()) || matchedKey.hasTranslations(getLocale());
+        metrics.recordTranslation(getLocale(), translated ? Metrics.TRANSLATION_HIT : Metrics.TRANSLATION_FALLBACK, System.nanoTime() - start);
+      }
+      return translation;
     } else {
       Map<String, Object> opts = new HashMap<String, Object>(options);
       opts.put("pending", "true");
-      String sourcePath = Utils.join(getApplication().getSession().getSourcePath(), Configuration.SOURCE_SEPARATOR);
+      String sourcePath = getSourcePath(options);
       TranslationKey tempKey = createTranslationKey(keyHash, label, description, opts);
-      getApplication().registerMissingTranslationKey(tempKey, sourcePath);
-      return tempKey.translate(this, tokens, options);
+      // the key may well be in a source that is still loading in the background
+      if (source == null || !source.isLoading())
+        getApplication().registerMissingTranslationKey(tempKey, sourcePath);
+      Object translation = tempKey.translate(this, tokens, options);
+      if (metrics.isEnabled())
+        metrics.recordTranslation(getLocale(), Metrics.TRANSLATION_MISSING, System.nanoTime() - start);
+      return translation;
     }
   }
 
@@ -541,7 +654,7 @@ public class Language extends Base {
       Tml.getLogger().warn("Language", log);
       Map<String, Object> opts = new HashMap<String, Object>(options);
       opts.put("pending", "true");
-      String sourcePath = Utils.join(getApplication().getSession().getSourcePath(), Configuration.SOURCE_SEPARATOR);
+      String sourcePath = getSourcePath(options);
       TranslationKey tempKey = createTranslationKey(keyHash, label, description, opts);
 //            if (getLocale().equals(getApplication().getDefaultLocale())) {
       getApplication().registerMissingTranslationKey(tempKey, sourcePath);
@@ -34,15 +34,19 @@
 
 package com.translationexchange.core.languages;
 
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import com.translationexchange.core.Base;
+import com.translationexchange.core.Tml;
 import com.translationexchange.core.Utils;
+import com.translationexchange.core.rulesengine.CompiledRule;
 import com.translationexchange.core.rulesengine.Evaluator;
 import com.translationexchange.core.rulesengine.Parser;
+import com.translationexchange.core.rulesengine.RuleCompiler;
 
 public class LanguageCaseRule extends Base {
 
@@ -90,6 +94,16 @@ public class LanguageCaseRule extends Base {
    */
   private List<Object> operationsExpression;
 
+  /**
+   * Conditions compiled at load, null if they must be interpreted
+   */
+  private CompiledRule compiledConditions;
+
+  /**
+   * Operations compiled at load, null if they must be interpreted
+   */
+  private CompiledRule compiledOperations;
+
   /**
    * Default constructor
    */
@@ -128,6 +142,31 @@ public class LanguageCaseRule extends Base {
     if (attributes.get("operations_expression") instanceof List) {
       this.operationsExpression = (List<Object>) attributes.get("operations_expression");
     }
+
+    compileExpressions();
+  }
+
+  /**
+   * Compiles conditions and operations once, so that evaluation does not need an {@link Evaluator}.
+   * Expressions that can not be compiled are interpreted.
+   */
+  protected void compileExpressions() {
+    this.compiledConditions = null;
+    this.compiledOperations = null;
+
+    try {
+      if (getConditionsExpression() != null)
+        this.compiledConditions = RuleCompiler.compile(getConditionsExpression());
+    } catch (Exception ex) {
+      Tml.getGuardedLogger().debugf("Conditions {} will be interpreted: {}", this.conditions, ex.getMessage());
+    }
+
+    try {
+      if (getOperationsExpression() != null)
+        this.compiledOperations = RuleCompiler.compile(getOperationsExpression());
+    } catch (Exception ex) {
+      Tml.getGuardedLogger().debugf("Operations {} will be interpreted: {}", this.operations, ex.getMessage());
+    }
   }
 
   /**
@@ -181,6 +220,17 @@ public class LanguageCaseRule extends Base {
     if (getConditionsExpression() == null)
       return false;
 
+    if (this.compiledConditions != null) {
+      Map<String, Object> variables = object == null ? null : getGenderVariables(object);
+      if (variables == null)
+        return (Boolean) this.compiledConditions.evaluate(VARIABLE_NAME_VALUE, value);
+
+      variables = new HashMap<String, Object>(variables);
+      if (!variables.containsKey(VARIABLE_NAME_VALUE))
+        variables.put(VARIABLE_NAME_VALUE, value);
+      return (Boolean) this.compiledConditions.evaluate(variables);
+    }
+
     Evaluator e = new Evaluator();
     e.setVariable(VARIABLE_NAME_VALUE, value);
 
@@ -229,6 +279,9 @@ public class LanguageCaseRule extends Base {
     if (getOperationsExpression() == null)
       return value;
 
+    if (this.compiledOperations != null)
+      return (String) this.compiledOperations.evaluate(VARIABLE_NAME_VALUE, value);
+
     Evaluator e = new Evaluator();
     e.setVariable(VARIABLE_NAME_VALUE, value);
     return (String) e.evaluate(getOperationsExpression());
@@ -305,6 +358,7 @@ public class LanguageCaseRule extends Base {
    */
   public void setConditions(String conditions) {
     this.conditions = conditions;
+    this.compiledConditions = null;
   }
 
   /**
@@ -323,6 +377,7 @@ public class LanguageCaseRule extends Base {
    */
   public void setOperations(String operations) {
     this.operations = operations;
+    this.compiledOperations = null;
   }
 
   /**
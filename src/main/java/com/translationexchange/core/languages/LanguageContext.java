@@ -43,12 +43,33 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import com.translationexchange.core.Base;
+import com.translationexchange.core.BoundedCache;
 import com.translationexchange.core.Tml;
 import com.translationexchange.core.Utils;
 import com.translationexchange.core.rulesengine.Variable;
 
 public class LanguageContext extends Base {
 
+  /**
+   * Keyword of the context that gets a precomputed table of rules for small integers
+   */
+  public static final String NUMBER_CONTEXT = "number";
+
+  /**
+   * Size of the precomputed table of rules for the number context
+   */
+  public static final int NUMBER_TABLE_SIZE = 1000;
+
+  /**
+   * Maximum number of memoized rule decisions per context
+   */
+  public static final int MAX_DECISIONS = 512;
+
+  /**
+   * Marker for decisions that matched no rule
+   */
+  private static final LanguageContextRule NO_RULE = new LanguageContextRule();
+
   /**
    * Reference back to the language it belongs to
    */
@@ -94,6 +115,20 @@ public class LanguageContext extends Base {
    */
   private LanguageContextRule fallbackRule;
 
+  /**
+   * Memoized rule decisions, keyed by the extracted token variables
+   */
+  private volatile BoundedCache<String, LanguageContextRule> decisions;
+
+  /**
+   * Rules of the number context for integers from 0 to NUMBER_TABLE_SIZE - 1
+   */
+  private volatile LanguageContextRule[] numberTable;
+
+  /**
+   * Indicates whether the number table has been computed
+   */
+  private volatile boolean numberTableComputed;
 
   /**
    * Default constructor
@@ -181,15 +216,147 @@ public class LanguageContext extends Base {
   public LanguageContextRule findMatchingRule(Object object) {
     Map<String, Object> tokenVars = getVariables(object);
 
-    for (LanguageContextRule rule : getRules().values()) {
-      if (rule.isFallback()) continue;
-      if (rule.evaluate(tokenVars))
-        return rule;
+    LanguageContextRule[] table = getNumberTable();
+    if (table != null) {
+      Object value = tokenVars.get(getVariableNames().get(0));
+      if (value instanceof Integer) {
+        int n = (Integer) value;
+        if (n >= 0 && n < table.length)
+          return table[n];
+      }
+    }
+
+    String decisionKey = getDecisionKey(tokenVars);
+    if (decisionKey == null)
+      return evaluateRules(tokenVars);
+
+    BoundedCache<String, LanguageContextRule> cache = getDecisions();
+    LanguageContextRule rule = cache.get(decisionKey);
+    if (rule == null) {
+      rule = evaluateRules(tokenVars);
+      cache.put(decisionKey, rule == null ? NO_RULE : rule);
+      return rule;
+    }
+
+    return rule == NO_RULE ? null : rule;
+  }
+
+  /**
+   * Evaluates the rules of the context against the token variables
+   *
+   * @param tokenVars a {@link java.util.Map} object.
+   * @return a {@link com.translationexchange.core.languages.LanguageContextRule} object.
+   */
+  protected LanguageContextRule evaluateRules(Map<String, Object> tokenVars) {
+    if (getRules() != null) {
+      for (LanguageContextRule rule : getRules().values()) {
+        if (rule.isFallback()) continue;
+        if (rule.evaluate(tokenVars))
+          return rule;
+      }
     }
 
     return this.fallbackRule;
   }
 
+  /**
+   * Builds the memoization key for the token variables, for example "@n=Integer:3;".
+   * Returns null when a variable holds a value that can not be used as a key.
+   *
+   * @param tokenVars a {@link java.util.Map} object.
+   * @return a {@link java.lang.String} object.
+   */
+  protected String getDecisionKey(Map<String, Object> tokenVars) {
+    if (getVariableNames() == null)
+      return null;
+
+    StringBuilder key = new StringBuilder();
+    for (String varName : getVariableNames()) {
+      key.append(varName).append('=');
+      if (!appendDecisionValue(key, tokenVars.get(varName)))
+        return null;
+      key.append(';');
+    }
+    return key.toString();
+  }
+
+  @SuppressWarnings("rawtypes")
+  private boolean appendDecisionValue(StringBuilder key, Object value) {
+    if (value == null) {
+      key.append("null");
+    } else if (value instanceof String) {
+      key.append("s:").append(((String) value).length()).append(':').append(value);
+    } else if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+      key.append(value.getClass().getSimpleName()).append(':').append(value);
+    } else if (value instanceof List) {
+      key.append('[');
+      for (Object item : (List) value) {
+        if (!appendDecisionValue(key, item))
+          return false;
+        key.append(',');
+      }
+      key.append(']');
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Returns the memoized rule decisions
+   *
+   * @return a {@link com.translationexchange.core.BoundedCache} object.
+   */
+  protected BoundedCache<String, LanguageContextRule> getDecisions() {
+    BoundedCache<String, LanguageContextRule> cache = this.decisions;
+    if (cache == null) {
+      cache = new BoundedCache<String, LanguageContextRule>(MAX_DECISIONS);
+      this.decisions = cache;
+    }
+    return cache;
+  }
+
+  /**
+   * Returns the rules of the number context for small integers, computing them on first use.
+   * Other contexts have no table.
+   *
+   * @return an array of {@link com.translationexchange.core.languages.LanguageContextRule} objects.
+   */
+  protected LanguageContextRule[] getNumberTable() {
+    if (!numberTableComputed) {
+      synchronized (this) {
+        if (!numberTableComputed) {
+          this.numberTable = computeNumberTable();
+          this.numberTableComputed = true;
+        }
+      }
+    }
+    return this.numberTable;
+  }
+
+  private LanguageContextRule[] computeNumberTable() {
+    if (!NUMBER_CONTEXT.equals(getKeyword()) || getVariableNames() == null || getVariableNames().size() != 1)
+      return null;
+
+    String varName = getVariableNames().get(0);
+    LanguageContextRule[] table = new LanguageContextRule[NUMBER_TABLE_SIZE];
+    Map<String, Object> tokenVars = new HashMap<String, Object>();
+    for (int n = 0; n < NUMBER_TABLE_SIZE; n++) {
+      tokenVars.put(varName, n);
+      table[n] = evaluateRules(tokenVars);
+    }
+    return table;
+  }
+
+  /**
+   * Drops memoized decisions, called whenever the rules or variables change
+   */
+  protected synchronized void resetDecisions() {
+    this.decisions = null;
+    this.numberTable = null;
+    this.numberTableComputed = false;
+  }
+
   /**
    * <p>Getter for the field <code>tokenMapping</code>.</p>
    *
@@ -245,6 +412,7 @@ public class LanguageContext extends Base {
     if (rules == null)
       rules = new HashMap<String, LanguageContextRule>();
     rules.put(rule.getKeyword(), rule);
+    resetDecisions();
   }
 
   /**
@@ -275,6 +443,7 @@ public class LanguageContext extends Base {
    */
   public void setKeyword(String keyword) {
     this.keyword = keyword;
+    resetDecisions();
   }
 
   /**
@@ -347,6 +516,7 @@ public class LanguageContext extends Base {
    */
   public void setVariableNames(List<String> variableNames) {
     this.variableNames = variableNames;
+    resetDecisions();
   }
 
   /**
@@ -374,6 +544,7 @@ public class LanguageContext extends Base {
    */
   public void setRules(Map<String, LanguageContextRule> rules) {
     this.rules = rules;
+    resetDecisions();
   }
 
   /**
@@ -383,5 +554,6 @@ public class LanguageContext extends Base {
    */
   public void setFallbackRule(LanguageContextRule fallbackRule) {
     this.fallbackRule = fallbackRule;
+    resetDecisions();
   }
 }
@@ -40,8 +40,11 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import com.translationexchange.core.Base;
+import com.translationexchange.core.Tml;
+import com.translationexchange.core.rulesengine.CompiledRule;
 import com.translationexchange.core.rulesengine.Evaluator;
 import com.translationexchange.core.rulesengine.Parser;
+import com.translationexchange.core.rulesengine.RuleCompiler;
 
 public class LanguageContextRule extends Base {
 
@@ -80,6 +83,11 @@ public class LanguageContextRule extends Base {
    */
   private List<Object> conditionsExpression;
 
+  /**
+   * Conditions compiled at load, null if they must be interpreted
+   */
+  private CompiledRule compiledConditions;
+
   /**
    * Default constructor
    */
@@ -112,6 +120,24 @@ public class LanguageContextRule extends Base {
     if (attributes.get("operations_expression") instanceof List) {
       this.conditionsExpression = (List) attributes.get("conditions_expression");
     }
+
+    compileConditions();
+  }
+
+  /**
+   * Compiles the conditions once, so that evaluation does not need an {@link Evaluator}.
+   * Conditions that can not be compiled are interpreted.
+   */
+  protected void compileConditions() {
+    this.compiledConditions = null;
+    if (getKeyword() == null || isFallback() || (this.conditions == null && this.conditionsExpression == null))
+      return;
+
+    try {
+      this.compiledConditions = RuleCompiler.compile(getConditionsExpression());
+    } catch (Exception ex) {
+      Tml.getGuardedLogger().debugf("Conditions {} will be interpreted: {}", this.conditions, ex.getMessage());
+    }
   }
 
   /**
@@ -148,6 +174,9 @@ public class LanguageContextRule extends Base {
     if (isFallback())
       return true;
 
+    if (this.compiledConditions != null)
+      return (Boolean) this.compiledConditions.evaluate(vars);
+
     Evaluator e = new Evaluator();
 
     Iterator<Entry<String, Object>> entries = vars.entrySet().iterator();
@@ -249,5 +278,6 @@ public class LanguageContextRule extends Base {
    */
   public void setConditions(String conditions) {
     this.conditions = conditions;
+    this.compiledConditions = null;
   }
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.logger;
+
+import org.slf4j.helpers.MessageFormatter;
+
+/**
+ * Base class for loggers that adds level checks and parameterized messages on top of
+ * {@link LoggerInterface}. Loggers that only implement the interface are wrapped in a
+ * {@link LoggerAdapter}.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public abstract class AbstractLogger implements LoggerInterface {
+
+  /**
+   * Returns true when debug messages are written. Callers that build expensive messages
+   * should check it first. Debug messages are off unless a subclass turns them on.
+   *
+   * @return a boolean.
+   */
+  public boolean isDebugEnabled() {
+    return false;
+  }
+
+  /**
+   * Returns true when info messages are written
+   *
+   * @return a boolean.
+   */
+  public boolean isInfoEnabled() {
+    return true;
+  }
+
+  /**
+   * Returns true when warn messages are written
+   *
+   * @return a boolean.
+   */
+  public boolean isWarnEnabled() {
+    return true;
+  }
+
+  /**
+   * Returns true when error messages are written
+   *
+   * @return a boolean.
+   */
+  public boolean isErrorEnabled() {
+    return true;
+  }
+
+  /**
+   * Writes a debug message built only when debug is enabled
+   *
+   * @param message a {@link MessageSupplier} object.
+   */
+  public void debug(MessageSupplier message) {
+    if (isDebugEnabled())
+      debug(message.get());
+  }
+
+  /**
+   * Writes a debug message, replacing the {} placeholder of the format with the argument
+   * only when debug is enabled
+   *
+   * @param format a {@link String} object.
+   * @param arg    a {@link Object} object.
+   */
+  public void debugf(String format, Object arg) {
+    if (isDebugEnabled())
+      debug(format(format, arg));
+  }
+
+  /**
+   * Writes a debug message, replacing the {} placeholders of the format with the arguments
+   * only when debug is enabled
+   *
+   * @param format a {@link String} object.
+   * @param arg1   a {@link Object} object.
+   * @param arg2   a {@link Object} object.
+   */
+  public void debugf(String format, Object arg1, Object arg2) {
+    if (isDebugEnabled())
+      debug(format(format, arg1, arg2));
+  }
+
+  /**
+   * Writes a debug message, replacing the {} placeholders of the format with the arguments
+   * only when debug is enabled
+   *
+   * @param format a {@link String} object.
+   * @param args   an array of {@link Object} objects.
+   */
+  public void debugf(String format, Object... args) {
+    if (isDebugEnabled())
+      debug(format(format, args));
+  }
+
+  /**
+   * Writes an info message, replacing the {} placeholders of the format with the arguments
+   * only when info is enabled
+   *
+   * @param format a {@link String} object.
+   * @param args   an array of {@link Object} objects.
+   */
+  public void infof(String format, Object... args) {
+    if (isInfoEnabled())
+      info(format(format, args));
+  }
+
+  /**
+   * Writes a warn message, replacing the {} placeholders of the format with the arguments
+   * only when warn is enabled
+   *
+   * @param format a {@link String} object.
+   * @param args   an array of {@link Object} objects.
+   */
+  public void warnf(String format, Object... args) {
+    if (isWarnEnabled())
+      warn(format(format, args));
+  }
+
+  /**
+   * Writes an error message, replacing the {} placeholders of the format with the arguments
+   * only when error is enabled
+   *
+   * @param format a {@link String} object.
+   * @param args   an array of {@link Object} objects.
+   */
+  public void errorf(String format, Object... args) {
+    if (isErrorEnabled())
+      error(format(format, args));
+  }
+
+  /**
+   * Replaces the {} placeholders of the format with the arguments
+   *
+   * @param format a {@link String} object.
+   * @param args   an array of {@link Object} objects.
+   * @return a {@link String} object.
+   */
+  protected String format(String format, Object... args) {
+    return MessageFormatter.arrayFormat(format, args).getMessage();
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets one of every so many high-frequency messages through, for example cache hits:
+ *
+ * <pre>
+ * if (logger.isDebugEnabled() &amp;&amp; SAMPLER.sample())
+ *   logger.debugf("Cache hit: {}", key);
+ * </pre>
+ *
+ * The first message is always written. Check the level first, so that messages that are
+ * not written do not advance the sampler.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public class LogSampler {
+
+  private final int rate;
+
+  private final AtomicLong count = new AtomicLong();
+
+  /**
+   * <p>Constructor for LogSampler.</p>
+   *
+   * @param rate one message of every rate messages is written; 1 or less writes all of them
+   */
+  public LogSampler(int rate) {
+    this.rate = Math.max(1, rate);
+  }
+
+  /**
+   * Returns true when the message should be written
+   *
+   * @return a boolean.
+   */
+  public boolean sample() {
+    return count.getAndIncrement() % rate == 0;
+  }
+
+  /**
+   * <p>Getter for the field <code>rate</code>.</p>
+   *
+   * @return a int.
+   */
+  public int getRate() {
+    return rate;
+  }
+
+  /**
+   * Returns the number of messages sampled so far
+   *
+   * @return a long.
+   */
+  public long getCount() {
+    return count.get();
+  }
+}
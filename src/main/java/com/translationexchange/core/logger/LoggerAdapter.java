@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.logger;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Wraps a logger that only implements {@link LoggerInterface}, writing parameterized
+ * messages through its plain methods. The wrapped logger has no levels of its own, so the
+ * adapter writes the messages at or above the level it is given, info by default.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public class LoggerAdapter extends AbstractLogger {
+
+  private static final List<String> LEVELS = Arrays.asList("debug", "info", "warn", "error");
+
+  private static final int DEBUG = 0;
+
+  private static final int INFO = 1;
+
+  private static final int WARN = 2;
+
+  private final LoggerInterface logger;
+
+  private final int level;
+
+  /**
+   * <p>Constructor for LoggerAdapter.</p>
+   *
+   * @param logger a {@link LoggerInterface} object.
+   */
+  public LoggerAdapter(LoggerInterface logger) {
+    this(logger, null);
+  }
+
+  /**
+   * <p>Constructor for LoggerAdapter.</p>
+   *
+   * @param logger a {@link LoggerInterface} object.
+   * @param level  one of debug, info, warn or error, null for info
+   */
+  public LoggerAdapter(LoggerInterface logger, String level) {
+    this.logger = logger;
+    int index = level == null ? -1 : LEVELS.indexOf(level.toLowerCase());
+    this.level = index < 0 ? INFO : index;
+  }
+
+  /**
+   * <p>Getter for the field <code>logger</code>.</p>
+   *
+   * @return a {@link LoggerInterface} object.
+   */
+  public LoggerInterface getLogger() {
+    return logger;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean isDebugEnabled() {
+    return level <= DEBUG;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean isInfoEnabled() {
+    return level <= INFO;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean isWarnEnabled() {
+    return level <= WARN;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void logException(String message, Exception ex) {
+    logger.logException(message, ex);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void logException(Exception ex) {
+    logger.logException(ex);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void debug(Object message) {
+    logger.debug(message);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void info(Object message) {
+    logger.info(message);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void warn(Object message) {
+    logger.warn(message);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void error(Object message) {
+    logger.error(message);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void error(String tag, String message) {
+    logger.error(tag, message);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void error(String tag, String message, Throwable e) {
+    logger.error(tag, message, e);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void debug(String tag, String message) {
+    logger.debug(tag, message);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void info(String tag, String message) {
+    logger.info(tag, message);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void warn(String tag, String message) {
+    logger.warn(tag, message);
+  }
+}
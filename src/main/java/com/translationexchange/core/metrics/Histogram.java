@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of non-negative values, typically durations in nanoseconds, with a bucket per power of two.
+ * Recording a value only updates counters, it never allocates or locks.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public class Histogram {
+
+  /**
+   * Bucket i holds the values below 2^i that do not fit into bucket i - 1
+   */
+  private static final int BUCKET_COUNT = 64;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+  private final AtomicLong count = new AtomicLong();
+
+  private final AtomicLong sum = new AtomicLong();
+
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a value; negative values are recorded as 0
+   *
+   * @param value a long.
+   */
+  public void record(long value) {
+    if (value < 0)
+      value = 0;
+
+    buckets.incrementAndGet(getBucket(value));
+    count.incrementAndGet();
+    sum.addAndGet(value);
+
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value))
+      current = max.get();
+  }
+
+  private static int getBucket(long value) {
+    return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(value));
+  }
+
+  /**
+   * <p>Getter for the field <code>count</code>.</p>
+   *
+   * @return a long.
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * <p>Getter for the field <code>sum</code>.</p>
+   *
+   * @return a long.
+   */
+  public long getSum() {
+    return sum.get();
+  }
+
+  /**
+   * <p>Getter for the field <code>max</code>.</p>
+   *
+   * @return a long.
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns the mean of the recorded values
+   *
+   * @return a double.
+   */
+  public double getMean() {
+    long recorded = count.get();
+    return recorded == 0 ? 0 : (double) sum.get() / recorded;
+  }
+
+  /**
+   * Returns an upper bound of the percentile, the largest value of the bucket it falls into,
+   * but never more than the largest recorded value
+   *
+   * @param percentile between 0 and 100
+   * @return a long.
+   */
+  public long getPercentile(double percentile) {
+    long total = 0;
+    long[] counts = new long[BUCKET_COUNT];
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts[i] = buckets.get(i);
+      total += counts[i];
+    }
+    if (total == 0)
+      return 0;
+
+    long rank = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100);
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += counts[i];
+      if (seen >= rank && counts[i] > 0)
+        return Math.min(getMax(), i == 0 ? 0 : (1L << i) - 1);
+    }
+    return getMax();
+  }
+
+  /**
+   * Returns the number of values recorded into each bucket; bucket i holds values from 2^(i-1) to 2^i - 1
+   *
+   * @return an array of long.
+   */
+  public long[] getBuckets() {
+    long[] counts = new long[BUCKET_COUNT];
+    for (int i = 0; i < BUCKET_COUNT; i++)
+      counts[i] = buckets.get(i);
+    return counts;
+  }
+
+  /**
+   * Clears all recorded values
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++)
+      buckets.set(i, 0);
+    count.set(0);
+    sum.set(0);
+    max.set(0);
+  }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps all measurements in memory, to be read by a monitoring endpoint or exported periodically.
+ *
+ * Counters and histograms are created the first time a locale, cache tier, key type, request or
+ * load type is recorded; after that, recording only updates atomic counters.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public class MemoryMetrics implements Metrics {
+
+  private final ConcurrentMap<String, TranslationStats> translations = new ConcurrentHashMap<String, TranslationStats>();
+
+  private final ConcurrentMap<String, ConcurrentMap<String, CacheStats>> caches = new ConcurrentHashMap<String, ConcurrentMap<String, CacheStats>>();
+
+  private final ConcurrentMap<String, RequestStats> requests = new ConcurrentHashMap<String, RequestStats>();
+
+  private final ConcurrentMap<String, LoadStats> loads = new ConcurrentHashMap<String, LoadStats>();
+
+  private final AtomicInteger missingKeyQueueDepth = new AtomicInteger();
+
+  private final AtomicInteger maxMissingKeyQueueDepth = new AtomicInteger();
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean isEnabled() {
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void recordTranslation(String locale, String result, long nanos) {
+    TranslationStats stats = translations.get(locale);
+    if (stats == null) {
+      TranslationStats created = new TranslationStats();
+      stats = translations.putIfAbsent(locale, created);
+      if (stats == null)
+        stats = created;
+    }
+    stats.record(result, nanos);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void recordCacheLookup(String tier, String keyType, boolean hit) {
+    ConcurrentMap<String, CacheStats> tierStats = caches.get(tier);
+    if (tierStats == null) {
+      ConcurrentMap<String, CacheStats> created = new ConcurrentHashMap<String, CacheStats>();
+      tierStats = caches.putIfAbsent(tier, created);
+      if (tierStats == null)
+        tierStats = created;
+    }
+
+    CacheStats stats = tierStats.get(keyType);
+    if (stats == null) {
+      CacheStats created = new CacheStats();
+      stats = tierStats.putIfAbsent(keyType, created);
+      if (stats == null)
+        stats = created;
+    }
+    (hit ? stats.hits : stats.misses).incrementAndGet();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void recordRequest(String type, long nanos, long bytes) {
+    RequestStats stats = requests.get(type);
+    if (stats == null) {
+      RequestStats created = new RequestStats();
+      stats = requests.putIfAbsent(type, created);
+      if (stats == null)
+        stats = created;
+    }
+    stats.latency.record(nanos);
+    stats.bytes.addAndGet(bytes);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void recordMissingKeyQueueDepth(int depth) {
+    missingKeyQueueDepth.set(depth);
+
+    int current = maxMissingKeyQueueDepth.get();
+    while (depth > current && !maxMissingKeyQueueDepth.compareAndSet(current, depth))
+      current = maxMissingKeyQueueDepth.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void recordLoad(String type, long nanos, boolean successful) {
+    LoadStats stats = loads.get(type);
+    if (stats == null) {
+      LoadStats created = new LoadStats();
+      stats = loads.putIfAbsent(type, created);
+      if (stats == null)
+        stats = created;
+    }
+    stats.latency.record(nanos);
+    if (!successful)
+      stats.failures.incrementAndGet();
+  }
+
+  /**
+   * Returns translation statistics by locale
+   *
+   * @return a {@link java.util.Map} object.
+   */
+  public Map<String, TranslationStats> getTranslationStats() {
+    return Collections.<String, TranslationStats>unmodifiableMap(translations);
+  }
+
+  /**
+   * Returns translation statistics of a locale, or null if nothing was translated into it
+   *
+   * @param locale a {@link java.lang.String} object.
+   * @return a {@link com.translationexchange.core.metrics.MemoryMetrics.TranslationStats} object.
+   */
+  public TranslationStats getTranslationStats(String locale) {
+    return translations.get(locale);
+  }
+
+  /**
+   * Returns cache statistics by tier and key type
+   *
+   * @return a {@link java.util.Map} object.
+   */
+  public Map<String, ? extends Map<String, CacheStats>> getCacheStats() {
+    return Collections.unmodifiableMap(caches);
+  }
+
+  /**
+   * Returns cache statistics of a tier and key type, or null if there were no lookups
+   *
+   * @param tier    a {@link java.lang.String} object.
+   * @param keyType a {@link java.lang.String} object.
+   * @return a {@link com.translationexchange.core.metrics.MemoryMetrics.CacheStats} object.
+   */
+  public CacheStats getCacheStats(String tier, String keyType) {
+    Map<String, CacheStats> tierStats = caches.get(tier);
+    return tierStats == null ? null : tierStats.get(keyType);
+  }
+
+  /**
+   * Returns request statistics of a request type, or null if there were no requests
+   *
+   * @param type a {@link java.lang.String} object.
+   * @return a {@link com.translationexchange.core.metrics.MemoryMetrics.RequestStats} object.
+   */
+  public RequestStats getRequestStats(String type) {
+    return requests.get(type);
+  }
+
+  /**
+   * Returns load statistics of a load type, or null if there were no loads
+   *
+   * @param type a {@link java.lang.String} object.
+   * @return a {@link com.translationexchange.core.metrics.MemoryMetrics.LoadStats} object.
+   */
+  public LoadStats getLoadStats(String type) {
+    return loads.get(type);
+  }
+
+  /**
+   * Returns the number of missing keys that were waiting to be submitted at the last change
+   *
+   * @return a int.
+   */
+  public int getMissingKeyQueueDepth() {
+    return missingKeyQueueDepth.get();
+  }
+
+  /**
+   * Returns the largest number of missing keys that were waiting to be submitted
+   *
+   * @return a int.
+   */
+  public int getMaxMissingKeyQueueDepth() {
+    return maxMissingKeyQueueDepth.get();
+  }
+
+  /**
+   * Clears all measurements
+   */
+  public void reset() {
+    translations.clear();
+    caches.clear();
+    requests.clear();
+    loads.clear();
+    missingKeyQueueDepth.set(0);
+    maxMissingKeyQueueDepth.set(0);
+  }
+
+  /**
+   * Translation latency and results of a locale
+   */
+  public static class TranslationStats {
+    private final Histogram latency = new Histogram();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong missing = new AtomicLong();
+
+    private void record(String result, long nanos) {
+      latency.record(nanos);
+      if (TRANSLATION_HIT.equals(result))
+        hits.incrementAndGet();
+      else if (TRANSLATION_FALLBACK.equals(result))
+        fallbacks.incrementAndGet();
+      else if (TRANSLATION_MISSING.equals(result))
+        missing.incrementAndGet();
+    }
+
+    public Histogram getLatency() {
+      return latency;
+    }
+
+    public long getHitCount() {
+      return hits.get();
+    }
+
+    public long getFallbackCount() {
+      return fallbacks.get();
+    }
+
+    public long getMissingCount() {
+      return missing.get();
+    }
+  }
+
+  /**
+   * Hits and misses of a cache tier and key type
+   */
+  public static class CacheStats {
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public long getHitCount() {
+      return hits.get();
+    }
+
+    public long getMissCount() {
+      return misses.get();
+    }
+  }
+
+  /**
+   * Latency and response bytes of a request type
+   */
+  public static class RequestStats {
+    private final Histogram latency = new Histogram();
+    private final AtomicLong bytes = new AtomicLong();
+
+    public Histogram getLatency() {
+      return latency;
+    }
+
+    public long getRequestCount() {
+      return latency.getCount();
+    }
+
+    public long getBytes() {
+      return bytes.get();
+    }
+  }
+
+  /**
+   * Duration and failures of a load type
+   */
+  public static class LoadStats {
+    private final Histogram latency = new Histogram();
+    private final AtomicLong failures = new AtomicLong();
+
+    public Histogram getLatency() {
+      return latency;
+    }
+
+    public long getLoadCount() {
+      return latency.getCount();
+    }
+
+    public long getFailureCount() {
+      return failures.get();
+    }
+  }
+}
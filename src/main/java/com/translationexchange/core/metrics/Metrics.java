@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.metrics;
+
+/**
+ * Receives measurements of translations, cache lookups, HTTP requests and loads.
+ *
+ * Methods are called on the translation hot path, so implementations must be thread safe and
+ * should not allocate once a name has been seen. Names are passed as the constants below or as
+ * strings the SDK already holds, such as the locale of a language.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public interface Metrics {
+
+  /**
+   * Translation found for the requested language
+   */
+  String TRANSLATION_HIT = "hit";
+
+  /**
+   * Key known, but translated by the label or another language
+   */
+  String TRANSLATION_FALLBACK = "fallback";
+
+  /**
+   * Key not found in the source
+   */
+  String TRANSLATION_MISSING = "missing";
+
+  /**
+   * Cache kept in the memory of the process
+   */
+  String CACHE_TIER_MEMORY = "memory";
+
+  /**
+   * Cache kept in files
+   */
+  String CACHE_TIER_FILE = "file";
+
+  /**
+   * Cache kept in another process, like Redis
+   */
+  String CACHE_TIER_REMOTE = "remote";
+
+  /**
+   * Cache key of the current release version
+   */
+  String KEY_TYPE_VERSION = "version";
+
+  /**
+   * Cache key of the application definition
+   */
+  String KEY_TYPE_APPLICATION = "application";
+
+  /**
+   * Cache keys of language definitions
+   */
+  String KEY_TYPE_LANGUAGE = "language";
+
+  /**
+   * Cache keys of source translations
+   */
+  String KEY_TYPE_SOURCE = "source";
+
+  /**
+   * Cache keys of all translations of a locale
+   */
+  String KEY_TYPE_TRANSLATIONS = "translations";
+
+  /**
+   * Any other cache key
+   */
+  String KEY_TYPE_OTHER = "other";
+
+  /**
+   * Requests to the CDN
+   */
+  String REQUEST_CDN = "cdn";
+
+  /**
+   * Requests to the API
+   */
+  String REQUEST_API = "api";
+
+  /**
+   * Loads of language definitions
+   */
+  String LOAD_LANGUAGE = "language";
+
+  /**
+   * Loads of source translations
+   */
+  String LOAD_SOURCE = "source";
+
+  /**
+   * Returns false when measurements are dropped, so that callers can skip taking them
+   *
+   * @return a boolean.
+   */
+  boolean isEnabled();
+
+  /**
+   * Records a translation
+   *
+   * @param locale  locale of the target language
+   * @param result  one of TRANSLATION_HIT, TRANSLATION_FALLBACK or TRANSLATION_MISSING
+   * @param nanos   time the translation took
+   */
+  void recordTranslation(String locale, String result, long nanos);
+
+  /**
+   * Records a cache lookup
+   *
+   * @param tier    one of the CACHE_TIER constants
+   * @param keyType one of the KEY_TYPE constants
+   * @param hit     true if the cache had the data
+   */
+  void recordCacheLookup(String tier, String keyType, boolean hit);
+
+  /**
+   * Records an HTTP request, once its response has been read
+   *
+   * @param type  REQUEST_CDN or REQUEST_API
+   * @param nanos time from sending the request to reading the end of the response
+   * @param bytes response bytes read, as sent by the server
+   */
+  void recordRequest(String type, long nanos, long bytes);
+
+  /**
+   * Records the number of missing keys waiting to be submitted
+   *
+   * @param depth a int.
+   */
+  void recordMissingKeyQueueDepth(int depth);
+
+  /**
+   * Records a language or source load
+   *
+   * @param type       LOAD_LANGUAGE or LOAD_SOURCE
+   * @param nanos      time the load took
+   * @param successful false if the load failed
+   */
+  void recordLoad(String type, long nanos, boolean successful);
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.rulesengine;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rule expression compiled by the {@link RuleCompiler}.
+ * Compiled rules are immutable and can be evaluated concurrently.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public final class CompiledRule {
+
+  /**
+   * Root of the compiled expression tree
+   */
+  private final RuleCompiler.Node root;
+
+  /**
+   * Variable names, by frame slot
+   */
+  private final String[] variableNames;
+
+  /**
+   * <p>Constructor for CompiledRule.</p>
+   *
+   * @param root          a {@link com.translationexchange.core.rulesengine.RuleCompiler.Node} object.
+   * @param variableNames an array of {@link java.lang.String} objects.
+   */
+  CompiledRule(RuleCompiler.Node root, String[] variableNames) {
+    this.root = root;
+    this.variableNames = variableNames;
+  }
+
+  /**
+   * Returns names of the variables used by the rule
+   *
+   * @return a {@link java.util.List} object.
+   */
+  public List<String> getVariableNames() {
+    return Collections.unmodifiableList(Arrays.asList(variableNames));
+  }
+
+  /**
+   * Returns true if the rule does not depend on any variables
+   *
+   * @return a boolean.
+   */
+  public boolean isConstant() {
+    return root instanceof RuleCompiler.ConstantNode;
+  }
+
+  /**
+   * Evaluates the rule with the variables
+   *
+   * @param variables a {@link java.util.Map} object.
+   * @return a {@link java.lang.Object} object.
+   */
+  public Object evaluate(Map<String, Object> variables) {
+    Object[] frame = new Object[variableNames.length];
+    if (variables != null) {
+      for (int i = 0; i < frame.length; i++)
+        frame[i] = variables.get(variableNames[i]);
+    }
+    return root.evaluate(frame);
+  }
+
+  /**
+   * Evaluates the rule with a single variable
+   *
+   * @param name  a {@link java.lang.String} object.
+   * @param value a {@link java.lang.Object} object.
+   * @return a {@link java.lang.Object} object.
+   */
+  public Object evaluate(String name, Object value) {
+    Object[] frame = new Object[variableNames.length];
+    for (int i = 0; i < frame.length; i++) {
+      if (variableNames[i].equals(name))
+        frame[i] = value;
+    }
+    return root.evaluate(frame);
+  }
+
+}
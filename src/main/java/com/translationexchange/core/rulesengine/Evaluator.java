@@ -38,10 +38,13 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -49,17 +52,26 @@ import com.translationexchange.core.Utils;
 
 public class Evaluator {
 
+  /**
+   * Default functions, shared by all evaluators
+   */
+  private static final Map<String, Expression> DEFAULT_CONTEXT = Collections.unmodifiableMap(defaultContext());
+
+  /**
+   * Default functions that handle their own nesting
+   */
+  private static final Set<String> DEFAULT_NESTED_FUNCTIONS = Collections.unmodifiableSet(new HashSet<String>(defaultContextNestedFunctions()));
+
   private Map<String, Expression> context;
   private Map<String, Object> variables;
-  private List<String> nestedFunctions;
+  private Set<String> nestedFunctions;
 
   /**
    * Default constructor
    */
   public Evaluator() {
-    this.context = defaultContext();
-    this.nestedFunctions = new ArrayList<String>();
-    this.nestedFunctions.addAll(defaultContextNestedFunctions());
+    this.context = DEFAULT_CONTEXT;
+    this.nestedFunctions = DEFAULT_NESTED_FUNCTIONS;
     this.variables = new HashMap<String, Object>();
   }
 
@@ -81,9 +93,19 @@ public class Evaluator {
    */
   public Evaluator(Map<String, Object> defaultVariables, Map<String, Expression> contextExtensions) {
     this(defaultVariables);
+    this.context = new HashMap<String, Expression>(DEFAULT_CONTEXT);
     this.context.putAll(contextExtensions);
   }
 
+  /**
+   * Returns the default function table, shared by all evaluators
+   *
+   * @return a {@link java.util.Map} object.
+   */
+  public static Map<String, Expression> getDefaultContext() {
+    return DEFAULT_CONTEXT;
+  }
+
   /**
    * Gets variable by name
    *
@@ -610,6 +632,7 @@ public class Evaluator {
    * @param fn a {@link java.lang.String} object.
    */
   public void addNestedFunction(String fn) {
+    this.nestedFunctions = new HashSet<String>(this.nestedFunctions);
     this.nestedFunctions.add(fn);
   }
 
@@ -619,6 +642,7 @@ public class Evaluator {
    * @param fn a {@link java.lang.String} object.
    */
   public void removeNestedFunction(String fn) {
+    this.nestedFunctions = new HashSet<String>(this.nestedFunctions);
     this.nestedFunctions.remove(fn);
   }
 
@@ -629,7 +653,7 @@ public class Evaluator {
    * @return a boolean.
    */
   public boolean isNestedFunction(String fn) {
-    return (this.nestedFunctions.indexOf(fn) != -1);
+    return this.nestedFunctions.contains(fn);
   }
 
   private Object applyFunction(String name, List<Object> args) {
@@ -0,0 +1,601 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.rulesengine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.translationexchange.core.Utils;
+
+/**
+ * Compiles parsed rule expressions into a tree of pre-bound nodes.
+ *
+ * Functions are resolved once against the shared default function table of the
+ * {@link Evaluator}, sub-expressions without variables are folded into constants
+ * and patterns and ranges of <code>match</code>, <code>replace</code>, <code>in</code>
+ * and <code>within</code> are prepared ahead of time. Variables are assigned slots
+ * in a small frame that is filled once per evaluation.
+ *
+ * Strings starting with <code>@</code>, as well as names assigned with <code>let</code>
+ * and <code>label</code>, are treated as variables; all other strings are literals.
+ * Expressions that can not be compiled, such as calls to functions that are not part
+ * of the default table, are rejected with an {@link IllegalArgumentException} so
+ * that callers can keep using the {@link Evaluator}.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public final class RuleCompiler {
+
+  /**
+   * Prefix of variable names
+   */
+  public static final String VARIABLE_PREFIX = "@";
+
+  /**
+   * Evaluator passed to the default functions; they never read or write its variables
+   */
+  private static final Evaluator FUNCTION_EVALUATOR = new Evaluator(Collections.<String, Object>emptyMap());
+
+  /**
+   * Default functions with side effects or results that change between calls
+   */
+  private static final Set<String> VOLATILE_FUNCTIONS = new HashSet<String>(Arrays.asList("now"));
+
+  /**
+   * Variable slots by name
+   */
+  private final Map<String, Integer> slots = new LinkedHashMap<String, Integer>();
+
+  /**
+   * Names assigned by let and label
+   */
+  private final Set<String> assignedNames = new HashSet<String>();
+
+  private RuleCompiler() {
+  }
+
+  /**
+   * Compiles a parsed expression
+   *
+   * @param expression a {@link java.lang.Object} object, as returned by the {@link Parser}
+   * @return a {@link com.translationexchange.core.rulesengine.CompiledRule} object.
+   * @throws java.lang.IllegalArgumentException if the expression can not be compiled
+   */
+  public static CompiledRule compile(Object expression) {
+    RuleCompiler compiler = new RuleCompiler();
+    compiler.collectAssignedNames(expression);
+    Node root = compiler.compileNode(expression);
+    return new CompiledRule(root, compiler.slots.keySet().toArray(new String[compiler.slots.size()]));
+  }
+
+  /**
+   * Compiles an expression string
+   *
+   * @param expression a {@link java.lang.String} object.
+   * @return a {@link com.translationexchange.core.rulesengine.CompiledRule} object.
+   * @throws java.lang.IllegalArgumentException if the expression can not be compiled
+   */
+  public static CompiledRule compile(String expression) {
+    return compile(new Parser(expression).parse());
+  }
+
+  @SuppressWarnings("unchecked")
+  private void collectAssignedNames(Object expr) {
+    if (!(expr instanceof List))
+      return;
+
+    List<Object> list = (List<Object>) expr;
+    if (list.size() > 1 && ("let".equals(list.get(0)) || "label".equals(list.get(0))) && list.get(1) instanceof String)
+      assignedNames.add((String) list.get(1));
+
+    for (Object item : list)
+      collectAssignedNames(item);
+  }
+
+  private boolean isVariable(String name) {
+    return name.startsWith(VARIABLE_PREFIX) || assignedNames.contains(name);
+  }
+
+  private int slot(String name) {
+    Integer slot = slots.get(name);
+    if (slot == null) {
+      slot = slots.size();
+      slots.put(name, slot);
+    }
+    return slot;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Node compileNode(Object expr) {
+    if (expr instanceof String) {
+      String name = (String) expr;
+      if (isVariable(name))
+        return new VariableNode(slot(name), name);
+      return new ConstantNode(name);
+    }
+
+    if (!(expr instanceof List))
+      return new ConstantNode(expr);
+
+    List<Object> list = (List<Object>) expr;
+    if (list.isEmpty() || !(list.get(0) instanceof String))
+      throw new IllegalArgumentException("Invalid expression: " + expr);
+
+    String fn = (String) list.get(0);
+    List<Object> params = list.subList(1, list.size());
+    return fold(compileFunction(fn, params));
+  }
+
+  @SuppressWarnings("unchecked")
+  private Node compileFunction(String fn, List<Object> params) {
+    if (fn.equals("true"))
+      return new ConstantNode(true);
+
+    if (fn.equals("false"))
+      return new ConstantNode(false);
+
+    if (fn.equals("quote")) {
+      requireParams(fn, params, 1);
+      return new ConstantNode(params.get(0));
+    }
+
+    if (fn.equals("car") || fn.equals("cdr")) {
+      requireParams(fn, params, 1);
+      if (!(params.get(0) instanceof List))
+        throw new IllegalArgumentException(fn + " expects a list");
+      List<Object> value = (List<Object>) params.get(0);
+      if (fn.equals("car"))
+        return new ConstantNode(value.get(1));
+      List<Object> rest = new ArrayList<Object>(value);
+      rest.remove(0);
+      return new ConstantNode(rest);
+    }
+
+    if (fn.equals("cond") || fn.equals("if")) {
+      requireParams(fn, params, 3);
+      return new ConditionNode(compileNode(params.get(0)), compileNode(params.get(1)), compileNode(params.get(2)));
+    }
+
+    if (fn.equals("&&") || fn.equals("and"))
+      return new AndNode(compileNodes(params));
+
+    if (fn.equals("||") || fn.equals("or"))
+      return new OrNode(compileNodes(params));
+
+    if (fn.equals("let")) {
+      requireParams(fn, params, 2);
+      if (!(params.get(0) instanceof String))
+        throw new IllegalArgumentException("let expects a variable name");
+      return new AssignmentNode(slot((String) params.get(0)), new ConstantNode(params.get(1)));
+    }
+
+    if (fn.equals("label")) {
+      requireParams(fn, params, 2);
+      if (!(params.get(0) instanceof String) || ((String) params.get(0)).startsWith(VARIABLE_PREFIX))
+        throw new IllegalArgumentException("label expects a literal variable name");
+      return new AssignmentNode(slot((String) params.get(0)), compileNode(params.get(1)));
+    }
+
+    if (fn.equals("count") || fn.equals("all") || fn.equals("any")) {
+      requireParams(fn, params, fn.equals("count") ? 1 : 2);
+      Object list = params.get(0);
+      int slot = list instanceof String ? slot((String) list) : -1;
+      return new ListNode(fn, slot, list, fn.equals("count") ? null : params.get(1));
+    }
+
+    Expression expression = Evaluator.getDefaultContext().get(fn);
+    if (expression == null)
+      throw new IllegalArgumentException("Unsupported function: " + fn);
+
+    Node[] args = compileNodes(params);
+
+    if (fn.equals("in") && args.length == 2 && args[0] instanceof ConstantNode) {
+      InNode node = InNode.create(((ConstantNode) args[0]).value, args[1]);
+      if (node != null) return node;
+    }
+
+    if (fn.equals("within") && args.length == 2 && args[0] instanceof ConstantNode) {
+      WithinNode node = WithinNode.create(((ConstantNode) args[0]).value, args[1]);
+      if (node != null) return node;
+    }
+
+    if ((fn.equals("match") && args.length == 2 || fn.equals("replace") && args.length == 3)
+        && args[0] instanceof ConstantNode && ((ConstantNode) args[0]).value instanceof String) {
+      Pattern pattern = Utils.parsePattern((String) ((ConstantNode) args[0]).value);
+      if (fn.equals("match"))
+        return new MatchNode(pattern, args[1]);
+      return new ReplaceNode(pattern, args[1], args[2]);
+    }
+
+    return new CallNode(expression, args, !VOLATILE_FUNCTIONS.contains(fn));
+  }
+
+  private Node[] compileNodes(List<Object> params) {
+    Node[] nodes = new Node[params.size()];
+    for (int i = 0; i < nodes.length; i++)
+      nodes[i] = compileNode(params.get(i));
+    return nodes;
+  }
+
+  private static void requireParams(String fn, List<Object> params, int count) {
+    if (params.size() < count)
+      throw new IllegalArgumentException(fn + " expects " + count + " parameters");
+  }
+
+  /**
+   * Replaces a node that does not depend on variables with its value
+   */
+  private static Node fold(Node node) {
+    if (!node.isFoldable())
+      return node;
+    try {
+      return new ConstantNode(node.evaluate(new Object[0]));
+    } catch (RuntimeException ex) {
+      // keep the node, so the error is raised when the rule is evaluated
+      return node;
+    }
+  }
+
+  private static boolean isConstant(Node... nodes) {
+    for (Node node : nodes) {
+      if (!(node instanceof ConstantNode))
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Compiled expression node
+   */
+  abstract static class Node {
+
+    /**
+     * Evaluates the node against the variable frame
+     */
+    abstract Object evaluate(Object[] frame);
+
+    /**
+     * Returns true if the node can be replaced with its value at compile time
+     */
+    boolean isFoldable() {
+      return false;
+    }
+  }
+
+  static final class ConstantNode extends Node {
+    final Object value;
+
+    ConstantNode(Object value) {
+      this.value = value;
+    }
+
+    Object evaluate(Object[] frame) {
+      return value;
+    }
+  }
+
+  static final class VariableNode extends Node {
+    private final int slot;
+    private final String name;
+
+    VariableNode(int slot, String name) {
+      this.slot = slot;
+      this.name = name;
+    }
+
+    Object evaluate(Object[] frame) {
+      Object value = frame[slot];
+      return value != null ? value : name;
+    }
+  }
+
+  static final class CallNode extends Node {
+    private final Expression expression;
+    private final Node[] args;
+    private final boolean pure;
+
+    CallNode(Expression expression, Node[] args, boolean pure) {
+      this.expression = expression;
+      this.args = args;
+      this.pure = pure;
+    }
+
+    Object evaluate(Object[] frame) {
+      Object[] values = new Object[args.length];
+      for (int i = 0; i < args.length; i++)
+        values[i] = args[i].evaluate(frame);
+      return expression.evaluate(FUNCTION_EVALUATOR, Arrays.asList(values));
+    }
+
+    boolean isFoldable() {
+      return pure && isConstant(args);
+    }
+  }
+
+  static final class ConditionNode extends Node {
+    private final Node condition;
+    private final Node then;
+    private final Node otherwise;
+
+    ConditionNode(Node condition, Node then, Node otherwise) {
+      this.condition = condition;
+      this.then = then;
+      this.otherwise = otherwise;
+    }
+
+    Object evaluate(Object[] frame) {
+      Boolean result = (Boolean) condition.evaluate(frame);
+      return result ? then.evaluate(frame) : otherwise.evaluate(frame);
+    }
+
+    boolean isFoldable() {
+      return isConstant(condition, then, otherwise);
+    }
+  }
+
+  static final class AndNode extends Node {
+    private final Node[] args;
+
+    AndNode(Node[] args) {
+      this.args = args;
+    }
+
+    Object evaluate(Object[] frame) {
+      for (Node arg : args) {
+        Boolean result = (Boolean) arg.evaluate(frame);
+        if (!result) return false;
+      }
+      return true;
+    }
+
+    boolean isFoldable() {
+      return isConstant(args);
+    }
+  }
+
+  static final class OrNode extends Node {
+    private final Node[] args;
+
+    OrNode(Node[] args) {
+      this.args = args;
+    }
+
+    Object evaluate(Object[] frame) {
+      for (Node arg : args) {
+        Boolean result = (Boolean) arg.evaluate(frame);
+        if (result) return true;
+      }
+      return false;
+    }
+
+    boolean isFoldable() {
+      return isConstant(args);
+    }
+  }
+
+  static final class AssignmentNode extends Node {
+    private final int slot;
+    private final Node value;
+
+    AssignmentNode(int slot, Node value) {
+      this.slot = slot;
+      this.value = value;
+    }
+
+    Object evaluate(Object[] frame) {
+      Object result = value.evaluate(frame);
+      frame[slot] = result;
+      return result;
+    }
+  }
+
+  /**
+   * count, all and any: the list is either a variable name or a literal list
+   */
+  static final class ListNode extends Node {
+    private final String fn;
+    private final int slot;
+    private final Object list;
+    private final Object value;
+
+    ListNode(String fn, int slot, Object list, Object value) {
+      this.fn = fn;
+      this.slot = slot;
+      this.list = list;
+      this.value = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    Object evaluate(Object[] frame) {
+      List<Object> items = (List<Object>) (slot == -1 ? list : frame[slot]);
+
+      if (fn.equals("count"))
+        return items.size();
+
+      if (items.size() == 0)
+        return false;
+
+      boolean all = fn.equals("all");
+      for (Object item : items) {
+        if (item.equals(value) != all)
+          return !all;
+      }
+      return all;
+    }
+
+    boolean isFoldable() {
+      return slot == -1;
+    }
+  }
+
+  /**
+   * in with a literal list of values and ranges
+   */
+  static final class InNode extends Node {
+    private final String[] values;
+    private final int[] min;
+    private final int[] max;
+    private final Node search;
+
+    private InNode(String[] values, int[] min, int[] max, Node search) {
+      this.values = values;
+      this.min = min;
+      this.max = max;
+      this.search = search;
+    }
+
+    static InNode create(Object list, Node search) {
+      String[] values = ("" + list).trim().split(",");
+      int[] min = new int[values.length];
+      int[] max = new int[values.length];
+      try {
+        for (int i = 0; i < values.length; i++) {
+          values[i] = values[i].trim();
+          if (values[i].contains("..")) {
+            String[] bounds = values[i].split("\\.\\.");
+            min[i] = Integer.parseInt(bounds[0].trim());
+            max[i] = Integer.parseInt(bounds[1].trim());
+            values[i] = null;
+          }
+        }
+      } catch (RuntimeException ex) {
+        return null;
+      }
+      return new InNode(values, min, max, search);
+    }
+
+    Object evaluate(Object[] frame) {
+      String value = ("" + search.evaluate(frame)).trim();
+      Integer number = null;
+      for (int i = 0; i < values.length; i++) {
+        if (values[i] == null) {
+          if (number == null)
+            number = Integer.parseInt(value);
+          if (min[i] <= number && number <= max[i])
+            return true;
+        } else if (values[i].equals(value)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    boolean isFoldable() {
+      return isConstant(search);
+    }
+  }
+
+  /**
+   * within with a literal range
+   */
+  static final class WithinNode extends Node {
+    private final double left;
+    private final double right;
+    private final Node search;
+
+    private WithinNode(double left, double right, Node search) {
+      this.left = left;
+      this.right = right;
+      this.search = search;
+    }
+
+    static WithinNode create(Object range, Node search) {
+      if (!(range instanceof String))
+        return null;
+      try {
+        String[] bounds = ((String) range).trim().split("\\.\\.");
+        return new WithinNode(Double.parseDouble(bounds[0].trim()), Double.parseDouble(bounds[1].trim()), search);
+      } catch (RuntimeException ex) {
+        return null;
+      }
+    }
+
+    Object evaluate(Object[] frame) {
+      double value = Double.parseDouble(((String) search.evaluate(frame)).trim());
+      return left <= value && value <= right;
+    }
+
+    boolean isFoldable() {
+      return isConstant(search);
+    }
+  }
+
+  static final class MatchNode extends Node {
+    private final Pattern pattern;
+    private final Node value;
+
+    MatchNode(Pattern pattern, Node value) {
+      this.pattern = pattern;
+      this.value = value;
+    }
+
+    Object evaluate(Object[] frame) {
+      return pattern.matcher((String) value.evaluate(frame)).find();
+    }
+
+    boolean isFoldable() {
+      return isConstant(value);
+    }
+  }
+
+  static final class ReplaceNode extends Node {
+    private final Pattern pattern;
+    private final Node replacement;
+    private final Node value;
+
+    ReplaceNode(Pattern pattern, Node replacement, Node value) {
+      this.pattern = pattern;
+      this.replacement = replacement;
+      this.value = value;
+    }
+
+    Object evaluate(Object[] frame) {
+      return pattern.matcher((String) value.evaluate(frame)).replaceAll((String) replacement.evaluate(frame));
+    }
+
+    boolean isFoldable() {
+      return isConstant(replacement, value);
+    }
+  }
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.tokenizers;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.translationexchange.core.tokens.Token;
+
+/**
+ * Finds data tokens of all configured token classes in a single pass over the label.
+ *
+ * The expressions of the token classes are combined into one pattern, in the order
+ * of the classes, so a class takes precedence over the classes that follow it.
+ * Scanners are immutable and are compiled once per list of token classes.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public final class DataTokenScanner {
+
+  /**
+   * Compiled scanners by list of token class names
+   */
+  private static final Map<List<String>, DataTokenScanner> SCANNERS = new ConcurrentHashMap<List<String>, DataTokenScanner>();
+
+  /**
+   * Combined expression of all token classes
+   */
+  private final Pattern pattern;
+
+  /**
+   * Index of the group wrapping each token class expression
+   */
+  private final int[] groups;
+
+  /**
+   * Token constructors, in the order of the token classes
+   */
+  private final List<Constructor<? extends Token>> constructors;
+
+  /**
+   * <p>Constructor for DataTokenScanner.</p>
+   *
+   * @param tokenClasses a {@link java.util.List} object.
+   * @throws java.lang.Exception if a token class can not be loaded
+   */
+  private DataTokenScanner(List<String> tokenClasses) throws Exception {
+    this.groups = new int[tokenClasses.size()];
+    this.constructors = new ArrayList<Constructor<? extends Token>>();
+
+    StringBuilder expression = new StringBuilder();
+    int group = 1;
+    for (int i = 0; i < tokenClasses.size(); i++) {
+      Class<? extends Token> tokenClass = Class.forName(tokenClasses.get(i)).asSubclass(Token.class);
+      Method method = tokenClass.getMethod(DataTokenizer.EXPRESSION_METHOD);
+      String tokenExpression = (String) method.invoke(null);
+
+      if (i > 0) expression.append('|');
+      expression.append('(').append(tokenExpression).append(')');
+
+      groups[i] = group;
+      group += Pattern.compile(tokenExpression).matcher("").groupCount() + 1;
+      constructors.add(tokenClass.getConstructor(String.class, String.class));
+    }
+
+    this.pattern = Pattern.compile(expression.toString());
+  }
+
+  /**
+   * Returns the scanner for the list of token classes, compiling it on first use
+   *
+   * @param tokenClasses a {@link java.util.List} object.
+   * @return a {@link com.translationexchange.core.tokenizers.DataTokenScanner} object.
+   * @throws java.lang.Exception if a token class can not be loaded
+   */
+  public static DataTokenScanner forTokenClasses(List<String> tokenClasses) throws Exception {
+    DataTokenScanner scanner = SCANNERS.get(tokenClasses);
+    if (scanner == null) {
+      List<String> key = new ArrayList<String>(tokenClasses);
+      scanner = new DataTokenScanner(key);
+      SCANNERS.put(key, scanner);
+    }
+    return scanner;
+  }
+
+  /**
+   * Extracts tokens from the label. Tokens are grouped by token class, in the order of the
+   * token classes, and by position within each class. Repeated tokens are only returned once.
+   *
+   * @param label a {@link java.lang.String} object.
+   * @return a {@link java.util.List} object.
+   * @throws java.lang.Exception if a token can not be created
+   */
+  public List<Token> scan(String label) throws Exception {
+    List<Token> tokens = new ArrayList<Token>();
+    if (label == null)
+      return tokens;
+
+    List<List<Token>> tokensByClass = new ArrayList<List<Token>>(groups.length);
+    for (int i = 0; i < groups.length; i++)
+      tokensByClass.add(new ArrayList<Token>(0));
+
+    Set<String> matches = new HashSet<String>();
+    Matcher matcher = pattern.matcher(label);
+    while (matcher.find()) {
+      String match = matcher.group();
+      if (!matches.add(match))
+        continue;
+
+      int index = 0;
+      while (matcher.start(groups[index]) == -1)
+        index++;
+
+      tokensByClass.get(index).add(constructors.get(index).newInstance(match, label));
+    }
+
+    for (List<Token> classTokens : tokensByClass)
+      tokens.addAll(classTokens);
+    return tokens;
+  }
+
+}
@@ -34,13 +34,9 @@
 
 package com.translationexchange.core.tokenizers;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import com.translationexchange.core.Tml;
 import com.translationexchange.core.languages.Language;
@@ -56,6 +52,19 @@ public class DataTokenizer extends Tokenizer {
    */
   public static final String EXPRESSION_METHOD = "getExpression";
 
+  /**
+   * Factory used by the configuration to create data tokenizers
+   */
+  public static final TokenizerFactory FACTORY = new TokenizerFactory() {
+    public boolean isApplicable(String label) {
+      return DataTokenizer.isApplicable(label);
+    }
+
+    public Tokenizer createTokenizer(String label, List<String> allowedTokenNames) {
+      return new DataTokenizer(label, allowedTokenNames);
+    }
+  };
+
   /**
    * Token objects generated from the label
    */
@@ -90,31 +99,11 @@ public class DataTokenizer extends Tokenizer {
   /**
    * Extract tokens from a string
    */
-  @SuppressWarnings({"unchecked", "rawtypes"})
   protected void tokenize() {
     try {
-      this.tokens = new ArrayList<Token>();
-      List<String> tokenMatches = new ArrayList<String>();
-      String matchingLabel = this.label;
-      for (String token : Tml.getConfig().getTokenClasses()) {
-        Class tokenClass = Class.forName(token);
-        Method method = tokenClass.getMethod(EXPRESSION_METHOD);
-        String expression = (String) method.invoke(null);
-
-        Pattern pattern = Pattern.compile(expression);
-        Matcher matcher = pattern.matcher(matchingLabel);
-
-        while (matcher.find()) {
-          String match = matcher.group();
-          if (tokenMatches.contains(match))
-            continue;
-          tokenMatches.add(match);
-          Constructor<Token> constructor = tokenClass.getConstructor(String.class, String.class);
-          addToken(constructor.newInstance(match, this.label));
-          matchingLabel = matchingLabel.replaceAll(Pattern.quote(match), "");
-        }
-      }
+      this.tokens = DataTokenScanner.forTokenClasses(Tml.getConfig().getTokenClasses()).scan(this.label);
     } catch (Exception ex) {
+      this.tokens = new ArrayList<Token>();
       logException("Failed to tokenize a label: " + label, ex);
     }
   }
@@ -130,15 +119,6 @@ public class DataTokenizer extends Tokenizer {
     return this.tokens;
   }
 
-  /**
-   * Adds a token to the list of tokens
-   *
-   * @param token
-   */
-  private void addToken(Token token) {
-    getTokens().add(token);
-  }
-
   /**
    * <p>getTokenNames.</p>
    *
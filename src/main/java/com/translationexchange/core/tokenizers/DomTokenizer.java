@@ -34,24 +34,81 @@
 
 package com.translationexchange.core.tokenizers;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Comment;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 import org.jsoup.nodes.TextNode;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.Tag;
 
+import com.translationexchange.core.Session;
 import com.translationexchange.core.Tml;
 import com.translationexchange.core.Utils;
+import com.translationexchange.core.tokenizers.DomTokenizerProfile.DataTokenRule;
 
 public class DomTokenizer {
+  private static final Pattern TRAILING_DIGITS = Pattern.compile("\\d+$");
+
+  /**
+   * Containers the streaming translation descends into rather than reading them whole
+   */
+  private static final Set<String> STREAMED_CONTAINERS = new HashSet<String>(Arrays.asList(
+      "div", "section", "article", "main", "header", "footer", "nav", "aside"));
+
+  /**
+   * Elements the parser places in the head when they come before the body
+   */
+  private static final Set<String> HEAD_ELEMENTS = new HashSet<String>(Arrays.asList(
+      "base", "basefont", "bgsound", "command", "link", "meta", "noframes", "noscript", "script", "style", "template", "title"));
+
+  /**
+   * Elements closed by a start tag of the same name
+   */
+  private static final Set<String> AUTO_CLOSED_ELEMENTS = new HashSet<String>(Arrays.asList(
+      "p", "li", "dt", "dd", "option"));
+
+  /**
+   * Elements whose end tag also closes the elements open inside them
+   */
+  private static final Set<String> CLOSING_ELEMENTS = new HashSet<String>(Arrays.asList(
+      "address", "article", "aside", "blockquote", "center", "dd", "details", "dir", "div", "dl", "dt",
+      "fieldset", "figcaption", "figure", "footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "header",
+      "hgroup", "li", "listing", "menu", "nav", "ol", "p", "pre", "section", "summary", "ul"));
+
+  /**
+   * Elements that hide the elements open around them from end tags
+   */
+  private static final Set<String> SCOPE_ELEMENTS = new HashSet<String>(Arrays.asList(
+      "applet", "caption", "marquee", "object", "table", "td", "th"));
+
+  /**
+   * Table elements whose end tags close the cells open inside them
+   */
+  private static final Set<String> TABLE_ELEMENTS = new HashSet<String>(Arrays.asList(
+      "caption", "table", "tbody", "td", "tfoot", "th", "thead", "tr"));
+
+  /**
+   * Elements the parser reopens after them when they are closed by another end tag
+   */
+  private static final Set<String> FORMATTING_ELEMENTS = new HashSet<String>(Arrays.asList(
+      "a", "b", "big", "code", "em", "font", "i", "nobr", "s", "small", "strike", "strong", "tt", "u"));
+
   /**
    * Tokens data map: would be auto-generated
    */
@@ -63,39 +120,75 @@ public class DomTokenizer {
   private Map<String, Object> context;
 
   /**
-   * Substitution options, used internally
+   * Compiled translator options
+   */
+  private final DomTokenizerProfile profile;
+
+  /**
+   * Session the labels are translated in, the global session when null
    */
-  private Map<String, Object> options;
+  private final Session session;
 
   /**
-   * Default constructor
+   * Default constructor, uses the translator options of the configuration
    */
   public DomTokenizer() {
-    this(Utils.map(), Utils.map());
+    this(Utils.map());
   }
 
   /**
-   * Constructor with some context
+   * Constructor with some context, uses the translator options of the configuration
    *
    * @param context
    */
 
   public DomTokenizer(Map<String, Object> context) {
-    this(context, Utils.map());
+    this(context, Tml.getConfig().getDomTokenizerProfile());
   }
 
   /**
    * Constructs Base with label
    *
    * @param context
-   * @param options
+   * @param options translator options, compiled for this tokenizer only
    */
   public DomTokenizer(Map<String, Object> context, Map<String, Object> options) {
+    this(context, new DomTokenizerProfile(options));
+  }
+
+  /**
+   * Constructor with a compiled profile, which may be shared with other tokenizers
+   *
+   * @param context
+   * @param profile a {@link com.translationexchange.core.tokenizers.DomTokenizerProfile} object.
+   */
+  public DomTokenizer(Map<String, Object> context, DomTokenizerProfile profile) {
+    this(context, profile, null);
+  }
+
+  /**
+   * Constructor for translating in the language, source and block options of a session
+   *
+   * @param context
+   * @param profile a {@link com.translationexchange.core.tokenizers.DomTokenizerProfile} object.
+   * @param session a {@link com.translationexchange.core.Session} object.
+   */
+  public DomTokenizer(Map<String, Object> context, DomTokenizerProfile profile, Session session) {
     this.context = context;
-    this.options = options;
+    this.profile = profile;
+    this.session = session;
     this.resetContext();
   }
 
+  /**
+   * <p>Getter for the field <code>profile</code>.</p>
+   *
+   * @return a {@link com.translationexchange.core.tokenizers.DomTokenizerProfile} object.
+   */
+  public DomTokenizerProfile getProfile() {
+    return profile;
+  }
+
   private void resetContext() {
     Map<String, Object> map = Utils.map();
     map.putAll(this.context);
@@ -103,61 +196,110 @@ public class DomTokenizer {
   }
 
   public String translate(String htmlString) {
+    StringBuilder html = new StringBuilder(htmlString.length());
+    translate(htmlString, html);
+    return html.toString();
+  }
+
+  /**
+   * Translates an HTML document and appends the result to the builder
+   *
+   * @param htmlString a {@link java.lang.String} object.
+   * @param html       a {@link java.lang.StringBuilder} object.
+   */
+  public void translate(String htmlString, StringBuilder html) {
     Document doc = Jsoup.parse(htmlString);
-    return translateTree(doc.body());
+    translateTree(doc.body(), html);
+  }
+
+  /**
+   * Translates an HTML document read from a stream and writes the result as it goes.
+   *
+   * The output is the same as the one of {@link #translate(String)}. Only the block being translated
+   * is held in memory: div, section, article, main, header, footer, nav and aside elements are
+   * descended into, everything else is read whole and translated like a subtree. An inline element
+   * with no text or inline siblings so far is held, with the siblings that follow it, until one is
+   * read or its parent ends.
+   *
+   * Markup the parser would repair across the end of a div or similar container, such as an
+   * unclosed b or a it would reopen after the container, is closed at the end of the container.
+   *
+   * @param html a {@link java.io.Reader} object.
+   * @param out  a {@link java.io.Writer} object.
+   * @throws java.io.IOException if reading or writing fails.
+   */
+  public void translate(Reader html, Writer out) throws IOException {
+    new StreamTranslation(html, out).translate();
   }
 
   public String translateTree(Node node) {
-    if (node instanceof Element) {
-      Element _node = (Element) node;
-      if (isNonTranslatableNode(_node)) {
-        return (_node).html();
-      }
+    StringBuilder html = new StringBuilder();
+    translateTree(node, html);
+    return html.toString();
+  }
+
+  /**
+   * Translates a node and appends the result to the builder
+   *
+   * @param node a {@link org.jsoup.nodes.Node} object.
+   * @param html a {@link java.lang.StringBuilder} object.
+   */
+  public void translateTree(Node node, StringBuilder html) {
+    if (node instanceof Element && isNonTranslatableNode((Element) node)) {
+      html.append(((Element) node).html());
+      return;
     }
     if (node instanceof TextNode) {
-      TextNode _node = (TextNode) node;
-      return translateTml(_node.text());
-    } else {
-      String html = "";
-      String buffer = "";
-      for (Node child : node.childNodes()) {
-        if (child instanceof TextNode) {
-          buffer += ((TextNode) child).text();
-        } else if (child instanceof Element) {
-          Element _child = (Element) child;
-          if (isInlineNode(_child) && hasInlineOrTextSublings(_child) && !isBetweenSeparators(_child)) {
-            buffer += generateTmlTags(_child);
-          } else if (isSeparatorNode(_child)) {
-            if (!buffer.equals("")) {
-              html += translateTml(buffer);
-            }
-            html += generateHtmlToken(_child, null);
-            buffer = "";
-          } else {
-            if (!buffer.equals("")) {
-              html += translateTml(buffer);
-            }
-
-            String containerValue = translateTree(_child);
-            if (isIgnoredNode(_child)) {
-              html += containerValue;
-            } else {
-              html += generateHtmlToken(_child, containerValue);
-            }
-            buffer = "";
-          }
+      html.append(translateTml(((TextNode) node).text()));
+      return;
+    }
+
+    StringBuilder buffer = new StringBuilder();
+    for (Node child : node.childNodes()) {
+      boolean inline = child instanceof Element && isInlineNode((Element) child)
+          && hasInlineOrTextSublings((Element) child) && !isBetweenSeparators(child);
+      translateChild(child, inline, buffer, html);
+    }
+    flushBuffer(buffer, html);
+  }
+
+  /**
+   * Adds text and inline elements to the buffer of the label being built; writes the label and
+   * then the element for other elements
+   */
+  private void translateChild(Node child, boolean inline, StringBuilder buffer, StringBuilder html) {
+    if (child instanceof TextNode) {
+      buffer.append(((TextNode) child).text());
+    } else if (child instanceof Element) {
+      Element _child = (Element) child;
+      if (inline) {
+        buffer.append(generateTmlTags(_child));
+      } else if (isSeparatorNode(_child)) {
+        flushBuffer(buffer, html);
+        appendHtmlToken(html, _child, null);
+      } else {
+        flushBuffer(buffer, html);
+        if (isIgnoredNode(_child)) {
+          translateTree(_child, html);
+        } else {
+          appendHtmlToken(html, _child, translateTree(_child));
         }
       }
-      if (!buffer.equals("")) {
-        html += translateTml(buffer);
-      }
-      return html;
     }
   }
 
+  private void flushBuffer(StringBuilder buffer, StringBuilder html) {
+    if (buffer.length() == 0)
+      return;
+    html.append(translateTml(buffer.toString()));
+    buffer.setLength(0);
+  }
+
   private boolean isBetweenSeparators(Node node) {
-    Node prev = node.previousSibling();
-    Node next = node.nextSibling();
+    return isBetweenSeparators(node.previousSibling(), node.nextSibling());
+  }
+
+  private boolean isBetweenSeparators(Node prev, Node next) {
     if (prev instanceof Element && isSeparatorNode((Element) prev) && !isValidText(next)) {
       return true;
     }
@@ -167,10 +309,8 @@ public class DomTokenizer {
     return false;
   }
 
-  @SuppressWarnings("unchecked")
   private boolean isNonTranslatableNode(Element node) {
-    List<String> scripts = (List<String>) option("nodes.scripts");
-    if (scripts.indexOf(node.tagName().toLowerCase()) > -1) {
+    if (profile.isScriptNode(node.tagName().toLowerCase())) {
       return true;
     }
     if (node.childNodeSize() == 0 && node.ownText().equals("")) {
@@ -199,15 +339,15 @@ public class DomTokenizer {
       return tml;
     }
     tml = generateDataTokens(tml);
-    if ((Boolean) option("split_sentences")) {
+    if (profile.isSplitSentences()) {
       List<String> sentences = Utils.splitSentences(tml);
       String translation = tml;
       for (String sent : sentences) {
         String sentTrans = "";
-        if ((Boolean) option("debug")) {
+        if (profile.isDebug()) {
           sentTrans = debugTranslation(tml);
         } else {
-          sentTrans = (String) Tml.getCurrentLanguage().translate(sent, tokensData);
+          sentTrans = translateLabel(sent);
         }
         translation = translation.replaceAll(sent, sentTrans);
       }
@@ -215,125 +355,118 @@ public class DomTokenizer {
       return translation;
     }
     String translation = "";
-    final Map<String, String> sanitizers = Utils.buildStringMap(
-        "[\n]", "",
-        "[\\s\\s+]", " ");
-    for (Map.Entry<String, String> entry : sanitizers.entrySet()) {
-      tml = Pattern.compile(entry.getKey()).matcher(tml).replaceAll(entry.getValue());
-    }
-    tml = tml.trim();
-    if ((Boolean) option("debug")) {
+    tml = sanitizeLabel(tml).trim();
+    if (profile.isDebug()) {
       translation = debugTranslation(tml);
     } else {
-      translation = (String) Tml.getCurrentLanguage().translate(tml, tokensData);
+      translation = translateLabel(tml);
     }
     resetContext();
     return translation;
   }
 
+  private String translateLabel(String label) {
+    if (session == null)
+      return (String) Tml.getCurrentLanguage().translate(label, tokensData);
+    return session.translate(label, tokensData);
+  }
+
   private String generateTmlTags(Element node) {
-    String buf = "";
+    StringBuilder buf = new StringBuilder();
     for (Node childNode : node.childNodes()) {
       if (childNode instanceof TextNode) {
-        buf += ((TextNode) childNode).text();
+        buf.append(((TextNode) childNode).text());
       } else if (childNode instanceof Element) {
-        buf += generateTmlTags((Element) childNode);
+        buf.append(generateTmlTags((Element) childNode));
       }
     }
     String tokenContext = generateHtmlToken(node, null);
     String token = contextualize(adjustName(node), tokenContext);
-    String value = sanitizeValue(buf);
+    String value = sanitizeValue(buf.toString());
     if (isSelfClosingNode(node)) {
-      return String.format("{%s}", token);
+      return "{" + token + "}";
     }
     if (isShortToken(token, value)) {
-      return String.format("[%s: %s]", token, value);
+      return "[" + token + ": " + value + "]";
     }
-    return String.format("[%s]%s[/%s]", token, value, token);
+    return "[" + token + "]" + value + "[/" + token + "]";
   }
 
   private String generateHtmlToken(Element node, String nodeValue) {
-    String nodeName = node.tagName().toLowerCase();
-    Map<String, String> attributeMap = Utils.buildStringMap();
-    nodeValue = (nodeValue == null || nodeValue.equals("")) ? "{$0}" : nodeValue;
-    if (node.attributes().size() == 0) {
-      if (isSelfClosingNode(node)) {
-        if (isSeparatorNode(node)) {
-          return String.format("<%s/>", nodeName);
-        } else {
-          return String.format("<%s></%s>", nodeName, nodeName);
-        }
-      }
-      return String.format("<%s>%s</%s>", nodeName, nodeValue, nodeName);
-    }
-    for (Attribute attr : node.attributes()) {
-      attributeMap.put(attr.getKey(), attr.getValue());
-    }
-    SortedSet<String> attrKeys = new TreeSet<String>(attributeMap.keySet());
-    StringBuilder attrBuilder = new StringBuilder();
-    String sep = "";
-    for (String key : attrKeys) {
-      String quote = attributeMap.get(key).indexOf("\'") > -1 ? "\'" : "\"";
-      attrBuilder
-          .append(sep)
-          .append(String.format("%s=%s", key, (quote + attributeMap.get(key) + quote)));
-      sep = " ";
-    }
-    String attrString = attrBuilder.toString();
+    StringBuilder html = new StringBuilder();
+    appendHtmlToken(html, node, nodeValue);
+    return html.toString();
+  }
+
+  private void appendHtmlToken(StringBuilder html, Element node, String nodeValue) {
+    String nodeName = appendTagStart(html, node);
+
     if (isSelfClosingNode(node)) {
       if (isSeparatorNode(node)) {
-        return String.format("<%s %s/>", nodeName, attrString);
+        html.append("/>");
       } else {
-        return String.format("<%s %s></%s>", nodeName, attrString, nodeName);
+        html.append("></").append(nodeName).append('>');
+      }
+      return;
+    }
+    html.append('>')
+        .append(nodeValue == null || nodeValue.equals("") ? "{$0}" : nodeValue)
+        .append("</").append(nodeName).append('>');
+  }
+
+  /**
+   * Appends the tag name and the attributes, sorted by name, and returns the tag name
+   */
+  private String appendTagStart(StringBuilder html, Element node) {
+    String nodeName = node.tagName().toLowerCase();
+    html.append('<').append(nodeName);
+
+    if (node.attributes().size() > 0) {
+      Map<String, String> attributes = new TreeMap<String, String>();
+      for (Attribute attr : node.attributes()) {
+        attributes.put(attr.getKey(), attr.getValue());
+      }
+      char sep = ' ';
+      for (Map.Entry<String, String> attr : attributes.entrySet()) {
+        char quote = attr.getValue().indexOf('\'') > -1 ? '\'' : '"';
+        html.append(sep).append(attr.getKey()).append('=').append(quote).append(attr.getValue()).append(quote);
       }
     }
-    return String.format("<%s %s>%s</%s>", nodeName, attrString, nodeValue, nodeName);
+    return nodeName;
   }
 
-  @SuppressWarnings("unchecked")
   private String generateDataTokens(String text) {
-    if ((Boolean) option("data_tokens.special.enabled")) {
-      Matcher specialMatcher = Pattern.compile((String) option("data_tokens.special.regex")).matcher(text);
+    Pattern specialPattern = profile.getSpecialTokenPattern();
+    if (specialPattern != null) {
+      Matcher specialMatcher = specialPattern.matcher(text);
       while (specialMatcher.find()) {   // &dasd;
         String matched = specialMatcher.group();
         String token = matched.substring(1, matched.length() - 1);
         context.put(token, matched);
-        text = text.replaceAll(matched, String.format("{%s}", token));
+        text = text.replaceAll(matched, "{" + token + "}");
       }
     }
 
-    if ((Boolean) option("data_tokens.date.enabled")) {
-      String tokenName = (String) option("data_tokens.date.name");
-      List<List<String>> formats = (List<List<String>>) option("data_tokens.date.formats");
-      for (List<String> fmt : formats) {
-        Matcher dateMatcher = Pattern.compile(fmt.get(0)).matcher(text);
-        while (dateMatcher.find()) {
-          String matched = dateMatcher.group();
-          if (matched.equals(""))
-            continue;
-          String date = dateMatcher.group(0);
-          String token = contextualize(tokenName, date);
-          text = text.replaceAll(date, String.format("{%s}", token));
-        }
+    for (Pattern datePattern : profile.getDateTokenPatterns()) {
+      Matcher dateMatcher = datePattern.matcher(text);
+      while (dateMatcher.find()) {
+        String matched = dateMatcher.group();
+        if (matched.equals(""))
+          continue;
+        String date = dateMatcher.group(0);
+        String token = contextualize(profile.getDateTokenName(), date);
+        text = text.replaceAll(date, "{" + token + "}");
       }
     }
-    List<Map<String, Object>> rules = (List<Map<String, Object>>) option("data_tokens.rules");
-    if (rules != null && rules.size() > 0) {
-      for (Map<String, Object> rule : rules) {
-        if (!((Boolean) rule.get("enabled"))) {
+
+    for (DataTokenRule rule : profile.getDataTokenRules()) {
+      Matcher ruleMatcher = rule.getPattern().matcher(text);
+      while (ruleMatcher.find()) {
+        String value = ruleMatcher.group();
+        if (value.equals(""))
           continue;
-        }
-        Matcher ruleMatcher = Pattern.compile((String) rule.get("regex")).matcher(text);
-        while (ruleMatcher.find()) {
-          String matched = ruleMatcher.group();
-          if (matched.equals(""))
-            continue;
-          String value = ruleMatcher.group(0);
-          if (value.equals(""))
-            continue;
-          String token = contextualize((String) rule.get("name"), sanitizeValue(value));
-          text = text.replaceAll(value, value.replace(value, String.format("{%s}", token)));
-        }
+        String token = contextualize(rule.getName(), sanitizeValue(value));
+        text = text.replaceAll(value, "{" + token + "}");
       }
     }
     return text;
@@ -342,7 +475,7 @@ public class DomTokenizer {
   private String contextualize(String name, String context) {
     if (this.tokensData.containsKey(name) && !this.tokensData.get(name).equals(context)) {
       int index = 0;
-      Matcher matches = Pattern.compile("\\d+$").matcher(name);
+      Matcher matches = TRAILING_DIGITS.matcher(name);
       if (matches.find()) {
         index = Integer.parseInt(matches.group());
         name = name.replace(index + "", "");
@@ -355,24 +488,41 @@ public class DomTokenizer {
     return name;
   }
 
+  /**
+   * Returns true for the characters matched by \s in a regular expression
+   */
+  private static boolean isSpace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
   private boolean isEmptyString(String tmlString) {
-    Pattern pattern = Pattern.compile("[\\s\\n\\r\\t]");
-    return pattern.matcher(tmlString).replaceAll("").equals("");
+    for (int i = 0; i < tmlString.length(); i++) {
+      if (!isSpace(tmlString.charAt(i)))
+        return false;
+    }
+    return true;
   }
 
-  private Object option(String key) {
-    return Utils.getNestedMapValue(this.options, key);
+  /**
+   * Drops new lines and turns the other white space, and plus signs, into spaces
+   */
+  private static String sanitizeLabel(String tml) {
+    StringBuilder label = new StringBuilder(tml.length());
+    for (int i = 0; i < tml.length(); i++) {
+      char c = tml.charAt(i);
+      if (c == '\n')
+        continue;
+      label.append(isSpace(c) || c == '+' ? ' ' : c);
+    }
+    return label.toString();
   }
 
   private String debugTranslation(String tmlString) {
-    String format = (String) this.option("debug_format");
-    return format.replace("{$0}", tmlString);
+    return profile.getDebugFormat().replace("{$0}", tmlString);
   }
 
-  @SuppressWarnings("unchecked")
   private boolean isShortToken(String token, String value) {
-    List<String> l = (List<String>) this.option("nodes.short");
-    if (l.indexOf(token) > -1) {
+    if (profile.isShortNode(token)) {
       return true;
     }
     return value.length() < 20;
@@ -403,10 +553,8 @@ public class DomTokenizer {
     return false;
   }
 
-  @SuppressWarnings("unchecked")
   private boolean isInlineNode(Element node) {
-    List<String> inlineNodes = (List<String>) this.option("nodes.inline");
-    return inlineNodes.indexOf(node.tagName().toLowerCase()) > -1 && !this.isOnlyChild(node);
+    return profile.isInlineNode(node.tagName().toLowerCase()) && !this.isOnlyChild(node);
   }
 
   private boolean isContainerNode(Element node) {
@@ -417,16 +565,12 @@ public class DomTokenizer {
     return node.childNodeSize() == 0;
   }
 
-  @SuppressWarnings("unchecked")
   private boolean isIgnoredNode(Element node) {
-    List<String> lst = (List<String>) option("nodes.ignored");
-    return lst.indexOf(node.tagName().toLowerCase()) > -1;
+    return profile.isIgnoredNode(node.tagName().toLowerCase());
   }
 
-  @SuppressWarnings("unchecked")
   private boolean isSeparatorNode(Element node) {
-    List<String> lst = (List<String>) option("nodes.splitters");
-    return lst.indexOf(node.tagName().toLowerCase()) > -1;
+    return profile.isSplitterNode(node.tagName().toLowerCase());
   }
 
   private boolean isValidText(Node node) {
@@ -436,19 +580,365 @@ public class DomTokenizer {
   }
 
   private String sanitizeValue(String value) {
-    Pattern p = Pattern.compile("^\\s+");
-    return p.matcher(value).replaceAll("");
+    int start = 0;
+    while (start < value.length() && isSpace(value.charAt(start)))
+      start++;
+    return value.substring(start);
   }
 
-  @SuppressWarnings("unchecked")
   private String adjustName(Element node) {
-    String name = node.tagName().toLowerCase();
-    Map<String, String> map = (Map<String, String>) option("name_mapping");
+    return profile.getTokenName(node.tagName().toLowerCase());
+  }
 
-    if (map.get(name) != null)
-      return map.get(name);
+  /**
+   * Translates the document read by a {@link HtmlStreamReader}, keeping one level per open
+   * streamed container
+   */
+  private class StreamTranslation {
 
-    return name;
+    private final HtmlStreamReader reader;
+
+    private final Writer out;
+
+    /**
+     * Open levels, the innermost first
+     */
+    private final LinkedList<Level> levels = new LinkedList<Level>();
+
+    /**
+     * Number of characters written
+     */
+    private long written;
+
+    private StreamTranslation(Reader html, Writer out) {
+      this.reader = new HtmlStreamReader(html);
+      this.out = out;
+    }
+
+    private void translate() throws IOException {
+      if (!readHead())
+        return;
+
+      while (!levels.isEmpty()) {
+        int type = reader.next();
+        if (type == HtmlStreamReader.EOF)
+          break;
+
+        Level level = levels.peek();
+        if (type == HtmlStreamReader.TEXT) {
+          addText(level, readText());
+        } else if (type == HtmlStreamReader.COMMENT) {
+          // comments are not translated, but count as children
+          addNode(level, new Comment(reader.getRaw(), ""));
+          processPending(level, false, null);
+        } else if (type == HtmlStreamReader.START_TAG) {
+          startTag(level);
+        } else if (type == HtmlStreamReader.END_TAG) {
+          endTag(level);
+        }
+      }
+
+      while (!levels.isEmpty())
+        closeLevel();
+    }
+
+    /**
+     * Skips everything the parser would place outside of the body and opens the body level
+     *
+     * @return false if the document ended first
+     */
+    private boolean readHead() throws IOException {
+      while (true) {
+        int type = reader.next();
+        if (type == HtmlStreamReader.EOF)
+          return false;
+
+        if (type == HtmlStreamReader.TEXT) {
+          if (isEmptyString(reader.getRaw()))
+            continue;
+        } else if (type == HtmlStreamReader.START_TAG) {
+          String name = reader.getName();
+          if (name.equals("html") || name.equals("head"))
+            continue;
+          if (name.equals("body"))
+            return startBody(reader.getRaw());
+          if (HEAD_ELEMENTS.contains(name)) {
+            readElement(reader.getRaw(), name, reader.isEmptyElement());
+            continue;
+          }
+        } else {
+          continue;
+        }
+
+        reader.pushBack();
+        return startBody("");
+      }
+    }
+
+    private boolean startBody(String startTag) throws IOException {
+      Element body = Jsoup.parse(startTag).body();
+      if (isContainInProperty(body, "notranslate") || profile.isScriptNode("body")) {
+        StringBuilder rest = new StringBuilder(startTag);
+        while (reader.next() != HtmlStreamReader.EOF)
+          rest.append(reader.getRaw());
+        write(translateTree(Jsoup.parse(rest.toString()).body()));
+        return false;
+      }
+      levels.push(new Level(body, false, false));
+      return true;
+    }
+
+    /**
+     * Reads a run of text, which the lexer may return in several parts
+     */
+    private String readText() throws IOException {
+      String text = reader.getRaw();
+      if (reader.next() != HtmlStreamReader.TEXT) {
+        reader.pushBack();
+        return text;
+      }
+      StringBuilder run = new StringBuilder(text);
+      do {
+        run.append(reader.getRaw());
+      } while (reader.next() == HtmlStreamReader.TEXT);
+      reader.pushBack();
+      return run.toString();
+    }
+
+    private void startTag(Level level) throws IOException {
+      String name = reader.getName();
+      String raw = reader.getRaw();
+      boolean empty = reader.isEmptyElement();
+      if (name.equals("html") || name.equals("body") || name.equals("head"))
+        return;
+
+      if (!empty && STREAMED_CONTAINERS.contains(name) && !profile.isInlineNode(name)
+          && !profile.isSplitterNode(name) && !profile.isScriptNode(name)) {
+        Element container = parseStartTag(level, raw, name);
+        if (!isContainInProperty(container, "notranslate")) {
+          addNode(level, container);
+          processPending(level, false, container);
+          if (level.pending.peek() == container) {
+            level.pending.clear();
+            flush(level);
+            levels.push(new Level(container, true, profile.isIgnoredNode(name)));
+            return;
+          }
+          level.pending.removeLast();
+          level.childCount--;
+        }
+      }
+      addNodes(level, Parser.parseFragment(readElement(raw, name, empty), level.element, ""));
+    }
+
+    private void endTag(Level level) throws IOException {
+      String name = reader.getName();
+      if (name.equals("html") || name.equals("body"))
+        return;
+
+      for (int i = 0; i < levels.size(); i++) {
+        Level open = levels.get(i);
+        if (open.wrapped && open.element.tagName().equals(name)) {
+          for (int j = 0; j <= i; j++)
+            closeLevel();
+          return;
+        }
+      }
+      addNodes(level, Parser.parseFragment(reader.getRaw(), level.element, ""));
+    }
+
+    private Element parseStartTag(Level level, String raw, String name) {
+      for (Node node : Parser.parseFragment(raw, level.element, "")) {
+        if (node instanceof Element)
+          return (Element) node;
+      }
+      return new Element(Tag.valueOf(name), "");
+    }
+
+    /**
+     * Reads the source of an element whose start tag has just been read, up to its end tag or the
+     * end tag of an open level. Misnested tags are left to the parser: once an end tag closes
+     * elements the parser may keep open or reopen, the rest of the level is read with the element.
+     */
+    private String readElement(String startTag, String name, boolean empty) throws IOException {
+      StringBuilder source = new StringBuilder(startTag);
+      if (empty)
+        return source.toString();
+
+      LinkedList<String> names = new LinkedList<String>();
+      names.push(name);
+      boolean misnested = false;
+      while (misnested || !names.isEmpty()) {
+        int type = reader.next();
+        if (type == HtmlStreamReader.EOF)
+          break;
+
+        if (type == HtmlStreamReader.START_TAG) {
+          String tagName = reader.getName();
+          if (!misnested && names.size() == 1 && tagName.equals(name) && AUTO_CLOSED_ELEMENTS.contains(name)) {
+            reader.pushBack();
+            break;
+          }
+          if (!reader.isEmptyElement())
+            names.push(tagName);
+        } else if (type == HtmlStreamReader.END_TAG) {
+          String tagName = reader.getName();
+          int index = names.indexOf(tagName);
+          if (index < 0 && isOpenLevel(tagName) && !containsAny(names, SCOPE_ELEMENTS)) {
+            reader.pushBack();
+            break;
+          }
+          if (index > 0 && !TABLE_ELEMENTS.contains(tagName) && containsAny(names.subList(0, index), SCOPE_ELEMENTS))
+            index = -1;
+          for (int i = 0; i <= index; i++) {
+            String closed = names.pop();
+            if (i < index && (!CLOSING_ELEMENTS.contains(tagName) || FORMATTING_ELEMENTS.contains(closed)))
+              misnested = true;
+          }
+        }
+        source.append(reader.getRaw());
+      }
+      return source.toString();
+    }
+
+    private boolean containsAny(List<String> names, Set<String> elements) {
+      for (String name : names) {
+        if (elements.contains(name))
+          return true;
+      }
+      return false;
+    }
+
+    private boolean isOpenLevel(String name) {
+      for (Level level : levels) {
+        if (level.wrapped && level.element.tagName().equals(name))
+          return true;
+      }
+      return false;
+    }
+
+    private void addText(Level level, String text) throws IOException {
+      if (text.indexOf('&') < 0 && text.indexOf('\0') < 0 && text.indexOf('<') < 0) {
+        addNode(level, new TextNode(text, ""));
+        processPending(level, false, null);
+      } else {
+        addNodes(level, Parser.parseFragment(text, level.element, ""));
+      }
+    }
+
+    private void addNodes(Level level, List<Node> nodes) throws IOException {
+      for (Node node : nodes)
+        addNode(level, node);
+      processPending(level, false, null);
+    }
+
+    private void addNode(Level level, Node node) throws IOException {
+      if (level.childCount++ == 0 && level.wrapped && !level.ignored) {
+        StringBuilder html = new StringBuilder();
+        appendTagStart(html, level.element);
+        write(html.append('>'));
+        level.contentStart = written;
+      }
+      if (isValidText(node) || (node instanceof Element && profile.isInlineNode(((Element) node).tagName().toLowerCase())))
+        level.inlineOrTextCount++;
+      level.pending.add(node);
+    }
+
+    /**
+     * Translates the pending nodes of a level, up to an inline element whose grouping with its
+     * siblings is not known yet, or up to the given node
+     */
+    private void processPending(Level level, boolean ended, Node stop) throws IOException {
+      StringBuilder html = new StringBuilder();
+      while (!level.pending.isEmpty()) {
+        Node node = level.pending.peek();
+        if (node == stop)
+          break;
+
+        Node next = level.pending.size() > 1 ? level.pending.get(1) : null;
+        boolean inline = false;
+        if (node instanceof Element && profile.isInlineNode(((Element) node).tagName().toLowerCase())) {
+          if (!ended && (next == null || level.inlineOrTextCount < 2))
+            break;
+          inline = level.childCount != 1 && level.inlineOrTextCount >= 2 && !isBetweenSeparators(level.previous, next);
+        }
+        level.pending.remove();
+        translateChild(node, inline, level.buffer, html);
+        level.previous = node;
+      }
+      write(html);
+    }
+
+    private void flush(Level level) throws IOException {
+      StringBuilder html = new StringBuilder();
+      flushBuffer(level.buffer, html);
+      write(html);
+    }
+
+    private void closeLevel() throws IOException {
+      Level level = levels.pop();
+      processPending(level, true, null);
+      flush(level);
+
+      if (level.wrapped && !level.ignored) {
+        if (level.childCount == 0) {
+          write(generateHtmlToken(level.element, null));
+        } else {
+          if (written == level.contentStart)
+            write("{$0}");
+          write("</" + level.element.tagName().toLowerCase() + ">");
+        }
+      }
+
+      Level parent = levels.peek();
+      if (parent != null)
+        parent.previous = level.element;
+    }
+
+    private void write(CharSequence html) throws IOException {
+      if (html.length() == 0)
+        return;
+      out.append(html);
+      written += html.length();
+    }
   }
 
+  /**
+   * State of an element whose children are being translated as they are read
+   */
+  private static class Level {
+
+    private final Element element;
+
+    /**
+     * Whether the start and end tags are written, false for the body
+     */
+    private final boolean wrapped;
+
+    private final boolean ignored;
+
+    /**
+     * Children read but not translated yet
+     */
+    private final LinkedList<Node> pending = new LinkedList<Node>();
+
+    /**
+     * Label being built from text and inline children
+     */
+    private final StringBuilder buffer = new StringBuilder();
+
+    private Node previous;
+
+    private int childCount;
+
+    private int inlineOrTextCount;
+
+    private long contentStart;
+
+    private Level(Element element, boolean wrapped, boolean ignored) {
+      this.element = element;
+      this.wrapped = wrapped;
+      this.ignored = ignored;
+    }
+  }
 }
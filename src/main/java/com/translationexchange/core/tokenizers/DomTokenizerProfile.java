@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.tokenizers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.translationexchange.core.Utils;
+
+/**
+ * Translator options of the {@link DomTokenizer}, compiled once: node names are kept in hash sets
+ * and data token expressions are compiled into patterns.
+ *
+ * A profile is immutable and can be shared by any number of tokenizers and threads. Changes to the
+ * options map after the profile has been built are not seen by the profile.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public class DomTokenizerProfile {
+
+  private final boolean debug;
+
+  private final String debugFormat;
+
+  private final boolean splitSentences;
+
+  private final Set<String> scriptNodes;
+
+  private final Set<String> inlineNodes;
+
+  private final Set<String> shortNodes;
+
+  private final Set<String> ignoredNodes;
+
+  private final Set<String> splitterNodes;
+
+  private final Map<String, String> nameMapping;
+
+  private final Pattern specialTokenPattern;
+
+  private final String dateTokenName;
+
+  private final List<Pattern> dateTokenPatterns;
+
+  private final List<DataTokenRule> dataTokenRules;
+
+  /**
+   * Compiles translator options, such as {@link com.translationexchange.core.Configuration#getTranslatorOptions()}
+   *
+   * @param options a {@link java.util.Map} object.
+   */
+  @SuppressWarnings("unchecked")
+  public DomTokenizerProfile(Map<String, Object> options) {
+    this.debug = getBoolean(options, "debug");
+    this.debugFormat = (String) Utils.getNestedMapValue(options, "debug_format");
+    this.splitSentences = getBoolean(options, "split_sentences");
+
+    this.scriptNodes = getNames(options, "nodes.scripts");
+    this.inlineNodes = getNames(options, "nodes.inline");
+    this.shortNodes = getNames(options, "nodes.short");
+    this.ignoredNodes = getNames(options, "nodes.ignored");
+    this.splitterNodes = getNames(options, "nodes.splitters");
+
+    Map<String, String> mapping = new HashMap<String, String>();
+    Object names = Utils.getNestedMapValue(options, "name_mapping");
+    if (names instanceof Map)
+      mapping.putAll((Map<String, String>) names);
+    this.nameMapping = Collections.unmodifiableMap(mapping);
+
+    this.specialTokenPattern = getBoolean(options, "data_tokens.special.enabled")
+        ? Pattern.compile((String) Utils.getNestedMapValue(options, "data_tokens.special.regex")) : null;
+
+    List<Pattern> datePatterns = new ArrayList<Pattern>();
+    if (getBoolean(options, "data_tokens.date.enabled")) {
+      Object formats = Utils.getNestedMapValue(options, "data_tokens.date.formats");
+      if (formats instanceof List) {
+        for (List<String> format : (List<List<String>>) formats)
+          datePatterns.add(Pattern.compile(format.get(0)));
+      }
+    }
+    this.dateTokenName = (String) Utils.getNestedMapValue(options, "data_tokens.date.name");
+    this.dateTokenPatterns = Collections.unmodifiableList(datePatterns);
+
+    List<DataTokenRule> rules = new ArrayList<DataTokenRule>();
+    Object ruleList = Utils.getNestedMapValue(options, "data_tokens.rules");
+    if (ruleList instanceof List) {
+      for (Map<String, Object> rule : (List<Map<String, Object>>) ruleList) {
+        if (Boolean.TRUE.equals(rule.get("enabled")))
+          rules.add(new DataTokenRule((String) rule.get("name"), Pattern.compile((String) rule.get("regex"))));
+      }
+    }
+    this.dataTokenRules = Collections.unmodifiableList(rules);
+  }
+
+  private static boolean getBoolean(Map<String, Object> options, String key) {
+    return Boolean.TRUE.equals(Utils.getNestedMapValue(options, key));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Set<String> getNames(Map<String, Object> options, String key) {
+    Set<String> names = new HashSet<String>();
+    Object list = Utils.getNestedMapValue(options, key);
+    if (list instanceof List)
+      names.addAll((List<String>) list);
+    return Collections.unmodifiableSet(names);
+  }
+
+  /**
+   * Returns true if labels are replaced with the debug format rather than translated
+   *
+   * @return a boolean.
+   */
+  public boolean isDebug() {
+    return debug;
+  }
+
+  /**
+   * <p>Getter for the field <code>debugFormat</code>.</p>
+   *
+   * @return a {@link java.lang.String} object.
+   */
+  public String getDebugFormat() {
+    return debugFormat;
+  }
+
+  /**
+   * <p>isSplitSentences.</p>
+   *
+   * @return a boolean.
+   */
+  public boolean isSplitSentences() {
+    return splitSentences;
+  }
+
+  /**
+   * Returns true if the content of the node, such as a script, is never translated
+   *
+   * @param name lower case node name
+   * @return a boolean.
+   */
+  public boolean isScriptNode(String name) {
+    return scriptNodes.contains(name);
+  }
+
+  /**
+   * <p>isInlineNode.</p>
+   *
+   * @param name lower case node name
+   * @return a boolean.
+   */
+  public boolean isInlineNode(String name) {
+    return inlineNodes.contains(name);
+  }
+
+  /**
+   * Returns true if the token of the node is always written in the short form, [token: value]
+   *
+   * @param token a {@link java.lang.String} object.
+   * @return a boolean.
+   */
+  public boolean isShortNode(String token) {
+    return shortNodes.contains(token);
+  }
+
+  /**
+   * <p>isIgnoredNode.</p>
+   *
+   * @param name lower case node name
+   * @return a boolean.
+   */
+  public boolean isIgnoredNode(String name) {
+    return ignoredNodes.contains(name);
+  }
+
+  /**
+   * <p>isSplitterNode.</p>
+   *
+   * @param name lower case node name
+   * @return a boolean.
+   */
+  public boolean isSplitterNode(String name) {
+    return splitterNodes.contains(name);
+  }
+
+  /**
+   * Returns the token name of a node
+   *
+   * @param name lower case node name
+   * @return a {@link java.lang.String} object.
+   */
+  public String getTokenName(String name) {
+    String mapped = nameMapping.get(name);
+    return mapped == null ? name : mapped;
+  }
+
+  /**
+   * Returns the pattern of special tokens, such as &amp;nbsp;, or null if they are disabled
+   *
+   * @return a {@link java.util.regex.Pattern} object.
+   */
+  public Pattern getSpecialTokenPattern() {
+    return specialTokenPattern;
+  }
+
+  /**
+   * <p>Getter for the field <code>dateTokenName</code>.</p>
+   *
+   * @return a {@link java.lang.String} object.
+   */
+  public String getDateTokenName() {
+    return dateTokenName;
+  }
+
+  /**
+   * Returns the date patterns, empty if date tokens are disabled
+   *
+   * @return a {@link java.util.List} object.
+   */
+  public List<Pattern> getDateTokenPatterns() {
+    return dateTokenPatterns;
+  }
+
+  /**
+   * Returns the enabled data token rules
+   *
+   * @return a {@link java.util.List} object.
+   */
+  public List<DataTokenRule> getDataTokenRules() {
+    return dataTokenRules;
+  }
+
+  /**
+   * Data token rule: text matching the pattern becomes a token with the name of the rule
+   */
+  public static class DataTokenRule {
+
+    private final String name;
+
+    private final Pattern pattern;
+
+    DataTokenRule(String name, Pattern pattern) {
+      this.name = name;
+      this.pattern = pattern;
+    }
+
+    /**
+     * <p>Getter for the field <code>name</code>.</p>
+     *
+     * @return a {@link java.lang.String} object.
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * <p>Getter for the field <code>pattern</code>.</p>
+     *
+     * @return a {@link java.util.regex.Pattern} object.
+     */
+    public Pattern getPattern() {
+      return pattern;
+    }
+  }
+}
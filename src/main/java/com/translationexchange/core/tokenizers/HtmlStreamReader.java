@@ -0,0 +1,407 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.tokenizers;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Splits HTML read from a stream into tags, text and comments, without building a tree.
+ *
+ * Every token keeps its source text, so a run of tokens can be handed to the HTML parser as it
+ * was written. The content of script, style and other raw text elements is returned as a single
+ * text token, and so is a CDATA section, which the parser reads as text. A tag that the stream
+ * ends in is dropped, as the parser drops it.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+class HtmlStreamReader {
+
+  public static final int EOF = 0;
+
+  public static final int TEXT = 1;
+
+  public static final int START_TAG = 2;
+
+  public static final int END_TAG = 3;
+
+  public static final int COMMENT = 4;
+
+  public static final int DOCTYPE = 5;
+
+  /**
+   * Elements without content
+   */
+  public static final Set<String> VOID_ELEMENTS = new HashSet<String>(Arrays.asList(
+      "meta", "link", "base", "frame", "img", "br", "wbr", "embed", "hr", "input", "keygen", "col",
+      "command", "device", "area", "basefont", "bgsound", "menuitem", "param", "source", "track"));
+
+  /**
+   * Elements whose content is text up to their end tag
+   */
+  private static final Set<String> RAW_TEXT_ELEMENTS = new HashSet<String>(Arrays.asList(
+      "script", "style", "textarea", "title", "xmp", "iframe", "noembed", "noframes"));
+
+  private final Reader reader;
+
+  private final char[] buffer = new char[8192];
+
+  private int position;
+
+  private int limit;
+
+  private boolean exhausted;
+
+  /**
+   * Raw text element whose content is read next
+   */
+  private String rawTextElement;
+
+  private boolean plainText;
+
+  private boolean pushedBack;
+
+  private int type;
+
+  private String name;
+
+  private boolean selfClosing;
+
+  private final StringBuilder raw = new StringBuilder();
+
+  /**
+   * <p>Constructor for HtmlStreamReader.</p>
+   *
+   * @param reader a {@link java.io.Reader} object.
+   */
+  public HtmlStreamReader(Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Reads the next token
+   *
+   * @return the token type, EOF at the end of the stream
+   * @throws java.io.IOException if any.
+   */
+  public int next() throws IOException {
+    if (pushedBack) {
+      pushedBack = false;
+      return type;
+    }
+
+    raw.setLength(0);
+    name = null;
+    selfClosing = false;
+
+    if (plainText || rawTextElement != null) {
+      readRawText();
+      if (raw.length() > 0)
+        return type = TEXT;
+    }
+
+    if (peek(0) < 0)
+      return type = EOF;
+
+    if (peek(0) == '<') {
+      int next = peek(1);
+      if (isLetter(next))
+        return type = readStartTag();
+      if (next == '/' && isLetter(peek(2)))
+        return type = readEndTag();
+      if (next == '/' && peek(2) == '>') {
+        consume(3);
+        return next();
+      }
+      if (next == '!' && startsWith(2, "[CDATA[")) {
+        readCData();
+        return type = TEXT;
+      }
+      if (next == '!' || next == '?' || next == '/')
+        return type = readMarkup();
+    }
+
+    readText();
+    return type = TEXT;
+  }
+
+  /**
+   * Returns the current token again from the next call to {@link #next()}
+   */
+  public void pushBack() {
+    pushedBack = true;
+  }
+
+  /**
+   * <p>Getter for the field <code>type</code>.</p>
+   *
+   * @return a int.
+   */
+  public int getType() {
+    return type;
+  }
+
+  /**
+   * Returns the lower case name of the current tag
+   *
+   * @return a {@link java.lang.String} object.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns true if the current start tag is written as &lt;name/&gt;
+   *
+   * @return a boolean.
+   */
+  public boolean isSelfClosing() {
+    return selfClosing;
+  }
+
+  /**
+   * Returns true if the current start tag has no end tag
+   *
+   * @return a boolean.
+   */
+  public boolean isEmptyElement() {
+    return selfClosing || VOID_ELEMENTS.contains(name);
+  }
+
+  /**
+   * Returns the source text of the current token
+   *
+   * @return a {@link java.lang.String} object.
+   */
+  public String getRaw() {
+    return raw.toString();
+  }
+
+  private int readStartTag() throws IOException {
+    consume(1);
+    StringBuilder tagName = new StringBuilder();
+    int c;
+    while ((c = peek(0)) >= 0 && !isSpace(c) && c != '/' && c != '>')
+      tagName.append(Character.toLowerCase(consume(1)));
+    name = tagName.toString();
+
+    boolean afterEquals = false;
+    boolean closed = false;
+    while ((c = peek(0)) >= 0) {
+      if (c == '>') {
+        consume(1);
+        closed = true;
+        break;
+      }
+      if (c == '/' && peek(1) == '>') {
+        consume(2);
+        selfClosing = true;
+        closed = true;
+        break;
+      }
+      if (afterEquals && (c == '"' || c == '\'')) {
+        consume(1);
+        int quote = c;
+        while ((c = peek(0)) >= 0 && c != quote)
+          consume(1);
+        if (c >= 0)
+          consume(1);
+        afterEquals = false;
+        continue;
+      }
+      consume(1);
+      if (c == '=')
+        afterEquals = true;
+      else if (!isSpace(c))
+        afterEquals = false;
+    }
+    if (!closed)
+      return EOF;
+
+    if (name.equals("plaintext"))
+      plainText = true;
+    else if (!selfClosing && RAW_TEXT_ELEMENTS.contains(name))
+      rawTextElement = name;
+    return START_TAG;
+  }
+
+  private int readEndTag() throws IOException {
+    consume(2);
+    StringBuilder tagName = new StringBuilder();
+    int c;
+    while ((c = peek(0)) >= 0 && !isSpace(c) && c != '/' && c != '>')
+      tagName.append(Character.toLowerCase(consume(1)));
+    name = tagName.toString();
+
+    while ((c = peek(0)) >= 0) {
+      consume(1);
+      if (c == '>')
+        return END_TAG;
+    }
+    return EOF;
+  }
+
+  private int readMarkup() throws IOException {
+    if (peek(1) == '!' && peek(2) == '-' && peek(3) == '-') {
+      consume(4);
+      int c;
+      while ((c = peek(0)) >= 0) {
+        if (c == '-' && peek(1) == '-' && peek(2) == '>') {
+          consume(3);
+          break;
+        }
+        consume(1);
+      }
+      return COMMENT;
+    }
+
+    boolean doctype = peek(1) == '!' && startsWithIgnoreCase(2, "doctype");
+    int c;
+    while ((c = peek(0)) >= 0) {
+      consume(1);
+      if (c == '>')
+        break;
+    }
+    return doctype ? DOCTYPE : COMMENT;
+  }
+
+  private void readCData() throws IOException {
+    consume(9);
+    int c;
+    while ((c = peek(0)) >= 0) {
+      if (c == ']' && peek(1) == ']' && peek(2) == '>') {
+        consume(3);
+        break;
+      }
+      consume(1);
+    }
+  }
+
+  private void readText() throws IOException {
+    consume(1);
+    int c;
+    while ((c = peek(0)) >= 0) {
+      if (c == '<') {
+        int next = peek(1);
+        if (isLetter(next) || next == '/' || next == '!' || next == '?')
+          break;
+      }
+      consume(1);
+    }
+  }
+
+  private void readRawText() throws IOException {
+    if (plainText) {
+      while (peek(0) >= 0)
+        consume(1);
+      return;
+    }
+
+    int c;
+    while ((c = peek(0)) >= 0) {
+      if (c == '<' && peek(1) == '/' && startsWithIgnoreCase(2, rawTextElement)) {
+        int end = peek(2 + rawTextElement.length());
+        if (end < 0 || isSpace(end) || end == '/' || end == '>')
+          break;
+      }
+      consume(1);
+    }
+    rawTextElement = null;
+  }
+
+  private boolean startsWith(int offset, String text) throws IOException {
+    for (int i = 0; i < text.length(); i++) {
+      if (peek(offset + i) != text.charAt(i))
+        return false;
+    }
+    return true;
+  }
+
+  private boolean startsWithIgnoreCase(int offset, String text) throws IOException {
+    for (int i = 0; i < text.length(); i++) {
+      int c = peek(offset + i);
+      if (c < 0 || Character.toLowerCase((char) c) != text.charAt(i))
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Returns the character at the offset from the current position, -1 past the end of the stream
+   */
+  private int peek(int offset) throws IOException {
+    while (position + offset >= limit) {
+      if (exhausted)
+        return -1;
+      fill();
+    }
+    return buffer[position + offset];
+  }
+
+  /**
+   * Moves past the characters and adds them to the source text of the token, returns the last one
+   */
+  private char consume(int count) throws IOException {
+    peek(count - 1);
+    raw.append(buffer, position, count);
+    position += count;
+    return buffer[position - 1];
+  }
+
+  private void fill() throws IOException {
+    if (position > 0) {
+      System.arraycopy(buffer, position, buffer, 0, limit - position);
+      limit -= position;
+      position = 0;
+    }
+    int read = reader.read(buffer, limit, buffer.length - limit);
+    if (read < 0)
+      exhausted = true;
+    else
+      limit += read;
+  }
+
+  private static boolean isLetter(int c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static boolean isSpace(int c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+  }
+}
@@ -43,6 +43,19 @@ import com.translationexchange.core.Tml;
 
 public class HtmlTokenizer extends DecorationTokenizer {
 
+  /**
+   * Factory used by the configuration to create html tokenizers
+   */
+  public static final TokenizerFactory FACTORY = new TokenizerFactory() {
+    public boolean isApplicable(String label) {
+      return HtmlTokenizer.isApplicable(label);
+    }
+
+    public Tokenizer createTokenizer(String label, List<String> allowedTokenNames) {
+      return new HtmlTokenizer(label, allowedTokenNames);
+    }
+  };
+
   /**
    * Default constructor
    */
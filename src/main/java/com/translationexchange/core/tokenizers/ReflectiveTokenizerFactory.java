@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.tokenizers;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Adapts a tokenizer class configured by name to the {@link TokenizerFactory} interface.
+ * The static <code>isApplicable</code> method and the <code>(String, List)</code> constructor
+ * are looked up once, when the factory is created.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public class ReflectiveTokenizerFactory implements TokenizerFactory {
+
+  /**
+   * Tokenizer class
+   */
+  private final Class<? extends Tokenizer> tokenizerClass;
+
+  /**
+   * Static isApplicable method of the tokenizer class
+   */
+  private final Method applicableMethod;
+
+  /**
+   * Tokenizer constructor, null if the class does not provide one
+   */
+  private final Constructor<? extends Tokenizer> constructor;
+
+  /**
+   * <p>Constructor for ReflectiveTokenizerFactory.</p>
+   *
+   * @param tokenizerClass a {@link java.lang.Class} object.
+   * @throws java.lang.NoSuchMethodException if the class does not define isApplicable
+   */
+  public ReflectiveTokenizerFactory(Class<? extends Tokenizer> tokenizerClass) throws NoSuchMethodException {
+    this.tokenizerClass = tokenizerClass;
+    this.applicableMethod = tokenizerClass.getMethod("isApplicable", String.class);
+    this.applicableMethod.setAccessible(true);
+
+    Constructor<? extends Tokenizer> constructor = null;
+    try {
+      constructor = tokenizerClass.getConstructor(String.class, List.class);
+      constructor.setAccessible(true);
+    } catch (NoSuchMethodException ex) {
+      // the tokenizer can only be used if it is never applicable
+    }
+    this.constructor = constructor;
+  }
+
+  /**
+   * Creates a factory for the tokenizer class name
+   *
+   * @param className a {@link java.lang.String} object.
+   * @return a {@link com.translationexchange.core.tokenizers.TokenizerFactory} object.
+   * @throws java.lang.Exception if the class can not be loaded or is not a tokenizer
+   */
+  public static TokenizerFactory forClassName(String className) throws Exception {
+    return new ReflectiveTokenizerFactory(Class.forName(className).asSubclass(Tokenizer.class));
+  }
+
+  /**
+   * <p>Getter for the field <code>tokenizerClass</code>.</p>
+   *
+   * @return a {@link java.lang.Class} object.
+   */
+  public Class<? extends Tokenizer> getTokenizerClass() {
+    return tokenizerClass;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean isApplicable(String label) {
+    try {
+      return (Boolean) applicableMethod.invoke(null, label);
+    } catch (Exception ex) {
+      throw new IllegalStateException("Failed to check " + tokenizerClass.getName() + " applicability", ex);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public Tokenizer createTokenizer(String label, List<String> allowedTokenNames) {
+    if (constructor == null)
+      throw new IllegalStateException(tokenizerClass.getName() + " does not define a (String, List) constructor");
+
+    try {
+      return constructor.newInstance(label, allowedTokenNames);
+    } catch (Exception ex) {
+      throw new IllegalStateException("Failed to create " + tokenizerClass.getName(), ex);
+    }
+  }
+
+}
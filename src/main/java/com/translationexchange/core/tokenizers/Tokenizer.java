@@ -46,7 +46,7 @@ import com.translationexchange.core.tokens.Token;
  * @author Michael Berkovich
  * @version $Id: $Id
  */
-public abstract class Tokenizer {
+public abstract class Tokenizer implements Cloneable {
 
   /**
    * Label from which the tokens were extracted (original or translated)
@@ -187,6 +187,22 @@ public abstract class Tokenizer {
    */
   public abstract Object substitute(Map<String, Object> tokensData, Language language, Map<String, Object> options);
 
+  /**
+   * Returns a shallow copy of the tokenizer that shares the tokenized state
+   * (tokens, expression tree, token names) with this instance but keeps its
+   * own substitution state. Used by {@link TokenizerTemplate} so that a label
+   * is tokenized once and substituted concurrently.
+   *
+   * @return a {@link com.translationexchange.core.tokenizers.Tokenizer} object.
+   */
+  protected Tokenizer copy() {
+    try {
+      return (Tokenizer) super.clone();
+    } catch (CloneNotSupportedException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
   /**
    * Returns true/false whether the tokenizer is applicable to the label
    *
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.tokenizers;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.translationexchange.core.languages.Language;
+import com.translationexchange.core.tokens.Token;
+
+/**
+ * Immutable, pre-tokenized form of a label for a given tokenizer.
+ *
+ * The label is scanned and parsed once, when the template is compiled. Every
+ * substitution runs against a shallow copy of the compiled tokenizer, so the
+ * same template can be shared by any number of threads.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+public final class TokenizerTemplate {
+
+  /**
+   * Label the template was compiled from
+   */
+  private final String label;
+
+  /**
+   * Compiled tokenizer, null when the tokenizer is not applicable to the label
+   */
+  private final Tokenizer tokenizer;
+
+  /**
+   * List of allowed token names the template was compiled with
+   */
+  private final List<String> allowedTokenNames;
+
+  /**
+   * Names of the tokens found in the label
+   */
+  private final List<String> tokenNames;
+
+  /**
+   * <p>Constructor for TokenizerTemplate.</p>
+   *
+   * @param label             a {@link java.lang.String} object.
+   * @param allowedTokenNames a {@link java.util.List} object.
+   * @param tokenizer         a {@link com.translationexchange.core.tokenizers.Tokenizer} object.
+   */
+  TokenizerTemplate(String label, List<String> allowedTokenNames, Tokenizer tokenizer) {
+    this.label = label;
+    this.allowedTokenNames = allowedTokenNames;
+    this.tokenizer = tokenizer;
+
+    List<String> names = tokenizer == null ? null : tokenizer.getTokenNames();
+    this.tokenNames = names == null ? Collections.<String>emptyList() : Collections.unmodifiableList(names);
+
+    if (tokenizer instanceof DataTokenizer) {
+      // resolve all lazily computed token attributes while the template is still private to this thread
+      for (Token token : ((DataTokenizer) tokenizer).getTokens())
+        token.resolve();
+    }
+  }
+
+  /**
+   * Compiles a template for the label using the tokenizer factory
+   *
+   * @param factory           a {@link com.translationexchange.core.tokenizers.TokenizerFactory} object.
+   * @param label             a {@link java.lang.String} object.
+   * @param allowedTokenNames a {@link java.util.List} object.
+   * @return a {@link com.translationexchange.core.tokenizers.TokenizerTemplate} object.
+   */
+  public static TokenizerTemplate compile(TokenizerFactory factory, String label, List<String> allowedTokenNames) {
+    if (factory == null || !factory.isApplicable(label))
+      return new TokenizerTemplate(label, allowedTokenNames, null);
+
+    return new TokenizerTemplate(label, allowedTokenNames, factory.createTokenizer(label, allowedTokenNames));
+  }
+
+  /**
+   * <p>Getter for the field <code>label</code>.</p>
+   *
+   * @return a {@link java.lang.String} object.
+   */
+  public String getLabel() {
+    return label;
+  }
+
+  /**
+   * <p>Getter for the field <code>tokenNames</code>.</p>
+   *
+   * @return a {@link java.util.List} object.
+   */
+  public List<String> getTokenNames() {
+    return tokenNames;
+  }
+
+  /**
+   * Returns true/false whether the template was compiled with the same allowed token names
+   *
+   * @param allowedTokenNames a {@link java.util.List} object.
+   * @return a boolean.
+   */
+  public boolean isCompiledWith(List<String> allowedTokenNames) {
+    if (this.allowedTokenNames == null)
+      return allowedTokenNames == null;
+    return this.allowedTokenNames == allowedTokenNames || this.allowedTokenNames.equals(allowedTokenNames);
+  }
+
+  /**
+   * Returns true/false whether the tokenizer was applicable to the label
+   *
+   * @return a boolean.
+   */
+  public boolean isApplicable() {
+    return tokenizer != null;
+  }
+
+  /**
+   * Renders the template with the token values
+   *
+   * @param tokensData a {@link java.util.Map} object.
+   * @param language   a {@link com.translationexchange.core.languages.Language} object.
+   * @param options    a {@link java.util.Map} object.
+   * @return a {@link java.lang.Object} object.
+   */
+  public Object substitute(Map<String, Object> tokensData, Language language, Map<String, Object> options) {
+    if (tokenizer == null)
+      return label;
+    return tokenizer.copy().substitute(tokensData, language, options);
+  }
+
+}
@@ -108,10 +108,11 @@ public class DataToken extends Token {
    */
   public List<String> getLanguageContextKeys() {
     if (this.languageContextKeys == null) {
-      this.languageContextKeys = Utils.trimListValues(
+      List<String> keys = Utils.trimListValues(
           Arrays.asList(getParenslessName().split(SEPARATOR_CASE)[0].split(SEPARATOR_CONTEXT))
       );
-      this.languageContextKeys.remove(0);
+      keys.remove(0);
+      this.languageContextKeys = keys;
     }
     return this.languageContextKeys;
   }
@@ -123,10 +124,11 @@ public class DataToken extends Token {
    */
   public List<String> getLanguageCaseKeys() {
     if (this.languageCaseKeys == null) {
-      this.languageCaseKeys = Utils.trimListValues(
+      List<String> keys = Utils.trimListValues(
           Arrays.asList(getParenslessName().split(SEPARATOR_CASE))
       );
-      this.languageCaseKeys.remove(0);
+      keys.remove(0);
+      this.languageCaseKeys = keys;
     }
     return this.languageCaseKeys;
   }
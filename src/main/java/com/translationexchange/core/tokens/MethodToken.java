@@ -107,6 +107,15 @@ public class MethodToken extends DataToken {
 
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  public void resolve() {
+    super.resolve();
+    getObjectName();
+    getMethodName();
+  }
+
   /**
    * <p>getObjectValue.</p>
    *
@@ -161,6 +161,16 @@ public class PipedToken extends DataToken {
 
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  public void resolve() {
+    super.resolve();
+    getSeparator();
+    getParameters();
+    getPipelessName();
+  }
+
   /**
    * <p>getName.</p>
    *
@@ -180,10 +190,11 @@ public class PipedToken extends DataToken {
    */
   public List<String> getLanguageContextKeys() {
     if (this.languageContextKeys == null) {
-      this.languageContextKeys = Utils.trimListValues(
+      List<String> keys = Utils.trimListValues(
           Arrays.asList(getPipelessName().split(Pattern.quote(SEPARATOR_CASE))[0].split(Pattern.quote(SEPARATOR_CONTEXT)))
       );
-      this.languageContextKeys.remove(0);
+      keys.remove(0);
+      this.languageContextKeys = keys;
     }
     return this.languageContextKeys;
   }
@@ -195,10 +206,11 @@ public class PipedToken extends DataToken {
    */
   public List<String> getLanguageCaseKeys() {
     if (this.languageCaseKeys == null) {
-      this.languageCaseKeys = Utils.trimListValues(
+      List<String> keys = Utils.trimListValues(
           Arrays.asList(getPipelessName().split(Pattern.quote(SEPARATOR_CASE)))
       );
-      this.languageCaseKeys.remove(0);
+      keys.remove(0);
+      this.languageCaseKeys = keys;
     }
     return this.languageCaseKeys;
   }
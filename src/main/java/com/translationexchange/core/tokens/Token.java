@@ -143,6 +143,16 @@ public abstract class Token {
     return getName();
   }
 
+  /**
+   * Computes the attributes derived from the token name, so that the token can be shared
+   * between threads once it has been published
+   */
+  public void resolve() {
+    getName();
+    getLanguageContextKeys();
+    getLanguageCaseKeys();
+  }
+
   /**
    * Allows you to customize the returned token name
    *
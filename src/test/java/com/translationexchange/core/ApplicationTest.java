@@ -34,11 +34,19 @@
 
 package com.translationexchange.core;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -54,6 +62,11 @@ public class ApplicationTest extends BaseTest {
 
   private HttpClient mockedHttpClient = mock(HttpClient.class);
 
+  /**
+   * Released once a caller waits for a background language load
+   */
+  private final CountDownLatch definitionAwaited = new CountDownLatch(1);
+
   private Map<String, Object> buildTranslationsObject(String jsonFile) {
     List<Object> translationList = loadJSONList(jsonFile);
     Map<String, Object> translations = new HashMap<String, Object>();
@@ -235,6 +248,24 @@ public class ApplicationTest extends BaseTest {
     Assert.assertTrue(app.getMissingTranslationKeysBySources().isEmpty());
   }
 
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testDeprecatedMissingKeysField() {
+    Application app = new Application(loadJSONMap("/application.json"));
+    TranslationKey dummyKey = new TranslationKey(Utils.map("label", "Hello", "description", "Greeting"));
+
+    // subclasses that used the field reach the collector
+    Map<String, TranslationKey> keys = new HashMap<String, TranslationKey>();
+    keys.put(dummyKey.getKey(), dummyKey);
+    app.missingTranslationKeysBySources.put("index", keys);
+    Assert.assertEquals(1, app.getMissingKeyCollector().size());
+    Assert.assertTrue(app.missingTranslationKeysBySources.get("index").containsKey(dummyKey.getKey()));
+    Assert.assertEquals(1, app.missingTranslationKeysBySources.size());
+
+    app.missingTranslationKeysBySources.clear();
+    Assert.assertTrue(app.getMissingKeyCollector().isEmpty());
+  }
+
 
   @Test
   public void testMisc() {
@@ -301,4 +332,215 @@ public class ApplicationTest extends BaseTest {
     );
 
   }
+
+  @Test
+  public void testConcurrentSourcesAndKeys() throws Exception {
+    final Application app = new Application(loadJSONMap("/foody.json"));
+    final Set<Source> sources = Collections.synchronizedSet(new HashSet<Source>());
+
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < 8; t++) {
+      threads.add(new Thread() {
+        public void run() {
+          for (int i = 0; i < 100; i++) {
+            sources.add(app.getSource("concurrent", "en", Utils.map("dry", "true")));
+            app.cacheTranslationKey(new TranslationKey(Utils.map("label", "Key " + i)));
+          }
+        }
+      });
+    }
+    for (Thread thread : threads)
+      thread.start();
+    for (Thread thread : threads)
+      thread.join();
+
+    Assert.assertEquals(1, sources.size());
+    Assert.assertTrue(sources.iterator().next().isLoaded());
+    Assert.assertNotNull(app.getTranslationKey(new TranslationKey(Utils.map("label", "Key 99")).getKey()));
+
+    app.resetTranslations();
+    Assert.assertNull(app.getSourcesByKeys().get("concurrent"));
+    Assert.assertNull(app.getTranslationKey(new TranslationKey(Utils.map("label", "Key 99")).getKey()));
+  }
+
+  private Application backgroundLoadingApplication(final List<HttpFuture<Map<String, Object>>> definitions,
+                                                   final List<HttpFuture<Boolean>> bundles,
+                                                   final List<TranslationBundleHandler> handlers) {
+    HttpClient client = mock(HttpClient.class);
+    when(client.getJSONAsync(Matchers.startsWith("languages/ru"), Matchers.anyMap(), Matchers.anyMap(), Matchers.any(HttpCallback.class))).thenAnswer(new Answer<Object>() {
+      @SuppressWarnings("unchecked")
+      public Object answer(InvocationOnMock invocation) throws Throwable {
+        HttpFuture<Map<String, Object>> future = new AwaitedFuture<Map<String, Object>>((HttpCallback<Map<String, Object>>) invocation.getArguments()[3], definitionAwaited);
+        definitions.add(future);
+        return future;
+      }
+    });
+    when(client.readTranslationBundleAsync(Matchers.anyString(), Matchers.anyMap(), Matchers.anyMap(), Matchers.any(TranslationBundleHandler.class), Matchers.any(HttpCallback.class))).thenAnswer(new Answer<Object>() {
+      @SuppressWarnings("unchecked")
+      public Object answer(InvocationOnMock invocation) throws Throwable {
+        HttpFuture<Boolean> future = new HttpFuture<Boolean>((HttpCallback<Boolean>) invocation.getArguments()[4]);
+        handlers.add((TranslationBundleHandler) invocation.getArguments()[3]);
+        bundles.add(future);
+        return future;
+      }
+    });
+
+    Application app = new Application(Utils.map("key", "background", "default_locale", "en-US"));
+    app.setHttpClient(client);
+    app.addLanguage(Tml.getConfig().getDefaultLanguage());
+    return app;
+  }
+
+  /**
+   * Completes the first language load once a caller waits for it
+   */
+  private Thread completeDefinitionWhenAwaited(final List<HttpFuture<Map<String, Object>>> definitions) {
+    Thread loader = new Thread(new Runnable() {
+      public void run() {
+        try {
+          if (definitionAwaited.await(5, TimeUnit.SECONDS))
+            definitions.get(0).complete(loadJSONMap("/languages/ru.json"));
+        } catch (InterruptedException ex) {
+          // test is over
+        }
+      }
+    });
+    loader.start();
+    return loader;
+  }
+
+  /**
+   * Future that releases a latch when a caller starts waiting for it
+   */
+  private static class AwaitedFuture<T> extends HttpFuture<T> {
+
+    private final CountDownLatch awaited;
+
+    AwaitedFuture(HttpCallback<T> callback, CountDownLatch awaited) {
+      super(callback);
+      this.awaited = awaited;
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+      awaited.countDown();
+      return super.get();
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+      awaited.countDown();
+      return super.get(timeout, unit);
+    }
+  }
+
+  @Test
+  public void testBackgroundLoading() throws Exception {
+    Map<String, Object> loading = Tml.getConfig().getLoading();
+    Tml.getConfig().setLoading(Utils.map("background", true, "deadline", 0));
+    try {
+      List<HttpFuture<Map<String, Object>>> definitions = new ArrayList<HttpFuture<Map<String, Object>>>();
+      List<HttpFuture<Boolean>> bundles = new ArrayList<HttpFuture<Boolean>>();
+      List<TranslationBundleHandler> handlers = new ArrayList<TranslationBundleHandler>();
+      Application app = backgroundLoadingApplication(definitions, bundles, handlers);
+
+      // misses return right away and queue a single load
+      Language russian = app.getLanguage("ru");
+      Assert.assertFalse(russian.hasDefinition());
+      Assert.assertTrue(russian.isLoading());
+      Assert.assertSame(russian, app.getLanguage("ru"));
+      Assert.assertEquals(1, definitions.size());
+
+      Assert.assertEquals("Hello", russian.translate("Hello"));
+      Assert.assertEquals("Hello", russian.translate("Hello"));
+      Assert.assertEquals(1, bundles.size());
+      Assert.assertTrue(app.getSourcesByKeys().get("index").isLoading());
+      Assert.assertTrue(app.getMissingTranslationKeysBySources().isEmpty());
+
+      definitions.get(0).complete(loadJSONMap("/languages/ru.json"));
+      Assert.assertTrue(russian.hasDefinition());
+      Assert.assertFalse(russian.isLoading());
+
+      List<Map<String, Object>> translations = new ArrayList<Map<String, Object>>();
+      translations.add(Utils.map("label", "Привет", "locale", "ru"));
+      handlers.get(0).onTranslationKey(TranslationKey.generateKey("Hello", ""), translations);
+      bundles.get(0).complete(true);
+
+      // later calls see the translations
+      Assert.assertTrue(app.getSourcesByKeys().get("index").isLoaded());
+      Assert.assertEquals("Привет", russian.translate("Hello"));
+      Assert.assertEquals(1, definitions.size());
+      Assert.assertEquals(1, bundles.size());
+    } finally {
+      Tml.getConfig().setLoading(loading);
+    }
+  }
+
+  @Test
+  public void testBackgroundLoadingDeadline() throws Exception {
+    Map<String, Object> loading = Tml.getConfig().getLoading();
+    Tml.getConfig().setLoading(Utils.map("background", true, "deadline", 5000));
+    try {
+      final List<HttpFuture<Map<String, Object>>> definitions = Collections.synchronizedList(new ArrayList<HttpFuture<Map<String, Object>>>());
+      Application app = backgroundLoadingApplication(definitions, new ArrayList<HttpFuture<Boolean>>(), new ArrayList<TranslationBundleHandler>());
+
+      Thread loader = completeDefinitionWhenAwaited(definitions);
+
+      // callers wait up to the deadline for the load
+      Assert.assertTrue(app.getLanguage("ru").hasDefinition());
+      loader.join();
+    } finally {
+      Tml.getConfig().setLoading(loading);
+    }
+  }
+
+  @Test
+  public void testBackgroundSourceLoadRetry() throws Exception {
+    Map<String, Object> loading = Tml.getConfig().getLoading();
+    Tml.getConfig().setLoading(Utils.map("background", true, "deadline", 0));
+    try {
+      List<HttpFuture<Boolean>> bundles = new ArrayList<HttpFuture<Boolean>>();
+      Application app = backgroundLoadingApplication(new ArrayList<HttpFuture<Map<String, Object>>>(), bundles, new ArrayList<TranslationBundleHandler>());
+
+      Source source = app.getSource("index", "ru", null);
+      Assert.assertTrue(source.isLoading());
+      bundles.get(0).fail(new IOException("offline"));
+      Assert.assertFalse(source.isLoading());
+      Assert.assertFalse(source.isLoaded());
+
+      // a failed load is started again
+      Assert.assertSame(source, app.getSource("index", "ru", null));
+      Assert.assertEquals(2, bundles.size());
+      bundles.get(1).complete(true);
+      Assert.assertTrue(source.isLoaded());
+
+      Assert.assertSame(source, app.getSource("index", "ru", null));
+      Assert.assertEquals(2, bundles.size());
+
+      // dry loads do not go to the service
+      Source dry = app.getSource("dry", "ru", Utils.map("dry", "true"));
+      Assert.assertTrue(dry.isLoaded());
+      Assert.assertEquals(2, bundles.size());
+    } finally {
+      Tml.getConfig().setLoading(loading);
+    }
+  }
+
+  @Test
+  public void testBlockingBackgroundLoad() throws Exception {
+    Map<String, Object> loading = Tml.getConfig().getLoading();
+    Tml.getConfig().setLoading(Utils.map("background", true, "deadline", 0));
+    try {
+      final List<HttpFuture<Map<String, Object>>> definitions = Collections.synchronizedList(new ArrayList<HttpFuture<Map<String, Object>>>());
+      Application app = backgroundLoadingApplication(definitions, new ArrayList<HttpFuture<Boolean>>(), new ArrayList<TranslationBundleHandler>());
+
+      Thread loader = completeDefinitionWhenAwaited(definitions);
+
+      // preloading waits for the load even without a deadline
+      Assert.assertTrue(app.loadLanguage("ru").hasDefinition());
+      loader.join();
+    } finally {
+      Tml.getConfig().setLoading(loading);
+    }
+  }
 }
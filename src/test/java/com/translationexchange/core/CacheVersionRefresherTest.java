@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core;
+
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.translationexchange.core.cache.CacheVersion;
+import com.translationexchange.core.cache.MemoryCache;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class CacheVersionRefresherTest {
+
+    private MemoryCache cache;
+    private Application application;
+    private Application next;
+    private Session session;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new MemoryCache(Utils.map());
+        Tml.setCache(cache);
+
+        CacheVersion current = new CacheVersion();
+        current.setVersion("1");
+        current.setTimestamp(0);
+        cache.setCacheVersion(current);
+
+        application = BaseTest.mockedApplication("application.json");
+        session = new Session(application, Utils.map("locale", "en"));
+        next = BaseTest.mockedApplication("application.json");
+    }
+
+    @After
+    public void tearDown() {
+        Tml.setCache(null);
+    }
+
+    private CacheVersionRefresher refresher() {
+        return new CacheVersionRefresher(session) {
+            protected Application createApplication(Application current) {
+                return next;
+            }
+        };
+    }
+
+    private void publish(String version) throws Exception {
+        when(application.getHttpClient().getFromCDN(eq("version"), anyMap())).thenReturn("{\"version\":\"" + version + "\"}");
+    }
+
+    @Test
+    public void testSwitchesToNewRelease() throws Exception {
+        publish("2");
+        String locale = session.getCurrentLanguage().getLocale();
+        Assert.assertTrue(refresher().refresh());
+
+        Assert.assertSame(next, session.getApplication());
+        Assert.assertSame(session, next.getSession());
+        Assert.assertEquals(locale, session.getCurrentLanguage().getLocale());
+        Assert.assertSame(next.getLanguage(locale), session.getCurrentLanguage());
+
+        Assert.assertEquals("2", cache.verifyCacheVersion(next).getVersion());
+        Assert.assertFalse(cache.verifyCacheVersion(next).isExpired());
+        Assert.assertEquals("2", next.getCacheVersion().getVersion());
+        Assert.assertEquals("1", application.getCacheVersion().getVersion());
+
+        verify(next.getHttpClient()).getJSONMap(eq("projects/" + next.getKey() + "/definition"), anyMap(), anyMap());
+    }
+
+    @Test
+    public void testKeepsApplicationOfSameRelease() throws Exception {
+        publish("1");
+        Assert.assertFalse(refresher().refresh());
+
+        Assert.assertSame(application, session.getApplication());
+        Assert.assertNull(application.getCacheVersion());
+        Assert.assertEquals("1", cache.verifyCacheVersion(application).getVersion());
+        Assert.assertFalse(cache.verifyCacheVersion(application).isExpired());
+    }
+
+    @Test
+    public void testSkipsVersionThatHasNotExpired() throws Exception {
+        cache.verifyCacheVersion(application).markAsUpdated();
+        Assert.assertFalse(refresher().refresh());
+        verify(application.getHttpClient(), never()).getFromCDN(anyString(), anyMap());
+    }
+
+    @Test
+    public void testRunsSingleRefreshWithoutBlockingReaders() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(application.getHttpClient().getFromCDN(eq("version"), anyMap())).thenAnswer(new Answer<String>() {
+            public String answer(InvocationOnMock invocation) throws Throwable {
+                started.countDown();
+                release.await();
+                return "{\"version\":\"2\"}";
+            }
+        });
+
+        final CacheVersionRefresher refresher = refresher();
+        final AtomicBoolean switched = new AtomicBoolean();
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    switched.set(refresher.refresh());
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        });
+        thread.start();
+        started.await();
+
+        Assert.assertTrue(refresher.isRunning());
+        Assert.assertFalse(refresher.refresh());
+        Assert.assertEquals("1", cache.verifyCacheVersion(application).getVersion());
+        Assert.assertSame(application, session.getApplication());
+
+        release.countDown();
+        thread.join();
+
+        Assert.assertTrue(switched.get());
+        Assert.assertSame(next, session.getApplication());
+        verify(application.getHttpClient(), times(1)).getFromCDN(eq("version"), anyMap());
+    }
+}
@@ -36,6 +36,10 @@ package com.translationexchange.core;
 
 import com.translationexchange.core.languages.Language;
 import com.translationexchange.core.rulesengine.Variable;
+import com.translationexchange.core.tokenizers.DataTokenizer;
+import com.translationexchange.core.tokenizers.HtmlTokenizer;
+import com.translationexchange.core.tokenizers.ReflectiveTokenizerFactory;
+import com.translationexchange.core.tokenizers.TokenizerFactory;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -144,4 +148,24 @@ public class ConfigurationTest {
     Assert.assertNotNull(defaultLanguage.getLanguageCaseByKeyword("ord"));
   }
 
+  @Test
+  public void testTokenizerFactories() throws Exception {
+    Configuration config = new Configuration();
+
+    Assert.assertSame(DataTokenizer.FACTORY, config.getTokenizerFactory("data"));
+    Assert.assertSame(HtmlTokenizer.FACTORY, config.getTokenizerFactory("html"));
+    Assert.assertNull(config.getTokenizerFactory("unknown"));
+
+    config.addTokenizerClass("custom", "com.translationexchange.core.tokenizers.DataTokenizer");
+    TokenizerFactory factory = config.getTokenizerFactory("custom");
+    Assert.assertTrue(factory instanceof ReflectiveTokenizerFactory);
+    Assert.assertSame(factory, config.getTokenizerFactory("custom"));
+    Assert.assertTrue(factory.isApplicable("Hello {user}"));
+    Assert.assertEquals("Hello Michael", factory.createTokenizer("Hello {user}", null).substitute(Utils.map("user", "Michael")));
+
+    config.addTokenizerClass("custom", HtmlTokenizer.FACTORY);
+    Assert.assertSame(HtmlTokenizer.FACTORY, config.getTokenizerFactory("custom"));
+    Assert.assertNull(config.getTokenizerClass("custom"));
+  }
+
 }
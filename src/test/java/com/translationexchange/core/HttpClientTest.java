@@ -1,18 +1,38 @@
 package com.translationexchange.core;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
 import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+import com.translationexchange.core.cache.CacheEntry;
+import com.translationexchange.core.cache.CacheVersion;
+import com.translationexchange.core.cache.MemoryCache;
+import com.translationexchange.core.metrics.MemoryMetrics;
+import com.translationexchange.core.metrics.Metrics;
 
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -79,6 +99,410 @@ public class HttpClientTest {
         final URL url = server.url(requestString).url();
         return (HttpURLConnection) url.openConnection();
     }
-    
-    
+
+    @Test
+    public void testCompressionRoundTrip() throws IOException {
+        String text = "{\"label\": \"Привет\",\n \"count\": 1}\n";
+        Assert.assertEquals(text, HttpClient.decompress(HttpClient.compress(text).getBytes("ISO-8859-1")));
+    }
+
+    @Test
+    public void testStreamingResponses() throws Exception {
+        String json = "{\"results\": {\"label\": \"Привет\"},\n \"total\": 1}";
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+        gzip.write(json.getBytes("UTF-8"));
+        gzip.close();
+
+        MockWebServer gzipServer = new MockWebServer();
+        gzipServer.enqueue(new MockResponse()
+                .addHeader("Content-Encoding", "gzip")
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(new Buffer().write(bytes.toByteArray())));
+        gzipServer.enqueue(new MockResponse()
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(json));
+        gzipServer.start();
+
+        try {
+            HttpClient client = new HttpClient(new Application());
+            Assert.assertEquals(json, client.get(gzipServer.url("/compressed").url(), Utils.map()));
+
+            Map<String, Object> result = client.processJSONResponse(
+                    client.openReader(gzipServer.url("/plain").url(), Utils.map()), Utils.map());
+            Assert.assertEquals(Utils.map("label", "Привет"), result.get("results"));
+        } finally {
+            gzipServer.shutdown();
+        }
+    }
+
+    @Test
+    public void testCoalescesConcurrentCacheMisses() throws Exception {
+        final String json = BaseTest.loadResource("/mockwebserver/project/definition.json");
+        final CountDownLatch missed = new CountDownLatch(8);
+        MockWebServer cdnServer = new MockWebServer();
+        cdnServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                // keep the request open until every caller has missed the cache
+                missed.await(5, TimeUnit.SECONDS);
+                return new MockResponse()
+                        .addHeader("Content-Type", "application/json; charset=utf-8")
+                        .setBody(json);
+            }
+        });
+        cdnServer.start();
+
+        MemoryCache cache = new MemoryCache(Utils.map());
+        CacheVersion version = new CacheVersion();
+        version.setVersion("1");
+        version.markAsUpdated();
+        cache.setCacheVersion(version);
+        Tml.setCache(cache);
+
+        try {
+            String cdnHost = cdnServer.url("/").toString();
+            final HttpClient client = new HttpClient(new Application(Utils.map(
+                    "key", "coalesced", "cdn_host", cdnHost.substring(0, cdnHost.length() - 1)))) {
+                @Override
+                protected <T> T singleFlight(String key, Callable<T> loader) throws Exception {
+                    missed.countDown();
+                    return super.singleFlight(key, loader);
+                }
+            };
+
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Map<String, Object>> results = Collections.synchronizedList(new ArrayList<Map<String, Object>>());
+            List<Thread> threads = new ArrayList<Thread>();
+            for (int i = 0; i < 8; i++) {
+                Thread thread = new Thread(new Runnable() {
+                    public void run() {
+                        try {
+                            start.await();
+                            results.add(client.getJSON("projects/coalesced/definition", Utils.map(), Utils.map("cache_key", "application")));
+                        } catch (Exception ex) {
+                            throw new RuntimeException(ex);
+                        }
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            for (Thread thread : threads)
+                thread.join();
+
+            Assert.assertEquals(1, cdnServer.getRequestCount());
+            Assert.assertEquals("/coalesced/1/application.json.gz", cdnServer.takeRequest().getPath());
+            Assert.assertEquals(8, results.size());
+            for (Map<String, Object> result : results)
+                Assert.assertEquals(Utils.parseJSON(json), result);
+            Assert.assertEquals(json, cache.fetch("application", Utils.map(CacheVersion.VERSION_KEY, "1")));
+        } finally {
+            Tml.setCache(null);
+            cdnServer.shutdown();
+        }
+    }
+
+    @Test
+    public void testAsyncRequests() throws Exception {
+        MockWebServer asyncServer = new MockWebServer();
+        asyncServer.enqueue(new MockResponse().setBody("Hello"));
+        asyncServer.start();
+
+        try {
+            final AtomicReference<String> received = new AtomicReference<String>();
+            HttpClient client = new HttpClient(new Application());
+            Future<String> future = client.getAsync(asyncServer.url("/hello").url(), Utils.map(), new HttpCallback<String>() {
+                public void onSuccess(String result) {
+                    received.set(result);
+                }
+
+                public void onFailure(Exception ex) {
+                    received.set("failed");
+                }
+            });
+
+            Assert.assertEquals("Hello", future.get(5, TimeUnit.SECONDS));
+            Assert.assertEquals("Hello", received.get());
+            Assert.assertTrue(future.isDone());
+        } finally {
+            asyncServer.shutdown();
+        }
+    }
+
+    @Test
+    public void testAsyncRequestsPerHostLimit() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch received = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        MockWebServer asyncServer = new MockWebServer();
+        asyncServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                int count = running.incrementAndGet();
+                synchronized (maxRunning) {
+                    maxRunning.set(Math.max(maxRunning.get(), count));
+                }
+                received.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                running.decrementAndGet();
+                return new MockResponse().setBody("ok");
+            }
+        });
+        asyncServer.start();
+
+        Map<String, Object> http = Tml.getConfig().getHttp();
+        Tml.getConfig().setHttp(Utils.map("max_requests", 10, "max_requests_per_host", 2));
+        try {
+            HttpClient client = new HttpClient(new Application());
+            List<Future<String>> futures = new ArrayList<Future<String>>();
+            for (int i = 0; i < 6; i++)
+                futures.add(client.getAsync(asyncServer.url("/request" + i).url(), Utils.map(), null));
+
+            // the first two requests are held by the server, the others wait in the client
+            Assert.assertTrue(received.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(2, client.getOkHttpClient().getDispatcher().getRunningCallCount());
+            Assert.assertEquals(4, client.getOkHttpClient().getDispatcher().getQueuedCallCount());
+            release.countDown();
+
+            for (Future<String> future : futures)
+                Assert.assertEquals("ok", future.get(5, TimeUnit.SECONDS));
+            Assert.assertEquals(6, asyncServer.getRequestCount());
+            Assert.assertTrue(maxRunning.get() <= 2);
+        } finally {
+            release.countDown();
+            Tml.getConfig().setHttp(http);
+            asyncServer.shutdown();
+        }
+    }
+
+    @Test
+    public void testAsyncCancellation() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch received = new CountDownLatch(1);
+        MockWebServer asyncServer = new MockWebServer();
+        asyncServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                received.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return new MockResponse().setBody("late");
+            }
+        });
+        asyncServer.start();
+
+        try {
+            final AtomicInteger callbacks = new AtomicInteger();
+            HttpClient client = new HttpClient(new Application());
+            Future<String> future = client.getAsync(asyncServer.url("/slow").url(), Utils.map(), new HttpCallback<String>() {
+                public void onSuccess(String result) {
+                    callbacks.incrementAndGet();
+                }
+
+                public void onFailure(Exception ex) {
+                    callbacks.incrementAndGet();
+                }
+            });
+
+            Assert.assertTrue(received.await(5, TimeUnit.SECONDS));
+            Assert.assertTrue(future.cancel(true));
+            Assert.assertTrue(future.isCancelled());
+            Assert.assertFalse(future.cancel(true));
+            try {
+                future.get();
+                Assert.fail("Cancelled request must not return a result");
+            } catch (CancellationException ex) {
+                // expected
+            }
+
+            release.countDown();
+            awaitAsyncCalls(client);
+            Assert.assertEquals(0, callbacks.get());
+        } finally {
+            release.countDown();
+            asyncServer.shutdown();
+        }
+    }
+
+    @Test
+    public void testAsyncJSONFromCDN() throws Exception {
+        String json = BaseTest.loadResource("/mockwebserver/project/definition.json");
+        MockWebServer cdnServer = new MockWebServer();
+        cdnServer.enqueue(new MockResponse()
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(json));
+        cdnServer.start();
+
+        MemoryCache cache = new MemoryCache(Utils.map());
+        CacheVersion version = new CacheVersion();
+        version.setVersion("1");
+        version.markAsUpdated();
+        cache.setCacheVersion(version);
+        Tml.setCache(cache);
+
+        try {
+            String cdnHost = cdnServer.url("/").toString();
+            HttpClient client = new HttpClient(new Application(Utils.map(
+                    "key", "async", "cdn_host", cdnHost.substring(0, cdnHost.length() - 1))));
+
+            Future<Map<String, Object>> future = client.getJSONAsync("projects/async/definition", Utils.map(), Utils.map("cache_key", "application"), null);
+            Assert.assertEquals(Utils.parseJSON(json), future.get(5, TimeUnit.SECONDS));
+            Assert.assertEquals("/async/1/application.json.gz", cdnServer.takeRequest().getPath());
+
+            // cached responses complete right away
+            future = client.getJSONAsync("projects/async/definition", Utils.map(), Utils.map("cache_key", "application"), null);
+            Assert.assertTrue(future.isDone());
+            Assert.assertEquals(Utils.parseJSON(json), future.get());
+            Assert.assertEquals(1, cdnServer.getRequestCount());
+        } finally {
+            Tml.setCache(null);
+            cdnServer.shutdown();
+        }
+    }
+
+    private static void awaitAsyncCalls(HttpClient client) throws InterruptedException {
+        ExecutorService executor = client.getOkHttpClient().getDispatcher().getExecutorService();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    private HttpClient cdnClient(MockWebServer cdnServer, MemoryCache cache) {
+        CacheVersion version = new CacheVersion();
+        version.setVersion("1");
+        version.markAsUpdated();
+        cache.setCacheVersion(version);
+        Tml.setCache(cache);
+
+        String cdnHost = cdnServer.url("/").toString();
+        return new HttpClient(new Application(Utils.map(
+                "key", "negative", "cdn_host", cdnHost.substring(0, cdnHost.length() - 1))));
+    }
+
+    @Test
+    public void testCachesMissingFiles() throws Exception {
+        MockWebServer cdnServer = new MockWebServer();
+        cdnServer.enqueue(new MockResponse().setResponseCode(404).setBody("<?xml version=\"1.0\"?><Error>NoSuchKey</Error>"));
+        cdnServer.start();
+
+        MemoryCache cache = new MemoryCache(Utils.map());
+        try {
+            HttpClient client = cdnClient(cdnServer, cache);
+            Map<String, Object> options = Utils.map("cache_key", "en/sources/missing");
+
+            Assert.assertTrue(client.getJSON("sources/missing", Utils.map(), options).isEmpty());
+            Assert.assertTrue(client.getJSON("sources/missing", Utils.map(), options).isEmpty());
+            Assert.assertEquals(1, cdnServer.getRequestCount());
+
+            CacheEntry entry = CacheEntry.fromCache(cache.fetch("en/sources/missing", options));
+            Assert.assertEquals(CacheEntry.NOT_FOUND, entry.getStatus());
+            Assert.assertFalse(entry.isStale());
+            Assert.assertEquals(3600 * 1000, entry.getExpiresAt() - entry.getStoredAt());
+        } finally {
+            Tml.setCache(null);
+            cdnServer.shutdown();
+        }
+    }
+
+    @Test
+    public void testRecordsRequestMetrics() throws Exception {
+        MockWebServer cdnServer = new MockWebServer();
+        cdnServer.enqueue(new MockResponse().setBody("{\"results\": {}}"));
+        cdnServer.start();
+
+        MemoryMetrics metrics = new MemoryMetrics();
+        Tml.getConfig().setMetrics(metrics);
+        MemoryCache cache = new MemoryCache(Utils.map());
+        try {
+            HttpClient client = cdnClient(cdnServer, cache);
+            client.getJSON("sources/index", Utils.map(), Utils.map("cache_key", "en/sources/index"));
+
+            Assert.assertEquals(1, metrics.getRequestStats(Metrics.REQUEST_CDN).getRequestCount());
+            Assert.assertEquals(15, metrics.getRequestStats(Metrics.REQUEST_CDN).getBytes());
+            Assert.assertNull(metrics.getRequestStats(Metrics.REQUEST_API));
+            // the single flight checks the cache once more before going to the CDN
+            Assert.assertEquals(2, metrics.getCacheStats(Metrics.CACHE_TIER_MEMORY, Metrics.KEY_TYPE_SOURCE).getMissCount());
+
+            client.getJSON("sources/index", Utils.map(), Utils.map("cache_key", "en/sources/index"));
+            Assert.assertEquals(1, metrics.getCacheStats(Metrics.CACHE_TIER_MEMORY, Metrics.KEY_TYPE_SOURCE).getHitCount());
+            Assert.assertEquals(1, metrics.getRequestStats(Metrics.REQUEST_CDN).getRequestCount());
+        } finally {
+            Tml.getConfig().setMetrics((Metrics) null);
+            Tml.setCache(null);
+            cdnServer.shutdown();
+        }
+    }
+
+    @Test
+    public void testCachesOutagesBriefly() throws Exception {
+        MockWebServer cdnServer = new MockWebServer();
+        cdnServer.enqueue(new MockResponse().setResponseCode(503));
+        cdnServer.start();
+
+        Map<String, Object> cacheConfig = Tml.getConfig().getCache();
+        Tml.getConfig().setCache(Utils.map("enabled", true, "unavailable_ttl", 5));
+        MemoryCache cache = new MemoryCache(Utils.map());
+        try {
+            HttpClient client = cdnClient(cdnServer, cache);
+            TranslationBundleHandler handler = new TranslationBundleHandler() {
+                public void onTranslationKey(String key, List<Map<String, Object>> translations) {
+                    Assert.fail("An unavailable bundle has no keys");
+                }
+            };
+
+            Map<String, Object> options = Utils.map("cache_key", "ru/translations");
+            Assert.assertTrue(client.readTranslationBundle("projects/negative/translations", Utils.map(), options, handler));
+            Assert.assertTrue(client.readTranslationBundle("projects/negative/translations", Utils.map(), options, handler));
+            Assert.assertEquals(1, cdnServer.getRequestCount());
+
+            CacheEntry entry = CacheEntry.fromCache(cache.fetch("ru/translations", options));
+            Assert.assertEquals(CacheEntry.UNAVAILABLE, entry.getStatus());
+            Assert.assertEquals(5000, entry.getExpiresAt() - entry.getStoredAt());
+        } finally {
+            Tml.getConfig().setCache(cacheConfig);
+            Tml.setCache(null);
+            cdnServer.shutdown();
+        }
+    }
+
+    @Test
+    public void testRevalidatesStaleEntriesInTheBackground() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        String json = BaseTest.loadResource("/mockwebserver/project/definition.json");
+        final MockResponse definition = new MockResponse()
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(json);
+        MockWebServer cdnServer = new MockWebServer();
+        cdnServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                release.await(5, TimeUnit.SECONDS);
+                return definition;
+            }
+        });
+        cdnServer.start();
+
+        MemoryCache cache = new MemoryCache(Utils.map());
+        try {
+            HttpClient client = cdnClient(cdnServer, cache);
+            Map<String, Object> options = Utils.map("cache_key", "application");
+            cache.store("application", new CacheEntry(CacheEntry.UNAVAILABLE, 0, 1).toCache(), Utils.map(CacheVersion.VERSION_KEY, "1"));
+
+            // stale entries are served right away, while a single request revalidates them
+            Assert.assertTrue(client.getJSON("projects/negative/definition", Utils.map(), options).isEmpty());
+            Assert.assertTrue(client.getJSON("projects/negative/definition", Utils.map(), options).isEmpty());
+            release.countDown();
+
+            Assert.assertNotNull(cdnServer.takeRequest(5, TimeUnit.SECONDS));
+            awaitAsyncCalls(client);
+            Assert.assertEquals(Utils.parseJSON(json), client.getJSON("projects/negative/definition", Utils.map(), options));
+            Assert.assertEquals(1, cdnServer.getRequestCount());
+        } finally {
+            release.countDown();
+            Tml.setCache(null);
+            cdnServer.shutdown();
+        }
+    }
 }
@@ -31,10 +31,15 @@
 
 package com.translationexchange.core;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
 import org.junit.Test;
 
 import com.translationexchange.core.languages.Language;
 import com.translationexchange.core.languages.LanguageContext;
+import com.translationexchange.core.languages.LanguageContextRule;
 
 /**
  * Created by michael on 3/15/14.
@@ -56,4 +61,45 @@ public class LanguageContextTest extends BaseTest {
         context.setVariableNames(null);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testMemoizedRuleDecisions() {
+        Language russian = new Language(loadJSONMap("/languages/ru.json"));
+        LanguageContext number = russian.getContextByKeyword("number");
+
+        for (int n = 0; n < 2 * LanguageContext.NUMBER_TABLE_SIZE; n++) {
+            Map<String, Object> vars = new HashMap<String, Object>();
+            vars.put("@n", n);
+            LanguageContextRule expected = uncachedMatch(number, vars);
+            Assert.assertSame(expected, number.findMatchingRule(n));
+            Assert.assertSame(expected, number.findMatchingRule(n));
+            Assert.assertSame(expected, number.findMatchingRule((long) n));
+        }
+
+        Assert.assertEquals("one", number.findMatchingRule(21).getKeyword());
+        Assert.assertEquals("few", number.findMatchingRule(1023).getKeyword());
+        Assert.assertEquals("other", number.findMatchingRule(11).getKeyword());
+
+        LanguageContext gender = russian.getContextByKeyword("gender");
+        Assert.assertEquals("female", gender.findMatchingRule(Utils.map("gender", "female")).getKeyword());
+        Assert.assertEquals("female", gender.findMatchingRule(Utils.map("gender", "female")).getKeyword());
+        Assert.assertEquals("other", gender.findMatchingRule(Utils.map("gender", "unknown")).getKeyword());
+
+        LanguageContextRule rule = new LanguageContextRule();
+        rule.setKeyword("many");
+        rule.setConditions("(> @n 0)");
+        number.setRules(null);
+        number.setFallbackRule(null);
+        number.addRule(rule);
+        Assert.assertSame(rule, number.findMatchingRule(21));
+        Assert.assertNull(number.findMatchingRule(0));
+        Assert.assertNull(number.findMatchingRule(0));
+    }
+
+    private LanguageContextRule uncachedMatch(LanguageContext context, Map<String, Object> vars) {
+        for (LanguageContextRule rule : context.getRules().values()) {
+            if (!rule.isFallback() && rule.evaluate(vars))
+                return rule;
+        }
+        return context.getFallbackRule();
+    }
+}
@@ -31,10 +31,14 @@
 
 package com.translationexchange.core;
 
+import java.util.Collections;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import com.translationexchange.core.languages.Language;
+import com.translationexchange.core.metrics.MemoryMetrics;
+import com.translationexchange.core.metrics.Metrics;
 
 /**
  * Created by michael on 3/15/14.
@@ -68,5 +72,34 @@ public class LanguageTest extends BaseTest {
         );
     	
     }    
-}
 
+    @Test
+    public void testTranslationMetrics() {
+        Application application = new Application(loadJSONMap("/foody.json"));
+        Language russian = new Language(loadJSONMap("/languages/ru.json"));
+        application.addLanguage(russian);
+
+        Source source = new Source(Utils.map("application", application, "key", "index", "locale", "ru"));
+        source.updateTranslationKeys(Utils.map("results", Utils.map(
+                TranslationKey.generateKey("Hello World", null), Collections.singletonList(Utils.map("label", "Привет Мир")),
+                TranslationKey.generateKey("Goodbye", null), Collections.emptyList())));
+        source.setLoaded(true);
+        application.addSource(source);
+
+        MemoryMetrics metrics = new MemoryMetrics();
+        Tml.getConfig().setMetrics(metrics);
+        try {
+            Assert.assertEquals("Привет Мир", russian.translate("Hello World", null, null, null));
+            Assert.assertEquals("Goodbye", russian.translate("Goodbye", null, null, null));
+            Assert.assertEquals("Welcome", russian.translate("Welcome", null, null, null));
+
+            MemoryMetrics.TranslationStats stats = metrics.getTranslationStats("ru");
+            Assert.assertEquals(1, stats.getHitCount());
+            Assert.assertEquals(1, stats.getFallbackCount());
+            Assert.assertEquals(1, stats.getMissingCount());
+            Assert.assertEquals(3, stats.getLatency().getCount());
+        } finally {
+            Tml.getConfig().setMetrics((Metrics) null);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2015 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.translationexchange.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MissingKeyCollectorTest {
+
+    private TranslationKey key(String label) {
+        return new TranslationKey(Utils.map("label", label));
+    }
+
+    @Test
+    public void testCollectingAndDraining() {
+        MissingKeyCollector collector = new MissingKeyCollector();
+        Assert.assertTrue(collector.add("index", key("Hello")));
+        Assert.assertFalse(collector.add("index", key("Hello")));
+        Assert.assertTrue(collector.add("navigation", key("Hello")));
+        Assert.assertTrue(collector.add("navigation", key("World")));
+
+        Assert.assertEquals(3, collector.size());
+        Assert.assertEquals(1, collector.getDuplicateCount());
+        Assert.assertEquals(2, collector.snapshot().get("navigation").size());
+        Assert.assertEquals(3, collector.size());
+
+        Map<String, List<TranslationKey>> drained = collector.drain();
+        Assert.assertEquals(new HashSet<String>(Utils.buildStringList("index", "navigation")), drained.keySet());
+        Assert.assertEquals(2, drained.get("navigation").size());
+        Assert.assertTrue(collector.isEmpty());
+        Assert.assertEquals(3, collector.getDrainedCount());
+        Assert.assertTrue(collector.drain().isEmpty());
+    }
+
+    @Test
+    public void testOverflowPolicies() {
+        MissingKeyCollector collector = new MissingKeyCollector(2, MissingKeyCollector.OverflowPolicy.DROP_NEW);
+        collector.add("index", key("One"));
+        collector.add("index", key("Two"));
+        Assert.assertFalse(collector.add("index", key("Three")));
+        Assert.assertEquals(2, collector.size());
+        Assert.assertEquals(1, collector.getDroppedCount());
+        Assert.assertFalse(collector.snapshot().get("index").containsKey(key("Three").getKey()));
+
+        collector = new MissingKeyCollector(2, MissingKeyCollector.OverflowPolicy.DROP_COLLECTED);
+        collector.add("index", key("One"));
+        collector.add("index", key("Two"));
+        Assert.assertTrue(collector.add("index", key("Three")));
+        Assert.assertEquals(1, collector.size());
+        Assert.assertEquals(2, collector.getDroppedCount());
+        Assert.assertTrue(collector.snapshot().get("index").containsKey(key("Three").getKey()));
+    }
+
+    @Test
+    public void testConcurrentCollectingAndDraining() throws Exception {
+        final MissingKeyCollector collector = new MissingKeyCollector(100000, MissingKeyCollector.OverflowPolicy.DROP_NEW);
+        final Set<String> drained = Collections.synchronizedSet(new HashSet<String>());
+        final AtomicBoolean done = new AtomicBoolean();
+
+        Thread drainer = new Thread() {
+            public void run() {
+                while (!done.get()) {
+                    for (List<TranslationKey> keys : collector.drain().values()) {
+                        for (TranslationKey key : keys)
+                            drained.add(key.getLabel());
+                    }
+                }
+            }
+        };
+        drainer.start();
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final int thread = t;
+            threads.add(new Thread() {
+                public void run() {
+                    for (int i = 0; i < 500; i++)
+                        collector.add("index", key("Key " + thread + "-" + i));
+                }
+            });
+        }
+        for (Thread thread : threads)
+            thread.start();
+        for (Thread thread : threads)
+            thread.join();
+        done.set(true);
+        drainer.join();
+
+        for (List<TranslationKey> keys : collector.drain().values()) {
+            for (TranslationKey key : keys)
+                drained.add(key.getLabel());
+        }
+
+        Assert.assertEquals(2000, drained.size());
+        Assert.assertEquals(2000, collector.getRegisteredCount());
+        Assert.assertEquals(2000, collector.getDrainedCount());
+        Assert.assertEquals(0, collector.size());
+    }
+}
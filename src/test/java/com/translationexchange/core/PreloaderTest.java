@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.translationexchange.core.languages.Language;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class PreloaderTest {
+
+    private Application application;
+    private HttpClient client;
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private CountDownLatch overlapped = new CountDownLatch(0);
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        client = mock(HttpClient.class);
+        application = new Application(Utils.map("key", "preload", "default_locale", "en-US"));
+        application.setHttpClient(client);
+
+        for (String locale : Arrays.asList("en-US", "ru", "es")) {
+            when(client.getJSONMap(eq("languages/" + locale + "/definition"), anyMap(), anyMap()))
+                    .thenReturn(BaseTest.loadJSONMap("/languages/" + locale + ".json"));
+        }
+
+        when(client.readTranslationBundle(anyString(), anyMap(), anyMap(), any(TranslationBundleHandler.class))).thenAnswer(new Answer<Boolean>() {
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                int count = running.incrementAndGet();
+                synchronized (maxRunning) {
+                    maxRunning.set(Math.max(maxRunning.get(), count));
+                }
+                // reads wait for each other until the latch opens
+                overlapped.countDown();
+                overlapped.await(5, TimeUnit.SECONDS);
+                running.decrementAndGet();
+
+                String locale = (String) ((Map<String, Object>) invocation.getArguments()[1]).get("locale");
+                List<Map<String, Object>> translations = new ArrayList<Map<String, Object>>();
+                translations.add(Utils.map("label", "Hello " + locale, "locale", locale));
+                ((TranslationBundleHandler) invocation.getArguments()[3]).onTranslationKey("greeting", translations);
+                return true;
+            }
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPreloadsLanguagesTranslationsAndSources() throws Exception {
+        final List<Integer> progress = new ArrayList<Integer>();
+        // the first two reads run at the same time
+        overlapped = new CountDownLatch(2);
+        Preloader.Report report = new Preloader(application)
+                .setConcurrency(2)
+                .setListener(new Preloader.Listener() {
+                    public void onProgress(Preloader.Task task, int completed, int total) {
+                        Assert.assertEquals(7, total);
+                        progress.add(completed);
+                    }
+                })
+                .preload(Arrays.asList("en-US", "ru", "es"), Arrays.asList("index"));
+
+        Assert.assertEquals(7, report.getTaskCount());
+        Assert.assertEquals(7, report.getCompletedCount());
+        Assert.assertEquals(0, report.getFailureCount());
+        Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7), progress);
+        Assert.assertTrue(report.getTimings().containsKey("elapsed"));
+        Assert.assertEquals(2, maxRunning.get());
+
+        // translations of every locale end up on the same key
+        TranslationKey key = application.getTranslationKey("greeting");
+        Assert.assertEquals("Hello ru", key.getTranslations("ru").get(0).getLabel());
+        Assert.assertEquals("Hello es", key.getTranslations("es").get(0).getLabel());
+
+        // the first request finds everything resident
+        Assert.assertTrue(application.getLanguage("ru").hasDefinition());
+        Source source = application.getSource("index", "en-US", null);
+        Assert.assertTrue(source.isLoaded());
+        Assert.assertEquals("en-US", source.getLocale());
+        verify(client, times(1)).getJSONMap(eq("languages/ru/definition"), anyMap(), anyMap());
+        verify(client, times(1)).readTranslationBundle(startsWith("sources/"), anyMap(), anyMap(), any(TranslationBundleHandler.class));
+    }
+
+    @Test
+    public void testReportsFailedLoads() throws Exception {
+        Preloader.Report report = application.preload(Arrays.asList("ru", "xx"), new ArrayList<String>(), null);
+
+        Assert.assertEquals(4, report.getTaskCount());
+        Assert.assertEquals(1, report.getFailureCount());
+        for (Preloader.Task task : report.getTasks()) {
+            if (!task.isSuccessful()) {
+                Assert.assertEquals(Preloader.Task.LANGUAGE, task.getType());
+                Assert.assertEquals("xx", task.getName());
+            }
+        }
+    }
+
+    @Test
+    public void testPreloadsAllLanguagesByDefault() throws Exception {
+        application.addLanguage(new Language(Utils.map("locale", "en-US")));
+        application.addLanguage(new Language(Utils.map("locale", "ru")));
+        application.addSource(new Source(Utils.map("key", "index")));
+
+        Preloader.Report report = application.preload();
+
+        Assert.assertEquals(5, report.getTaskCount());
+        Assert.assertEquals(0, report.getFailureCount());
+        Source source = application.getSourcesByKeys().get("index");
+        Assert.assertTrue(source.isLoaded());
+        Assert.assertSame(application, source.getApplication());
+        Assert.assertEquals("en-US", source.getLocale());
+    }
+}
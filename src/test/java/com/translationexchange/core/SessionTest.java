@@ -1,7 +1,11 @@
 package com.translationexchange.core;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
+import java.util.Map;
 import java.util.Observable;
 
 import org.junit.Assert;
@@ -152,6 +156,52 @@ public class SessionTest extends BaseTest {
                 session.translateStyledString("{user} phone is dialing.", Utils.map("user", new User("Anna", "female")), Utils.map()));
     }
     
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRequestSessions() {
+        Session session = new Session(Utils.map(
+                "key", "application.json",
+                "source", "index",
+                "locale", "en",
+                "applicationClass", "com.translationexchange.core.dummy.DummyApplication"));
+        Application application = spy(session.getApplication());
+
+        Session first = new Session(application, Utils.map("locale", "en", "source", "navigation"));
+        Session second = new Session(application, null);
+        verify(application, never()).load(org.mockito.Matchers.any(Map.class));
+
+        Assert.assertSame(application, first.getApplication());
+        Assert.assertSame(application, second.getApplication());
+        Assert.assertSame(session, session.getApplication().getSession());
+        Assert.assertEquals("en", first.getCurrentLanguage().getLocale());
+        Assert.assertEquals("navigation", first.getCurrentSource());
+        Assert.assertEquals("", second.getCurrentSource());
+
+        first.beginBlockWithOptions(Utils.map("source", "left_panel"));
+        Assert.assertEquals(Utils.buildList("navigation", "left_panel"), first.getSourcePath());
+        Assert.assertEquals(Utils.map(), second.getBlockOptions());
+
+        Assert.assertEquals(
+                "Hello Anna!",
+                first.translate("Hello {user}!", Utils.map("user", new User("Anna", "female"))));
+    }
+    
+    @Test
+    public void testTranslatingHtml() {
+        Session session = new Session(Utils.map(
+                "key", "application.json",
+                "locale", "en",
+                "applicationClass", "com.translationexchange.core.dummy.DummyApplication"));
+
+        Assert.assertEquals("<p>Hello world</p>", session.trh("<p>Hello world</p>", Utils.map(), Utils.map()));
+        Assert.assertEquals(
+                "<p>{{{Hello world}}}</p>",
+                session.trh("<p>Hello world</p>", Utils.map(), Utils.map("debug", true, "debug_format", "{{{{$0}}}}")));
+        Assert.assertEquals(
+                "<p>{{{Hello world}}}</p>",
+                session.trh("<p>Hello world</p>", Utils.map(), Utils.map(Session.SESSION_KEY, session, "debug", true, "debug_format", "{{{{$0}}}}")));
+    }
+
     @AfterClass
     public static void deconfigureTml() {
         Tml.getConfig().setApplicationClass("com.translationexchange.core.Application");
@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2015 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.translationexchange.core;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.translationexchange.core.languages.Language;
+
+public class TranslationBundleReaderTest extends BaseTest {
+
+    private static class CollectingHandler implements TranslationBundleHandler {
+        private final Map<String, Object> keys = new LinkedHashMap<String, Object>();
+
+        public void onTranslationKey(String key, List<Map<String, Object>> translations) {
+            keys.put(key, translations);
+        }
+    }
+
+    @Test
+    public void testReadingBundles() throws IOException {
+        String json = loadResource("/translations/ru/snippet.json");
+        CollectingHandler handler = new CollectingHandler();
+        TranslationBundleReader reader = new TranslationBundleReader(handler);
+
+        int count = reader.read(new StringReader(json));
+
+        Map<String, Object> expected = (Map<String, Object>) loadJSONMap("/translations/ru/snippet.json").get("results");
+        Assert.assertEquals(expected.size(), count);
+        Assert.assertEquals(expected, handler.keys);
+        Assert.assertNull(reader.getError());
+    }
+
+    @Test
+    public void testReadingNestedValuesAndSkippingAttributes() throws IOException {
+        String json = "{\"extensions\": {\"results\": {\"skipped\": [{\"label\": \"x\"}]}}, "
+                + "\"results\": {\"key\": [{\"label\": \"{user} ...\", \"context\": {\"user\": [\"male\"]}, \"locale\": \"ru\"}], "
+                + "\"empty\": []}, \"total\": 2}";
+        CollectingHandler handler = new CollectingHandler();
+
+        Assert.assertEquals(2, new TranslationBundleReader(handler).read(new StringReader(json)));
+        Assert.assertEquals(Utils.parseJSON("{\"key\": [{\"label\": \"{user} ...\", \"context\": {\"user\": [\"male\"]}, \"locale\": \"ru\"}], \"empty\": []}"),
+                handler.keys);
+    }
+
+    @Test
+    public void testReadingErrors() throws IOException {
+        TranslationBundleReader reader = new TranslationBundleReader(new CollectingHandler());
+        reader.read(new StringReader("{\"error\": \"Access denied\"}"));
+        Assert.assertEquals("Access denied", reader.getError());
+
+        try {
+            reader.read(new StringReader("{\"results\": {\"key\": ["));
+            Assert.fail("Expected an invalid bundle");
+        } catch (IOException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testStreamingIntoApplication() throws IOException {
+        Application app = new Application(loadJSONMap("/application.json"));
+        Language ru = app.getLanguage("ru");
+
+        int count = app.updateTranslationKeys(ru, new StringReader(loadResource("/translations/ru/snippet.json")));
+        Assert.assertTrue(count > 0);
+
+        TranslationKey key = app.getTranslationKey("c59e947093a020f150715057c38759fd");
+        Assert.assertEquals("1 чашка геркулеса", key.getLabel());
+        Assert.assertEquals(1, key.getTranslations("ru").size());
+    }
+
+    @Test
+    public void testStreamingDoesNotChangePublishedKeysBeforeTheEnd() throws IOException {
+        Application app = new Application(loadJSONMap("/application.json"));
+        Language ru = app.getLanguage("ru");
+        final TranslationKey published = new TranslationKey("c59e947093a020f150715057c38759fd");
+        published.setLabel("1 cup of oats");
+        app.addTranslationKey(published);
+
+        final List<String> localesWhileReading = new ArrayList<String>();
+        app.updateTranslationKeys(ru, new StringReader(loadResource("/translations/ru/snippet.json")) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                int count = super.read(buffer, offset, length);
+                if (count < 0)
+                    localesWhileReading.addAll(published.getTranslationLocales());
+                return count;
+            }
+        });
+
+        Assert.assertEquals(new ArrayList<String>(), localesWhileReading);
+        Assert.assertSame(published, app.getTranslationKey("c59e947093a020f150715057c38759fd"));
+        Assert.assertEquals("1 cup of oats", published.getLabel());
+        Assert.assertEquals(1, published.getTranslations("ru").size());
+        Assert.assertSame(published, published.getTranslations("ru").get(0).getTranslationKey());
+    }
+}
@@ -51,6 +51,7 @@ import static org.powermock.reflect.Whitebox.invokeMethod;
 import com.translationexchange.core.languages.Language;
 import com.translationexchange.core.models.User;
 import com.translationexchange.core.tokenizers.Tokenizer;
+import com.translationexchange.core.tokenizers.TokenizerTemplate;
 
 /**
  * Created by michael on 3/11/14.
@@ -243,13 +244,30 @@ public class TranslationKeyTest extends BaseTest {
                 "Hello Michael",
                 tkey.applyTokenizer(TranslationKey.DEFAULT_TOKENIZERS_DATA, tkey.getLabel(), ru, null, tokens, Utils.map()));
         
-        TranslationKey spiedKey = PowerMockito.spy(tkey);
-        PowerMockito.doReturn(DummyTokenizer.class).when(spiedKey, "getTokenizerByKey", "dummy_tokenizer");
+        Tml.getConfig().addTokenizerClass("dummy_tokenizer", DummyTokenizer.class.getName());
         Assert.assertEquals(
                 "Hello {user}",
-                spiedKey.applyTokenizer("dummy_tokenizer", tkey.getLabel(), ru, null, tokens, Utils.map()));
+                tkey.applyTokenizer("dummy_tokenizer", tkey.getLabel(), ru, null, tokens, Utils.map()));
+
+        Assert.assertEquals(
+                "Hello {user}",
+                tkey.applyTokenizer("unknown_tokenizer", tkey.getLabel(), ru, null, tokens, Utils.map()));
     }
     
+    @Test
+    public void testTokenizerTemplateCache() throws Exception {
+        TranslationKey tkey = new TranslationKey(Utils.map("label", "Hello {user}", "description", ""));
+        TokenizerTemplate first = tkey.getTokenizerTemplate(TranslationKey.DEFAULT_TOKENIZERS_DATA, "Hello {user}", null);
+
+        // labels compiled past the capacity are still cached, older ones are dropped
+        for (int i = 0; i < TranslationKey.MAX_TOKENIZER_TEMPLATES * 2; i++)
+            tkey.getTokenizerTemplate(TranslationKey.DEFAULT_TOKENIZERS_DATA, "Label " + i + " {user}", null);
+        TokenizerTemplate last = tkey.getTokenizerTemplate(TranslationKey.DEFAULT_TOKENIZERS_DATA, "Last {user}", null);
+        Assert.assertSame(last, tkey.getTokenizerTemplate(TranslationKey.DEFAULT_TOKENIZERS_DATA, "Last {user}", null));
+        Assert.assertNotSame(first, tkey.getTokenizerTemplate(TranslationKey.DEFAULT_TOKENIZERS_DATA, "Hello {user}", null));
+        Assert.assertTrue(tkey.getTokenizerTemplates().size() <= TranslationKey.MAX_TOKENIZER_TEMPLATES);
+    }
+
     @Test
     public void testSubstitutions() throws Exception {
         final User user = new User("Michael", "male");
@@ -258,6 +258,14 @@ public class UtilsTest extends BaseTest {
         		Utils.join(Utils.buildList("1", "2", "3"), ", ")
         );
     }
+
+
+    @Test
+    public void testMd5Hex() {
+        Assert.assertEquals("d41d8cd98f00b204e9800998ecf8427e", Utils.md5Hex(""));
+        Assert.assertEquals("d541c79af1be6a05b1f16fca8b5730de", Utils.md5Hex("Hello World;;;"));
+        Assert.assertEquals("000fff7f", Utils.toHex(new byte[]{0, 15, -1, 127}));
+    }
     
     
 //    @Test
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.cache;
+
+import com.translationexchange.core.Utils;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MemoryCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Map<String, Object> version(String version) {
+        return Utils.map(CacheVersion.VERSION_KEY, version);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        MemoryCache cache = new MemoryCache(Utils.map("max_entries", 2));
+        cache.store("one", "1", version("1"));
+        cache.store("two", "2", version("1"));
+        Assert.assertEquals("1", cache.fetch("one", version("1")));
+
+        cache.store("three", "3", version("1"));
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.fetch("two", version("1")));
+        Assert.assertEquals("1", cache.fetch("one", version("1")));
+        Assert.assertEquals("3", cache.fetch("three", version("1")));
+        Assert.assertNull(cache.fetch("one", version("2")));
+
+        Assert.assertEquals(1, cache.getEvictionCount());
+        Assert.assertEquals(3, cache.getHitCount());
+        Assert.assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testWeightLimit() {
+        MemoryCache cache = new MemoryCache(Utils.map("max_weight", "10"));
+        cache.store("one", "12345", null);
+        cache.store("two", "12345", null);
+        Assert.assertEquals(10, cache.getWeight());
+
+        cache.store("three", "123", null);
+        Assert.assertEquals(8, cache.getWeight());
+        Assert.assertNull(cache.fetch("one", null));
+
+        cache.store("two", "1", null);
+        Assert.assertEquals(4, cache.getWeight());
+
+        cache.delete("three", null);
+        Assert.assertEquals(1, cache.getWeight());
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testExpiration() {
+        final AtomicLong now = new AtomicLong(1000);
+        MemoryCache cache = new MemoryCache(Utils.map("ttl", 1)) {
+            @Override
+            protected long currentTimeMillis() {
+                return now.get();
+            }
+        };
+        cache.store("one", "1", null);
+        now.addAndGet(999);
+        Assert.assertEquals("1", cache.fetch("one", null));
+
+        now.addAndGet(1);
+        Assert.assertNull(cache.fetch("one", null));
+        Assert.assertEquals(1, cache.getExpirationCount());
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testParsedEntriesAreReused() {
+        MemoryCache cache = new MemoryCache(Utils.map());
+        cache.store("application", "{\"key\":\"value\"}", version("1"));
+
+        Object json = cache.fetchParsed("application", version("1"));
+        Assert.assertTrue(json instanceof Map);
+        Assert.assertEquals("value", ((Map) json).get("key"));
+        Assert.assertSame(json, cache.fetchParsed("application", version("1")));
+        Assert.assertEquals("{\"key\":\"value\"}", cache.fetch("application", version("1")));
+    }
+
+    @Test
+    public void testBackendTier() {
+        Map<String, Object> backendConfig = Utils.map(
+            "class", "com.translationexchange.core.cache.FileCache",
+            "path", folder.getRoot().getAbsolutePath()
+        );
+        MemoryCache cache = new MemoryCache(Utils.map("max_entries", 1, "backend", backendConfig));
+        Assert.assertTrue(cache.getBackend() instanceof FileCache);
+
+        cache.store("sources/index", "{\"results\":{}}", version("1"));
+        cache.store("sources/navigation", "{}", version("1"));
+        Assert.assertTrue(new File(folder.getRoot(), "1/sources/index.json").exists());
+        Assert.assertEquals(1, cache.size());
+
+        // evicted from memory, loaded back from the file cache
+        Assert.assertEquals("{\"results\":{}}", cache.fetch("sources/index", version("1")));
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals("{\"results\":{}}", cache.fetch("sources/index", version("1")));
+        Assert.assertEquals(1, cache.getHitCount());
+
+        cache.delete("sources", Utils.map(CacheVersion.VERSION_KEY, "1", "directory", true));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNull(cache.fetch("sources/index", version("1")));
+        Assert.assertFalse(new File(folder.getRoot(), "1/sources").exists());
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.cache;
+
+import com.translationexchange.core.Utils;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PackedFileCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private PackedFileCache cache() {
+        return new PackedFileCache(Utils.map("path", folder.getRoot().getAbsolutePath()));
+    }
+
+    private Map<String, Object> version(String version) {
+        return Utils.map(CacheVersion.VERSION_KEY, version);
+    }
+
+    @Test
+    public void testStoreAndFetch() {
+        PackedFileCache cache = cache();
+        Assert.assertNull(cache.fetch("application", version("1")));
+
+        cache.store("application", "{\"key\":\"value\"}", version("1"));
+        cache.store("sources/index", "{\"results\":{\"привет\":[]}}", version("1"));
+        cache.store("application", "{\"key\":\"updated\"}", version("1"));
+
+        Assert.assertEquals("{\"key\":\"updated\"}", cache.fetch("application", version("1")));
+        Assert.assertEquals("{\"results\":{\"привет\":[]}}", cache.fetch("sources/index", version("1")));
+        Assert.assertNull(cache.fetch("application", version("2")));
+
+        Assert.assertTrue(new File(folder.getRoot(), "1.pack").exists());
+        Assert.assertFalse(new File(folder.getRoot(), "1").exists());
+        cache.reset();
+
+        PackedFileCache reopened = cache();
+        Assert.assertEquals("{\"key\":\"updated\"}", reopened.fetch("application", version("1")));
+        Assert.assertEquals("{\"results\":{\"привет\":[]}}", reopened.fetch("sources/index", version("1")));
+        reopened.reset();
+    }
+
+    @Test
+    public void testDelete() {
+        PackedFileCache cache = cache();
+        cache.store("application", "app", version("1"));
+        cache.store("sources/index", "index", version("1"));
+        cache.store("sources/navigation", "navigation", version("1"));
+
+        cache.delete("application", version("1"));
+        Assert.assertNull(cache.fetch("application", version("1")));
+
+        cache.delete("sources", Utils.map(CacheVersion.VERSION_KEY, "1", "directory", true));
+        Assert.assertNull(cache.fetch("sources/index", version("1")));
+        Assert.assertNull(cache.fetch("sources/navigation", version("1")));
+        cache.reset();
+
+        PackedFileCache reopened = cache();
+        Assert.assertNull(reopened.fetch("application", version("1")));
+        Assert.assertNull(reopened.fetch("sources/index", version("1")));
+        reopened.store("application", "restored", version("1"));
+        Assert.assertEquals("restored", reopened.fetch("application", version("1")));
+        reopened.reset();
+    }
+
+    @Test
+    public void testIncompleteRecordsAreDropped() throws Exception {
+        PackedFileCache cache = cache();
+        cache.store("application", "app", version("1"));
+        cache.store("sources/index", "index", version("1"));
+        cache.reset();
+
+        File pack = new File(folder.getRoot(), "1.pack");
+        RandomAccessFile file = new RandomAccessFile(pack, "rw");
+        file.setLength(file.length() - 2);
+        file.close();
+
+        PackedFileCache reopened = cache();
+        Assert.assertEquals("app", reopened.fetch("application", version("1")));
+        Assert.assertNull(reopened.fetch("sources/index", version("1")));
+        reopened.store("sources/index", "index", version("1"));
+        Assert.assertEquals("index", reopened.fetch("sources/index", version("1")));
+        reopened.reset();
+    }
+
+    @Test
+    public void testSharedPack() {
+        // two caches on the same path stand for two processes sharing a pack
+        PackedFileCache first = cache();
+        PackedFileCache second = cache();
+        first.store("application", "app", version("1"));
+        Assert.assertEquals("app", second.fetch("application", version("1")));
+
+        second.store("sources/index", "index", version("1"));
+        first.store("sources/navigation", "navigation", version("1"));
+        second.store("application", "updated", version("1"));
+
+        Assert.assertEquals("index", first.fetch("sources/index", version("1")));
+        Assert.assertEquals("navigation", second.fetch("sources/navigation", version("1")));
+        Assert.assertEquals("navigation", first.fetch("sources/navigation", version("1")));
+        Assert.assertEquals("updated", second.fetch("application", version("1")));
+
+        first.delete("sources/index", version("1"));
+        first.reset();
+        second.reset();
+
+        PackedFileCache reopened = cache();
+        Assert.assertEquals("updated", reopened.fetch("application", version("1")));
+        Assert.assertNull(reopened.fetch("sources/index", version("1")));
+        Assert.assertEquals("navigation", reopened.fetch("sources/navigation", version("1")));
+        reopened.reset();
+    }
+
+    @Test
+    public void testCompaction() {
+        PackedFileCache cache = new PackedFileCache(Utils.map("path", folder.getRoot().getAbsolutePath(), "compact_threshold", 100));
+        for (int i = 0; i < 20; i++)
+            cache.store("application", "{\"revision\":" + i + "}", version("1"));
+        cache.store("sources/index", "index", version("1"));
+        cache.store("sources/navigation", "navigation", version("1"));
+        cache.delete("sources/navigation", version("1"));
+
+        File pack = new File(folder.getRoot(), "1.pack");
+        long size = pack.length();
+
+        // a cache that opens the pack later compacts it, the first one follows
+        PackedFileCache reopened = new PackedFileCache(Utils.map("path", folder.getRoot().getAbsolutePath(), "compact_threshold", 100));
+        Assert.assertEquals("{\"revision\":19}", reopened.fetch("application", version("1")));
+        Assert.assertTrue(pack.length() < size / 4);
+        Assert.assertFalse(new File(folder.getRoot(), "1.pack.tmp").exists());
+        Assert.assertEquals("index", reopened.fetch("sources/index", version("1")));
+        Assert.assertNull(reopened.fetch("sources/navigation", version("1")));
+
+        cache.store("sources/footer", "footer", version("1"));
+        Assert.assertEquals("footer", reopened.fetch("sources/footer", version("1")));
+        reopened.store("sources/header", "header", version("1"));
+        Assert.assertEquals("header", cache.fetch("sources/header", version("1")));
+        Assert.assertEquals("{\"revision\":19}", cache.fetch("application", version("1")));
+        cache.reset();
+        reopened.reset();
+
+        // packs below the threshold are kept as they are
+        PackedFileCache small = cache();
+        small.store("application", "app", version("2"));
+        small.store("application", "updated", version("2"));
+        small.reset();
+        size = new File(folder.getRoot(), "2.pack").length();
+        Assert.assertEquals("updated", cache().fetch("application", version("2")));
+        Assert.assertEquals(size, new File(folder.getRoot(), "2.pack").length());
+    }
+
+    @Test
+    public void testStalePacksAreDeleted() {
+        PackedFileCache cache = cache();
+        cache.store("application", "old", version("1"));
+        cache.store("application", "new", version("2"));
+        cache.store("application", "unversioned", null);
+
+        CacheVersion current = new CacheVersion();
+        current.setVersion("2");
+        cache.setCacheVersion(current);
+
+        Assert.assertFalse(new File(folder.getRoot(), "1.pack").exists());
+        Assert.assertTrue(new File(folder.getRoot(), "2.pack").exists());
+        Assert.assertTrue(new File(folder.getRoot(), "unversioned.pack").exists());
+        Assert.assertNull(cache.fetch("application", version("1")));
+        Assert.assertEquals("new", cache.fetch("application", version("2")));
+        cache.reset();
+    }
+
+    @Test
+    public void testVersionIsKeptOutsideOfPacks() {
+        PackedFileCache cache = cache();
+        cache.store("version", "{\"version\":\"1\"}", version("1"));
+        Assert.assertTrue(new File(folder.getRoot(), "version.json").exists());
+        Assert.assertEquals("{\"version\":\"1\"}", cache.fetch("version", version("1")));
+        Assert.assertEquals("{\"version\":\"1\"}", cache.fetch("tml_current_version", version("1")));
+        cache.reset();
+    }
+}
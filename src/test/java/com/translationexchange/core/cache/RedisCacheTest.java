@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.cache;
+
+import com.translationexchange.core.Tml;
+import com.translationexchange.core.Utils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RedisCacheTest {
+
+    private RedisStandIn server;
+    private RedisCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RedisStandIn();
+        server.start();
+        cache = new RedisCache(Utils.map(
+            "port", server.getPort(),
+            "host", "127.0.0.1",
+            "namespace", "shared",
+            "compress_threshold", 64
+        ));
+        Tml.setCache(cache);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Tml.setCache(null);
+        cache.reset();
+        server.stop();
+    }
+
+    private Map<String, Object> version(String version) {
+        return Utils.map(CacheVersion.VERSION_KEY, version);
+    }
+
+    @Test
+    public void testStoreAndFetch() {
+        Assert.assertNull(Tml.getCache().fetch("application", version("1")));
+
+        Tml.getCache().store("application", "{\"key\":\"value\"}", version("1"));
+        Assert.assertEquals("{\"key\":\"value\"}", Tml.getCache().fetch("application", version("1")));
+        Assert.assertNull(Tml.getCache().fetch("application", version("2")));
+        Assert.assertTrue(server.getData().containsKey("tml_shared_v1_application"));
+
+        // connections are reused
+        Assert.assertEquals(1, server.getConnectionCount());
+    }
+
+    @Test
+    public void testCompression() {
+        StringBuilder data = new StringBuilder("{\"results\":{");
+        for (int i = 0; i < 100; i++)
+            data.append("\"key").append(i).append("\":[{\"label\":\"Привет\"}],");
+        data.append("\"last\":[]}}");
+
+        cache.store("sources/index", data.toString(), version("1"));
+        byte[] stored = server.getData().get("tml_shared_v1_sources/index");
+        Assert.assertTrue(stored.length < data.toString().getBytes(Utils.UTF_8).length);
+        Assert.assertEquals((byte) 0x1f, stored[0]);
+        Assert.assertEquals(data.toString(), cache.fetch("sources/index", version("1")));
+
+        cache.store("application", "{}", version("1"));
+        Assert.assertEquals("{}", new String(server.getData().get("tml_shared_v1_application"), Utils.UTF_8));
+    }
+
+    @Test
+    public void testMalformedReply() throws Exception {
+        cache.store("application", "app", version("1"));
+        Assert.assertEquals(1, server.getConnectionCount());
+
+        // the connection that could not read the reply is closed rather than reused
+        server.addMalformedKey("tml_shared_v1_sources/index");
+        Assert.assertNull(cache.fetch("sources/index", version("1")));
+        Assert.assertTrue(server.awaitClosedConnection(5, TimeUnit.SECONDS));
+
+        Assert.assertEquals("app", cache.fetch("application", version("1")));
+        Assert.assertEquals(2, server.getConnectionCount());
+    }
+
+    @Test
+    public void testDelete() {
+        cache.store("application", "app", version("1"));
+        cache.store("sources/index", "index", version("1"));
+        cache.store("sources/navigation", "navigation", version("1"));
+        cache.store("sources/index", "index", version("2"));
+
+        cache.delete("application", version("1"));
+        Assert.assertNull(cache.fetch("application", version("1")));
+
+        cache.delete("sources", Utils.map(CacheVersion.VERSION_KEY, "1", "directory", true));
+        Assert.assertNull(cache.fetch("sources/index", version("1")));
+        Assert.assertNull(cache.fetch("sources/navigation", version("1")));
+        Assert.assertEquals("index", cache.fetch("sources/index", version("2")));
+    }
+
+    @Test
+    public void testUnavailableServer() throws Exception {
+        server.stop();
+        cache.reset();
+        RedisCache unavailable = new RedisCache(Utils.map("port", server.getPort(), "host", "127.0.0.1", "timeout", 200));
+        Assert.assertNull(unavailable.fetch("application", version("1")));
+        unavailable.store("application", "app", version("1"));
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for a Redis server, implementing the commands used by {@link RedisCache}.
+ */
+public class RedisStandIn {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Map<String, byte[]> data = new ConcurrentHashMap<String, byte[]>();
+    private final AtomicInteger commandCount = new AtomicInteger();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final Semaphore closedConnections = new Semaphore(0);
+    private final Set<String> malformed = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private ServerSocket serverSocket;
+
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(new Runnable() {
+            public void run() {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        final Socket socket = serverSocket.accept();
+                        connectionCount.incrementAndGet();
+                        Thread client = new Thread(new Runnable() {
+                            public void run() {
+                                serve(socket);
+                            }
+                        });
+                        client.setDaemon(true);
+                        client.start();
+                    } catch (IOException ex) {
+                        return;
+                    }
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public void stop() throws IOException {
+        serverSocket.close();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public Map<String, byte[]> getData() {
+        return data;
+    }
+
+    public int getCommandCount() {
+        return commandCount.get();
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * Makes GET of the key reply with a bulk length that is not a number
+     */
+    public void addMalformedKey(String key) {
+        malformed.add(key);
+    }
+
+    /**
+     * Waits until a client closes a connection
+     */
+    public boolean awaitClosedConnection(long timeout, TimeUnit unit) throws InterruptedException {
+        return closedConnections.tryAcquire(timeout, unit);
+    }
+
+    private void serve(Socket socket) {
+        try {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            while (true) {
+                List<byte[]> command = readCommand(in);
+                if (command == null) {
+                    closedConnections.release();
+                    break;
+                }
+                commandCount.incrementAndGet();
+                execute(command, out);
+                if (in.available() == 0)
+                    out.flush();
+            }
+            socket.close();
+        } catch (IOException ex) {
+            // client went away
+        }
+    }
+
+    private void execute(List<byte[]> command, OutputStream out) throws IOException {
+        String name = string(command.get(0)).toUpperCase();
+        if (name.equals("PING") || name.equals("SELECT") || name.equals("AUTH")) {
+            write(out, "+OK\r\n");
+        } else if (name.equals("GET") && malformed.contains(string(command.get(1)))) {
+            write(out, "$length\r\n");
+        } else if (name.equals("GET")) {
+            writeBulk(out, data.get(string(command.get(1))));
+        } else if (name.equals("SET")) {
+            data.put(string(command.get(1)), command.get(2));
+            write(out, "+OK\r\n");
+        } else if (name.equals("DEL")) {
+            int count = 0;
+            for (int i = 1; i < command.size(); i++) {
+                if (data.remove(string(command.get(i))) != null)
+                    count++;
+            }
+            write(out, ":" + count + "\r\n");
+        } else if (name.equals("SCAN")) {
+            Pattern pattern = globPattern(string(command.get(3)));
+            List<String> keys = new ArrayList<String>();
+            for (String key : data.keySet()) {
+                if (pattern.matcher(key).matches())
+                    keys.add(key);
+            }
+            write(out, "*2\r\n");
+            writeBulk(out, "0".getBytes(UTF_8));
+            write(out, "*" + keys.size() + "\r\n");
+            for (String key : keys)
+                writeBulk(out, key.getBytes(UTF_8));
+        } else {
+            write(out, "-ERR unknown command '" + name + "'\r\n");
+        }
+    }
+
+    private static Pattern globPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '\\' && i + 1 < glob.length())
+                regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+            else if (c == '*')
+                regex.append(".*");
+            else if (c == '?')
+                regex.append('.');
+            else
+                regex.append(Pattern.quote(String.valueOf(c)));
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        int type = in.read();
+        if (type == -1)
+            return null;
+        if (type != '*')
+            throw new IOException("Unexpected command type: " + (char) type);
+
+        int count = Integer.parseInt(readLine(in));
+        List<byte[]> command = new ArrayList<byte[]>(count);
+        for (int i = 0; i < count; i++) {
+            in.read();
+            int length = Integer.parseInt(readLine(in));
+            byte[] argument = new byte[length];
+            int offset = 0;
+            while (offset < length)
+                offset += in.read(argument, offset, length - offset);
+            readLine(in);
+            command.add(argument);
+        }
+        return command;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int c;
+        while ((c = in.read()) != '\r')
+            line.write(c);
+        in.read();
+        return new String(line.toByteArray(), UTF_8);
+    }
+
+    private static void writeBulk(OutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            write(out, "$-1\r\n");
+            return;
+        }
+        write(out, "$" + value.length + "\r\n");
+        out.write(value);
+        write(out, "\r\n");
+    }
+
+    private static void write(OutputStream out, String value) throws IOException {
+        out.write(value.getBytes(UTF_8));
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, UTF_8);
+    }
+}
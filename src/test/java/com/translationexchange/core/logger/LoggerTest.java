@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.logger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.translationexchange.core.Logger;
+
+import static org.mockito.Mockito.*;
+
+public class LoggerTest {
+
+    @Test
+    public void testSampling() {
+        LogSampler sampler = new LogSampler(3);
+        int written = 0;
+        for (int i = 0; i < 10; i++) {
+            if (sampler.sample())
+                written++;
+        }
+        Assert.assertEquals(4, written);
+        Assert.assertEquals(10, sampler.getCount());
+
+        LogSampler all = new LogSampler(0);
+        Assert.assertEquals(1, all.getRate());
+        Assert.assertTrue(all.sample());
+        Assert.assertTrue(all.sample());
+    }
+
+    @Test
+    public void testDisabledDebugBuildsNothing() {
+        // tests run without an slf4j binding, so debug is off
+        Logger logger = new Logger();
+        Assert.assertFalse(logger.isDebugEnabled());
+
+        logger.debug(new MessageSupplier() {
+            public Object get() {
+                throw new AssertionError("A message that is not written must not be built");
+            }
+        });
+        logger.debugf("Cache hit: {}", new Object() {
+            public String toString() {
+                throw new AssertionError("An argument that is not written must not be formatted");
+            }
+        });
+        logger.debug("index", "Tagged message");
+    }
+
+    @Test
+    public void testAdapter() {
+        LoggerInterface custom = mock(LoggerInterface.class);
+        LoggerAdapter logger = new LoggerAdapter(custom, "debug");
+        Assert.assertSame(custom, logger.getLogger());
+        Assert.assertTrue(logger.isDebugEnabled());
+
+        logger.debugf("Cache hit: {}", "index");
+        verify(custom).debug("Cache hit: index");
+
+        logger.debugf("Opened cache pack {} with {} entries", "pack", 3);
+        verify(custom).debug("Opened cache pack pack with 3 entries");
+
+        logger.warnf("Failed to load {}", "ru");
+        verify(custom).warn("Failed to load ru");
+
+        logger.debug("index", "Tagged message");
+        verify(custom).debug("index", "Tagged message");
+    }
+
+    @Test
+    public void testAdapterLevels() {
+        Object unformatted = new Object() {
+            public String toString() {
+                throw new AssertionError("An argument that is not written must not be formatted");
+            }
+        };
+
+        // custom loggers write info and above unless configured otherwise
+        LoggerInterface custom = mock(LoggerInterface.class);
+        LoggerAdapter logger = new LoggerAdapter(custom);
+        Assert.assertFalse(logger.isDebugEnabled());
+        Assert.assertTrue(logger.isInfoEnabled());
+        logger.debugf("Cache hit: {}", unformatted);
+        logger.infof("Loaded {}", "ru");
+        verify(custom).info("Loaded ru");
+        verify(custom, never()).debug(anyObject());
+
+        LoggerInterface quiet = mock(LoggerInterface.class);
+        logger = new LoggerAdapter(quiet, "ERROR");
+        Assert.assertFalse(logger.isWarnEnabled());
+        Assert.assertTrue(logger.isErrorEnabled());
+        logger.infof("Loaded {}", unformatted);
+        logger.warnf("Failed to load {}", unformatted);
+        logger.errorf("Failed to load {}", "ru");
+        verify(quiet).error("Failed to load ru");
+        verify(quiet, never()).warn(anyObject());
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2018 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * @author Michael Berkovich
+ * @version $Id: $Id
+ */
+
+package com.translationexchange.core.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MemoryMetricsTest {
+
+    @Test
+    public void testHistogram() {
+        Histogram histogram = new Histogram();
+        Assert.assertEquals(0, histogram.getPercentile(50));
+
+        for (int i = 1; i <= 100; i++)
+            histogram.record(i);
+        histogram.record(-5);
+
+        Assert.assertEquals(101, histogram.getCount());
+        Assert.assertEquals(5050, histogram.getSum());
+        Assert.assertEquals(100, histogram.getMax());
+        Assert.assertEquals(63, histogram.getPercentile(50));
+        Assert.assertEquals(100, histogram.getPercentile(99));
+        Assert.assertEquals(1, histogram.getBuckets()[0]);
+
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void testRecording() {
+        MemoryMetrics metrics = new MemoryMetrics();
+        Assert.assertTrue(metrics.isEnabled());
+
+        metrics.recordTranslation("ru", Metrics.TRANSLATION_HIT, 1000);
+        metrics.recordTranslation("ru", Metrics.TRANSLATION_HIT, 2000);
+        metrics.recordTranslation("ru", Metrics.TRANSLATION_FALLBACK, 3000);
+        metrics.recordTranslation("es", Metrics.TRANSLATION_MISSING, 4000);
+        Assert.assertEquals(2, metrics.getTranslationStats().size());
+        Assert.assertEquals(2, metrics.getTranslationStats("ru").getHitCount());
+        Assert.assertEquals(1, metrics.getTranslationStats("ru").getFallbackCount());
+        Assert.assertEquals(3, metrics.getTranslationStats("ru").getLatency().getCount());
+        Assert.assertEquals(1, metrics.getTranslationStats("es").getMissingCount());
+        Assert.assertNull(metrics.getTranslationStats("fr"));
+
+        metrics.recordCacheLookup(Metrics.CACHE_TIER_MEMORY, Metrics.KEY_TYPE_SOURCE, true);
+        metrics.recordCacheLookup(Metrics.CACHE_TIER_MEMORY, Metrics.KEY_TYPE_SOURCE, false);
+        metrics.recordCacheLookup(Metrics.CACHE_TIER_FILE, Metrics.KEY_TYPE_SOURCE, false);
+        Assert.assertEquals(1, metrics.getCacheStats(Metrics.CACHE_TIER_MEMORY, Metrics.KEY_TYPE_SOURCE).getHitCount());
+        Assert.assertEquals(1, metrics.getCacheStats(Metrics.CACHE_TIER_MEMORY, Metrics.KEY_TYPE_SOURCE).getMissCount());
+        Assert.assertEquals(1, metrics.getCacheStats(Metrics.CACHE_TIER_FILE, Metrics.KEY_TYPE_SOURCE).getMissCount());
+        Assert.assertNull(metrics.getCacheStats(Metrics.CACHE_TIER_FILE, Metrics.KEY_TYPE_LANGUAGE));
+
+        metrics.recordRequest(Metrics.REQUEST_CDN, 5000, 100);
+        metrics.recordRequest(Metrics.REQUEST_CDN, 7000, 200);
+        Assert.assertEquals(2, metrics.getRequestStats(Metrics.REQUEST_CDN).getRequestCount());
+        Assert.assertEquals(300, metrics.getRequestStats(Metrics.REQUEST_CDN).getBytes());
+        Assert.assertEquals(7000, metrics.getRequestStats(Metrics.REQUEST_CDN).getLatency().getMax());
+
+        metrics.recordLoad(Metrics.LOAD_SOURCE, 1000, true);
+        metrics.recordLoad(Metrics.LOAD_SOURCE, 1000, false);
+        Assert.assertEquals(2, metrics.getLoadStats(Metrics.LOAD_SOURCE).getLoadCount());
+        Assert.assertEquals(1, metrics.getLoadStats(Metrics.LOAD_SOURCE).getFailureCount());
+
+        metrics.recordMissingKeyQueueDepth(5);
+        metrics.recordMissingKeyQueueDepth(2);
+        Assert.assertEquals(2, metrics.getMissingKeyQueueDepth());
+        Assert.assertEquals(5, metrics.getMaxMissingKeyQueueDepth());
+
+        metrics.reset();
+        Assert.assertTrue(metrics.getTranslationStats().isEmpty());
+        Assert.assertTrue(metrics.getCacheStats().isEmpty());
+        Assert.assertNull(metrics.getRequestStats(Metrics.REQUEST_CDN));
+        Assert.assertEquals(0, metrics.getMaxMissingKeyQueueDepth());
+    }
+}
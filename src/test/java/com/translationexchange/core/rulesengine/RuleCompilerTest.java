@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2015 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.translationexchange.core.rulesengine;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.translationexchange.core.BaseTest;
+import com.translationexchange.core.Utils;
+
+public class RuleCompilerTest extends BaseTest {
+
+    private Object interpret(Object expression, Map<String, Object> vars) {
+        return new Evaluator(new HashMap<String, Object>(vars)).evaluate(expression);
+    }
+
+    private void assertSameResult(Object expression, Map<String, Object> vars) {
+        Object expected;
+        try {
+            expected = interpret(expression, vars);
+        } catch (Exception ex) {
+            assertFails(expression, vars, ex);
+            return;
+        }
+        Assert.assertEquals(expression + " with " + vars, expected, RuleCompiler.compile(expression).evaluate(vars));
+    }
+
+    private void assertFails(Object expression, Map<String, Object> vars, Exception expected) {
+        Object actual;
+        try {
+            actual = RuleCompiler.compile(expression).evaluate(vars);
+        } catch (Exception ex) {
+            return;
+        }
+        Assert.fail(expression + " with " + vars + " returned " + actual + " instead of failing with " + expected);
+    }
+
+    @Test
+    public void testCompilingRuleFixtures() {
+        Map<String, Object> rules = loadJSONMap("/rules.json");
+        String[] values = {"", "1", "a", "Michael", "vowel", "ab"};
+
+        for (Map.Entry<String, Object> rule : rules.entrySet()) {
+            for (int n = 0; n <= 200; n++) {
+                Map<String, Object> vars = new HashMap<String, Object>();
+                vars.put("@n", n);
+                vars.put("@value", values[n % values.length]);
+                assertSameResult(rule.getValue(), vars);
+                assertSameResult(new Parser(rule.getKey()).parse(), vars);
+            }
+        }
+    }
+
+    @Test
+    public void testCompilingExpressions() {
+        Map<String, Object> vars = new HashMap<String, Object>();
+        vars.put("@value", "Michael");
+        vars.put("@n", 12);
+        vars.put("@count", "1.5");
+        vars.put("@genders", Utils.buildList("male", "female", "male"));
+
+        String[] expressions = {
+            "(in '1,2,3,5..10,20..24' @n)",
+            "(within '0..2' @count)",
+            "(match '/^M/' @value)",
+            "(replace '/ael$/' 'y' @value)",
+            "(count @genders)",
+            "(all @genders 'male')",
+            "(any @genders 'female')",
+            "(&& (= (let @x 4) 4) (= @x 4))",
+            "(+ (* @n 2) (- 10 (/ 8 2)))",
+            "(if (> @n 10) 'many' 'few')",
+            "(date '2010-01-01')",
+            "(append 'Mr. ' @value)",
+            "(|| (= 1 2) (= 2 2))",
+            "(not (= @value 'John'))"
+        };
+
+        for (String expression : expressions) {
+            Object parsed = new Parser(expression).parse();
+            Assert.assertEquals(expression, interpret(parsed, vars), RuleCompiler.compile(expression).evaluate(vars));
+        }
+    }
+
+    @Test
+    public void testCompiledRuleVariables() {
+        CompiledRule rule = RuleCompiler.compile("(&& (= 1 (mod @n 10)) (!= 11 (mod @n 100)))");
+        List<String> names = rule.getVariableNames();
+        Assert.assertEquals(Utils.buildList("@n"), names);
+        Assert.assertFalse(rule.isConstant());
+        Assert.assertEquals(true, rule.evaluate("@n", 21));
+        Assert.assertEquals(false, rule.evaluate("@n", 11));
+
+        Assert.assertTrue(RuleCompiler.compile("(+ 1 1)").isConstant());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectingUnknownFunctions() {
+        RuleCompiler.compile("(unknown_function 1 2)");
+    }
+}
@@ -31,11 +31,18 @@
 
 package com.translationexchange.core.tokenizers;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.translationexchange.core.BaseTest;
+import com.translationexchange.core.Tml;
 import com.translationexchange.core.Utils;
 import com.translationexchange.core.tokens.Token;
 
@@ -110,4 +117,64 @@ public class DataTokenizerTest {
 
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testScannerMatchesSequentialExtraction() throws Exception {
+        List<String> labels = Utils.buildStringList(
+                "Hello {user}",
+                "Hello {user:gender}",
+                "Hello {user : gender :: gen}",
+                "Hello {user.name::gen} and {user}",
+                "Hello {{ user }} and %{ user }",
+                "{user} has {count|| message} and {count | one: item, other: items}",
+                "{count||item} from {user.name} for {name}, {name} and {name|| one, two}",
+                "{actor} любезно дала тебе {count||яблоко, яблока, яблок}",
+                "{user| He, She} has {count} {count|| item}",
+                "No tokens at all"
+        );
+        for (String fixture : Utils.buildStringList("basic", "counters", "genders")) {
+            for (Object key : BaseTest.loadJSONList("/translations/ru/" + fixture + ".json")) {
+                Map<String, Object> data = (Map<String, Object>) key;
+                labels.add((String) data.get("label"));
+                for (Map<String, Object> translation : ((Map<String, List<Map<String, Object>>>) data.get("translations")).get("ru"))
+                    labels.add((String) translation.get("label"));
+            }
+        }
+
+        for (String label : labels) {
+            List<String> expected = new ArrayList<String>();
+            for (Token token : extractSequentially(label))
+                expected.add(token.getClass().getName() + ":" + token.getFullName());
+
+            List<String> actual = new ArrayList<String>();
+            for (Token token : new DataTokenizer(label).getTokens())
+                actual.add(token.getClass().getName() + ":" + token.getFullName());
+
+            Assert.assertEquals(label, expected, actual);
+        }
+    }
+
+    /**
+     * Original extraction: one regex pass per token class, removing matches from the label
+     */
+    private List<Token> extractSequentially(String label) throws Exception {
+        List<Token> tokens = new ArrayList<Token>();
+        List<String> tokenMatches = new ArrayList<String>();
+        String matchingLabel = label;
+        for (String className : Tml.getConfig().getTokenClasses()) {
+            Class<?> tokenClass = Class.forName(className);
+            Pattern pattern = Pattern.compile((String) tokenClass.getMethod("getExpression").invoke(null));
+            Matcher matcher = pattern.matcher(matchingLabel);
+            while (matcher.find()) {
+                String match = matcher.group();
+                if (tokenMatches.contains(match))
+                    continue;
+                tokenMatches.add(match);
+                tokens.add((Token) tokenClass.getConstructor(String.class, String.class).newInstance(match, label));
+                matchingLabel = matchingLabel.replaceAll(Pattern.quote(match), "");
+            }
+        }
+        return tokens;
+    }
+
 }
@@ -1,5 +1,13 @@
 package com.translationexchange.core.tokenizers;
 
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.lang.reflect.Method;
 import java.util.Map;
 
@@ -12,6 +20,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import com.translationexchange.core.BaseTest;
+import com.translationexchange.core.Session;
 import com.translationexchange.core.Tml;
 import com.translationexchange.core.Utils;
 
@@ -24,9 +33,11 @@ public class DomTokenizerTest extends BaseTest {
         Method isEmptyString = Utils.getPrivateMethod(dt, "isEmptyString", String.class);
         Assert.assertTrue((Boolean) isEmptyString.invoke(dt, "            \n\n"));
         
-        Method option = Utils.getPrivateMethod(dt, "option", String.class);
-        Assert.assertTrue((Boolean) option.invoke(dt, "data_tokens.date.enabled"));
-        Assert.assertEquals(Utils.buildList("style", "script", "code", "pre"), option.invoke(dt, "nodes.scripts"));
+        DomTokenizerProfile profile = dt.getProfile();
+        Assert.assertEquals(4, profile.getDateTokenPatterns().size());
+        for (String script : Utils.buildStringList("style", "script", "code", "pre"))
+            Assert.assertTrue(profile.isScriptNode(script));
+        Assert.assertFalse(profile.isScriptNode("div"));
         
         Method debugTranslation = Utils.getPrivateMethod(dt, "debugTranslation", String.class);
         Assert.assertEquals("{{{Hello}}}", debugTranslation.invoke(dt, "Hello"));
@@ -161,4 +172,93 @@ public class DomTokenizerTest extends BaseTest {
             Assert.assertEquals(expected, dt.translate(actual));
         }
     }
+
+    @Test
+    public void testSharedProfile() {
+        DomTokenizerProfile profile = new DomTokenizerProfile(Utils.extendMap(Tml.getConfig().getTranslatorOptions(),
+                "debug", true,
+                "debug_format", "{{{{$0}}}}"));
+        Assert.assertTrue(profile.isDebug());
+        Assert.assertTrue(profile.isInlineNode("span"));
+        Assert.assertTrue(profile.isSplitterNode("br"));
+        Assert.assertEquals("bold", profile.getTokenName("b"));
+        Assert.assertEquals("span", profile.getTokenName("span"));
+        Assert.assertEquals(6, profile.getDataTokenRules().size());
+
+        String html = "<p>Hello <b>World</b> on Jan 15, 2017</p>";
+        String expected = new DomTokenizer(Utils.map(), Utils.extendMap(Tml.getConfig().getTranslatorOptions(),
+                "debug", true,
+                "debug_format", "{{{{$0}}}}")).translate(html);
+        Assert.assertEquals("<p>{{{Hello [bold: World] on {date}}}}</p>", expected);
+        Assert.assertEquals(expected, new DomTokenizer(Utils.map(), profile).translate(html));
+        Assert.assertEquals(expected, new DomTokenizer(Utils.map(), profile).translate(html));
+
+        StringBuilder out = new StringBuilder("<body>");
+        new DomTokenizer(Utils.map(), profile).translate(html, out);
+        Assert.assertEquals("<body>" + expected, out.toString());
+
+        DomTokenizerProfile empty = new DomTokenizerProfile(Utils.map());
+        Assert.assertFalse(empty.isDebug());
+        Assert.assertFalse(empty.isInlineNode("span"));
+        Assert.assertNull(empty.getSpecialTokenPattern());
+        Assert.assertTrue(empty.getDataTokenRules().isEmpty());
+    }
+
+    @Test
+    public void testStreaming() throws IOException {
+        DomTokenizer dt = new DomTokenizer(Utils.map(), Utils.extendMap(Tml.getConfig().getTranslatorOptions(),
+                "debug", true,
+                "debug_format", "{{{{$0}}}}"));
+
+        DirectoryScanner scanner = new DirectoryScanner();
+        scanner.setIncludes(new String[]{"dom/**/*.html"});
+        scanner.setBasedir("src/test/resources");
+        scanner.scan();
+        for (String file : scanner.getIncludedFiles()) {
+            String expected = loadResource("/" + file.replace("html", "tml"));
+            Assert.assertEquals(file, expected, translateStream(dt, loadResource("/" + file)));
+        }
+
+        String[] documents = {
+                "",
+                "Mr. Belvedere Fan Club",
+                "<!DOCTYPE html><html><head><title>Fan Club</title><style>p { color: red; }</style>"
+                        + "<script>var a = '<p>';</script></head><body><h1>Mr. Belvedere Fan Club</h1></body></html>",
+                "<body class='main'>\n<div id='page'>\n<section><h1>Hello</h1>\n<p>Welcome to <b>our</b> club</p></section>"
+                        + "<!-- footer --><footer>Terms &amp; conditions</footer>\n</div>\n</body>",
+                "<div><p>First paragraph<p>Second <i>paragraph</i><ul><li>One<li>Two</ul></div>",
+                "<div><img src='logo.png'><div>Welcome</div><div>Home</div></div>",
+                "<div><a href='/'>Home</a><div>Welcome</div> to the <b>club</b></div>",
+                "<div><span>Only child</span></div><div></div><div> </div><div><!-- comment --></div>",
+                "<div>Line one<br>Line two<br/><br></div><nav notranslate><a href='/'>Home</a></nav>",
+                "<div><p>Unclosed paragraph</div><p>After</p></br></p>",
+                "<table><tr><td>Cell <b>one</b></td><td>Cell two</td></tr></table><div>After &copy; 2017",
+                "<body notranslate><div>Hello</div></body>",
+                // CDATA sections are read as text, as the parser reads them
+                "<div><![CDATA[ x ]]>y</div>",
+                "<div><p>Before <![CDATA[ unclosed",
+                // a tag the document ends in is dropped, as the parser drops it
+                "<div title='unclosed>text</div>",
+                "<div><p>Text</p><p class=\"unclosed>More</p></div>",
+                "<div><p>Text</p></p"
+        };
+        for (String html : documents) {
+            Assert.assertEquals(html, dt.translate(html), translateStream(dt, html));
+        }
+    }
+
+    private String translateStream(DomTokenizer dt, String html) throws IOException {
+        StringWriter out = new StringWriter();
+        dt.translate(new StringReader(html), out);
+        return out.toString();
+    }
+
+    @Test
+    public void testSessionTranslation() {
+        Session session = mock(Session.class);
+        when(session.translate(eq("Hello world"), anyMapOf(String.class, Object.class))).thenReturn("Privet mir");
+
+        DomTokenizer dt = new DomTokenizer(Utils.map(), new DomTokenizerProfile(Tml.getConfig().getTranslatorOptions()), session);
+        Assert.assertEquals("<p>Privet mir</p>", dt.translate("<p>Hello world</p>"));
+    }
 }
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2015 Translation Exchange, Inc. All rights reserved.
+ *
+ *  _______                  _       _   _             ______          _
+ * |__   __|                | |     | | (_)           |  ____|        | |
+ *    | |_ __ __ _ _ __  ___| | __ _| |_ _  ___  _ __ | |__  __  _____| |__   __ _ _ __   __ _  ___
+ *    | | '__/ _` | '_ \/ __| |/ _` | __| |/ _ \| '_ \|  __| \ \/ / __| '_ \ / _` | '_ \ / _` |/ _ \
+ *    | | | | (_| | | | \__ \ | (_| | |_| | (_) | | | | |____ >  < (__| | | | (_| | | | | (_| |  __/
+ *    |_|_|  \__,_|_| |_|___/_|\__,_|\__|_|\___/|_| |_|______/_/\_\___|_| |_|\__,_|_| |_|\__, |\___|
+ *                                                                                        __/ |
+ *                                                                                       |___/
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.translationexchange.core.tokenizers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.translationexchange.core.Utils;
+
+public class TokenizerTemplateTest {
+
+    @Test
+    public void testCompilation() throws Exception {
+        TokenizerTemplate template = TokenizerTemplate.compile(DataTokenizer.FACTORY, "{user} has {count} messages", null);
+        Assert.assertTrue(template.isApplicable());
+        Assert.assertEquals(Arrays.asList("user", "count"), template.getTokenNames());
+
+        template = TokenizerTemplate.compile(DataTokenizer.FACTORY, "Hello World", null);
+        Assert.assertFalse(template.isApplicable());
+        Assert.assertEquals("Hello World", template.substitute(Utils.map("user", "Michael"), null, null));
+
+        template = TokenizerTemplate.compile(HtmlTokenizer.FACTORY, "Hello [bold: World]", Utils.buildStringList("bold"));
+        Assert.assertTrue(template.isCompiledWith(Utils.buildStringList("bold")));
+        Assert.assertFalse(template.isCompiledWith(null));
+        Assert.assertEquals(
+                "Hello <b>World</b>",
+                template.substitute(Utils.map("bold", "<b>{$0}</b>"), null, null)
+        );
+    }
+
+    @Test
+    public void testConcurrentSubstitution() throws Exception {
+        final TokenizerTemplate template = TokenizerTemplate.compile(DataTokenizer.FACTORY, "Hello {user}, you have {count} messages", null);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < 200; i++) {
+            final String user = "user" + i;
+            final int count = i;
+            results.add(executor.submit(new Callable<Boolean>() {
+                public Boolean call() {
+                    Object result = template.substitute(Utils.map("user", user, "count", count), null, null);
+                    return ("Hello " + user + ", you have " + count + " messages").equals(result);
+                }
+            }));
+        }
+
+        for (Future<Boolean> result : results) {
+            Assert.assertTrue(result.get());
+        }
+        executor.shutdown();
+    }
+
+}